@@ -33,6 +33,8 @@ package com.jirvan.csv;
 import com.google.common.collect.PeekingIterator;
 import com.jirvan.dates.Day;
 import com.jirvan.dates.Hour;
+import com.jirvan.dates.ImmutableDay;
+import com.jirvan.dates.ImmutableMonth;
 import com.jirvan.dates.Millisecond;
 import com.jirvan.dates.Minute;
 import com.jirvan.dates.Month;
@@ -183,21 +185,25 @@ public class CsvIterable<T> implements Iterable<T> {
         } else if (field.getType() == Boolean.class) {
             field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : Boolean.parseBoolean(stringValue.trim()));
         } else if (field.getType() == Month.class) {
-            field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : Month.fromString(stringValue.trim()));
+            field.set(row, isBlank(stringValue) ? null : Month.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
         } else if (field.getType() == Day.class) {
-            field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : Day.fromString(stringValue.trim()));
+            field.set(row, isBlank(stringValue) ? null : Day.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
+        } else if (field.getType() == ImmutableMonth.class) {
+            field.set(row, isBlank(stringValue) ? null : ImmutableMonth.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
+        } else if (field.getType() == ImmutableDay.class) {
+            field.set(row, isBlank(stringValue) ? null : ImmutableDay.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
         } else if (field.getType() == LocalDate.class) {
             field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : LocalDate.parse(stringValue.trim()));
         } else if (field.getType() == LocalDateTime.class) {
             field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : LocalDateTime.parse(stringValue.trim()));
         } else if (field.getType() == Hour.class) {
-            field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : Hour.fromString(stringValue.trim()));
+            field.set(row, isBlank(stringValue) ? null : Hour.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
         } else if (field.getType() == Minute.class) {
-            field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : Minute.fromString(stringValue.trim()));
+            field.set(row, isBlank(stringValue) ? null : Minute.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
         } else if (field.getType() == Second.class) {
-            field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : Second.fromString(stringValue.trim()));
+            field.set(row, isBlank(stringValue) ? null : Second.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
         } else if (field.getType() == Millisecond.class) {
-            field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : Millisecond.fromString(stringValue.trim()));
+            field.set(row, isBlank(stringValue) ? null : Millisecond.fromString(stringValue, trimmedStart(stringValue), trimmedLength(stringValue)));
         } else if (field.getType() == ZonedDateTime.class) {
             field.set(row, stringValue == null || stringValue.trim().length() == 0 ? null : ZonedDateTime.parse(stringValue.trim()));
         } else if (Enum.class.isAssignableFrom(field.getType())) {
@@ -209,4 +215,28 @@ public class CsvIterable<T> implements Iterable<T> {
         }
     }
 
+    private static boolean isBlank(String stringValue) {
+        return stringValue == null || trimmedLength(stringValue) == 0;
+    }
+
+    /**
+     * The bounds of stringValue.trim() without creating the trimmed string
+     */
+    private static int trimmedStart(String stringValue) {
+        int start = 0;
+        while (start < stringValue.length() && stringValue.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimmedLength(String stringValue) {
+        int start = trimmedStart(stringValue);
+        int end = stringValue.length();
+        while (end > start && stringValue.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start;
+    }
+
 }
@@ -30,6 +30,7 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.jirvan.csv;
 
+import com.jirvan.dates.Second;
 import com.jirvan.lang.SQLRuntimeException;
 import com.jirvan.util.Jdbc;
 import org.apache.commons.lang.SystemUtils;
@@ -45,8 +46,6 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 
 public class CsvTableExporter {
 
@@ -56,7 +55,7 @@ public class CsvTableExporter {
         CsvTableExporter.exportToFile(Jdbc.getDataSource("sqlserver:cm/zippee@denver2/LifeCare"), "merchant_products", new File("L:\\Desktop\\test.csv"));
     }
 
-    private static DateFormat timestampFormat = new SimpleDateFormat("yyyy.MM.dd HH:mm:ss");
+    private static final String TIMESTAMP_PATTERN = "yyyy.MM.dd HH:mm:ss";
 
     public static long exportToFile(DataSource dataSource, String tableName, File outFile) {
         return exportToFile(dataSource, tableName, null, null, outFile);
@@ -156,7 +155,7 @@ public class CsvTableExporter {
         if (value == null) {
             return "";
         } else if (value instanceof Timestamp) {
-            return timestampFormat.format((Timestamp) value);
+            return Second.from((Timestamp) value).format(TIMESTAMP_PATTERN);
         } else if (value instanceof String) {
             if (emptyStringIndicatorString != null && "".equals(value)) {
                 return emptyStringIndicatorString;
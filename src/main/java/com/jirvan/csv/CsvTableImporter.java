@@ -33,6 +33,8 @@ package com.jirvan.csv;
 import au.com.bytecode.opencsv.CSVReader;
 import com.jirvan.lang.ResourceNotFoundRuntimeException;
 import com.jirvan.lang.SQLRuntimeException;
+import com.jirvan.util.BulkLoad;
+import com.jirvan.util.DatabaseMetadata;
 import com.jirvan.util.Strings;
 
 import javax.sql.DataSource;
@@ -46,7 +48,6 @@ import java.io.Reader;
 import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
@@ -148,6 +149,40 @@ public class CsvTableImporter {
 
     }
 
+    /**
+     * As for {@link #importFromFile(DataSource, String, Map, String[], DateFormat, int, File, boolean)}
+     * except that if bulkLoadMode is true the table's triggers, foreign keys and
+     * non-unique indexes are put out of the way for the load (see {@link BulkLoad}).
+     */
+    public static long importFromFile(DataSource dataSource,
+                                      String tableName,
+                                      Map<String, String> columnMappings,
+                                      String[] ignoreColumns,
+                                      DateFormat timestampFormatOverride,
+                                      int commitInterval,
+                                      File dataFile,
+                                      boolean resetAutonumberedPrimaryKey,
+                                      boolean bulkLoadMode) {
+        try {
+            Reader reader = new FileReader(dataFile);
+            try {
+                return importFromReader(dataSource,
+                                        tableName,
+                                        columnMappings,
+                                        ignoreColumns,
+                                        timestampFormatOverride,
+                                        commitInterval,
+                                        reader,
+                                        resetAutonumberedPrimaryKey,
+                                        bulkLoadMode);
+            } finally {
+                reader.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static long importFromFile(Connection connection,
                                       String tableName,
                                       Map columnMappings,
@@ -286,6 +321,36 @@ public class CsvTableImporter {
                                         int commitInterval,
                                         Reader reader,
                                         boolean resetAutonumberedPrimaryKey) {
+        return importFromReader(dataSource,
+                                tableName,
+                                columnMappings,
+                                ignoreColumns,
+                                timestampFormatOverride,
+                                commitInterval,
+                                reader,
+                                resetAutonumberedPrimaryKey,
+                                false);
+    }
+
+    public static long importFromReader(DataSource dataSource,
+                                        String tableName,
+                                        Map<String, String> columnMappings,
+                                        String[] ignoreColumns,
+                                        DateFormat timestampFormatOverride,
+                                        int commitInterval,
+                                        Reader reader,
+                                        boolean resetAutonumberedPrimaryKey,
+                                        boolean bulkLoadMode) {
+        if (bulkLoadMode) {
+            return BulkLoad.load(dataSource, tableName, connection -> importFromReader(connection,
+                                                                                       tableName,
+                                                                                       columnMappings,
+                                                                                       ignoreColumns,
+                                                                                       timestampFormatOverride,
+                                                                                       commitInterval,
+                                                                                       reader,
+                                                                                       resetAutonumberedPrimaryKey));
+        }
         try {
             Connection connection = dataSource.getConnection();
             try {
@@ -337,12 +402,8 @@ public class CsvTableImporter {
         assertNotNull(tableName, "tableName is null");
         try {
 
-            boolean databaseIsOracle;
-            try {
-                databaseIsOracle = connection.getMetaData().getDatabaseProductName().toLowerCase().indexOf("oracle") != -1;
-            } catch (SQLException e) {
-                throw new SQLRuntimeException(e);
-            }
+            DatabaseMetadata databaseMetadata = DatabaseMetadata.get(connection);
+            boolean databaseIsOracle = databaseMetadata.getDatabaseProductName().toLowerCase().indexOf("oracle") != -1;
 
             CSVReader csvReader = new CSVReader(reader);
             int lineNumber = 1;
@@ -381,25 +442,14 @@ public class CsvTableImporter {
                     }
 
                     // Set the JDBC data type
-                    try {
-                        String schemaPattern = databaseIsOracle
-                                               ? connection.getMetaData().getUserName()
-                                               : null;
-                        ResultSet rset = connection.getMetaData().getColumns(null,
-                                                                             schemaPattern,
-                                                                             databaseIsOracle ? tableName.toUpperCase() : tableName,
-                                                                             databaseIsOracle ? columnNames[i].toUpperCase() : columnNames[i]);
-                        try {
-                            if (rset.next()) {
-                                columnDataTypes[i] = rset.getInt(5);
-                            } else {
-                                throw new RuntimeException("Table \"" + tableName + "\" or column \"" + tableName + "." + columnNames[i] + "\" does not exist");
-                            }
-                        } finally {
-                            rset.close();
-                        }
-                    } catch (SQLException e) {
-                        throw new SQLRuntimeException(e);
+                    DatabaseMetadata.ColumnInfo column = databaseMetadata.getColumn(null,
+                                                                                    databaseIsOracle ? databaseMetadata.getUserName() : null,
+                                                                                    databaseIsOracle ? tableName.toUpperCase() : tableName,
+                                                                                    databaseIsOracle ? columnNames[i].toUpperCase() : columnNames[i]);
+                    if (column != null) {
+                        columnDataTypes[i] = column.dataType;
+                    } else {
+                        throw new RuntimeException("Table \"" + tableName + "\" or column \"" + tableName + "." + columnNames[i] + "\" does not exist");
                     }
 
                 }
@@ -470,34 +520,17 @@ public class CsvTableImporter {
                                                         parameters.add(nextLine[i]);
                                                         stmt.setTimestamp(parameterNumber, new Timestamp(timestampFormatOverride.parse(nextLine[i]).getTime()));
                                                     } else {
-                                                        String timestampString = nextLine[i].trim().replaceFirst("(\\d{4})\\.(\\d{2})\\.(\\d{2})", "$1-$2-$3");
-                                                        if (timestampString.matches("^\\d{4}-\\d{2}-\\d{2}$")) {
-                                                            timestampString += " 00:00:00";
-                                                        }
+                                                        String timestampString = standardizeTimestampString(nextLine[i]);
                                                         parameters.add(timestampString);
                                                         stmt.setTimestamp(parameterNumber, new Timestamp(timestampFormat.parse(timestampString).getTime()));
                                                     }
                                                 } else if (columnDataTypes[i] == Types.BIT
                                                            || columnDataTypes[i] == Types.BOOLEAN) {
                                                     parameters.add(nextLine[i]);
-                                                    if ("true".equalsIgnoreCase(nextLine[i])
-                                                        || "Y".equalsIgnoreCase(nextLine[i])
-                                                        || "1".equalsIgnoreCase(nextLine[i])) {
-                                                        stmt.setBoolean(parameterNumber, true);
-                                                    } else if ("false".equalsIgnoreCase(nextLine[i])
-                                                               || "N".equalsIgnoreCase(nextLine[i])
-                                                               || "0".equalsIgnoreCase(nextLine[i])) {
-                                                        stmt.setBoolean(parameterNumber, false);
-                                                    } else {
-                                                        throw new RuntimeException("\"%s\" is an invalid value for Column \"" + columnNames[i] + "\" (must be one of true, false, Y, N, 1, 0)");
-                                                    }
+                                                    stmt.setBoolean(parameterNumber, parseBoolean(columnNames[i], nextLine[i]));
                                                 } else if (columnDataTypes[i] == Types.INTEGER) {
                                                     parameters.add(nextLine[i].trim());
-                                                    String stringValue = nextLine[i].trim().replaceAll(",", "").replaceAll("\\$", "");
-                                                    if (stringValue.charAt(0) == '(' && stringValue.charAt(stringValue.length() - 1) == ')') {
-                                                        stringValue = "-" + stringValue.substring(1, stringValue.length() - 1);
-                                                    }
-                                                    stmt.setInt(parameterNumber, new Integer(stringValue));
+                                                    stmt.setInt(parameterNumber, new Integer(standardizeNumberString(nextLine[i])));
                                                 } else if (columnDataTypes[i] == Types.TINYINT
                                                            || columnDataTypes[i] == Types.SMALLINT
                                                            || columnDataTypes[i] == Types.BIGINT
@@ -507,11 +540,7 @@ public class CsvTableImporter {
                                                            || columnDataTypes[i] == Types.DECIMAL
                                                            || columnDataTypes[i] == Types.DOUBLE) {
                                                     parameters.add(nextLine[i].trim());
-                                                    String stringValue = nextLine[i].trim().replaceAll(",", "").replaceAll("\\$", "");
-                                                    if (stringValue.charAt(0) == '(' && stringValue.charAt(stringValue.length() - 1) == ')') {
-                                                        stringValue = "-" + stringValue.substring(1, stringValue.length() - 1);
-                                                    }
-                                                    stmt.setBigDecimal(parameterNumber, new BigDecimal(stringValue));
+                                                    stmt.setBigDecimal(parameterNumber, new BigDecimal(standardizeNumberString(nextLine[i])));
                                                 } else {
                                                     throw new RuntimeException("Column \"" + columnNames[i] + "\" is of a JDBC data type that CsvTableImporter can not currently handle (type = " + columnDataTypes[i] + ")");
                                                 }
@@ -563,4 +592,42 @@ public class CsvTableImporter {
 
     }
 
+    /**
+     * Converts "yyyy.MM.dd" dates to "yyyy-MM-dd" and adds a zero time to dates
+     * without one (so that the result can be parsed with "yyyy-MM-dd HH:mm:ss").
+     */
+    static String standardizeTimestampString(String value) {
+        String timestampString = value.trim().replaceFirst("(\\d{4})\\.(\\d{2})\\.(\\d{2})", "$1-$2-$3");
+        if (timestampString.matches("^\\d{4}-\\d{2}-\\d{2}$")) {
+            timestampString += " 00:00:00";
+        }
+        return timestampString;
+    }
+
+    static boolean parseBoolean(String columnName, String value) {
+        if ("true".equalsIgnoreCase(value)
+            || "Y".equalsIgnoreCase(value)
+            || "1".equalsIgnoreCase(value)) {
+            return true;
+        } else if ("false".equalsIgnoreCase(value)
+                   || "N".equalsIgnoreCase(value)
+                   || "0".equalsIgnoreCase(value)) {
+            return false;
+        } else {
+            throw new RuntimeException("\"%s\" is an invalid value for Column \"" + columnName + "\" (must be one of true, false, Y, N, 1, 0)");
+        }
+    }
+
+    /**
+     * Removes commas and dollar signs and converts accounting style negative
+     * numbers (in parentheses) to ordinary ones.
+     */
+    static String standardizeNumberString(String value) {
+        String stringValue = value.trim().replaceAll(",", "").replaceAll("\\$", "");
+        if (stringValue.charAt(0) == '(' && stringValue.charAt(stringValue.length() - 1) == ')') {
+            stringValue = "-" + stringValue.substring(1, stringValue.length() - 1);
+        }
+        return stringValue;
+    }
+
 }
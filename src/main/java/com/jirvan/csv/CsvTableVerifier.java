@@ -0,0 +1,860 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+package com.jirvan.csv;
+
+import au.com.bytecode.opencsv.CSVReader;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.jirvan.lang.SQLRuntimeException;
+import com.jirvan.util.DatabaseMetadata;
+import com.jirvan.util.DatabaseType;
+import com.jirvan.util.Strings;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.text.DateFormat;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jirvan.util.Assertions.*;
+
+/**
+ * Checks that a table matches the csv file it was imported from (with
+ * {@link CsvTableImporter}) without exporting it again.  Each row on both sides is
+ * reduced to a hash of its values (normalized using the same conversions as the
+ * importer) and the hashes are summed per primary key range, so the order of the
+ * rows doesn't matter.  If the table has a single integer primary key the ranges
+ * are scanned in parallel, otherwise the table is scanned as one range.  Within
+ * each range the sums are also kept per bucket (by a hash of the primary key), and
+ * only the ranges with buckets whose sums don't match are scanned again (on both
+ * sides) to find the rows that differ, keeping the rows of a limited number of
+ * those buckets at a time (so a systematic mismatch doesn't mean holding the whole
+ * table in memory).  Rows in the csv file with the same primary key as an earlier
+ * row are reported as mismatches.
+ */
+public class CsvTableVerifier {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+    public static final int DEFAULT_MAX_REPORTED_ROWS = 100;
+
+    public static class Checksum {
+
+        public long rowCount;
+        public long hash;
+
+        @Override public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Checksum checksum = (Checksum) o;
+            return rowCount == checksum.rowCount && hash == checksum.hash;
+        }
+
+        @Override public int hashCode() {
+            return Long.hashCode(rowCount) * 31 + Long.hashCode(hash);
+        }
+
+        @Override public String toString() {
+            return String.format("%d rows, hash %016x", rowCount, hash);
+        }
+
+    }
+
+    public static class Result {
+
+        public long csvRowCount;
+        public long tableRowCount;
+        public List<MismatchedRange> mismatchedRanges = new ArrayList<>();
+
+        public boolean matches() {
+            return mismatchedRanges.isEmpty();
+        }
+
+    }
+
+    public static class MismatchedRange {
+
+        public String range;  // The where clause condition for the range (null if the whole table is one range)
+        public long csvRowCount;
+        public long tableRowCount;
+        public List<MismatchedRow> rows = new ArrayList<>();
+
+    }
+
+    public static class MismatchedRow {
+
+        public String primaryKey;
+        public Integer csvLineNumber;  // Null if the row is only in the table
+        public String csvValues;       // Null if the row is only in the table
+        public String tableValues;     // Null if the row is only in the csv file
+        public Integer duplicateOfCsvLineNumber;  // Not null if the csv file has an earlier row with the same primary key
+
+    }
+
+    public static Result verify(DataSource dataSource, String tableName, File dataFile) {
+        return verify(dataSource, tableName, null, null, null, dataFile, DEFAULT_MAX_CONNECTIONS, DEFAULT_MAX_REPORTED_ROWS);
+    }
+
+    /**
+     * The csv file is interpreted as {@link CsvTableImporter} would interpret it
+     * given the same column mappings, ignore columns and timestamp format.  Table
+     * columns that are not in the csv file are not compared.
+     *
+     * @param maxReportedRows the maximum number of mismatched rows to report (across all ranges)
+     */
+    public static Result verify(DataSource dataSource,
+                                String tableName,
+                                Map<String, String> columnMappings,
+                                String[] ignoreColumns,
+                                DateFormat timestampFormatOverride,
+                                File dataFile,
+                                int maxConnections,
+                                int maxReportedRows) {
+        return verify(dataSource, tableName, columnMappings, ignoreColumns, timestampFormatOverride, dataFile, maxConnections, maxReportedRows, MAX_ROWS_PER_ROUND);
+    }
+
+    /**
+     * As for {@link #verify(DataSource, String, Map, String[], DateFormat, File, int, int)}
+     * except that the maximum number of rows kept per round of the second pass is
+     * given (so that tests can exercise several rounds).
+     */
+    static Result verify(DataSource dataSource,
+                         String tableName,
+                         Map<String, String> columnMappings,
+                         String[] ignoreColumns,
+                         DateFormat timestampFormatOverride,
+                         File dataFile,
+                         int maxConnections,
+                         int maxReportedRows,
+                         long maxRowsPerRound) {
+        assertNotNull(tableName, "tableName is null");
+        assertTrue(maxConnections > 0, "maxConnections must be greater than zero");
+
+        // Work out what to compare and how the table is to be partitioned
+        String[] csvColumnNames = readCsvColumnNames(dataFile, columnMappings);
+        Plan plan = new Plan(tableName);
+        List<Integer> csvIndexes = new ArrayList<>();
+        try {
+            Connection connection = dataSource.getConnection();
+            try {
+                DatabaseMetadata databaseMetadata = DatabaseMetadata.get(connection);
+                for (int i = 0; i < csvColumnNames.length; i++) {
+                    if (ignoreColumns == null || !Strings.isIn(csvColumnNames[i], ignoreColumns)) {
+                        DatabaseMetadata.ColumnInfo column = getColumn(databaseMetadata, tableName, csvColumnNames[i]);
+                        if (column == null) {
+                            throw new RuntimeException("Table \"" + tableName + "\" or column \"" + tableName + "." + csvColumnNames[i] + "\" does not exist");
+                        }
+                        if (!isSupportedForCsv(column.dataType)) {
+                            throw new RuntimeException("Column \"" + csvColumnNames[i] + "\" is of a JDBC data type that CsvTableVerifier can not currently handle (type = " + column.dataType + ")");
+                        }
+                        plan.addColumn(column);
+                        csvIndexes.add(i);
+                    }
+                }
+                List<String> primaryKeyColumnNames = getPrimaryKeyColumnNames(databaseMetadata, tableName);
+                if (primaryKeyColumnNames.isEmpty()) {
+                    throw new RuntimeException(String.format("Table \"%s\" has no primary key", tableName));
+                }
+                plan.setPrimaryKey(connection, primaryKeyColumnNames, maxConnections);
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+        CsvLayout csvLayout = new CsvLayout(csvColumnNames.length, csvIndexes, timestampFormatOverride);
+
+        // Sum the row hashes of each bucket (of each range) on both sides, reading the
+        // csv file on this thread while the ranges are scanned on the others
+        int bucketCount = plan.partitionCount * BUCKETS_PER_PARTITION;
+        long[] csvHashes = new long[bucketCount];
+        long[] csvCounts = new long[bucketCount];
+        long[] tableHashes = new long[bucketCount];
+        long[] tableCounts = new long[bucketCount];
+        scanTable(dataSource, plan, allPartitions(plan), maxConnections, (partition, values) -> {
+            int bucket = plan.bucketOf(partition, values);
+            tableHashes[bucket] += hash(values);
+            tableCounts[bucket]++;
+        }, () -> scanCsv(dataFile, csvLayout, plan, (lineNumber, partition, values) -> {
+            int bucket = plan.bucketOf(partition, values);
+            csvHashes[bucket] += hash(values);
+            csvCounts[bucket]++;
+        }));
+        Result result = new Result();
+        List<Integer> mismatchedBuckets = new ArrayList<>();
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            result.csvRowCount += csvCounts[bucket];
+            result.tableRowCount += tableCounts[bucket];
+            if (csvHashes[bucket] != tableHashes[bucket] || csvCounts[bucket] != tableCounts[bucket]) {
+                mismatchedBuckets.add(bucket);
+            }
+        }
+        if (mismatchedBuckets.isEmpty()) {
+            return result;
+        }
+        Map<Integer, MismatchedRange> mismatchedRanges = new TreeMap<>();
+        for (Integer bucket : mismatchedBuckets) {
+            int partition = bucket / BUCKETS_PER_PARTITION;
+            MismatchedRange mismatchedRange = mismatchedRanges.get(partition);
+            if (mismatchedRange == null) {
+                mismatchedRange = new MismatchedRange();
+                mismatchedRange.range = plan.range(partition);
+                mismatchedRanges.put(partition, mismatchedRange);
+            }
+            mismatchedRange.csvRowCount += csvCounts[bucket];
+            mismatchedRange.tableRowCount += tableCounts[bucket];
+        }
+        result.mismatchedRanges.addAll(mismatchedRanges.values());
+
+        // Scan the ranges with mismatched buckets again, keeping the rows of as many of
+        // those buckets as fit in maxRowsPerRound each time, until enough rows have
+        // been reported or there are no more buckets
+        int reportedRows = 0;
+        int nextBucketIndex = 0;
+        while (nextBucketIndex < mismatchedBuckets.size() && reportedRows < maxReportedRows) {
+            boolean[] inRound = new boolean[bucketCount];
+            Set<Integer> roundPartitions = new TreeSet<>();
+            long roundRows = 0;
+            do {
+                int bucket = mismatchedBuckets.get(nextBucketIndex++);
+                inRound[bucket] = true;
+                roundPartitions.add(bucket / BUCKETS_PER_PARTITION);
+                roundRows += csvCounts[bucket] + tableCounts[bucket];
+            } while (nextBucketIndex < mismatchedBuckets.size()
+                     && roundRows + csvCounts[mismatchedBuckets.get(nextBucketIndex)] + tableCounts[mismatchedBuckets.get(nextBucketIndex)] <= maxRowsPerRound);
+
+            Map<Integer, Map<String, RowEntry>> csvRows = new HashMap<>();
+            Map<Integer, Map<String, RowEntry>> tableRows = new HashMap<>();
+            Map<Integer, List<MismatchedRow>> duplicateCsvRows = new HashMap<>();
+            for (Integer partition : roundPartitions) {
+                csvRows.put(partition, new LinkedHashMap<>());
+                tableRows.put(partition, new LinkedHashMap<>());
+                duplicateCsvRows.put(partition, new ArrayList<>());
+            }
+            scanTable(dataSource, plan, new ArrayList<>(roundPartitions), maxConnections, (partition, values) -> {
+                if (inRound[plan.bucketOf(partition, values)]) {
+                    tableRows.get(partition).put(plan.primaryKey(values), new RowEntry(null, values));
+                }
+            }, () -> scanCsv(dataFile, csvLayout, plan, (lineNumber, partition, values) -> {
+                if (inRound[plan.bucketOf(partition, values)]) {
+                    String primaryKey = plan.primaryKey(values);
+                    RowEntry csvRow = new RowEntry(lineNumber, values);
+                    RowEntry firstCsvRow = csvRows.get(partition).putIfAbsent(primaryKey, csvRow);
+                    if (firstCsvRow != null) {
+                        MismatchedRow mismatchedRow = mismatchedRow(primaryKey, csvRow, null);
+                        mismatchedRow.duplicateOfCsvLineNumber = firstCsvRow.lineNumber;
+                        duplicateCsvRows.get(partition).add(mismatchedRow);
+                    }
+                }
+            }));
+            for (Integer partition : roundPartitions) {
+                List<MismatchedRow> rows = mismatchedRanges.get(partition).rows;
+                for (MismatchedRow duplicateCsvRow : duplicateCsvRows.get(partition)) {
+                    if (reportedRows++ < maxReportedRows) {
+                        rows.add(duplicateCsvRow);
+                    }
+                }
+                Map<String, RowEntry> partitionTableRows = tableRows.get(partition);
+                for (Map.Entry<String, RowEntry> csvEntry : csvRows.get(partition).entrySet()) {
+                    RowEntry tableRow = partitionTableRows.remove(csvEntry.getKey());
+                    if (tableRow == null || tableRow.hash != csvEntry.getValue().hash) {
+                        if (reportedRows++ < maxReportedRows) {
+                            rows.add(mismatchedRow(csvEntry.getKey(), csvEntry.getValue(), tableRow));
+                        }
+                    }
+                }
+                for (Map.Entry<String, RowEntry> tableEntry : partitionTableRows.entrySet()) {
+                    if (reportedRows++ < maxReportedRows) {
+                        rows.add(mismatchedRow(tableEntry.getKey(), null, tableEntry.getValue()));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    public static Checksum getTableChecksum(DataSource dataSource, String tableName) {
+        return getTableChecksum(dataSource, tableName, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Returns an order independent checksum of all of the table's rows.  Columns
+     * are taken in name order (ignoring case) and values are normalized by JDBC type
+     * so that copies of a table in different databases (see
+     * {@link com.jirvan.dbcopy.TableCopier}) have the same checksum.
+     */
+    public static Checksum getTableChecksum(DataSource dataSource, String tableName, int maxConnections) {
+        assertNotNull(tableName, "tableName is null");
+        assertTrue(maxConnections > 0, "maxConnections must be greater than zero");
+        Plan plan = new Plan(tableName);
+        try {
+            Connection connection = dataSource.getConnection();
+            try {
+                DatabaseMetadata databaseMetadata = DatabaseMetadata.get(connection);
+                List<DatabaseMetadata.ColumnInfo> columns = new ArrayList<>(getColumns(databaseMetadata, tableName));
+                if (columns.isEmpty()) {
+                    throw new RuntimeException(String.format("Table \"%s\" does not exist", tableName));
+                }
+                Collections.sort(columns, new Comparator<DatabaseMetadata.ColumnInfo>() {
+                    @Override public int compare(DatabaseMetadata.ColumnInfo o1, DatabaseMetadata.ColumnInfo o2) {
+                        return o1.columnName.compareToIgnoreCase(o2.columnName);
+                    }
+                });
+                for (DatabaseMetadata.ColumnInfo column : columns) {
+                    plan.addColumn(column);
+                }
+                plan.setPrimaryKey(connection, getPrimaryKeyColumnNames(databaseMetadata, tableName), maxConnections);
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+        long[] hashes = new long[plan.partitionCount];
+        long[] counts = new long[plan.partitionCount];
+        scanTable(dataSource, plan, allPartitions(plan), maxConnections, (partition, values) -> {
+            hashes[partition] += hash(values);
+            counts[partition]++;
+        }, null);
+        Checksum checksum = new Checksum();
+        for (int partition = 0; partition < plan.partitionCount; partition++) {
+            checksum.hash += hashes[partition];
+            checksum.rowCount += counts[partition];
+        }
+        return checksum;
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private static final HashFunction HASH_FUNCTION = Hashing.murmur3_128();
+    private static final int PARTITIONS_PER_CONNECTION = 4;
+    private static final int BUCKETS_PER_PARTITION = 1024;
+    private static final long MAX_ROWS_PER_ROUND = 200000;
+
+    private interface TableRowConsumer {
+        void accept(int partition, String[] values);
+    }
+
+    private interface CsvRowConsumer {
+        void accept(int lineNumber, int partition, String[] values);
+    }
+
+    private static class RowEntry {
+
+        private final Integer lineNumber;
+        private final long hash;
+        private final String values;
+
+        private RowEntry(Integer lineNumber, String[] values) {
+            this.lineNumber = lineNumber;
+            this.hash = hash(values);
+            this.values = Strings.join(values, ", ");
+        }
+
+    }
+
+    /**
+     * The columns to be compared (in the order they are hashed) and the primary key
+     * ranges the table is split into.  If the table has a single integer primary
+     * key column the ranges are [lowerBounds[p], lowerBounds[p + 1]) (with the first
+     * and last open ended) otherwise there is only one.
+     */
+    private static class Plan {
+
+        private final String tableName;
+        private final List<String> columnNames = new ArrayList<>();
+        private final List<Integer> dataTypes = new ArrayList<>();
+        private int[] primaryKeyIndexes;
+        private String partitionColumnName;
+        private long[] lowerBounds;
+        private int partitionCount = 1;
+
+        private Plan(String tableName) {
+            this.tableName = tableName;
+        }
+
+        private void addColumn(DatabaseMetadata.ColumnInfo column) {
+            columnNames.add(column.columnName);
+            dataTypes.add(column.dataType);
+        }
+
+        private void setPrimaryKey(Connection connection, List<String> primaryKeyColumnNames, int maxConnections) throws SQLException {
+            primaryKeyIndexes = new int[primaryKeyColumnNames.size()];
+            for (int i = 0; i < primaryKeyIndexes.length; i++) {
+                primaryKeyIndexes[i] = indexOfIgnoringCase(columnNames, primaryKeyColumnNames.get(i));
+                if (primaryKeyIndexes[i] == -1) {
+                    throw new RuntimeException(String.format("Primary key column \"%s\" of table \"%s\" is not being compared", primaryKeyColumnNames.get(i), tableName));
+                }
+            }
+            if (primaryKeyIndexes.length == 1 && isIntegerType(dataTypes.get(primaryKeyIndexes[0]))) {
+                String columnName = columnNames.get(primaryKeyIndexes[0]);
+                String sql = "select min(" + columnName + "), max(" + columnName + ") from " + tableName;
+                PreparedStatement stmt = connection.prepareStatement(sql);
+                try {
+                    ResultSet rset = stmt.executeQuery();
+                    try {
+                        rset.next();
+                        BigDecimal min = rset.getBigDecimal(1);
+                        BigDecimal max = rset.getBigDecimal(2);
+                        if (min != null && max != null && isLong(min) && isLong(max)) {
+                            BigInteger span = max.toBigInteger().subtract(min.toBigInteger()).add(BigInteger.ONE);
+                            int count = (int) Math.min(maxConnections * PARTITIONS_PER_CONNECTION, span.min(BigInteger.valueOf(Integer.MAX_VALUE)).longValue());
+                            BigInteger width = span.add(BigInteger.valueOf(count - 1)).divide(BigInteger.valueOf(count));
+                            partitionColumnName = columnName;
+                            partitionCount = count;
+                            lowerBounds = new long[count];
+                            for (int p = 0; p < count; p++) {
+                                lowerBounds[p] = min.toBigInteger().add(width.multiply(BigInteger.valueOf(p))).longValue();
+                            }
+                        }
+                    } finally {
+                        rset.close();
+                    }
+                } catch (SQLException e) {
+                    throw new SQLRuntimeException(e, sql);
+                } finally {
+                    stmt.close();
+                }
+            }
+        }
+
+        private int partitionOf(String[] values) {
+            if (partitionCount == 1) {
+                return 0;
+            }
+            String key = values[primaryKeyIndexes[0]];
+            long longKey;
+            try {
+                longKey = new BigDecimal(key).longValueExact();
+            } catch (RuntimeException e) {
+                return 0;  // Can't be in the table anyway
+            }
+            int index = Arrays.binarySearch(lowerBounds, longKey);
+            return index >= 0 ? index : Math.max(0, -index - 2);
+        }
+
+        /**
+         * Returns the index (across all partitions) of the row's bucket within the
+         * given partition, which depends only on its primary key.
+         */
+        private int bucketOf(int partition, String[] values) {
+            Hasher hasher = HASH_FUNCTION.newHasher();
+            for (int primaryKeyIndex : primaryKeyIndexes) {
+                String value = values[primaryKeyIndex];
+                if (value == null) {
+                    hasher.putByte((byte) 0);
+                } else {
+                    hasher.putByte((byte) 1).putInt(value.length()).putUnencodedChars(value);
+                }
+            }
+            return partition * BUCKETS_PER_PARTITION + Math.floorMod(hasher.hash().asInt(), BUCKETS_PER_PARTITION);
+        }
+
+        private String range(int partition) {
+            if (partitionCount == 1) {
+                return null;
+            } else if (partition == 0) {
+                return partitionColumnName + " < " + lowerBounds[1];
+            } else if (partition == partitionCount - 1) {
+                return partitionColumnName + " >= " + lowerBounds[partition];
+            } else {
+                return partitionColumnName + " >= " + lowerBounds[partition] + " and " + partitionColumnName + " < " + lowerBounds[partition + 1];
+            }
+        }
+
+        private String primaryKey(String[] values) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (int i = 0; i < primaryKeyIndexes.length; i++) {
+                if (i > 0) stringBuilder.append(", ");
+                stringBuilder.append(values[primaryKeyIndexes[i]]);
+            }
+            return stringBuilder.toString();
+        }
+
+    }
+
+    /**
+     * Where each compared column is in the csv file and how to interpret it.  Only
+     * ever used on one thread at a time (DateFormats aren't thread safe).
+     */
+    private static class CsvLayout {
+
+        private final int columnCount;
+        private final int[] csvIndexes;
+        private final DateFormat timestampFormatOverride;
+        private final DateFormat timestampFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+
+        private CsvLayout(int columnCount, List<Integer> csvIndexes, DateFormat timestampFormatOverride) {
+            this.columnCount = columnCount;
+            this.csvIndexes = new int[csvIndexes.size()];
+            for (int i = 0; i < this.csvIndexes.length; i++) this.csvIndexes[i] = csvIndexes.get(i);
+            this.timestampFormatOverride = timestampFormatOverride;
+        }
+
+    }
+
+    private static List<Integer> allPartitions(Plan plan) {
+        List<Integer> partitions = new ArrayList<>();
+        for (int partition = 0; partition < plan.partitionCount; partition++) {
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    /**
+     * Scans the given partitions of the table using up to maxConnections
+     * connections (each partition being scanned by only one of them) while running
+     * alsoRunOnThisThread (if not null) on this one.
+     */
+    private static void scanTable(DataSource dataSource, Plan plan, List<Integer> partitions, int maxConnections, TableRowConsumer consumer, Runnable alsoRunOnThisThread) {
+        AtomicInteger nextIndex = new AtomicInteger();
+        int connections = Math.min(maxConnections, partitions.size());
+        ExecutorService executorService = Executors.newFixedThreadPool(connections);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < connections; i++) {
+                futures.add(executorService.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        int index;
+                        while ((index = nextIndex.getAndIncrement()) < partitions.size()) {
+                            scanTablePartition(connection, plan, partitions.get(index), consumer);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            if (alsoRunOnThisThread != null) {
+                alsoRunOnThisThread.run();
+            }
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof SQLException) {
+                throw new SQLRuntimeException((SQLException) e.getCause());
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void scanTablePartition(Connection connection, Plan plan, int partition, TableRowConsumer consumer) throws SQLException {
+        String range = plan.range(partition);
+        String sql = "select " + Strings.join(plan.columnNames, ',') + " from " + plan.tableName + (range == null ? "" : " where " + range);
+
+        // PostgreSQL only fetches using a cursor (rather than all rows at once) outside of auto-commit
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit && DatabaseType.postgres.getDatabaseProductName().equals(connection.getMetaData().getDatabaseProductName())) {
+            connection.setAutoCommit(false);
+        }
+        try {
+            PreparedStatement stmt = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            try {
+                stmt.setFetchSize(1000);
+                ResultSet rset = stmt.executeQuery();
+                try {
+                    String[] values = new String[plan.columnNames.size()];
+                    while (rset.next()) {
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = normalize(rset, i + 1, plan.dataTypes.get(i));
+                        }
+                        consumer.accept(partition, values);
+                    }
+                } finally {
+                    rset.close();
+                }
+            } catch (SQLException e) {
+                throw new SQLRuntimeException(e, sql);
+            } finally {
+                stmt.close();
+            }
+        } finally {
+            if (autoCommit != connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+    }
+
+    private static String[] readCsvColumnNames(File dataFile, Map<String, String> columnMappings) {
+        try {
+            CSVReader csvReader = new CSVReader(new FileReader(dataFile));
+            try {
+                String[] columnNames = csvReader.readNext();
+                if (columnNames == null || columnNames.length == 0) {
+                    throw new RuntimeException("First row is empty (expected column names");
+                }
+                if (columnMappings != null) {
+                    for (int i = 0; i < columnNames.length; i++) {
+                        String mappedColumn = columnMappings.get(columnNames[i]);
+                        if (mappedColumn != null) columnNames[i] = mappedColumn;
+                    }
+                }
+                return columnNames;
+            } finally {
+                csvReader.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void scanCsv(File dataFile, CsvLayout csvLayout, Plan plan, CsvRowConsumer consumer) {
+        try {
+            CSVReader csvReader = new CSVReader(new FileReader(dataFile));
+            try {
+                csvReader.readNext();
+                int lineNumber = 1;
+                String[] nextLine;
+                String[] values = new String[csvLayout.csvIndexes.length];
+                while ((nextLine = csvReader.readNext()) != null) {
+                    lineNumber++;
+                    if (nextLine.length == 1 && (nextLine[0] == null || nextLine[0].trim().length() == 0)) {
+                        continue;
+                    }
+                    if (nextLine.length != csvLayout.columnCount) {
+                        throw new CsvLineRuntimeException(lineNumber, "This line has " + nextLine.length + " fields, but " + csvLayout.columnCount
+                                                                      + " (the number of headings in the first line) were expected.");
+                    }
+                    for (int i = 0; i < values.length; i++) {
+                        String value = nextLine[csvLayout.csvIndexes[i]];
+                        try {
+                            values[i] = normalize(value, plan.dataTypes.get(i), csvLayout);
+                        } catch (Throwable t) {
+                            throw new CsvLineRuntimeException(lineNumber, "Exception processing \"" + plan.columnNames.get(i) + "\": "
+                                                                          + (t.getMessage() == null ? t.getClass().getName() : t.getMessage())
+                                                                          + "\n(value was \"" + value + "\")");
+                        }
+                    }
+                    consumer.accept(lineNumber, plan.partitionOf(values), values);
+                }
+            } finally {
+                csvReader.close();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static MismatchedRow mismatchedRow(String primaryKey, RowEntry csvRow, RowEntry tableRow) {
+        MismatchedRow mismatchedRow = new MismatchedRow();
+        mismatchedRow.primaryKey = primaryKey;
+        if (csvRow != null) {
+            mismatchedRow.csvLineNumber = csvRow.lineNumber;
+            mismatchedRow.csvValues = csvRow.values;
+        }
+        if (tableRow != null) {
+            mismatchedRow.tableValues = tableRow.values;
+        }
+        return mismatchedRow;
+    }
+
+    private static long hash(String[] values) {
+        Hasher hasher = HASH_FUNCTION.newHasher();
+        for (String value : values) {
+            if (value == null) {
+                hasher.putByte((byte) 0);
+            } else {
+                hasher.putByte((byte) 1).putInt(value.length()).putUnencodedChars(value);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    /**
+     * Normalizes a csv value the way CsvTableImporter would interpret it for a
+     * column of the given type (see also {@link #normalize(ResultSet, int, int)}).
+     */
+    private static String normalize(String value, int dataType, CsvLayout csvLayout) throws ParseException {
+        if (value == null || value.length() == 0) {
+            return null;
+        }
+        switch (dataType) {
+            case Types.VARCHAR:
+                return CsvTableImporter.emptyStringIndicatorString != null && CsvTableImporter.emptyStringIndicatorString.equals(value) ? "" : value;
+            case Types.CHAR:
+                return trimTrailingSpaces(value);
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                long time = csvLayout.timestampFormatOverride != null
+                            ? csvLayout.timestampFormatOverride.parse(value).getTime()
+                            : csvLayout.timestampFormat.parse(CsvTableImporter.standardizeTimestampString(value)).getTime();
+                return new Timestamp(time).toString();
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return String.valueOf(CsvTableImporter.parseBoolean(null, value));
+            case Types.REAL:
+                return Float.toString(new BigDecimal(CsvTableImporter.standardizeNumberString(value)).floatValue());
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return Double.toString(new BigDecimal(CsvTableImporter.standardizeNumberString(value)).doubleValue());
+            default:
+                return normalize(new BigDecimal(CsvTableImporter.standardizeNumberString(value)));
+        }
+    }
+
+    private static String normalize(ResultSet rset, int columnIndex, int dataType) throws SQLException {
+        switch (dataType) {
+            case Types.CHAR:
+            case Types.NCHAR:
+                String charValue = rset.getString(columnIndex);
+                return charValue == null ? null : trimTrailingSpaces(charValue);
+            case Types.DATE:
+            case Types.TIMESTAMP:
+                Timestamp timestamp = rset.getTimestamp(columnIndex);
+                return timestamp == null ? null : new Timestamp(timestamp.getTime()).toString();
+            case Types.BIT:
+            case Types.BOOLEAN:
+                boolean booleanValue = rset.getBoolean(columnIndex);
+                return rset.wasNull() ? null : String.valueOf(booleanValue);
+            case Types.REAL:
+                float floatValue = rset.getFloat(columnIndex);
+                return rset.wasNull() ? null : Float.toString(floatValue);
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                double doubleValue = rset.getDouble(columnIndex);
+                return rset.wasNull() ? null : Double.toString(doubleValue);
+            case Types.INTEGER:
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                BigDecimal bigDecimal = rset.getBigDecimal(columnIndex);
+                return bigDecimal == null ? null : normalize(bigDecimal);
+            default:
+                return rset.getString(columnIndex);
+        }
+    }
+
+    private static String normalize(BigDecimal value) {
+        return value.signum() == 0 ? "0" : value.stripTrailingZeros().toPlainString();
+    }
+
+    private static String trimTrailingSpaces(String value) {
+        int length = value.length();
+        while (length > 0 && value.charAt(length - 1) == ' ') length--;
+        return value.substring(0, length);
+    }
+
+    private static boolean isSupportedForCsv(int dataType) {
+        switch (dataType) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.BIT:
+            case Types.BOOLEAN:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return true;
+            default:
+                return isIntegerType(dataType) || dataType == Types.NUMERIC || dataType == Types.DECIMAL;
+        }
+    }
+
+    private static boolean isIntegerType(int dataType) {
+        return dataType == Types.INTEGER || dataType == Types.TINYINT || dataType == Types.SMALLINT || dataType == Types.BIGINT;
+    }
+
+    private static boolean isLong(BigDecimal value) {
+        try {
+            value.longValueExact();
+            return true;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    private static int indexOfIgnoringCase(List<String> strings, String string) {
+        for (int i = 0; i < strings.size(); i++) {
+            if (strings.get(i).equalsIgnoreCase(string)) return i;
+        }
+        return -1;
+    }
+
+    private static DatabaseMetadata.ColumnInfo getColumn(DatabaseMetadata databaseMetadata, String tableName, String columnName) {
+        boolean databaseIsOracle = databaseMetadata.getDatabaseProductName().toLowerCase().indexOf("oracle") != -1;
+        return databaseMetadata.getColumn(null,
+                                          databaseIsOracle ? databaseMetadata.getUserName() : null,
+                                          databaseIsOracle ? tableName.toUpperCase() : tableName,
+                                          databaseIsOracle ? columnName.toUpperCase() : columnName);
+    }
+
+    private static List<DatabaseMetadata.ColumnInfo> getColumns(DatabaseMetadata databaseMetadata, String tableName) {
+        boolean databaseIsOracle = databaseMetadata.getDatabaseProductName().toLowerCase().indexOf("oracle") != -1;
+        return databaseMetadata.getColumns(null,
+                                           databaseIsOracle ? databaseMetadata.getUserName() : null,
+                                           databaseIsOracle ? tableName.toUpperCase() : tableName);
+    }
+
+    private static List<String> getPrimaryKeyColumnNames(DatabaseMetadata databaseMetadata, String tableName) {
+        boolean databaseIsOracle = databaseMetadata.getDatabaseProductName().toLowerCase().indexOf("oracle") != -1;
+        return databaseMetadata.getPrimaryKeyColumnNames(null,
+                                                         databaseIsOracle ? databaseMetadata.getUserName() : null,
+                                                         databaseIsOracle ? tableName.toUpperCase() : tableName);
+    }
+
+}
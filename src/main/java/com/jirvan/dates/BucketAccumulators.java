@@ -0,0 +1,205 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+/**
+ * The count, sum, min and max of the values added to each of a range of buckets
+ * for one key of a TimeBucketAggregator, held in parallel primitive arrays that
+ * grow (in either direction) as values are added and can be trimmed from the
+ * front as buckets are completed.
+ */
+final class BucketAccumulators {
+
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+    private static final int MIN_CAPACITY = 8;
+
+    private long firstBucket;
+    private int start;
+    private int length;
+    private long[] counts = new long[0];
+    private double[] sums = new double[0];
+    private double[] mins = new double[0];
+    private double[] maxs = new double[0];
+
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    long getFirstBucket() {
+        return firstBucket;
+    }
+
+    long getLastBucket() {
+        return firstBucket + length - 1;
+    }
+
+    void add(long bucket, double value) {
+        int slot = slot(bucket);
+        if (counts[slot]++ == 0) {
+            sums[slot] = value;
+            mins[slot] = value;
+            maxs[slot] = value;
+        } else {
+            sums[slot] += value;
+            if (value < mins[slot]) mins[slot] = value;
+            if (value > maxs[slot]) maxs[slot] = value;
+        }
+    }
+
+    void merge(BucketAccumulators other) {
+        for (int i = other.start; i < other.start + other.length; i++) {
+            if (other.counts[i] != 0) {
+                int slot = slot(other.firstBucket + i - other.start);
+                if (counts[slot] == 0) {
+                    sums[slot] = other.sums[i];
+                    mins[slot] = other.mins[i];
+                    maxs[slot] = other.maxs[i];
+                } else {
+                    sums[slot] += other.sums[i];
+                    mins[slot] = Math.min(mins[slot], other.mins[i]);
+                    maxs[slot] = Math.max(maxs[slot], other.maxs[i]);
+                }
+                counts[slot] += other.counts[i];
+            }
+        }
+    }
+
+    /**
+     * Passes the buckets before beforeBucket that have values to handler (in
+     * bucket order) and then removes them.
+     */
+    <K> void removeBefore(long beforeBucket, K key, TimeBucketAggregator.Granularity granularity, TimeBucketAggregator.BucketHandler<? super K> handler) {
+        while (length > 0 && firstBucket < beforeBucket) {
+            if (counts[start] != 0) {
+                handler.handle(key, granularity.bucketStart(firstBucket), counts[start], sums[start], mins[start], maxs[start]);
+                counts[start] = 0;
+            }
+            firstBucket++;
+            start++;
+            length--;
+        }
+    }
+
+    <K> void forEach(K key, TimeBucketAggregator.Granularity granularity, TimeBucketAggregator.BucketHandler<? super K> handler) {
+        for (int i = start; i < start + length; i++) {
+            if (counts[i] != 0) {
+                handler.handle(key, granularity.bucketStart(firstBucket + i - start), counts[i], sums[i], mins[i], maxs[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the aggregation for bucket, or NaN if no values have been added to it.
+     */
+    double get(long bucket, MinuteSeries.Aggregation aggregation) {
+        long position = bucket - firstBucket;
+        if (position < 0 || position >= length || counts[start + (int) position] == 0) {
+            return Double.NaN;
+        }
+        int slot = start + (int) position;
+        switch (aggregation) {
+            case sum:
+                return sums[slot];
+            case mean:
+                return sums[slot] / counts[slot];
+            case min:
+                return mins[slot];
+            case max:
+                return maxs[slot];
+            case count:
+                return counts[slot];
+            default:
+                throw new IllegalArgumentException("The " + aggregation + " of the values in a bucket is not kept");
+        }
+    }
+
+    //======================== Everything below here is private ========================//
+
+    /**
+     * Returns the array index for bucket, first growing the arrays if necessary.
+     * Unused array elements always have a zero count.
+     */
+    private int slot(long bucket) {
+        if (length == 0) {
+            if (counts.length == 0) {
+                allocate(MIN_CAPACITY, 0, 0);
+            }
+            firstBucket = bucket;
+            start = 0;
+            length = 1;
+        } else if (bucket < firstBucket) {
+            long newLength = firstBucket + length - bucket;
+            if (firstBucket - bucket <= start) {
+                start -= (int) (firstBucket - bucket);
+            } else {
+                int capacity = newCapacity(newLength);
+                allocate(capacity, capacity - (int) newLength + (int) (firstBucket - bucket), capacity - (int) newLength);
+            }
+            firstBucket = bucket;
+            length = (int) newLength;
+        } else if (bucket >= firstBucket + length) {
+            long newLength = bucket - firstBucket + 1;
+            if (start + newLength > counts.length) {
+                allocate(newCapacity(newLength), 0, 0);
+            }
+            length = (int) newLength;
+        }
+        return start + (int) (bucket - firstBucket);
+    }
+
+    /**
+     * Replaces the arrays with ones of the given capacity, copying the current
+     * buckets to copyTo and setting start to newStart.
+     */
+    private void allocate(int capacity, int copyTo, int newStart) {
+        long[] newCounts = new long[capacity];
+        double[] newSums = new double[capacity];
+        double[] newMins = new double[capacity];
+        double[] newMaxs = new double[capacity];
+        System.arraycopy(this.counts, start, newCounts, copyTo, length);
+        System.arraycopy(sums, start, newSums, copyTo, length);
+        System.arraycopy(mins, start, newMins, copyTo, length);
+        System.arraycopy(maxs, start, newMaxs, copyTo, length);
+        counts = newCounts;
+        sums = newSums;
+        mins = newMins;
+        maxs = newMaxs;
+        start = newStart;
+    }
+
+    private static int newCapacity(long newLength) {
+        if (newLength > MAX_LENGTH) {
+            throw new IllegalArgumentException("Cannot aggregate into more than " + MAX_LENGTH + " buckets per key");
+        }
+        return (int) Math.min(MAX_LENGTH, Math.max(MIN_CAPACITY, newLength + (newLength >> 1)));
+    }
+
+}
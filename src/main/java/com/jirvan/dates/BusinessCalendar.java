@@ -0,0 +1,210 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.util.Collection;
+import java.util.EnumSet;
+
+/**
+ * The business days (days that are neither weekend days nor holidays) of a range
+ * of years.  The business days are precomputed into a bitset along with a running
+ * count of them at the start of each 64 day word, so checking a day is a single
+ * bit test and counting or stepping over business days only needs a popcount or
+ * two instead of a loop over each day, e.g.
+ * <pre>
+ * BusinessCalendar calendar = new BusinessCalendar(2000, 2050, publicHolidays);
+ * Day settlementDay = calendar.advancedBusinessDays(tradeDay, 2);
+ * </pre>
+ */
+public final class BusinessCalendar {
+
+    private final int firstYear;
+    private final int lastYear;
+    private final long firstEpochDay;
+    private final int numberOfDays;
+    private final long[] businessDayBits;
+    private final int[] businessDaysBeforeWord;
+
+    /**
+     * Creates a calendar for firstYear to lastYear (inclusive) with Saturday and
+     * Sunday as the weekend days.  Holidays outside the years are ignored.
+     */
+    public BusinessCalendar(int firstYear, int lastYear, Collection<Day> holidays) {
+        this(firstYear, lastYear, EnumSet.of(DayOfWeek.Saturday, DayOfWeek.Sunday), holidays);
+    }
+
+    public BusinessCalendar(int firstYear, int lastYear, Collection<DayOfWeek> weekendDays, Collection<Day> holidays) {
+        if (lastYear < firstYear) {
+            throw new IllegalArgumentException(String.format("Last year %d is before first year %d", lastYear, firstYear));
+        }
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        this.firstEpochDay = Day.toEpochDay(firstYear, 1, 1);
+        this.numberOfDays = Math.toIntExact(Day.toEpochDay(lastYear + 1L, 1, 1) - firstEpochDay);
+
+        // Set the bits for the days of the week that are not weekend days (one
+        // extra word so that the day after the last day has a word of its own)
+        this.businessDayBits = new long[(numberOfDays >>> 6) + 1];
+        boolean[] isWeekendDay = new boolean[7];
+        for (DayOfWeek dayOfWeek : weekendDays) {
+            isWeekendDay[dayOfWeek.ordinal()] = true;
+        }
+        int dayOfWeekIndex = (int) Math.floorMod(firstEpochDay + 3, 7L);  // 1970-01-01 was a Thursday
+        for (int i = 0; i < numberOfDays; i++) {
+            if (!isWeekendDay[dayOfWeekIndex]) {
+                businessDayBits[i >>> 6] |= 1L << i;
+            }
+            if (++dayOfWeekIndex == 7) {
+                dayOfWeekIndex = 0;
+            }
+        }
+
+        // Clear the holidays' bits
+        for (Day holiday : holidays) {
+            long index = holiday.toEpochDay() - firstEpochDay;
+            if (index >= 0 && index < numberOfDays) {
+                businessDayBits[(int) (index >>> 6)] &= ~(1L << index);
+            }
+        }
+
+        // Then count up the business days
+        this.businessDaysBeforeWord = new int[businessDayBits.length + 1];
+        for (int word = 0; word < businessDayBits.length; word++) {
+            businessDaysBeforeWord[word + 1] = businessDaysBeforeWord[word] + Long.bitCount(businessDayBits[word]);
+        }
+    }
+
+    public int getFirstYear() {
+        return firstYear;
+    }
+
+    public int getLastYear() {
+        return lastYear;
+    }
+
+    public DayRange getDayRange() {
+        return new DayRange(new Day(firstYear, 1, 1), new Day(lastYear, 12, 31));
+    }
+
+    public boolean isBusinessDay(Day day) {
+        int index = index(day);
+        return (businessDayBits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Returns the number of business days from fromDay (inclusive) to toDay
+     * (exclusive), or minus the number from toDay to fromDay if toDay is before
+     * fromDay (so as for Day.daysUntil, and for example from a Friday to the
+     * following Monday is 1).
+     */
+    public int businessDaysBetween(Day fromDay, Day toDay) {
+        return businessDaysBefore(index(toDay)) - businessDaysBefore(index(fromDay));
+    }
+
+    public int businessDaysIn(DayRange range) {
+        return businessDaysBefore(index(range.getLastEpochDay()) + 1) - businessDaysBefore(index(range.getFirstEpochDay()));
+    }
+
+    /**
+     * Returns the businessDays'th business day after day (or before day if
+     * businessDays is negative).  If businessDays is zero then day is returned if
+     * it is a business day, otherwise the next business day.
+     */
+    public Day advancedBusinessDays(Day day, int businessDays) {
+        int index = index(day);
+        long rank = businessDays > 0
+                    ? (long) businessDaysBefore(index + 1) + businessDays - 1
+                    : (long) businessDaysBefore(index) + businessDays;
+        if (rank < 0 || rank >= businessDaysBeforeWord[businessDaysBeforeWord.length - 1]) {
+            throw new IllegalArgumentException(String.format("%s advanced %d business days is outside %d to %d", day, businessDays, firstYear, lastYear));
+        }
+        return Day.fromEpochDay(firstEpochDay + indexOfBusinessDay((int) rank));
+    }
+
+    public Day recededBusinessDays(Day day, int businessDays) {
+        return advancedBusinessDays(day, -businessDays);
+    }
+
+    public Day nextBusinessDay(Day day) {
+        return advancedBusinessDays(day, 1);
+    }
+
+    public Day previousBusinessDay(Day day) {
+        return advancedBusinessDays(day, -1);
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private int index(Day day) {
+        return index(day.toEpochDay());
+    }
+
+    private int index(long epochDay) {
+        long index = epochDay - firstEpochDay;
+        if (index < 0 || index >= numberOfDays) {
+            throw new IllegalArgumentException(String.format("%s is outside %d to %d", Day.fromEpochDay(epochDay), firstYear, lastYear));
+        }
+        return (int) index;
+    }
+
+    /**
+     * Returns the number of business days before the day at index (which may be
+     * the day after the last day).
+     */
+    private int businessDaysBefore(int index) {
+        int word = index >>> 6;
+        return businessDaysBeforeWord[word] + Long.bitCount(businessDayBits[word] & ((1L << index) - 1));
+    }
+
+    /**
+     * Returns the index of the business day that has rank business days before it.
+     */
+    private int indexOfBusinessDay(int rank) {
+        // Find the last word with no more than rank business days before it
+        int low = 0;
+        int high = businessDayBits.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (businessDaysBeforeWord[mid] <= rank) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        int word = low;
+        long bits = businessDayBits[word];
+        for (int i = rank - businessDaysBeforeWord[word]; i > 0; i--) {
+            bits &= bits - 1;
+        }
+        return (word << 6) + Long.numberOfTrailingZeros(bits);
+    }
+
+}
@@ -0,0 +1,446 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.text.DateFormatSymbols;
+import java.text.DecimalFormatSymbols;
+import java.text.SimpleDateFormat;
+import java.time.LocalDateTime;
+import java.time.Year;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DecimalStyle;
+import java.time.format.SignStyle;
+import java.time.format.TextStyle;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalField;
+import java.time.temporal.TemporalQueries;
+import java.time.temporal.TemporalQuery;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread safe replacement for new SimpleDateFormat(pattern).format(date) as used
+ * by the format methods of the classes in this package.  Patterns are in
+ * SimpleDateFormat syntax and are compiled once (per locale) into an
+ * (immutable) DateTimeFormatter that gives the same output.  Patterns that
+ * only contain numeric year, month, day, hour, minute, second and millisecond
+ * fields (which covers the ISO style patterns) are formatted directly without
+ * going through the DateTimeFormatter at all.
+ * <p>
+ * As when the format methods used SimpleDateFormat on getDate(), a local time
+ * that falls in a daylight saving gap in the default time zone (e.g. 2046-10-07
+ * 02:03 in Australia/Sydney) is formatted as moved forward by the length of the
+ * gap ("3:03 AM"), whether or not the pattern has a time zone field.
+ */
+final class DateFormatters {
+
+    private static final int MAX_CACHED_PATTERNS = 1000;
+    private static final ConcurrentHashMap<String, CompiledPattern> CACHE = new ConcurrentHashMap<>();
+
+    private DateFormatters() {
+    }
+
+    /**
+     * Formats the timestamp held in packed (see PackedTimestamp) plus
+     * millisecondInSecond in the default time zone.
+     */
+    static String format(String pattern, long packed, int millisecondInSecond) {
+        CompiledPattern compiledPattern = compiledPattern(pattern);
+        packed = PackedTimestamp.resolveGap(packed, TimeZone.getDefault());
+        int year = PackedTimestamp.year(packed);
+        if (!compiledPattern.gregorian || year < Year.MIN_VALUE || year > Year.MAX_VALUE) {
+
+            // SimpleDateFormat uses the locale's calendar (e.g. the Thai Buddhist
+            // calendar for th_TH) so leave these to it, along with years that
+            // LocalDateTime can't hold
+            return new SimpleDateFormat(pattern, compiledPattern.locale).format(new Date(PackedTimestamp.toEpochMillisecond(packed, TimeZone.getDefault()) + millisecondInSecond));
+        } else if (compiledPattern.zoned) {
+            TimeZone timeZone = TimeZone.getDefault();
+            long epochMillisecond = PackedTimestamp.toEpochMillisecond(packed, timeZone) + millisecondInSecond;
+            return compiledPattern.formatter.format(new ZonedFields(toLocalDateTime(PackedTimestamp.fromEpochMillisecond(epochMillisecond, timeZone),
+                                                                                    PackedTimestamp.millisecondInSecond(epochMillisecond, timeZone)),
+                                                                    ZoneOffset.ofTotalSeconds(timeZone.getOffset(epochMillisecond) / 1000),
+                                                                    timeZone.toZoneId()));
+        } else if (compiledPattern.fieldLetters != null && year >= 1 && year <= 9999) {
+            return compiledPattern.formatNumericFields(packed, millisecondInSecond);
+        } else {
+            return compiledPattern.formatter.format(toLocalDateTime(packed, millisecondInSecond));
+        }
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private static CompiledPattern compiledPattern(String pattern) {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        CompiledPattern compiledPattern = CACHE.get(pattern);
+        if (compiledPattern == null || !compiledPattern.locale.equals(locale)) {
+            compiledPattern = new CompiledPattern(pattern, locale);
+            if (CACHE.size() >= MAX_CACHED_PATTERNS) {
+                CACHE.clear();
+            }
+            CACHE.put(pattern, compiledPattern);
+        }
+        return compiledPattern;
+    }
+
+    private static LocalDateTime toLocalDateTime(long packed, int millisecondInSecond) {
+        return LocalDateTime.of(PackedTimestamp.year(packed),
+                                PackedTimestamp.monthInYear(packed),
+                                PackedTimestamp.dayInMonth(packed),
+                                PackedTimestamp.hourInDay(packed),
+                                PackedTimestamp.minuteInHour(packed),
+                                PackedTimestamp.secondInMinute(packed),
+                                millisecondInSecond * 1000000);
+    }
+
+    private static class CompiledPattern {
+
+        private final Locale locale;
+        private final boolean gregorian;
+        private final DateTimeFormatter formatter;
+        private final boolean zoned;
+
+        // Only set if the pattern only has numeric fields, in which case each
+        // segment of the pattern is either literals[i] (if fieldLetters[i] is 0)
+        // or the field for fieldLetters[i] zero padded to fieldWidths[i]
+        private final char[] fieldLetters;
+        private final int[] fieldWidths;
+        private final String[] literals;
+
+        private CompiledPattern(String pattern, Locale locale) {
+            this.locale = locale;
+            this.gregorian = "gregory".equals(Calendar.getInstance(locale).getCalendarType());
+            DateFormatSymbols symbols = DateFormatSymbols.getInstance(locale);
+            char zeroDigit = DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+            WeekFields weekFields = WeekFields.of(locale);
+            DateTimeFormatterBuilder builder = new DateTimeFormatterBuilder();
+            StringBuilder fieldLetters = new StringBuilder();
+            StringBuilder fieldWidths = new StringBuilder();
+            List<String> literals = new ArrayList<>();
+            boolean numericFieldsOnly = zeroDigit == '0';
+            boolean zoned = false;
+            StringBuilder literal = new StringBuilder();
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '\'') {
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '\'') {
+                        literal.append('\'');
+                        i += 2;
+                    } else {
+                        int end = i + 1;
+                        while (true) {
+                            if (end >= pattern.length()) {
+                                throw new IllegalArgumentException("Unterminated quote");
+                            } else if (pattern.charAt(end) != '\'') {
+                                literal.append(pattern.charAt(end++));
+                            } else if (end + 1 < pattern.length() && pattern.charAt(end + 1) == '\'') {
+                                literal.append('\'');
+                                end += 2;
+                            } else {
+                                break;
+                            }
+                        }
+                        i = end + 1;
+                    }
+                } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                    int count = 1;
+                    while (i + count < pattern.length() && pattern.charAt(i + count) == c) {
+                        count++;
+                    }
+                    if (literal.length() > 0) {
+                        builder.appendLiteral(literal.toString());
+                        fieldLetters.append((char) 0);
+                        fieldWidths.append((char) 0);
+                        literals.add(literal.toString());
+                        literal.setLength(0);
+                    }
+                    appendField(builder, symbols, weekFields, c, count);
+                    zoned |= c == 'z' || c == 'Z' || c == 'X';
+                    if ("yMdHmsS".indexOf(c) >= 0 && !(c == 'y' && count == 2) && !(c == 'M' && count >= 3)) {
+                        fieldLetters.append(c);
+                        fieldWidths.append((char) count);
+                        literals.add(null);
+                    } else {
+                        numericFieldsOnly = false;
+                    }
+                    i += count;
+                } else {
+                    literal.append(c);
+                    i++;
+                }
+            }
+            if (literal.length() > 0) {
+                builder.appendLiteral(literal.toString());
+                fieldLetters.append((char) 0);
+                fieldWidths.append((char) 0);
+                literals.add(literal.toString());
+            }
+            this.formatter = builder.toFormatter(locale).withDecimalStyle(DecimalStyle.STANDARD.withZeroDigit(zeroDigit));
+            this.zoned = zoned;
+            if (numericFieldsOnly) {
+                this.fieldLetters = fieldLetters.toString().toCharArray();
+                this.fieldWidths = new int[fieldWidths.length()];
+                for (int j = 0; j < this.fieldWidths.length; j++) {
+                    this.fieldWidths[j] = fieldWidths.charAt(j);
+                }
+                this.literals = literals.toArray(new String[literals.size()]);
+            } else {
+                this.fieldLetters = null;
+                this.fieldWidths = null;
+                this.literals = null;
+            }
+        }
+
+        private String formatNumericFields(long packed, int millisecondInSecond) {
+            StringBuilder builder = new StringBuilder(32);
+            for (int i = 0; i < fieldLetters.length; i++) {
+                switch (fieldLetters[i]) {
+                    case 0:
+                        builder.append(literals[i]);
+                        break;
+                    case 'y':
+                        appendZeroPadded(builder, PackedTimestamp.year(packed), fieldWidths[i]);
+                        break;
+                    case 'M':
+                        appendZeroPadded(builder, PackedTimestamp.monthInYear(packed), fieldWidths[i]);
+                        break;
+                    case 'd':
+                        appendZeroPadded(builder, PackedTimestamp.dayInMonth(packed), fieldWidths[i]);
+                        break;
+                    case 'H':
+                        appendZeroPadded(builder, PackedTimestamp.hourInDay(packed), fieldWidths[i]);
+                        break;
+                    case 'm':
+                        appendZeroPadded(builder, PackedTimestamp.minuteInHour(packed), fieldWidths[i]);
+                        break;
+                    case 's':
+                        appendZeroPadded(builder, PackedTimestamp.secondInMinute(packed), fieldWidths[i]);
+                        break;
+                    default:
+                        appendZeroPadded(builder, millisecondInSecond, fieldWidths[i]);
+                }
+            }
+            return builder.toString();
+        }
+
+        private static void appendField(DateTimeFormatterBuilder builder, DateFormatSymbols symbols, WeekFields weekFields, char letter, int count) {
+            switch (letter) {
+                case 'G':
+                    builder.appendText(ChronoField.ERA, textMap(symbols.getEras(), 0));
+                    break;
+                case 'y':
+                    appendYear(builder, ChronoField.YEAR_OF_ERA, count);
+                    break;
+                case 'Y':
+                    appendYear(builder, weekFields.weekBasedYear(), count);
+                    break;
+                case 'M':
+                    if (count >= 4) {
+                        builder.appendText(ChronoField.MONTH_OF_YEAR, textMap(symbols.getMonths(), 1));
+                    } else if (count == 3) {
+                        builder.appendText(ChronoField.MONTH_OF_YEAR, textMap(symbols.getShortMonths(), 1));
+                    } else {
+                        appendNumber(builder, ChronoField.MONTH_OF_YEAR, count);
+                    }
+                    break;
+                case 'L':
+                    if (count >= 4) {
+                        builder.appendText(ChronoField.MONTH_OF_YEAR, TextStyle.FULL_STANDALONE);
+                    } else if (count == 3) {
+                        builder.appendText(ChronoField.MONTH_OF_YEAR, TextStyle.SHORT_STANDALONE);
+                    } else {
+                        appendNumber(builder, ChronoField.MONTH_OF_YEAR, count);
+                    }
+                    break;
+                case 'w':
+                    appendNumber(builder, weekFields.weekOfWeekBasedYear(), count);
+                    break;
+                case 'W':
+                    appendNumber(builder, weekFields.weekOfMonth(), count);
+                    break;
+                case 'D':
+                    appendNumber(builder, ChronoField.DAY_OF_YEAR, count);
+                    break;
+                case 'd':
+                    appendNumber(builder, ChronoField.DAY_OF_MONTH, count);
+                    break;
+                case 'F':
+                    appendNumber(builder, ChronoField.ALIGNED_WEEK_OF_MONTH, count);
+                    break;
+                case 'E':
+                    builder.appendText(ChronoField.DAY_OF_WEEK, dayOfWeekTextMap(count >= 4 ? symbols.getWeekdays() : symbols.getShortWeekdays()));
+                    break;
+                case 'u':
+                    appendNumber(builder, ChronoField.DAY_OF_WEEK, count);
+                    break;
+                case 'a':
+                    builder.appendText(ChronoField.AMPM_OF_DAY, textMap(symbols.getAmPmStrings(), 0));
+                    break;
+                case 'H':
+                    appendNumber(builder, ChronoField.HOUR_OF_DAY, count);
+                    break;
+                case 'k':
+                    appendNumber(builder, ChronoField.CLOCK_HOUR_OF_DAY, count);
+                    break;
+                case 'K':
+                    appendNumber(builder, ChronoField.HOUR_OF_AMPM, count);
+                    break;
+                case 'h':
+                    appendNumber(builder, ChronoField.CLOCK_HOUR_OF_AMPM, count);
+                    break;
+                case 'm':
+                    appendNumber(builder, ChronoField.MINUTE_OF_HOUR, count);
+                    break;
+                case 's':
+                    appendNumber(builder, ChronoField.SECOND_OF_MINUTE, count);
+                    break;
+                case 'S':
+                    appendNumber(builder, ChronoField.MILLI_OF_SECOND, count);
+                    break;
+                case 'z':
+                    builder.appendZoneText(count >= 4 ? TextStyle.FULL : TextStyle.SHORT);
+                    break;
+                case 'Z':
+                    builder.appendOffset("+HHMM", "+0000");
+                    break;
+                case 'X':
+                    if (count > 3) {
+                        throw new IllegalArgumentException("invalid ISO 8601 format: length=" + count);
+                    }
+                    builder.appendOffset(count == 1 ? "+HH" : count == 2 ? "+HHMM" : "+HH:MM", "Z");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Illegal pattern character '" + letter + "'");
+            }
+        }
+
+        private static void appendYear(DateTimeFormatterBuilder builder, TemporalField field, int count) {
+            if (count == 2) {
+                builder.appendValueReduced(field, 2, 2, 2000);
+            } else {
+                appendNumber(builder, field, count);
+            }
+        }
+
+        // Text fields use the same DateFormatSymbols text as SimpleDateFormat does
+        private static Map<Long, String> textMap(String[] texts, int firstValue) {
+            Map<Long, String> textMap = new HashMap<>();
+            for (int i = 0; i < texts.length; i++) {
+                if (texts[i].length() > 0) {
+                    textMap.put((long) (firstValue + i), texts[i]);
+                }
+            }
+            return textMap;
+        }
+
+        // DateFormatSymbols weekdays are indexed by Calendar.SUNDAY (1) to
+        // Calendar.SATURDAY (7) rather than ISO Monday (1) to Sunday (7)
+        private static Map<Long, String> dayOfWeekTextMap(String[] weekdays) {
+            Map<Long, String> textMap = new HashMap<>();
+            for (int dayOfWeek = 1; dayOfWeek <= 7; dayOfWeek++) {
+                textMap.put((long) dayOfWeek, weekdays[dayOfWeek % 7 + 1]);
+            }
+            return textMap;
+        }
+
+        // SimpleDateFormat numbers are zero padded to the field width but never truncated
+        private static void appendNumber(DateTimeFormatterBuilder builder, TemporalField field, int count) {
+            builder.appendValue(field, Math.min(count, 19), 19, SignStyle.NORMAL);
+        }
+
+        private static void appendZeroPadded(StringBuilder builder, int value, int width) {
+            for (int digits = value < 10 ? 1 : value < 100 ? 2 : value < 1000 ? 3 : 4; digits < width; digits++) {
+                builder.append('0');
+            }
+            builder.append(value);
+        }
+
+    }
+
+    /**
+     * A ZonedDateTime would work out the offset from the java.time zone rules,
+     * which don't always agree with java.util.TimeZone (e.g. for local mean time
+     * before standard time zones were adopted), so this gives SimpleDateFormat's
+     * offset instead.
+     */
+    private static class ZonedFields implements TemporalAccessor {
+
+        private final LocalDateTime localDateTime;
+        private final ZoneOffset offset;
+        private final ZoneId zone;
+
+        private ZonedFields(LocalDateTime localDateTime, ZoneOffset offset, ZoneId zone) {
+            this.localDateTime = localDateTime;
+            this.offset = offset;
+            this.zone = zone;
+        }
+
+        public boolean isSupported(TemporalField field) {
+            return field == ChronoField.OFFSET_SECONDS || field == ChronoField.INSTANT_SECONDS || localDateTime.isSupported(field);
+        }
+
+        public long getLong(TemporalField field) {
+            if (field == ChronoField.OFFSET_SECONDS) {
+                return offset.getTotalSeconds();
+            } else if (field == ChronoField.INSTANT_SECONDS) {
+                return localDateTime.toEpochSecond(offset);
+            } else {
+                return localDateTime.getLong(field);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        public <R> R query(TemporalQuery<R> query) {
+            if (query == TemporalQueries.zoneId() || query == TemporalQueries.zone()) {
+                return (R) zone;
+            } else if (query == TemporalQueries.offset()) {
+                return (R) offset;
+            } else {
+                return localDateTime.query(query);
+            }
+        }
+
+    }
+
+}
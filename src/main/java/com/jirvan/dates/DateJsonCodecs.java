@@ -0,0 +1,143 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Jackson serializers and deserializers for the date classes that work at the
+ * token level, i.e. dates are written from a char buffer with
+ * writeString(char[], int, int) and parsed straight from the parser's text
+ * characters, rather than by building a String (or a JsonNode) for each value.
+ */
+final class DateJsonCodecs {
+
+    interface IsoCharsWriter<T> {
+        int toIsoChars(T value, char[] buffer);
+    }
+
+    interface CharsParser<T> {
+        T fromString(CharSequence chars, int offset, int length);
+    }
+
+    static final class IsoSerializer<T> extends StdSerializer<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IsoCharsWriter<? super T> writer;
+
+        IsoSerializer(Class<T> type, IsoCharsWriter<? super T> writer) {
+            super(type);
+            this.writer = writer;
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            char[] buffer = new char[Dates.MAX_ISO_LENGTH];
+            int length = writer.toIsoChars(value, buffer);
+            if (length < 0) {
+                generator.writeString(value.toString());
+            } else {
+                generator.writeString(buffer, 0, length);
+            }
+        }
+
+    }
+
+    static final class TextDeserializer<T> extends StdDeserializer<T> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final CharsParser<? extends T> charsParser;
+
+        TextDeserializer(Class<T> type, CharsParser<? extends T> charsParser) {
+            super(type);
+            this.charsParser = charsParser;
+        }
+
+        @Override
+        public T deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.getCurrentToken() != JsonToken.VALUE_STRING) throw new RuntimeException("Expected a text node");
+            int length = parser.getTextLength();
+            return charsParser.fromString(new CharArraySequence(parser.getTextCharacters(), parser.getTextOffset(), length), 0, length);
+        }
+
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private DateJsonCodecs() {
+    }
+
+    /**
+     * A view of the parser's text characters (CharBuffer.wrap would do but its
+     * bounds checked charAt roughly doubles the time taken to parse a date)
+     */
+    private static final class CharArraySequence implements CharSequence {
+
+        private final char[] chars;
+        private final int offset;
+        private final int length;
+
+        private CharArraySequence(char[] chars, int offset, int length) {
+            this.chars = chars;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int length() {
+            return length;
+        }
+
+        public char charAt(int index) {
+            return chars[offset + index];
+        }
+
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, offset, length);
+        }
+
+    }
+
+}
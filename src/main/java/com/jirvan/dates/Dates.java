@@ -30,22 +30,10 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.jirvan.dates;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.core.JsonParser;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.ObjectCodec;
 import com.fasterxml.jackson.core.Version;
-import com.fasterxml.jackson.databind.DeserializationContext;
-import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.fasterxml.jackson.databind.node.TextNode;
 import com.jirvan.dates.jackson.DayToJavascriptStringJsonSerializer;
 
-import java.io.IOException;
-
 public class Dates {
 
     public static String formatElapsedTime(int minutes) {
@@ -75,87 +63,204 @@ public class Dates {
     public static SimpleModule getSerializerDeserializerModule() {
         SimpleModule module = new SimpleModule("JiDatesSerializerModule", new Version(1, 0, 0, null));
 
-        module.addSerializer(Month.class, new JsonSerializer<Month>() {
-            public void serialize(Month value, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
-                jgen.writeString(value.toString());
-            }
-        });
-        module.addDeserializer(Month.class, new JsonDeserializer<Month>() {
-            public Month deserialize(JsonParser jsonParser, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-                ObjectCodec oc = jsonParser.getCodec();
-                JsonNode jsonNode = oc.readTree(jsonParser);
-                if (!(jsonNode instanceof TextNode)) throw new RuntimeException("Expected a text node");
-                return Month.fromString((jsonNode.textValue()));
-            }
-        });
+        module.addSerializer(new DateJsonCodecs.IsoSerializer<>(Month.class, (value, buffer) -> toIsoChars(buffer, 2, value.getYear(), value.getMonthInYear(), 0, 0, 0, 0, 0)));
+        module.addDeserializer(Month.class, new DateJsonCodecs.TextDeserializer<>(Month.class, Month::fromString));
+
+        module.addSerializer(ImmutableMonth.class, new DateJsonCodecs.IsoSerializer<>(ImmutableMonth.class, (value, buffer) -> toIsoChars(buffer, 2, value.getYear(), value.getMonthInYear(), 0, 0, 0, 0, 0)));
+        module.addDeserializer(ImmutableMonth.class, new DateJsonCodecs.TextDeserializer<>(ImmutableMonth.class, ImmutableMonth::fromString));
 
         module.addSerializer(Day.class, new DayToJavascriptStringJsonSerializer());
-        module.addDeserializer(Day.class, new JsonDeserializer<Day>() {
-            public Day deserialize(JsonParser jsonParser, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-                ObjectCodec oc = jsonParser.getCodec();
-                JsonNode jsonNode = oc.readTree(jsonParser);
-                if (!(jsonNode instanceof TextNode)) throw new RuntimeException("Expected a text node");
-                return Day.fromString((jsonNode.textValue()));
-            }
-        });
+        module.addDeserializer(Day.class, new DateJsonCodecs.TextDeserializer<>(Day.class, Day::fromString));
 
-        module.addSerializer(Hour.class, new JsonSerializer<Hour>() {
-            public void serialize(Hour value, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
-                jgen.writeString(value.toString());
-            }
-        });
-        module.addDeserializer(Hour.class, new JsonDeserializer<Hour>() {
-            public Hour deserialize(JsonParser jsonParser, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-                ObjectCodec oc = jsonParser.getCodec();
-                JsonNode jsonNode = oc.readTree(jsonParser);
-                if (!(jsonNode instanceof TextNode)) throw new RuntimeException("Expected a text node");
-                return Hour.fromString((jsonNode.textValue()));
-            }
-        });
+        module.addSerializer(ImmutableDay.class, new DateJsonCodecs.IsoSerializer<>(ImmutableDay.class, (value, buffer) -> toIsoChars(buffer, 3, value.getYear(), value.getMonthInYear(), value.getDayInMonth(), 0, 0, 0, 0)));
+        module.addDeserializer(ImmutableDay.class, new DateJsonCodecs.TextDeserializer<>(ImmutableDay.class, ImmutableDay::fromString));
 
-        module.addSerializer(Minute.class, new JsonSerializer<Minute>() {
-            public void serialize(Minute value, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
-                jgen.writeString(value.toString());
-            }
-        });
-        module.addDeserializer(Minute.class, new JsonDeserializer<Minute>() {
-            public Minute deserialize(JsonParser jsonParser, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-                ObjectCodec oc = jsonParser.getCodec();
-                JsonNode jsonNode = oc.readTree(jsonParser);
-                if (!(jsonNode instanceof TextNode)) throw new RuntimeException("Expected a text node");
-                return Minute.fromString((jsonNode.textValue()));
-            }
-        });
+        module.addSerializer(new DateJsonCodecs.IsoSerializer<>(Hour.class, (value, buffer) -> toIsoChars(buffer, 4, value.getYear(), value.getMonthInYear(), value.getDayInMonth(), value.getHourInDay(), 0, 0, 0)));
+        module.addDeserializer(Hour.class, new DateJsonCodecs.TextDeserializer<>(Hour.class, Hour::fromString));
 
-        module.addSerializer(Second.class, new JsonSerializer<Second>() {
-            public void serialize(Second value, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
-                jgen.writeString(value.toString());
-            }
-        });
-        module.addDeserializer(Second.class, new JsonDeserializer<Second>() {
-            public Second deserialize(JsonParser jsonParser, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-                ObjectCodec oc = jsonParser.getCodec();
-                JsonNode jsonNode = oc.readTree(jsonParser);
-                if (!(jsonNode instanceof TextNode)) throw new RuntimeException("Expected a text node");
-                return Second.fromString((jsonNode.textValue()));
+        module.addSerializer(new DateJsonCodecs.IsoSerializer<>(Minute.class, (value, buffer) -> toIsoChars(buffer, 5, value.getYear(), value.getMonthInYear(), value.getDayInMonth(), value.getHourInDay(), value.getMinuteInHour(), 0, 0)));
+        module.addDeserializer(Minute.class, new DateJsonCodecs.TextDeserializer<>(Minute.class, Minute::fromString));
+
+        module.addSerializer(new DateJsonCodecs.IsoSerializer<>(Second.class, (value, buffer) -> toIsoChars(buffer, 6, value.getYear(), value.getMonthInYear(), value.getDayInMonth(), value.getHourInDay(), value.getMinuteInHour(), value.getSecondInMinute(), 0)));
+        module.addDeserializer(Second.class, new DateJsonCodecs.TextDeserializer<>(Second.class, Second::fromString));
+
+        module.addSerializer(new DateJsonCodecs.IsoSerializer<>(Millisecond.class, (value, buffer) -> toIsoChars(buffer, 7, value.getYear(), value.getMonthInYear(), value.getDayInMonth(), value.getHourInDay(), value.getMinuteInHour(), value.getSecondInMinute(), value.getMillisecondInSecond())));
+        module.addDeserializer(Millisecond.class, new DateJsonCodecs.TextDeserializer<>(Millisecond.class, Millisecond::fromString));
+
+        return module;
+    }
+
+    //======================== Everything below here is private ========================//
+
+    // The range of years for which ImmutableDay and ImmutableMonth instances are created up front
+    static final int FIRST_CACHED_YEAR = Integer.getInteger("com.jirvan.dates.firstCachedYear", 1900);
+    static final int LAST_CACHED_YEAR = Integer.getInteger("com.jirvan.dates.lastCachedYear", 2099);
+
+    // Whether the date and time *FormatExceptions are created without a stack trace
+    // (filling it in is most of the cost of a failed parse, which adds up when
+    // parsing dirty data)
+    static final boolean STACKLESS_FORMAT_EXCEPTIONS = Boolean.getBoolean("com.jirvan.dates.stacklessFormatExceptions");
+
+    static final int MAX_ISO_LENGTH = 23;
+    private static final String[] ISO_FORMATS = {null,
+                                                 null,
+                                                 "%04d-%02d",
+                                                 "%04d-%02d-%02d",
+                                                 "%04d-%02d-%02d %02d",
+                                                 "%04d-%02d-%02d %02d:%02d",
+                                                 "%04d-%02d-%02d %02d:%02d:%02d",
+                                                 "%04d-%02d-%02d %02d:%02d:%02d.%03d"};
+    private static final String[] MONTH_ABBREVIATIONS = {"jan", "feb", "mar", "apr", "may", "jun", "jul", "aug", "sep", "oct", "nov", "dec"};
+
+    static void checkBounds(CharSequence chars, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > chars.length() - length) {
+            throw new IndexOutOfBoundsException(String.format("offset %d and length %d are out of bounds for a length of %d", offset, length, chars.length()));
+        }
+    }
+
+    static boolean isDigits(CharSequence chars, int index, int count) {
+        for (int i = index; i < index + count; i++) {
+            char c = chars.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
             }
-        });
+        }
+        return true;
+    }
+
+    static int parseDigits(CharSequence chars, int index, int count) {
+        int value = 0;
+        for (int i = index; i < index + count; i++) {
+            value = value * 10 + (chars.charAt(i) - '0');
+        }
+        return value;
+    }
 
-        module.addSerializer(Millisecond.class, new JsonSerializer<Millisecond>() {
-            public void serialize(Millisecond value, JsonGenerator jgen, SerializerProvider provider) throws IOException, JsonProcessingException {
-                jgen.writeString(value.toString());
+    /**
+     * The characters a regular expression "." does not match
+     */
+    static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Returns 1 to 12 for a (case insensitive) "jan" to "dec" at index or 0 if
+     * the three characters there are not a month abbreviation
+     */
+    static int parseMonthAbbreviation(CharSequence chars, int index) {
+        for (int m = 0; m < MONTH_ABBREVIATIONS.length; m++) {
+            String abbreviation = MONTH_ABBREVIATIONS[m];
+            if (toLowerCase(chars.charAt(index)) == abbreviation.charAt(0)
+                && toLowerCase(chars.charAt(index + 1)) == abbreviation.charAt(1)
+                && toLowerCase(chars.charAt(index + 2)) == abbreviation.charAt(2)) {
+                return m + 1;
             }
-        });
-        module.addDeserializer(Millisecond.class, new JsonDeserializer<Millisecond>() {
-            public Millisecond deserialize(JsonParser jsonParser, DeserializationContext ctxt) throws IOException, JsonProcessingException {
-                ObjectCodec oc = jsonParser.getCodec();
-                JsonNode jsonNode = oc.readTree(jsonParser);
-                if (!(jsonNode instanceof TextNode)) throw new RuntimeException("Expected a text node");
-                return Millisecond.fromString((jsonNode.textValue()));
+        }
+        return 0;
+    }
+
+    /**
+     * Whether chars has a "yyyy-mm-dd hh" (or "yyyy-mm-ddThh") timestamp at
+     * index followed by the given number of ":mm" fields
+     */
+    static boolean isTimestamp(CharSequence chars, int index, int minuteAndSecondFields, boolean dotsAllowedInDate) {
+        if (!isDigits(chars, index, 4)
+            || !isDateSeparator(chars.charAt(index + 4), dotsAllowedInDate)
+            || !isDigits(chars, index + 5, 2)
+            || !isDateSeparator(chars.charAt(index + 7), dotsAllowedInDate)
+            || !isDigits(chars, index + 8, 2)
+            || (chars.charAt(index + 10) != ' ' && chars.charAt(index + 10) != 'T')
+            || !isDigits(chars, index + 11, 2)) {
+            return false;
+        }
+        for (int i = index + 13; i < index + 13 + minuteAndSecondFields * 3; i += 3) {
+            if (chars.charAt(i) != ':' || !isDigits(chars, i + 1, 2)) {
+                return false;
             }
-        });
+        }
+        return true;
+    }
 
-        return module;
+    /**
+     * Returns the first fieldCount of year, month in year, day in month etc as
+     * "yyyy-mm-dd hh:mm:ss.sss" (the toString format of the date classes)
+     */
+    static String toIsoString(int fieldCount, int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute, int millisecondInSecond) {
+        char[] buffer = new char[MAX_ISO_LENGTH];
+        int length = toIsoChars(buffer, fieldCount, year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond);
+        return length < 0
+               ? String.format(ISO_FORMATS[fieldCount], year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond)
+               : new String(buffer, 0, length);
+    }
+
+    /**
+     * As for toIsoString but into buffer (which must have room for MAX_ISO_LENGTH
+     * chars), returning the number of chars or -1 if a field does not fit its
+     * fixed width (in which case toIsoString's wider output is needed)
+     */
+    static int toIsoChars(char[] buffer, int fieldCount, int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute, int millisecondInSecond) {
+        if (year < 0 || year > 9999 || monthInYear < 0 || monthInYear > 99) {
+            return -1;
+        }
+        putDigits(buffer, 0, year, 4);
+        buffer[4] = '-';
+        putDigits(buffer, 5, monthInYear, 2);
+        if (fieldCount < 3) {
+            return 7;
+        }
+        if (dayInMonth < 0 || dayInMonth > 99) {
+            return -1;
+        }
+        buffer[7] = '-';
+        putDigits(buffer, 8, dayInMonth, 2);
+        if (fieldCount < 4) {
+            return 10;
+        }
+        if (hourInDay < 0 || hourInDay > 99) {
+            return -1;
+        }
+        buffer[10] = ' ';
+        putDigits(buffer, 11, hourInDay, 2);
+        if (fieldCount < 5) {
+            return 13;
+        }
+        if (minuteInHour < 0 || minuteInHour > 99) {
+            return -1;
+        }
+        buffer[13] = ':';
+        putDigits(buffer, 14, minuteInHour, 2);
+        if (fieldCount < 6) {
+            return 16;
+        }
+        if (secondInMinute < 0 || secondInMinute > 99) {
+            return -1;
+        }
+        buffer[16] = ':';
+        putDigits(buffer, 17, secondInMinute, 2);
+        if (fieldCount < 7) {
+            return 19;
+        }
+        if (millisecondInSecond < 0 || millisecondInSecond > 999) {
+            return -1;
+        }
+        buffer[19] = '.';
+        putDigits(buffer, 20, millisecondInSecond, 3);
+        return 23;
+    }
+
+    private static void putDigits(char[] buffer, int index, int value, int count) {
+        for (int i = index + count - 1; i >= index; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    private static boolean isDateSeparator(char c, boolean dotsAllowed) {
+        return c == '-' || (dotsAllowed && c == '.');
+    }
+
+    private static char toLowerCase(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
     }
 
 }
@@ -34,14 +34,10 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.io.Serializable;
 import java.sql.Timestamp;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.time.LocalDate;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is primarily here to get around the standard java Date class's
@@ -56,7 +52,8 @@ import java.util.regex.Pattern;
 @Deprecated // Now that LocalDate is available you really should use that
 public class Day implements Cloneable, Serializable, Comparable<Day> {
 
-    private static final DateFormat JAVASCRIPT_DAY_FORMAT = new SimpleDateFormat("MMM d, yyyy");
+    private static final String JAVASCRIPT_DAY_PATTERN = "MMM d, yyyy";
+    private static final DayOfWeek[] DAYS_OF_WEEK_FROM_MONDAY = DayOfWeek.values();
 
     private int year;
     private int monthInYear;
@@ -82,6 +79,13 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
         this.dayInMonth = localDate.getDayOfMonth();
     }
 
+    private Day(long epochDay) {
+        long packedDate = PackedTimestamp.packDate(epochDay);
+        this.year = PackedTimestamp.year(packedDate);
+        this.monthInYear = PackedTimestamp.monthInYear(packedDate);
+        this.dayInMonth = PackedTimestamp.dayInMonth(packedDate);
+    }
+
     private Day(GregorianCalendar calendar) {
         this.year = calendar.get(GregorianCalendar.YEAR);
         this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
@@ -129,6 +133,14 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
         return date == null ? null : new Day(date, timeZone);
     }
 
+    /**
+     * Returns the day that is epochDay days after 1970-01-01 (the inverse of
+     * {@link #toEpochDay()}).
+     */
+    public static Day fromEpochDay(long epochDay) {
+        return new Day(epochDay);
+    }
+
     public static Day today() {
         return new Day();
     }
@@ -180,24 +192,7 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
     }
 
     public DayOfWeek getDayOfWeek() {
-        int dayOfWeek = getCalendar().get(GregorianCalendar.DAY_OF_WEEK);
-        if (dayOfWeek == GregorianCalendar.MONDAY) {
-            return DayOfWeek.Monday;
-        } else if (dayOfWeek == GregorianCalendar.TUESDAY) {
-            return DayOfWeek.Tuesday;
-        } else if (dayOfWeek == GregorianCalendar.WEDNESDAY) {
-            return DayOfWeek.Wednesday;
-        } else if (dayOfWeek == GregorianCalendar.THURSDAY) {
-            return DayOfWeek.Thursday;
-        } else if (dayOfWeek == GregorianCalendar.FRIDAY) {
-            return DayOfWeek.Friday;
-        } else if (dayOfWeek == GregorianCalendar.SATURDAY) {
-            return DayOfWeek.Saturday;
-        } else if (dayOfWeek == GregorianCalendar.SUNDAY) {
-            return DayOfWeek.Sunday;
-        } else {
-            throw new RuntimeException(String.format("Unexpected error: Unrecognized GregorianCalendar.DAY_OF_WEEK %d", dayOfWeek));
-        }
+        return DAYS_OF_WEEK_FROM_MONDAY[(int) Math.floorMod(toEpochDay() + 3, 7L)];  // 1970-01-01 was a Thursday
     }
 
     public boolean isOnAWeekend() {
@@ -259,35 +254,38 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
     }
 
     public Day advanced(int days) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, 0, 0, 0);
-        calendar.set(GregorianCalendar.MILLISECOND, 0);
-        calendar.add(GregorianCalendar.DATE, days);
-        return new Day(calendar);
+        return new Day(toEpochDay() + days);
     }
 
     public Day receded(int days) {
         return advanced(-days);
     }
 
+    /**
+     * As for GregorianCalendar.add(YEAR, years) the day in month is reduced to the
+     * last day of the month if necessary (so 29 Feb plus one year is 28 Feb).
+     */
     public Day advancedYears(int years) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, 0, 0, 0);
-        calendar.set(GregorianCalendar.MILLISECOND, 0);
-        calendar.add(GregorianCalendar.YEAR, years);
-        return new Day(calendar);
+        Day normalized = new Day(toEpochDay());
+        int newYear = normalized.year + years;
+        return new Day(newYear, normalized.monthInYear, Math.min(normalized.dayInMonth, lengthOfMonth(newYear, normalized.monthInYear)));
     }
 
     public Day recededYears(int years) {
         return advancedYears(-years);
     }
 
+    /**
+     * As for GregorianCalendar.add(MONTH, months) the day in month is reduced to
+     * the last day of the month if necessary (so 31 Jan plus one month is 28 or 29
+     * Feb).
+     */
     public Day advancedMonths(int months) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, 0, 0, 0);
-        calendar.set(GregorianCalendar.MILLISECOND, 0);
-        calendar.add(GregorianCalendar.MONTH, months);
-        return new Day(calendar);
+        Day normalized = new Day(toEpochDay());
+        long epochMonth = normalized.year * 12L + normalized.monthInYear - 1 + months;
+        int newYear = (int) Math.floorDiv(epochMonth, 12L);
+        int newMonthInYear = (int) Math.floorMod(epochMonth, 12L) + 1;
+        return new Day(newYear, newMonthInYear, Math.min(normalized.dayInMonth, lengthOfMonth(newYear, newMonthInYear)));
     }
 
     public Day recededMonths(int months) {
@@ -319,6 +317,11 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
                && ((Day) obj).getDayInMonth() == dayInMonth;
     }
 
+    @Override
+    public int hashCode() {
+        return yyyymmdd(year, monthInYear, dayInMonth);
+    }
+
     public boolean after(Day anotherDay) {
         if (anotherDay == null) {
             throw new NullPointerException("anotherDay cannot be null");
@@ -372,21 +375,21 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
     }
 
     public int daysUntil(Day anotherDay) {
-        GregorianCalendar thisCalendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
-        thisCalendar.set(year, monthInYear - 1, dayInMonth, 0, 0, 0);
-        thisCalendar.set(GregorianCalendar.MILLISECOND, 0);
-        GregorianCalendar theOtherCalendar = new GregorianCalendar(TimeZone.getTimeZone("UTC"));
-        theOtherCalendar.set(anotherDay.year, anotherDay.monthInYear - 1, anotherDay.dayInMonth, 0, 0, 0);
-        theOtherCalendar.set(GregorianCalendar.MILLISECOND, 0);
-        long milliseconds = theOtherCalendar.getTimeInMillis() - thisCalendar.getTimeInMillis();
-        double fractionalDays = (double) milliseconds / ((double) (24 * 60 * 60 * 1000));
-        long longDays = Math.round(fractionalDays);
+        long longDays = anotherDay.toEpochDay() - toEpochDay();
         if (longDays > Integer.MAX_VALUE) {
             throw new RuntimeException("Number of days too big to represent as an int");
         } else {
             return (int) longDays;
         }
+    }
 
+    /**
+     * Returns the number of days from 1970-01-01 to this day (negative for days
+     * before then).  As with GregorianCalendar out of range fields are allowed, so
+     * for example 2019-02-30 is treated as 2019-03-02.
+     */
+    public long toEpochDay() {
+        return toEpochDay(year, monthInYear, dayInMonth);
     }
 
     public LocalDate toLocalDate() {
@@ -406,11 +409,11 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
     }
 
     public String toString() {
-        return String.format("%04d-%02d-%02d", year, monthInYear, dayInMonth);
+        return Dates.toIsoString(3, year, monthInYear, dayInMonth, 0, 0, 0, 0);
     }
 
     public String toJavascriptString() {
-        return JAVASCRIPT_DAY_FORMAT.format(getDate());
+        return format(JAVASCRIPT_DAY_PATTERN);
     }
 
     public static String toJavascriptString(Day day) {
@@ -418,11 +421,11 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
     }
 
     public static String toJavascriptString(Day day, String valueIfNull) {
-        return day == null ? valueIfNull : JAVASCRIPT_DAY_FORMAT.format(day.getDate());
+        return day == null ? valueIfNull : day.format(JAVASCRIPT_DAY_PATTERN);
     }
 
     public String format(String pattern) {
-        return new SimpleDateFormat(pattern).format(getDate());
+        return DateFormatters.format(pattern, PackedTimestamp.pack(year, monthInYear, dayInMonth, 0, 0, 0), 0);
     }
 
     public static String format(Day day, String pattern) {
@@ -430,7 +433,7 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
     }
 
     public static String format(Day day, String pattern, String valueIfNull) {
-        return day == null ? valueIfNull : new SimpleDateFormat(pattern).format(day.getDate());
+        return day == null ? valueIfNull : DateFormatters.format(pattern, PackedTimestamp.pack(day.year, day.monthInYear, day.dayInMonth, 0, 0, 0), 0);
     }
 
     public String toFilenameSafeString() {
@@ -441,90 +444,34 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
         if (dateString == null) {
             return null;
         } else {
+            return fromString(dateString, 0, dateString.length());
+        }
+    }
 
-            Matcher m = Pattern.compile("^(\\d\\d\\d\\d)[-\\.](\\d\\d)[-\\.](\\d\\d).*$").matcher(dateString);
-            if (m.matches()) {
-                int year = Integer.parseInt(m.group(1));
-                int month = Integer.parseInt(m.group(2));
-                int day = Integer.parseInt(m.group(3));
-                return new Day(year, month, day);
-            }
-
-            m = Pattern.compile("^([a-z]{3}) (\\d\\d?), (\\d{4})$").matcher(dateString.toLowerCase());
-            if (m.matches()) {
-                int year = Integer.parseInt(m.group(3));
-                int day = Integer.parseInt(m.group(2));
-                String monthString = m.group(1);
-                int month;
-                if ("jan".equals(monthString)) {
-                    month = 1;
-                } else if ("feb".equals(monthString)) {
-                    month = 2;
-                } else if ("mar".equals(monthString)) {
-                    month = 3;
-                } else if ("apr".equals(monthString)) {
-                    month = 4;
-                } else if ("may".equals(monthString)) {
-                    month = 5;
-                } else if ("jun".equals(monthString)) {
-                    month = 6;
-                } else if ("jul".equals(monthString)) {
-                    month = 7;
-                } else if ("aug".equals(monthString)) {
-                    month = 8;
-                } else if ("sep".equals(monthString)) {
-                    month = 9;
-                } else if ("oct".equals(monthString)) {
-                    month = 10;
-                } else if ("nov".equals(monthString)) {
-                    month = 11;
-                } else if ("dec".equals(monthString)) {
-                    month = 12;
-                } else {
-                    throw new DateFormatException(dateString);
-                }
-                return new Day(year, month, day);
-            }
-
-            m = Pattern.compile("^(\\d\\d?)-([a-z]{3})-(\\d{4})$").matcher(dateString.toLowerCase());
-            if (m.matches()) {
-                int year = Integer.parseInt(m.group(3));
-                int day = Integer.parseInt(m.group(1));
-                String monthString = m.group(2);
-                int month;
-                if ("jan".equals(monthString)) {
-                    month = 1;
-                } else if ("feb".equals(monthString)) {
-                    month = 2;
-                } else if ("mar".equals(monthString)) {
-                    month = 3;
-                } else if ("apr".equals(monthString)) {
-                    month = 4;
-                } else if ("may".equals(monthString)) {
-                    month = 5;
-                } else if ("jun".equals(monthString)) {
-                    month = 6;
-                } else if ("jul".equals(monthString)) {
-                    month = 7;
-                } else if ("aug".equals(monthString)) {
-                    month = 8;
-                } else if ("sep".equals(monthString)) {
-                    month = 9;
-                } else if ("oct".equals(monthString)) {
-                    month = 10;
-                } else if ("nov".equals(monthString)) {
-                    month = 11;
-                } else if ("dec".equals(monthString)) {
-                    month = 12;
-                } else {
-                    throw new DateFormatException(dateString);
-                }
-                return new Day(year, month, day);
-            }
+    /**
+     * Parses the length characters of chars starting at offset in the same way
+     * as {@link #fromString(String)} does, without copying them to a string first.
+     */
+    public static Day fromString(CharSequence chars, int offset, int length) {
+        int yyyymmdd = parseYyyymmdd(chars, offset, length);
+        if (yyyymmdd < 0) {
+            throw new DateFormatException(chars.subSequence(offset, offset + length).toString());
+        }
+        return new Day(yyyymmdd / 10000, yyyymmdd / 100 % 100, yyyymmdd % 100);
+    }
 
-            throw new DateFormatException(dateString);
+    /**
+     * As for {@link #fromString(String)} except that null is returned (rather
+     * than a DateFormatException being thrown) if dateString is not a valid
+     * date string.
+     */
+    public static Day tryFromString(String dateString) {
+        return dateString == null ? null : tryFromString(dateString, 0, dateString.length());
+    }
 
-        }
+    public static Day tryFromString(CharSequence chars, int offset, int length) {
+        int yyyymmdd = parseYyyymmdd(chars, offset, length);
+        return yyyymmdd < 0 ? null : new Day(yyyymmdd / 10000, yyyymmdd / 100 % 100, yyyymmdd % 100);
     }
 
     public int compareTo(Day anotherDay) {
@@ -557,4 +504,103 @@ public class Day implements Cloneable, Serializable, Comparable<Day> {
         return new Millisecond(year, monthInYear, dayInMonth, 0, 0, 0, 0);
     }
 
+    //======================== Everything below here is private ========================//
+
+    static final long DAYS_PER_400_YEARS = 146097;
+    static final long DAYS_FROM_0000_03_01_TO_EPOCH = 719468;
+
+    static int lengthOfMonth(int year, int monthInYear) {
+        switch (monthInYear) {
+            case 2:
+                return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    static long toEpochDay(long year, int monthInYear, int dayInMonth) {
+
+        // Normalize the month (so for example month 13 is January of the following year)
+        long normalizedYear = year + Math.floorDiv(monthInYear - 1L, 12L);
+        int normalizedMonthInYear = Math.floorMod(monthInYear - 1, 12) + 1;
+
+        // Days from civil (see http://howardhinnant.github.io/date_algorithms.html)
+        if (normalizedMonthInYear <= 2) normalizedYear--;
+        long era = Math.floorDiv(normalizedYear, 400L);
+        long yearOfEra = normalizedYear - era * 400;
+        long dayOfYear = (153 * (normalizedMonthInYear > 2 ? normalizedMonthInYear - 3 : normalizedMonthInYear + 9) + 2) / 5 + dayInMonth - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_FROM_0000_03_01_TO_EPOCH;
+
+    }
+
+    /**
+     * Parses chars as for fromString returning the (not necessarily valid) year,
+     * month and day as a yyyymmdd int, or -1 if chars is not a date string
+     */
+    static int parseYyyymmdd(CharSequence chars, int offset, int length) {
+        Dates.checkBounds(chars, offset, length);
+        int end = offset + length;
+
+        // yyyy-mm-dd or yyyy.mm.dd, optionally followed by anything on the same line
+        if (length >= 10
+            && Dates.isDigits(chars, offset, 4)
+            && (chars.charAt(offset + 4) == '-' || chars.charAt(offset + 4) == '.')
+            && Dates.isDigits(chars, offset + 5, 2)
+            && (chars.charAt(offset + 7) == '-' || chars.charAt(offset + 7) == '.')
+            && Dates.isDigits(chars, offset + 8, 2)) {
+            int i = offset + 10;
+            while (i < end && !Dates.isLineTerminator(chars.charAt(i))) {
+                i++;
+            }
+            if (i == end) {
+                return yyyymmdd(Dates.parseDigits(chars, offset, 4),
+                                Dates.parseDigits(chars, offset + 5, 2),
+                                Dates.parseDigits(chars, offset + 8, 2));
+            }
+        }
+
+        // mmm d, yyyy or mmm dd, yyyy
+        if (length == 11 || length == 12) {
+            int dayDigits = length - 10;
+            int month = Dates.parseMonthAbbreviation(chars, offset);
+            if (month != 0
+                && chars.charAt(offset + 3) == ' '
+                && Dates.isDigits(chars, offset + 4, dayDigits)
+                && chars.charAt(offset + 4 + dayDigits) == ','
+                && chars.charAt(offset + 5 + dayDigits) == ' '
+                && Dates.isDigits(chars, offset + 6 + dayDigits, 4)) {
+                return yyyymmdd(Dates.parseDigits(chars, offset + 6 + dayDigits, 4),
+                                month,
+                                Dates.parseDigits(chars, offset + 4, dayDigits));
+            }
+        }
+
+        // d-mmm-yyyy or dd-mmm-yyyy
+        if (length == 10 || length == 11) {
+            int dayDigits = length - 9;
+            int month = Dates.parseMonthAbbreviation(chars, offset + dayDigits + 1);
+            if (month != 0
+                && Dates.isDigits(chars, offset, dayDigits)
+                && chars.charAt(offset + dayDigits) == '-'
+                && chars.charAt(offset + dayDigits + 4) == '-'
+                && Dates.isDigits(chars, offset + dayDigits + 5, 4)) {
+                return yyyymmdd(Dates.parseDigits(chars, offset + dayDigits + 5, 4),
+                                month,
+                                Dates.parseDigits(chars, offset, dayDigits));
+            }
+        }
+
+        return -1;
+    }
+
+    private static int yyyymmdd(int year, int monthInYear, int dayInMonth) {
+        return year * 10000 + monthInYear * 100 + dayInMonth;
+    }
+
 }
@@ -0,0 +1,155 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable range of days, from the first day to the last day inclusive.
+ * Ranges are held as a pair of epoch days so they can be iterated, compared and
+ * split for parallel streams without any calendar arithmetic.
+ */
+public final class DayRange implements Iterable<Day>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long firstEpochDay;
+    private final long lastEpochDay;
+
+    public DayRange(Day firstDay, Day lastDay) {
+        this(firstDay.toEpochDay(), lastDay.toEpochDay());
+    }
+
+    public DayRange(Month month) {
+        this(Day.toEpochDay(month.getYear(), month.getMonthInYear(), 1),
+             Day.toEpochDay(month.getYear(), month.getMonthInYear() + 1, 1) - 1);
+    }
+
+    public Day getFirstDay() {
+        return Day.fromEpochDay(firstEpochDay);
+    }
+
+    public Day getLastDay() {
+        return Day.fromEpochDay(lastEpochDay);
+    }
+
+    public int size() {
+        return Math.toIntExact(lastEpochDay - firstEpochDay + 1);
+    }
+
+    public boolean contains(Day day) {
+        long epochDay = day.toEpochDay();
+        return epochDay >= firstEpochDay && epochDay <= lastEpochDay;
+    }
+
+    public boolean contains(DayRange anotherRange) {
+        return anotherRange.firstEpochDay >= firstEpochDay && anotherRange.lastEpochDay <= lastEpochDay;
+    }
+
+    public boolean overlaps(DayRange anotherRange) {
+        return anotherRange.firstEpochDay <= lastEpochDay && anotherRange.lastEpochDay >= firstEpochDay;
+    }
+
+    /**
+     * Returns the days in both this range and anotherRange, or null if there are none.
+     */
+    public DayRange intersection(DayRange anotherRange) {
+        return overlaps(anotherRange)
+               ? new DayRange(Math.max(firstEpochDay, anotherRange.firstEpochDay), Math.min(lastEpochDay, anotherRange.lastEpochDay))
+               : null;
+    }
+
+    /**
+     * Returns the days in either this range or anotherRange, which must overlap or
+     * be adjacent to this range (as otherwise the union is not a range).
+     */
+    public DayRange union(DayRange anotherRange) {
+        if (anotherRange.firstEpochDay > lastEpochDay + 1 || anotherRange.lastEpochDay < firstEpochDay - 1) {
+            throw new IllegalArgumentException(String.format("%s and %s neither overlap nor are adjacent", this, anotherRange));
+        }
+        return new DayRange(Math.min(firstEpochDay, anotherRange.firstEpochDay), Math.max(lastEpochDay, anotherRange.lastEpochDay));
+    }
+
+    public Iterator<Day> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<Day> spliterator() {
+        return new RangeSpliterator<>(Day::fromEpochDay, firstEpochDay, lastEpochDay);
+    }
+
+    public Stream<Day> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<Day> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DayRange && ((DayRange) obj).firstEpochDay == firstEpochDay && ((DayRange) obj).lastEpochDay == lastEpochDay;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(firstEpochDay) * 31 + Long.hashCode(lastEpochDay);
+    }
+
+    public String toString() {
+        return getFirstDay() + " to " + getLastDay();
+    }
+
+    //======================== Everything below here is private ========================//
+
+    long getFirstEpochDay() {
+        return firstEpochDay;
+    }
+
+    long getLastEpochDay() {
+        return lastEpochDay;
+    }
+
+    private DayRange(long firstEpochDay, long lastEpochDay) {
+        if (lastEpochDay < firstEpochDay) {
+            throw new IllegalArgumentException(String.format("Last day %s is before first day %s", Day.fromEpochDay(lastEpochDay), Day.fromEpochDay(firstEpochDay)));
+        }
+        this.firstEpochDay = firstEpochDay;
+        this.lastEpochDay = lastEpochDay;
+    }
+
+}
@@ -0,0 +1,135 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.io.Serializable;
+
+/**
+ * A value for each day in a range of days, held in a double array indexed by the
+ * number of days from the first day rather than as (say) a HashMap&lt;Day,
+ * BigDecimal&gt;, so each day costs 8 bytes.  The range grows as values are set
+ * and days without a value are NaN.  Counts and other whole numbers are held
+ * exactly up to 2^53.
+ */
+public class DaySeries implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final SeriesValues values;
+
+    public DaySeries() {
+        this(new SeriesValues());
+    }
+
+    /**
+     * Creates a series that already covers firstDay to lastDay (inclusive), all
+     * without values.
+     */
+    public DaySeries(Day firstDay, Day lastDay) {
+        this(new SeriesValues(firstDay.toEpochDay(), lastDay.toEpochDay()));
+    }
+
+    public Day getFirstDay() {
+        return values.length() == 0 ? null : Day.fromEpochDay(values.getFirstIndex());
+    }
+
+    public Day getLastDay() {
+        return values.length() == 0 ? null : Day.fromEpochDay(values.getFirstIndex() + values.length() - 1);
+    }
+
+    /**
+     * The number of days from the first day to the last day (inclusive).
+     */
+    public int size() {
+        return values.length();
+    }
+
+    public Day getDay(int position) {
+        if (position < 0 || position >= values.length()) {
+            throw new IndexOutOfBoundsException("Position " + position + " is outside 0 to " + (values.length() - 1));
+        }
+        return Day.fromEpochDay(values.getFirstIndex() + position);
+    }
+
+    public double getValue(int position) {
+        return values.valueAt(position);
+    }
+
+    /**
+     * Returns the value for day or NaN if it doesn't have one.
+     */
+    public double get(Day day) {
+        return values.get(day.toEpochDay());
+    }
+
+    public boolean has(Day day) {
+        return !Double.isNaN(get(day));
+    }
+
+    public DaySeries set(Day day, double value) {
+        values.set(day.toEpochDay(), value);
+        return this;
+    }
+
+    /**
+     * Adds value to the value for day (which is taken to be zero if day doesn't
+     * have a value yet).
+     */
+    public DaySeries add(Day day, double value) {
+        values.add(day.toEpochDay(), value);
+        return this;
+    }
+
+    /**
+     * Returns a copy of the days from fromDay to toDay (inclusive).
+     */
+    public DaySeries slice(Day fromDay, Day toDay) {
+        return new DaySeries(values.slice(fromDay.toEpochDay(), toDay.toEpochDay()));
+    }
+
+    /**
+     * The sum of the values (ignoring days without a value).
+     */
+    public double sum() {
+        return values.sum();
+    }
+
+    public double[] toArray() {
+        return values.toArray();
+    }
+
+    //======================== Everything below here is private ========================//
+
+    DaySeries(SeriesValues values) {
+        this.values = values;
+    }
+
+}
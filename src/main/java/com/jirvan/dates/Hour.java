@@ -32,13 +32,10 @@ package com.jirvan.dates;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is primarily here to get around the standard java Date class's
@@ -50,47 +47,38 @@ import java.util.regex.Pattern;
  * what timezone they were born in or where they are now.  At the moment a
  * Gregorian calendar is assumed.
  */
-public class Hour {
+public class Hour implements Comparable<Hour> {
 
-    private int year;
-    private int monthInYear;
-    private int dayInMonth;
-    private int hourInDay;
+    private long packed;
+    private int[] fieldsAsGiven;  // Only if they weren't normalized (see PackedTimestamp)
 
     public Hour() {
         this(new Date());
     }
 
     public Hour(int year, int monthInYear, int dayInMonth, int hourInDay) {
-        this.year = year;
-        this.monthInYear = monthInYear;
-        this.dayInMonth = dayInMonth;
-        this.hourInDay = hourInDay;
+        set(year, monthInYear, dayInMonth, hourInDay);
     }
 
     public Hour(GregorianCalendar calendar) {
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
+        this.packed = PackedTimestamp.pack(calendar.get(GregorianCalendar.YEAR),
+                                           calendar.get(GregorianCalendar.MONTH) + 1,
+                                           calendar.get(GregorianCalendar.DAY_OF_MONTH),
+                                           calendar.get(GregorianCalendar.HOUR_OF_DAY),
+                                           0,
+                                           0);
     }
 
     public Hour(Date date) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
+        this.packed = PackedTimestamp.fromEpochMillisecond(date.getTime(), TimeZone.getDefault()) & PackedTimestamp.HOUR_MASK;
     }
 
     public Hour(Date date, TimeZone timeZone) {
-        GregorianCalendar calendar = new GregorianCalendar(timeZone);
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
+        this.packed = PackedTimestamp.fromEpochMillisecond(date.getTime(), timeZone) & PackedTimestamp.HOUR_MASK;
+    }
+
+    private Hour(long packed) {
+        this.packed = packed;
     }
 
     public static Hour current() {
@@ -98,58 +86,58 @@ public class Hour {
     }
 
     public int getYear() {
-        return year;
+        return PackedTimestamp.year(packed, fieldsAsGiven);
     }
 
     public Hour setYear(int year) {
-        this.year = year;
+        set(year, getMonthInYear(), getDayInMonth(), getHourInDay());
         return this;
     }
 
     public int getMonthInYear() {
-        return monthInYear;
+        return PackedTimestamp.monthInYear(packed, fieldsAsGiven);
     }
 
     public Hour setMonthInYear(int monthInYear) {
-        this.monthInYear = monthInYear;
+        set(getYear(), monthInYear, getDayInMonth(), getHourInDay());
         return this;
     }
 
     public int getDayInMonth() {
-        return dayInMonth;
+        return PackedTimestamp.dayInMonth(packed, fieldsAsGiven);
     }
 
     public Hour setDayInMonth(int dayInMonth) {
-        this.dayInMonth = dayInMonth;
+        set(getYear(), getMonthInYear(), dayInMonth, getHourInDay());
         return this;
     }
 
     public int getHourInDay() {
-        return hourInDay;
+        return PackedTimestamp.hourInDay(packed, fieldsAsGiven);
     }
 
     public Hour setHourInDay(int hourInDay) {
-        this.hourInDay = hourInDay;
+        set(getYear(), getMonthInYear(), getDayInMonth(), hourInDay);
         return this;
     }
 
     public Date getDate() {
-        return getCalendar().getTime();
+        return new Date(PackedTimestamp.toEpochMillisecond(packed, TimeZone.getDefault()));
     }
 
     public Calendar getCalendar() {
         GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, 0, 0);
+        calendar.set(getYear(), getMonthInYear() - 1, getDayInMonth(), getHourInDay(), 0, 0);
         calendar.set(GregorianCalendar.MILLISECOND, 0);
         return calendar;
     }
 
     public Month getMonth() {
-        return new Month(year, monthInYear);
+        return new Month(getYear(), getMonthInYear());
     }
 
     public Day getDay() {
-        return new Day(year, monthInYear, dayInMonth);
+        return new Day(getYear(), getMonthInYear(), getDayInMonth());
     }
 
     public Hour next() {
@@ -161,21 +149,21 @@ public class Hour {
     }
 
     public Hour advanced(int hours) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, 0, 0);
-        calendar.set(GregorianCalendar.MILLISECOND, 0);
-        calendar.add(GregorianCalendar.HOUR_OF_DAY, hours);
-        return new Hour(calendar);
+        return new Hour(PackedTimestamp.fromLocalEpochSecond(PackedTimestamp.toLocalEpochSecond(packed) + hours * PackedTimestamp.SECONDS_PER_HOUR));
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj != null
-               && obj instanceof Hour
-               && ((Hour) obj).getYear() == year
-               && ((Hour) obj).getMonthInYear() == monthInYear
-               && ((Hour) obj).getDayInMonth() == dayInMonth
-               && ((Hour) obj).getHourInDay() == hourInDay;
+        return obj instanceof Hour && ((Hour) obj).packed == packed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
+    }
+
+    public int compareTo(Hour anotherHour) {
+        return Long.compare(packed, anotherHour.packed);
     }
 
     public static Date toDate(Hour hour) {
@@ -183,19 +171,19 @@ public class Hour {
     }
 
     public String toString() {
-        return String.format("%04d-%02d-%02d %02d", year, monthInYear, dayInMonth, hourInDay);
+        return Dates.toIsoString(4, getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), 0, 0, 0);
     }
 
     public String toFilenameSafeString() {
-        return String.format("%04d%02d%02d-%02d", year, monthInYear, dayInMonth, hourInDay);
+        return String.format("%04d%02d%02d-%02d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay());
     }
 
     public String toISO8601String() {
-        return String.format("%04d-%02d-%02dT%02d", year, monthInYear, dayInMonth, hourInDay);
+        return String.format("%04d-%02d-%02dT%02d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay());
     }
 
     public String format(String pattern) {
-        return new SimpleDateFormat(pattern).format(getDate());
+        return DateFormatters.format(pattern, packed, 0);
     }
 
     public static String format(Hour hour, String pattern) {
@@ -203,25 +191,50 @@ public class Hour {
     }
 
     public static String format(Hour hour, String pattern, String valueIfNull) {
-        return hour == null ? valueIfNull : new SimpleDateFormat(pattern).format(hour.getDate());
+        return hour == null ? valueIfNull : DateFormatters.format(pattern, hour.packed, 0);
     }
 
     public static Hour fromString(String string) {
         if (string == null) {
             return null;
         } else {
-            Matcher m = Pattern.compile("^(\\d\\d\\d\\d)-(\\d\\d)-(\\d\\d)[ T](\\d\\d)$").matcher(string);
-            if (!m.matches()) {
-                throw new HourFormatException(string);
-            }
-            int year = Integer.parseInt(m.group(1));
-            int month = Integer.parseInt(m.group(2));
-            int day = Integer.parseInt(m.group(3));
-            int hour = Integer.parseInt(m.group(4));
-            return new Hour(year, month, day, hour);
+            return fromString(string, 0, string.length());
         }
     }
 
+    /**
+     * Parses the length characters of chars starting at offset in the same way
+     * as {@link #fromString(String)} does, without copying them to a string first.
+     */
+    public static Hour fromString(CharSequence chars, int offset, int length) {
+        Hour hour = tryFromString(chars, offset, length);
+        if (hour == null) {
+            throw new HourFormatException(chars.subSequence(offset, offset + length).toString());
+        }
+        return hour;
+    }
+
+    /**
+     * As for {@link #fromString(String)} except that null is returned (rather
+     * than an HourFormatException being thrown) if string is not a
+     * valid hour string.
+     */
+    public static Hour tryFromString(String string) {
+        return string == null ? null : tryFromString(string, 0, string.length());
+    }
+
+    public static Hour tryFromString(CharSequence chars, int offset, int length) {
+        Dates.checkBounds(chars, offset, length);
+        if (length != 13 || !Dates.isTimestamp(chars, offset, 0, false)) {
+            return null;
+        }
+        int year = Dates.parseDigits(chars, offset, 4);
+        int month = Dates.parseDigits(chars, offset + 5, 2);
+        int day = Dates.parseDigits(chars, offset + 8, 2);
+        int hour = Dates.parseDigits(chars, offset + 11, 2);
+        return new Hour(year, month, day, hour);
+    }
+
     public static Hour from(Date date) {
         if (date == null) {
             return null;
@@ -240,17 +253,22 @@ public class Hour {
 
     @JsonIgnore
     public Minute getFirstMinute() {
-        return new Minute(year, monthInYear, dayInMonth, hourInDay, 0);
+        return new Minute(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), 0);
     }
 
     @JsonIgnore
     public Second getFirstSecond() {
-        return new Second(year, monthInYear, dayInMonth, hourInDay, 0, 0);
+        return new Second(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), 0, 0);
     }
 
     @JsonIgnore
     public Millisecond getFirstMillisecond() {
-        return new Millisecond(year, monthInYear, dayInMonth, hourInDay, 0, 0, 0);
+        return new Millisecond(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), 0, 0, 0);
+    }
+
+    private void set(int year, int monthInYear, int dayInMonth, int hourInDay) {
+        this.packed = PackedTimestamp.pack(year, monthInYear, dayInMonth, hourInDay, 0, 0);
+        this.fieldsAsGiven = PackedTimestamp.fieldsIfNotNormalized(year, monthInYear, dayInMonth, hourInDay, 0, 0, 0);
     }
 
 }
@@ -32,6 +32,6 @@ package com.jirvan.dates;
 
 public class HourFormatException extends RuntimeException {
     public HourFormatException(String invalidString) {
-        super(String.format("Invalid hour string \"%s\" - must be of form \"YYYY-MM-DD hh\" (e.g. 2012-05-01 09:30) or YYYY-MM-DDThh (e.g. 2012-05-01T09)", invalidString));
+        super(String.format("Invalid hour string \"%s\" - must be of form \"YYYY-MM-DD hh\" (e.g. 2012-05-01 09:30) or YYYY-MM-DDThh (e.g. 2012-05-01T09)", invalidString), null, true, !Dates.STACKLESS_FORMAT_EXCEPTIONS);
     }
 }
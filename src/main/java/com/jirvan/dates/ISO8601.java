@@ -32,50 +32,146 @@ package com.jirvan.dates;
 
 import java.text.DateFormat;
 import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.text.ParsePosition;
 import java.util.Date;
 
 public class ISO8601 {
 
     public static final String TIMESTAMP_PATTERN = "yyyy-MM-dd'T'HH:mm:ssZ";
-    public static final DateFormat TIMESTAMP_FORMAT = new SimpleDateFormat(TIMESTAMP_PATTERN);
+    public static final DateFormat TIMESTAMP_FORMAT = new ThreadLocalDateFormat(TIMESTAMP_PATTERN);
     public static final String TIMESTAMP_PATTERN2 = "yyyy-MM-dd HH:mm:ssZ";
-    public static final DateFormat TIMESTAMP_FORMAT2 = new SimpleDateFormat(TIMESTAMP_PATTERN);
+    public static final DateFormat TIMESTAMP_FORMAT2 = new ThreadLocalDateFormat(TIMESTAMP_PATTERN2);
 
     public static final String TO_DAY_PATTERN = "yyyy-MM-dd";
-    public static final DateFormat TO_DAY_DATEFORMAT = new SimpleDateFormat(TO_DAY_PATTERN);
+    public static final DateFormat TO_DAY_DATEFORMAT = new ThreadLocalDateFormat(TO_DAY_PATTERN);
     public static final String TO_MINUTE_PATTERN = "yyyy-MM-dd'T'HH:mm";
-    public static final DateFormat TO_MINUTE_DATEFORMAT = new SimpleDateFormat(TO_MINUTE_PATTERN);
+    public static final DateFormat TO_MINUTE_DATEFORMAT = new ThreadLocalDateFormat(TO_MINUTE_PATTERN);
     public static final String TO_MINUTE_PATTERN2 = "yyyy-MM-dd HH:mm";
-    public static final DateFormat TO_MINUTE_DATEFORMAT2 = new SimpleDateFormat(TO_MINUTE_PATTERN2);
+    public static final DateFormat TO_MINUTE_DATEFORMAT2 = new ThreadLocalDateFormat(TO_MINUTE_PATTERN2);
 
 
     public static Date fromTimestampString(String timestampString) {
+        Date date = tryFromTimestampString(timestampString);
+        if (date == null && timestampString != null) {
+            throw new ISO8601TimestampFormatException(timestampString, parseException(TIMESTAMP_FORMAT2, timestampString));
+        }
+        return date;
+    }
+
+    /**
+     * As for {@link #fromTimestampString(String)} except that null is returned
+     * (rather than an ISO8601TimestampFormatException being thrown) if
+     * timestampString is not a valid timestamp string.
+     */
+    public static Date tryFromTimestampString(String timestampString) {
         if (timestampString == null) {
             return null;
+        } else if (isTimestamp(timestampString)) {
+            return new Date(parseTimestamp(timestampString));
         } else {
-            try {
-                return TIMESTAMP_FORMAT.parse(timestampString);
-            } catch (ParseException e) {
-                try {
-                    return TIMESTAMP_FORMAT2.parse(timestampString);
-                } catch (ParseException e2) {
-                    throw new ISO8601TimestampFormatException(timestampString, e2);
-                }
-            }
+            Date date = parse(TIMESTAMP_FORMAT, timestampString);
+            return date != null ? date : parse(TIMESTAMP_FORMAT2, timestampString);
         }
     }
 
     public static Date fromDayString(String dayDateString) {
+        Date date = tryFromDayString(dayDateString);
+        if (date == null && dayDateString != null) {
+            throw new ISO8601DateFormatException(dayDateString, parseException(TO_DAY_DATEFORMAT, dayDateString));
+        }
+        return date;
+    }
+
+    /**
+     * As for {@link #fromDayString(String)} except that null is returned (rather
+     * than an ISO8601DateFormatException being thrown) if dayDateString is not a
+     * valid date string.
+     */
+    public static Date tryFromDayString(String dayDateString) {
         if (dayDateString == null) {
             return null;
+        } else if (isDay(dayDateString, 0)) {
+            return new Date(PackedTimestamp.toEpochMillisecond(PackedTimestamp.pack(Dates.parseDigits(dayDateString, 0, 4),
+                                                                                    Dates.parseDigits(dayDateString, 5, 2),
+                                                                                    Dates.parseDigits(dayDateString, 8, 2),
+                                                                                    0, 0, 0),
+                                                               TO_DAY_DATEFORMAT.getTimeZone()));
+        } else {
+            return parse(TO_DAY_DATEFORMAT, dayDateString);
+        }
+    }
+
+    //======================== Everything below here is private ========================//
+
+    // The "fast path" checks below only accept strings with valid fields in the
+    // Gregorian calendar (i.e. from 1583 on) so that they give exactly the same
+    // results as the (lenient) SimpleDateFormats that everything else falls
+    // back to
+
+    /**
+     * Parses string as DateFormat.parse(String) does but returning null rather
+     * than throwing a ParseException if it cannot be parsed
+     */
+    private static Date parse(DateFormat format, String string) {
+        ParsePosition position = new ParsePosition(0);
+        Date date = format.parse(string, position);
+        return position.getIndex() == 0 ? null : date;
+    }
+
+    /**
+     * The exception DateFormat.parse(String) throws for an unparseable string
+     */
+    private static ParseException parseException(DateFormat format, String string) {
+        ParsePosition position = new ParsePosition(0);
+        format.parse(string, position);
+        return new ParseException("Unparseable date: \"" + string + "\"", position.getErrorIndex());
+    }
+
+    private static boolean isDay(String string, int index) {
+        if (string.length() >= index + 10
+            && Dates.isDigits(string, index, 4)
+            && string.charAt(index + 4) == '-'
+            && Dates.isDigits(string, index + 5, 2)
+            && string.charAt(index + 7) == '-'
+            && Dates.isDigits(string, index + 8, 2)) {
+            int year = Dates.parseDigits(string, index, 4);
+            int monthInYear = Dates.parseDigits(string, index + 5, 2);
+            int dayInMonth = Dates.parseDigits(string, index + 8, 2);
+            return year >= 1583
+                   && monthInYear >= 1 && monthInYear <= 12
+                   && dayInMonth >= 1 && dayInMonth <= Day.lengthOfMonth(year, monthInYear);
         } else {
-            try {
-                return TO_DAY_DATEFORMAT.parse(dayDateString);
-            } catch (ParseException e) {
-                throw new ISO8601DateFormatException(dayDateString, e);
-            }
+            return false;
         }
     }
 
+    // yyyy-MM-ddTHH:mm:ss+HHMM (or with a space instead of the T)
+    private static boolean isTimestamp(String string) {
+        return string.length() == 24
+               && isDay(string, 0)
+               && (string.charAt(10) == 'T' || string.charAt(10) == ' ')
+               && isTwoDigitsUpTo(string, 11, 23)
+               && string.charAt(13) == ':'
+               && isTwoDigitsUpTo(string, 14, 59)
+               && string.charAt(16) == ':'
+               && isTwoDigitsUpTo(string, 17, 59)
+               && (string.charAt(19) == '+' || string.charAt(19) == '-')
+               && isTwoDigitsUpTo(string, 20, 23)
+               && isTwoDigitsUpTo(string, 22, 59);
+    }
+
+    private static boolean isTwoDigitsUpTo(String string, int index, int max) {
+        return Dates.isDigits(string, index, 2) && Dates.parseDigits(string, index, 2) <= max;
+    }
+
+    private static long parseTimestamp(String string) {
+        long offsetMilliseconds = Dates.parseDigits(string, 20, 2) * PackedTimestamp.MILLISECONDS_PER_HOUR
+                                  + Dates.parseDigits(string, 22, 2) * PackedTimestamp.MILLISECONDS_PER_MINUTE;
+        return Day.toEpochDay(Dates.parseDigits(string, 0, 4), Dates.parseDigits(string, 5, 2), Dates.parseDigits(string, 8, 2)) * PackedTimestamp.MILLISECONDS_PER_DAY
+               + Dates.parseDigits(string, 11, 2) * PackedTimestamp.MILLISECONDS_PER_HOUR
+               + Dates.parseDigits(string, 14, 2) * PackedTimestamp.MILLISECONDS_PER_MINUTE
+               + Dates.parseDigits(string, 17, 2) * PackedTimestamp.MILLISECONDS_PER_SECOND
+               - (string.charAt(19) == '+' ? offsetMilliseconds : -offsetMilliseconds);
+    }
+
 }
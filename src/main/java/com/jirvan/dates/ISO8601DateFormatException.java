@@ -32,6 +32,6 @@ package com.jirvan.dates;
 
 public class ISO8601DateFormatException extends RuntimeException {
     public ISO8601DateFormatException(String invalidString, Throwable cause) {
-        super(String.format("Invalid ISO8601 date string \"%s\" - must be of form \"YYYY-MM-DD\" (e.g. 2012-05-01)", invalidString), cause);
+        super(String.format("Invalid ISO8601 date string \"%s\" - must be of form \"YYYY-MM-DD\" (e.g. 2012-05-01)", invalidString), cause, true, !Dates.STACKLESS_FORMAT_EXCEPTIONS);
     }
 }
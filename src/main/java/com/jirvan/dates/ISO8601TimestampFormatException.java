@@ -34,6 +34,8 @@ public class ISO8601TimestampFormatException extends RuntimeException {
     public ISO8601TimestampFormatException(String invalidString, Throwable cause) {
         super(String.format("Invalid ISO8601 timestamp string \"%s\" - must be of form \"YYYY-MM-DD hh:mm:ss\" (e.g. 2012-05-31 01:49:10Z) or  \"YYYY-MM-DDThh:mm:ss\" (e.g. 2012-05-31T01:49:10Z)",
                             invalidString),
-              cause);
+              cause,
+              true,
+              !Dates.STACKLESS_FORMAT_EXCEPTIONS);
     }
 }
@@ -0,0 +1,276 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * An immutable version of {@link Day}.  Instances are interned and the days in
+ * a range of years (1900 to 2099 unless overridden with the
+ * com.jirvan.dates.firstCachedYear and com.jirvan.dates.lastCachedYear system
+ * properties) are created up front, so parsing, reading from a database and
+ * arithmetic within that range return shared instances rather than allocating.
+ * As with Day out of range fields are normalized, so for example 2019-02-30 is
+ * treated as 2019-03-02.
+ */
+public final class ImmutableDay implements Serializable, Comparable<ImmutableDay> {
+
+    private static final long serialVersionUID = 1L;
+    private static final DayOfWeek[] DAYS_OF_WEEK_FROM_MONDAY = DayOfWeek.values();
+    private static final long FIRST_CACHED_EPOCH_DAY = Day.toEpochDay(Dates.FIRST_CACHED_YEAR, 1, 1);
+    private static final ImmutableDay[] CACHE = createCache();
+
+    private final int year;
+    private final int monthInYear;
+    private final int dayInMonth;
+    private final long epochDay;
+
+    private ImmutableDay(int year, int monthInYear, int dayInMonth, long epochDay) {
+        this.year = year;
+        this.monthInYear = monthInYear;
+        this.dayInMonth = dayInMonth;
+        this.epochDay = epochDay;
+    }
+
+    public static ImmutableDay of(int year, int monthInYear, int dayInMonth) {
+        return fromEpochDay(Day.toEpochDay(year, monthInYear, dayInMonth));
+    }
+
+    public static ImmutableDay fromEpochDay(long epochDay) {
+        long index = epochDay - FIRST_CACHED_EPOCH_DAY;
+        if (index >= 0 && index < CACHE.length) {
+            return CACHE[(int) index];
+        } else {
+            Day day = Day.fromEpochDay(epochDay);
+            return new ImmutableDay(day.getYear(), day.getMonthInYear(), day.getDayInMonth(), epochDay);
+        }
+    }
+
+    public static ImmutableDay from(Day day) {
+        return day == null ? null : fromEpochDay(day.toEpochDay());
+    }
+
+    public static ImmutableDay from(LocalDate localDate) {
+        return localDate == null ? null : fromEpochDay(localDate.toEpochDay());
+    }
+
+    /**
+     * Returns the day of date in the default time zone (as Day.from(date) does).
+     */
+    @SuppressWarnings("deprecation")
+    public static ImmutableDay from(Date date) {
+        return date == null ? null : of(date.getYear() + 1900, date.getMonth() + 1, date.getDate());
+    }
+
+    public static ImmutableDay today() {
+        return from(new Date());
+    }
+
+    public static ImmutableDay fromString(String dateString) {
+        if (dateString == null) {
+            return null;
+        } else {
+            return fromString(dateString, 0, dateString.length());
+        }
+    }
+
+    public static ImmutableDay fromString(CharSequence chars, int offset, int length) {
+        int yyyymmdd = Day.parseYyyymmdd(chars, offset, length);
+        if (yyyymmdd < 0) {
+            throw new DateFormatException(chars.subSequence(offset, offset + length).toString());
+        }
+        return of(yyyymmdd / 10000, yyyymmdd / 100 % 100, yyyymmdd % 100);
+    }
+
+    public static ImmutableDay tryFromString(String dateString) {
+        return dateString == null ? null : tryFromString(dateString, 0, dateString.length());
+    }
+
+    public static ImmutableDay tryFromString(CharSequence chars, int offset, int length) {
+        int yyyymmdd = Day.parseYyyymmdd(chars, offset, length);
+        return yyyymmdd < 0 ? null : of(yyyymmdd / 10000, yyyymmdd / 100 % 100, yyyymmdd % 100);
+    }
+
+    public Day toDay() {
+        return new Day(year, monthInYear, dayInMonth);
+    }
+
+    public static Day toDay(ImmutableDay day) {
+        return day == null ? null : day.toDay();
+    }
+
+    public LocalDate toLocalDate() {
+        return LocalDate.of(year, monthInYear, dayInMonth);
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonthInYear() {
+        return monthInYear;
+    }
+
+    public int getDayInMonth() {
+        return dayInMonth;
+    }
+
+    public long toEpochDay() {
+        return epochDay;
+    }
+
+    public ImmutableMonth getMonth() {
+        return ImmutableMonth.of(year, monthInYear);
+    }
+
+    public DayOfWeek getDayOfWeek() {
+        return DAYS_OF_WEEK_FROM_MONDAY[(int) Math.floorMod(epochDay + 3, 7L)];  // 1970-01-01 was a Thursday
+    }
+
+    public boolean isOnAWeekend() {
+        DayOfWeek dayOfWeek = getDayOfWeek();
+        return dayOfWeek == DayOfWeek.Saturday || dayOfWeek == DayOfWeek.Sunday;
+    }
+
+    public boolean isAWeekday() {
+        return !isOnAWeekend();
+    }
+
+    public ImmutableDay next() {
+        return advanced(1);
+    }
+
+    public ImmutableDay previous() {
+        return advanced(-1);
+    }
+
+    public ImmutableDay advanced(int days) {
+        return fromEpochDay(epochDay + days);
+    }
+
+    public ImmutableDay receded(int days) {
+        return advanced(-days);
+    }
+
+    public ImmutableDay advancedWeeks(int weeks) {
+        return advanced(weeks * 7);
+    }
+
+    public ImmutableDay recededWeeks(int weeks) {
+        return advancedWeeks(-weeks);
+    }
+
+    /**
+     * As for Day.advancedMonths the day in month is reduced to the last day of the
+     * month if necessary.
+     */
+    public ImmutableDay advancedMonths(int months) {
+        long epochMonth = year * 12L + monthInYear - 1 + months;
+        int newYear = (int) Math.floorDiv(epochMonth, 12L);
+        int newMonthInYear = (int) Math.floorMod(epochMonth, 12L) + 1;
+        return of(newYear, newMonthInYear, Math.min(dayInMonth, Day.lengthOfMonth(newYear, newMonthInYear)));
+    }
+
+    public ImmutableDay recededMonths(int months) {
+        return advancedMonths(-months);
+    }
+
+    /**
+     * As for Day.advancedYears the day in month is reduced to the last day of the
+     * month if necessary.
+     */
+    public ImmutableDay advancedYears(int years) {
+        int newYear = year + years;
+        return of(newYear, monthInYear, Math.min(dayInMonth, Day.lengthOfMonth(newYear, monthInYear)));
+    }
+
+    public ImmutableDay recededYears(int years) {
+        return advancedYears(-years);
+    }
+
+    public int daysSince(ImmutableDay anotherDay) {
+        return -daysUntil(anotherDay);
+    }
+
+    public int daysUntil(ImmutableDay anotherDay) {
+        return Math.toIntExact(anotherDay.epochDay - epochDay);
+    }
+
+    public boolean after(ImmutableDay anotherDay) {
+        return epochDay > anotherDay.epochDay;
+    }
+
+    public boolean before(ImmutableDay anotherDay) {
+        return epochDay < anotherDay.epochDay;
+    }
+
+    public int compareTo(ImmutableDay anotherDay) {
+        return Long.compare(epochDay, anotherDay.epochDay);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this || (obj instanceof ImmutableDay && ((ImmutableDay) obj).epochDay == epochDay);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(epochDay);
+    }
+
+    public String toString() {
+        return Dates.toIsoString(3, year, monthInYear, dayInMonth, 0, 0, 0, 0);
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private Object readResolve() {
+        return fromEpochDay(epochDay);
+    }
+
+    private static ImmutableDay[] createCache() {
+        int size = (int) Math.max(0, Day.toEpochDay(Dates.LAST_CACHED_YEAR + 1, 1, 1) - FIRST_CACHED_EPOCH_DAY);
+        ImmutableDay[] cache = new ImmutableDay[size];
+        int i = 0;
+        for (int year = Dates.FIRST_CACHED_YEAR; year <= Dates.LAST_CACHED_YEAR; year++) {
+            for (int monthInYear = 1; monthInYear <= 12; monthInYear++) {
+                for (int dayInMonth = 1; dayInMonth <= Day.lengthOfMonth(year, monthInYear); dayInMonth++) {
+                    cache[i] = new ImmutableDay(year, monthInYear, dayInMonth, FIRST_CACHED_EPOCH_DAY + i);
+                    i++;
+                }
+            }
+        }
+        return cache;
+    }
+
+}
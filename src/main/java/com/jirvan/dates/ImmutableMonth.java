@@ -0,0 +1,193 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * An immutable version of {@link Month}.  As with {@link ImmutableDay}
+ * instances are interned, with the months in the cached range of years (see
+ * ImmutableDay) created up front.  Out of range months are normalized, so for example 2019-13 is
+ * treated as 2020-01.
+ */
+public final class ImmutableMonth implements Serializable, Comparable<ImmutableMonth> {
+
+    private static final long serialVersionUID = 1L;
+    private static final long FIRST_CACHED_EPOCH_MONTH = Dates.FIRST_CACHED_YEAR * 12L;
+    private static final ImmutableMonth[] CACHE = createCache();
+
+    private final int year;
+    private final int monthInYear;
+
+    private ImmutableMonth(int year, int monthInYear) {
+        this.year = year;
+        this.monthInYear = monthInYear;
+    }
+
+    public static ImmutableMonth of(int year, int monthInYear) {
+        return fromEpochMonth(year * 12L + monthInYear - 1);
+    }
+
+    public static ImmutableMonth from(Month month) {
+        return month == null ? null : of(month.getYear(), month.getMonthInYear());
+    }
+
+    /**
+     * Returns the month of date in the default time zone (as Month.from(date) does).
+     */
+    @SuppressWarnings("deprecation")
+    public static ImmutableMonth from(Date date) {
+        return date == null ? null : of(date.getYear() + 1900, date.getMonth() + 1);
+    }
+
+    public static ImmutableMonth current() {
+        return from(new Date());
+    }
+
+    public static ImmutableMonth fromString(String monthString) {
+        if (monthString == null) {
+            return null;
+        } else {
+            return fromString(monthString, 0, monthString.length());
+        }
+    }
+
+    public static ImmutableMonth fromString(CharSequence chars, int offset, int length) {
+        int yyyymm = Month.parseYyyymm(chars, offset, length);
+        if (yyyymm < 0) {
+            throw new MonthFormatException(chars.subSequence(offset, offset + length).toString());
+        }
+        return of(yyyymm / 100, yyyymm % 100);
+    }
+
+    public static ImmutableMonth tryFromString(String monthString) {
+        return monthString == null ? null : tryFromString(monthString, 0, monthString.length());
+    }
+
+    public static ImmutableMonth tryFromString(CharSequence chars, int offset, int length) {
+        int yyyymm = Month.parseYyyymm(chars, offset, length);
+        return yyyymm < 0 ? null : of(yyyymm / 100, yyyymm % 100);
+    }
+
+    public Month toMonth() {
+        return new Month(year, monthInYear);
+    }
+
+    public static Month toMonth(ImmutableMonth month) {
+        return month == null ? null : month.toMonth();
+    }
+
+    public int getYear() {
+        return year;
+    }
+
+    public int getMonthInYear() {
+        return monthInYear;
+    }
+
+    public ImmutableDay firstDay() {
+        return ImmutableDay.of(year, monthInYear, 1);
+    }
+
+    public ImmutableDay lastDay() {
+        return ImmutableDay.of(year, monthInYear, Day.lengthOfMonth(year, monthInYear));
+    }
+
+    public ImmutableMonth next() {
+        return advanced(1);
+    }
+
+    public ImmutableMonth previous() {
+        return advanced(-1);
+    }
+
+    public ImmutableMonth advanced(int months) {
+        return fromEpochMonth(epochMonth() + months);
+    }
+
+    public boolean after(ImmutableMonth anotherMonth) {
+        return epochMonth() > anotherMonth.epochMonth();
+    }
+
+    public boolean before(ImmutableMonth anotherMonth) {
+        return epochMonth() < anotherMonth.epochMonth();
+    }
+
+    public int compareTo(ImmutableMonth anotherMonth) {
+        return Long.compare(epochMonth(), anotherMonth.epochMonth());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj == this
+               || (obj instanceof ImmutableMonth
+                   && ((ImmutableMonth) obj).year == year
+                   && ((ImmutableMonth) obj).monthInYear == monthInYear);
+    }
+
+    @Override
+    public int hashCode() {
+        return year * 12 + monthInYear - 1;
+    }
+
+    public String toString() {
+        return Dates.toIsoString(2, year, monthInYear, 0, 0, 0, 0, 0);
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private long epochMonth() {
+        return year * 12L + monthInYear - 1;
+    }
+
+    private static ImmutableMonth fromEpochMonth(long epochMonth) {
+        long index = epochMonth - FIRST_CACHED_EPOCH_MONTH;
+        if (index >= 0 && index < CACHE.length) {
+            return CACHE[(int) index];
+        } else {
+            return new ImmutableMonth((int) Math.floorDiv(epochMonth, 12L), (int) Math.floorMod(epochMonth, 12L) + 1);
+        }
+    }
+
+    private Object readResolve() {
+        return fromEpochMonth(epochMonth());
+    }
+
+    private static ImmutableMonth[] createCache() {
+        ImmutableMonth[] cache = new ImmutableMonth[Math.max(0, (Dates.LAST_CACHED_YEAR - Dates.FIRST_CACHED_YEAR + 1) * 12)];
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new ImmutableMonth(Dates.FIRST_CACHED_YEAR + i / 12, i % 12 + 1);
+        }
+        return cache;
+    }
+
+}
@@ -30,13 +30,10 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.jirvan.dates;
 
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is primarily here to get around the standard java Date class's
@@ -47,14 +44,10 @@ import java.util.regex.Pattern;
  * what timezone they were born in or where they are now.  At the moment a
  * Gregorian calendar is assumed.
  */
-public class Millisecond {
-
-    private int year;
-    private int monthInYear;
-    private int dayInMonth;
-    private int hourInDay;
-    private int minuteInHour;
-    private int secondInMinute;
+public class Millisecond implements Comparable<Millisecond> {
+
+    private long packed;  // To the second (see PackedTimestamp)
+    private int[] fieldsAsGiven;  // Only if they weren't normalized (see PackedTimestamp)
     private int millisecondInSecond;
 
     public Millisecond() {
@@ -62,47 +55,32 @@ public class Millisecond {
     }
 
     public Millisecond(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute, int millisecondInSecond) {
-        this.year = year;
-        this.monthInYear = monthInYear;
-        this.dayInMonth = dayInMonth;
-        this.hourInDay = hourInDay;
-        this.minuteInHour = minuteInHour;
-        this.secondInMinute = secondInMinute;
-        this.millisecondInSecond = millisecondInSecond;
+        set(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond);
     }
 
     private Millisecond(GregorianCalendar calendar) {
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
-        this.secondInMinute = calendar.get(GregorianCalendar.SECOND);
-        this.millisecondInSecond = calendar.get(GregorianCalendar.MILLISECOND);
+        this.packed = PackedTimestamp.pack(calendar.get(GregorianCalendar.YEAR),
+                                           calendar.get(GregorianCalendar.MONTH) + 1,
+                                           calendar.get(GregorianCalendar.DAY_OF_MONTH),
+                                           calendar.get(GregorianCalendar.HOUR_OF_DAY),
+                                           calendar.get(GregorianCalendar.MINUTE),
+                                           calendar.get(GregorianCalendar.SECOND),
+                                           calendar.get(GregorianCalendar.MILLISECOND));
+        this.millisecondInSecond = PackedTimestamp.millisecondInSecond(calendar.get(GregorianCalendar.MILLISECOND));
     }
 
     private Millisecond(Date date) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
-        this.secondInMinute = calendar.get(GregorianCalendar.SECOND);
-        this.millisecondInSecond = calendar.get(GregorianCalendar.MILLISECOND);
+        this(date, TimeZone.getDefault());
     }
 
     public Millisecond(Date date, TimeZone timeZone) {
-        GregorianCalendar calendar = new GregorianCalendar(timeZone);
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
-        this.secondInMinute = calendar.get(GregorianCalendar.SECOND);
-        this.millisecondInSecond = calendar.get(GregorianCalendar.MILLISECOND);
+        this.packed = PackedTimestamp.fromEpochMillisecond(date.getTime(), timeZone);
+        this.millisecondInSecond = PackedTimestamp.millisecondInSecond(date.getTime(), timeZone);
+    }
+
+    private Millisecond(long packed, int millisecondInSecond) {
+        this.packed = packed;
+        this.millisecondInSecond = millisecondInSecond;
     }
 
     public static Millisecond now() {
@@ -110,97 +88,97 @@ public class Millisecond {
     }
 
     public int getYear() {
-        return year;
+        return PackedTimestamp.year(packed, fieldsAsGiven);
     }
 
     public Millisecond setYear(int year) {
-        this.year = year;
+        set(year, getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute(), getMillisecondInSecond());
         return this;
     }
 
     public int getMonthInYear() {
-        return monthInYear;
+        return PackedTimestamp.monthInYear(packed, fieldsAsGiven);
     }
 
     public Millisecond setMonthInYear(int monthInYear) {
-        this.monthInYear = monthInYear;
+        set(getYear(), monthInYear, getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute(), getMillisecondInSecond());
         return this;
     }
 
     public int getDayInMonth() {
-        return dayInMonth;
+        return PackedTimestamp.dayInMonth(packed, fieldsAsGiven);
     }
 
     public Millisecond setDayInMonth(int dayInMonth) {
-        this.dayInMonth = dayInMonth;
+        set(getYear(), getMonthInYear(), dayInMonth, getHourInDay(), getMinuteInHour(), getSecondInMinute(), getMillisecondInSecond());
         return this;
     }
 
     public int getHourInDay() {
-        return hourInDay;
+        return PackedTimestamp.hourInDay(packed, fieldsAsGiven);
     }
 
     public Millisecond setHourInDay(int hourInDay) {
-        this.hourInDay = hourInDay;
+        set(getYear(), getMonthInYear(), getDayInMonth(), hourInDay, getMinuteInHour(), getSecondInMinute(), getMillisecondInSecond());
         return this;
     }
 
     public int getMinuteInHour() {
-        return minuteInHour;
+        return PackedTimestamp.minuteInHour(packed, fieldsAsGiven);
     }
 
     public Millisecond setMinuteInHour(int minuteInHour) {
-        this.minuteInHour = minuteInHour;
+        set(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), minuteInHour, getSecondInMinute(), getMillisecondInSecond());
         return this;
     }
 
     public int getSecondInMinute() {
-        return secondInMinute;
+        return PackedTimestamp.secondInMinute(packed, fieldsAsGiven);
     }
 
     public Millisecond setSecondInMinute(int secondInMinute) {
-        this.secondInMinute = secondInMinute;
+        set(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), secondInMinute, getMillisecondInSecond());
         return this;
     }
 
     public int getMillisecondInSecond() {
-        return millisecondInSecond;
+        return fieldsAsGiven == null ? millisecondInSecond : fieldsAsGiven[6];
     }
 
     public Millisecond setMillisecondInSecond(int millisecondInSecond) {
-        this.millisecondInSecond = millisecondInSecond;
+        set(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute(), millisecondInSecond);
         return this;
     }
 
     public Date getDate() {
-        return getCalendar().getTime();
+        return new Date(PackedTimestamp.toEpochMillisecond(packed, TimeZone.getDefault()) + millisecondInSecond);
     }
 
     public Calendar getCalendar() {
         GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, minuteInHour, secondInMinute);
-        calendar.set(GregorianCalendar.MILLISECOND, millisecondInSecond);
+        calendar.set(getYear(), getMonthInYear() - 1, getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
+        calendar.set(GregorianCalendar.MILLISECOND, getMillisecondInSecond());
         return calendar;
     }
 
     public Month getMonth() {
-        return new Month(year, monthInYear);
+        return new Month(getYear(), getMonthInYear());
     }
 
     public Day getDay() {
-        return new Day(year, monthInYear, dayInMonth);
+        return new Day(getYear(), getMonthInYear(), getDayInMonth());
     }
 
     public Hour getHour() {
-        return new Hour(year, monthInYear, dayInMonth, hourInDay);
+        return new Hour(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay());
     }
 
     public Minute getMinute() {
-        return new Minute(year, monthInYear, dayInMonth, hourInDay, minuteInHour);
+        return new Minute(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour());
     }
 
     public Second getSecond() {
-        return new Second(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute);
+        return new Second(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
     }
 
     public Millisecond next() {
@@ -212,53 +190,93 @@ public class Millisecond {
     }
 
     public Millisecond advanced(int milliseconds) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, minuteInHour, secondInMinute);
-        calendar.set(GregorianCalendar.MILLISECOND, millisecondInSecond);
-        calendar.add(GregorianCalendar.MILLISECOND, milliseconds);
-        return new Millisecond(calendar);
+        long totalMilliseconds = (long) millisecondInSecond + milliseconds;
+        return new Millisecond(PackedTimestamp.fromLocalEpochSecond(PackedTimestamp.toLocalEpochSecond(packed) + Math.floorDiv(totalMilliseconds, PackedTimestamp.MILLISECONDS_PER_SECOND)),
+                               (int) Math.floorMod(totalMilliseconds, PackedTimestamp.MILLISECONDS_PER_SECOND));
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj != null
-               && obj instanceof Millisecond
-               && ((Millisecond) obj).getYear() == year
-               && ((Millisecond) obj).getMonthInYear() == monthInYear
-               && ((Millisecond) obj).getDayInMonth() == dayInMonth
-               && ((Millisecond) obj).getHourInDay() == hourInDay
-               && ((Millisecond) obj).getMinuteInHour() == minuteInHour
-               && ((Millisecond) obj).getSecondInMinute() == secondInMinute
-               && ((Millisecond) obj).getMillisecondInSecond() == millisecondInSecond;
+        return obj instanceof Millisecond && ((Millisecond) obj).packed == packed && ((Millisecond) obj).millisecondInSecond == millisecondInSecond;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed) * 31 + millisecondInSecond;
+    }
+
+    public int compareTo(Millisecond anotherMillisecond) {
+        int result = Long.compare(packed, anotherMillisecond.packed);
+        return result != 0 ? result : Integer.compare(millisecondInSecond, anotherMillisecond.millisecondInSecond);
     }
 
     public String toString() {
-        return String.format("%04d-%02d-%02d %02d:%02d:%02d.%03d", year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond);
+        return Dates.toIsoString(7, getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute(), getMillisecondInSecond());
     }
 
     public String toFilenameSafeString() {
-        return String.format("%04d%02d%02d-%02d%02d-%02d.%03d", year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond);
+        return String.format("%04d%02d%02d-%02d%02d-%02d.%03d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute(), getMillisecondInSecond());
     }
 
     public static Millisecond fromString(String string) {
         if (string == null) {
             return null;
         } else {
-            Matcher m = Pattern.compile("^(\\d\\d\\d\\d)-(\\d\\d)-(\\d\\d)[ T](\\d\\d):(\\d\\d):(\\d\\d).(\\d\\d?\\d?)$").matcher(string);
-            if (!m.matches()) {
-                throw new MillisecondTimestampFormatException(string);
-            }
-            int year = Integer.parseInt(m.group(1));
-            int month = Integer.parseInt(m.group(2));
-            int day = Integer.parseInt(m.group(3));
-            int hour = Integer.parseInt(m.group(4));
-            int minute = Integer.parseInt(m.group(5));
-            int second = Integer.parseInt(m.group(6));
-            int millisecond = Integer.parseInt(m.group(7));
-            return new Millisecond(year, month, day, hour, minute, second, millisecond);
+            return fromString(string, 0, string.length());
         }
     }
 
+    /**
+     * Parses the length characters of chars starting at offset in the same way
+     * as {@link #fromString(String)} does, without copying them to a string first.
+     */
+    public static Millisecond fromString(CharSequence chars, int offset, int length) {
+        Millisecond millisecond = tryFromString(chars, offset, length);
+        if (millisecond == null) {
+            throw new MillisecondTimestampFormatException(chars.subSequence(offset, offset + length).toString());
+        }
+        return millisecond;
+    }
+
+    /**
+     * As for {@link #fromString(String)} except that null is returned (rather
+     * than a MillisecondTimestampFormatException being thrown) if string is not a
+     * valid millisecond string.
+     */
+    public static Millisecond tryFromString(String string) {
+        return string == null ? null : tryFromString(string, 0, string.length());
+    }
+
+    public static Millisecond tryFromString(CharSequence chars, int offset, int length) {
+        Dates.checkBounds(chars, offset, length);
+        int end = offset + length;
+
+        // The separator before the milliseconds can be any single character (a
+        // surrogate pair counts as one) other than a line terminator
+        int millisecondStart = offset + 20;
+        if (length > 20
+            && Character.isHighSurrogate(chars.charAt(offset + 19))
+            && Character.isLowSurrogate(chars.charAt(offset + 20))) {
+            millisecondStart++;
+        }
+        int millisecondDigits = end - millisecondStart;
+        if (length < 21
+            || millisecondDigits < 1 || millisecondDigits > 3
+            || !Dates.isTimestamp(chars, offset, 2, false)
+            || Dates.isLineTerminator(chars.charAt(offset + 19))
+            || !Dates.isDigits(chars, millisecondStart, millisecondDigits)) {
+            return null;
+        }
+        int year = Dates.parseDigits(chars, offset, 4);
+        int month = Dates.parseDigits(chars, offset + 5, 2);
+        int day = Dates.parseDigits(chars, offset + 8, 2);
+        int hour = Dates.parseDigits(chars, offset + 11, 2);
+        int minute = Dates.parseDigits(chars, offset + 14, 2);
+        int second = Dates.parseDigits(chars, offset + 17, 2);
+        int millisecond = Dates.parseDigits(chars, millisecondStart, millisecondDigits);
+        return new Millisecond(year, month, day, hour, minute, second, millisecond);
+    }
+
     public static Millisecond from(Date date) {
         if (date == null) {
             return null;
@@ -292,7 +310,7 @@ public class Millisecond {
     }
 
     public String format(String pattern) {
-        return new SimpleDateFormat(pattern).format(getDate());
+        return DateFormatters.format(pattern, packed, millisecondInSecond);
     }
 
     public static String format(Millisecond millisecond, String pattern) {
@@ -300,7 +318,7 @@ public class Millisecond {
     }
 
     public static String format(Millisecond millisecond, String pattern, String valueIfNull) {
-        return millisecond == null ? valueIfNull : new SimpleDateFormat(pattern).format(millisecond.getDate());
+        return millisecond == null ? valueIfNull : DateFormatters.format(pattern, millisecond.packed, millisecond.millisecondInSecond);
     }
 
     public static String formatDuration(Millisecond from, Millisecond to) {
@@ -326,4 +344,10 @@ public class Millisecond {
         }
     }
 
+    private void set(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute, int millisecondInSecond) {
+        this.packed = PackedTimestamp.pack(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond);
+        this.millisecondInSecond = PackedTimestamp.millisecondInSecond(millisecondInSecond);
+        this.fieldsAsGiven = PackedTimestamp.fieldsIfNotNormalized(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond);
+    }
+
 }
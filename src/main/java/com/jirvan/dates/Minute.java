@@ -33,13 +33,10 @@ package com.jirvan.dates;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import javax.validation.constraints.Min;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is primarily here to get around the standard java Date class's
@@ -51,52 +48,46 @@ import java.util.regex.Pattern;
  * what timezone they were born in or where they are now.  At the moment a
  * Gregorian calendar is assumed.
  */
-public class Minute {
+public class Minute implements Comparable<Minute> {
 
-    private int year;
-    private int monthInYear;
-    private int dayInMonth;
-    private int hourInDay;
-    private int minuteInHour;
+    private long packed;
+    private int[] fieldsAsGiven;  // Only if they weren't normalized (see PackedTimestamp)
 
     public Minute() {
         this(new Date());
     }
 
     public Minute(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour) {
-        this.year = year;
-        this.monthInYear = monthInYear;
-        this.dayInMonth = dayInMonth;
-        this.hourInDay = hourInDay;
-        this.minuteInHour = minuteInHour;
+        set(year, monthInYear, dayInMonth, hourInDay, minuteInHour);
     }
 
     private Minute(GregorianCalendar calendar) {
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
+        this.packed = PackedTimestamp.pack(calendar.get(GregorianCalendar.YEAR),
+                                           calendar.get(GregorianCalendar.MONTH) + 1,
+                                           calendar.get(GregorianCalendar.DAY_OF_MONTH),
+                                           calendar.get(GregorianCalendar.HOUR_OF_DAY),
+                                           calendar.get(GregorianCalendar.MINUTE),
+                                           0);
     }
 
     private Minute(Date date) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
+        this.packed = PackedTimestamp.fromEpochMillisecond(date.getTime(), TimeZone.getDefault()) & PackedTimestamp.MINUTE_MASK;
     }
 
     public Minute(Date date, TimeZone timeZone) {
-        GregorianCalendar calendar = new GregorianCalendar(timeZone);
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
+        this.packed = PackedTimestamp.fromEpochMillisecond(date.getTime(), timeZone) & PackedTimestamp.MINUTE_MASK;
+    }
+
+    private Minute(long packed) {
+        this.packed = packed;
+    }
+
+    /**
+     * Returns the minute that is epochMinute minutes after 1970-01-01 00:00 (the
+     * inverse of {@link #toEpochMinute()}).
+     */
+    public static Minute fromEpochMinute(long epochMinute) {
+        return new Minute(PackedTimestamp.fromLocalEpochSecond(epochMinute * PackedTimestamp.SECONDS_PER_MINUTE));
     }
 
     public static Minute now() {
@@ -104,75 +95,75 @@ public class Minute {
     }
 
     public int getYear() {
-        return year;
+        return PackedTimestamp.year(packed, fieldsAsGiven);
     }
 
     public Minute setYear(int year) {
-        this.year = year;
+        set(year, getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour());
         return this;
     }
 
     public int getMonthInYear() {
-        return monthInYear;
+        return PackedTimestamp.monthInYear(packed, fieldsAsGiven);
     }
 
     public Minute setMonthInYear(int monthInYear) {
-        this.monthInYear = monthInYear;
+        set(getYear(), monthInYear, getDayInMonth(), getHourInDay(), getMinuteInHour());
         return this;
     }
 
     public int getDayInMonth() {
-        return dayInMonth;
+        return PackedTimestamp.dayInMonth(packed, fieldsAsGiven);
     }
 
     public Minute setDayInMonth(int dayInMonth) {
-        this.dayInMonth = dayInMonth;
+        set(getYear(), getMonthInYear(), dayInMonth, getHourInDay(), getMinuteInHour());
         return this;
     }
 
     public int getHourInDay() {
-        return hourInDay;
+        return PackedTimestamp.hourInDay(packed, fieldsAsGiven);
     }
 
     public Minute setHourInDay(int hourInDay) {
-        this.hourInDay = hourInDay;
+        set(getYear(), getMonthInYear(), getDayInMonth(), hourInDay, getMinuteInHour());
         return this;
     }
 
     public int getMinuteInHour() {
-        return minuteInHour;
+        return PackedTimestamp.minuteInHour(packed, fieldsAsGiven);
     }
 
     public int getMinuteInDay() {
-        return (hourInDay * 60) + minuteInHour;
+        return (getHourInDay() * 60) + getMinuteInHour();
     }
 
     public Minute setMinuteInHour(int minuteInHour) {
-        this.minuteInHour = minuteInHour;
+        set(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), minuteInHour);
         return this;
     }
 
     public Date getDate() {
-        return getCalendar().getTime();
+        return new Date(PackedTimestamp.toEpochMillisecond(packed, TimeZone.getDefault()));
     }
 
     public Calendar getCalendar() {
         GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, minuteInHour, 0);
+        calendar.set(getYear(), getMonthInYear() - 1, getDayInMonth(), getHourInDay(), getMinuteInHour(), 0);
         calendar.set(GregorianCalendar.MILLISECOND, 0);
         return calendar;
     }
 
     public Month getMonth() {
-        return new Month(year, monthInYear);
+        return new Month(getYear(), getMonthInYear());
     }
 
     public Day getDay() {
-        return new Day(year, monthInYear, dayInMonth);
+        return new Day(getYear(), getMonthInYear(), getDayInMonth());
     }
 
     public Hour getHour() {
-        return new Hour(year, monthInYear, dayInMonth, hourInDay);
+        return new Hour(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay());
     }
 
     public Minute next() {
@@ -183,43 +174,23 @@ public class Minute {
         return advanced(-1);
     }
 
+    /**
+     * Returns the number of minutes from 1970-01-01 00:00 to this minute, ignoring
+     * time zones (in the same way as {@link Day#toEpochDay()}).
+     */
+    public long toEpochMinute() {
+        return Math.floorDiv(PackedTimestamp.toLocalEpochSecond(packed), PackedTimestamp.SECONDS_PER_MINUTE);
+    }
+
     public Minute advanced(int minutes) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, minuteInHour, 0);
-        calendar.set(GregorianCalendar.MILLISECOND, 0);
-        calendar.add(GregorianCalendar.MINUTE, minutes);
-        return new Minute(calendar);
+        return new Minute(PackedTimestamp.fromLocalEpochSecond(PackedTimestamp.toLocalEpochSecond(packed) + minutes * PackedTimestamp.SECONDS_PER_MINUTE));
     }
 
     public boolean after(Minute anotherMinute) {
         if (anotherMinute == null) {
             throw new NullPointerException("anotherMinute cannot be null");
         } else {
-            if (year > anotherMinute.getYear()) {
-                return true;
-            } else if (year < anotherMinute.getYear()) {
-                return false;
-            } else {
-                if (monthInYear > anotherMinute.getMonthInYear()) {
-                    return true;
-                } else if (monthInYear < anotherMinute.getMonthInYear()) {
-                    return false;
-                } else {
-                    if (dayInMonth > anotherMinute.getDayInMonth()) {
-                        return true;
-                    } else if (dayInMonth < anotherMinute.getDayInMonth()) {
-                        return false;
-                    } else {
-                        if (hourInDay > anotherMinute.getHourInDay()) {
-                            return true;
-                        } else if (hourInDay < anotherMinute.getHourInDay()) {
-                            return false;
-                        } else {
-                            return minuteInHour > anotherMinute.getMinuteInHour();
-                        }
-                    }
-                }
-            }
+            return packed > anotherMinute.packed;
         }
     }
 
@@ -227,73 +198,42 @@ public class Minute {
         if (anotherMinute == null) {
             throw new NullPointerException("anotherDay cannot be null");
         } else {
-            if (year < anotherMinute.getYear()) {
-                return true;
-            } else if (year > anotherMinute.getYear()) {
-                return false;
-            } else {
-                if (monthInYear < anotherMinute.getMonthInYear()) {
-                    return true;
-                } else if (monthInYear > anotherMinute.getMonthInYear()) {
-                    return false;
-                } else {
-                    if (dayInMonth < anotherMinute.getDayInMonth()) {
-                        return true;
-                    } else if (dayInMonth > anotherMinute.getDayInMonth()) {
-                        return false;
-                    } else {
-                        if (hourInDay < anotherMinute.getHourInDay()) {
-                            return true;
-                        } else if (hourInDay > anotherMinute.getHourInDay()) {
-                            return false;
-                        } else {
-                            return minuteInHour < anotherMinute.getMinuteInHour();
-                        }
-                    }
-                }
-            }
+            return packed < anotherMinute.packed;
         }
     }
 
     public int compareTo(Minute anotherMinute) {
-        if (this.equals(anotherMinute)) {
-            return 0;
-        } else if (this.before(anotherMinute)) {
-            return -1;
-        } else {
-            return 1;
-        }
+        return Long.compare(packed, anotherMinute.packed);
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj != null
-               && obj instanceof Minute
-               && ((Minute) obj).getYear() == year
-               && ((Minute) obj).getMonthInYear() == monthInYear
-               && ((Minute) obj).getDayInMonth() == dayInMonth
-               && ((Minute) obj).getHourInDay() == hourInDay
-               && ((Minute) obj).getMinuteInHour() == minuteInHour;
+        return obj instanceof Minute && ((Minute) obj).packed == packed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
     }
 
     public String toString() {
-        return String.format("%04d-%02d-%02d %02d:%02d", year, monthInYear, dayInMonth, hourInDay, minuteInHour);
+        return Dates.toIsoString(5, getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), 0, 0);
     }
 
     public String toFilenameSafeString() {
-        return String.format("%04d%02d%02d-%02d%02d", year, monthInYear, dayInMonth, hourInDay, minuteInHour);
+        return String.format("%04d%02d%02d-%02d%02d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour());
     }
 
     public String toFilenameSafeString2() {
-        return String.format("%04d-%02d-%02d_%02d%02d", year, monthInYear, dayInMonth, hourInDay, minuteInHour);
+        return String.format("%04d-%02d-%02d_%02d%02d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour());
     }
 
     public String toISO8601String() {
-        return String.format("%04d-%02d-%02dT%02d:%02d", year, monthInYear, dayInMonth, hourInDay, minuteInHour);
+        return String.format("%04d-%02d-%02dT%02d:%02d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour());
     }
 
     public String format(String pattern) {
-        return new SimpleDateFormat(pattern).format(getDate());
+        return DateFormatters.format(pattern, packed, 0);
     }
 
     public static String format(Minute minute, String pattern) {
@@ -301,26 +241,51 @@ public class Minute {
     }
 
     public static String format(Minute minute, String pattern, String valueIfNull) {
-        return minute == null ? valueIfNull : new SimpleDateFormat(pattern).format(minute.getDate());
+        return minute == null ? valueIfNull : DateFormatters.format(pattern, minute.packed, 0);
     }
 
     public static Minute fromString(String string) {
         if (string == null) {
             return null;
         } else {
-            Matcher m = Pattern.compile("^(\\d\\d\\d\\d)[-\\.](\\d\\d)[-\\.](\\d\\d)[ T](\\d\\d):(\\d\\d)$").matcher(string);
-            if (!m.matches()) {
-                throw new MinuteTimestampFormatException(string);
-            }
-            int year = Integer.parseInt(m.group(1));
-            int month = Integer.parseInt(m.group(2));
-            int day = Integer.parseInt(m.group(3));
-            int hour = Integer.parseInt(m.group(4));
-            int minute = Integer.parseInt(m.group(5));
-            return new Minute(year, month, day, hour, minute);
+            return fromString(string, 0, string.length());
         }
     }
 
+    /**
+     * Parses the length characters of chars starting at offset in the same way
+     * as {@link #fromString(String)} does, without copying them to a string first.
+     */
+    public static Minute fromString(CharSequence chars, int offset, int length) {
+        Minute minute = tryFromString(chars, offset, length);
+        if (minute == null) {
+            throw new MinuteTimestampFormatException(chars.subSequence(offset, offset + length).toString());
+        }
+        return minute;
+    }
+
+    /**
+     * As for {@link #fromString(String)} except that null is returned (rather
+     * than a MinuteTimestampFormatException being thrown) if string is not a
+     * valid minute string.
+     */
+    public static Minute tryFromString(String string) {
+        return string == null ? null : tryFromString(string, 0, string.length());
+    }
+
+    public static Minute tryFromString(CharSequence chars, int offset, int length) {
+        Dates.checkBounds(chars, offset, length);
+        if (length != 16 || !Dates.isTimestamp(chars, offset, 1, true)) {
+            return null;
+        }
+        int year = Dates.parseDigits(chars, offset, 4);
+        int month = Dates.parseDigits(chars, offset + 5, 2);
+        int day = Dates.parseDigits(chars, offset + 8, 2);
+        int hour = Dates.parseDigits(chars, offset + 11, 2);
+        int minute = Dates.parseDigits(chars, offset + 14, 2);
+        return new Minute(year, month, day, hour, minute);
+    }
+
     public static Minute from(Date date) {
         if (date == null) {
             return null;
@@ -374,12 +339,17 @@ public class Minute {
 
     @JsonIgnore
     public Second getFirstSecond() {
-        return new Second(year, monthInYear, dayInMonth, hourInDay, minuteInHour, 0);
+        return new Second(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), 0);
     }
 
     @JsonIgnore
     public Millisecond getFirstMillisecond() {
-        return new Millisecond(year, monthInYear, dayInMonth, hourInDay, minuteInHour, 0, 0);
+        return new Millisecond(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), 0, 0);
+    }
+
+    private void set(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour) {
+        this.packed = PackedTimestamp.pack(year, monthInYear, dayInMonth, hourInDay, minuteInHour, 0);
+        this.fieldsAsGiven = PackedTimestamp.fieldsIfNotNormalized(year, monthInYear, dayInMonth, hourInDay, minuteInHour, 0, 0);
     }
 
 }
@@ -0,0 +1,172 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.io.Serializable;
+
+/**
+ * As for {@link DaySeries} but with a value for each minute, or for each period
+ * of minutesPerPoint minutes (5, 15, 60 etc).  In that case each value is for the
+ * period starting at the point's minute, and points start at midnight, so a
+ * value set for 10:07 in a 5 minute series is the value for 10:05.
+ */
+public class MinuteSeries implements Serializable {
+
+    public enum Aggregation {
+        sum,
+        mean,
+        min,
+        max,
+        first,
+        last,
+        count    // the number of values
+    }
+
+    private static final long serialVersionUID = 1L;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    private final int minutesPerPoint;
+    private final SeriesValues values;
+
+    public MinuteSeries() {
+        this(1);
+    }
+
+    public MinuteSeries(int minutesPerPoint) {
+        this(minutesPerPoint, new SeriesValues());
+    }
+
+    public int getMinutesPerPoint() {
+        return minutesPerPoint;
+    }
+
+    public Minute getFirstMinute() {
+        return values.length() == 0 ? null : Minute.fromEpochMinute(values.getFirstIndex() * minutesPerPoint);
+    }
+
+    public Minute getLastMinute() {
+        return values.length() == 0 ? null : Minute.fromEpochMinute((values.getFirstIndex() + values.length() - 1) * minutesPerPoint);
+    }
+
+    /**
+     * The number of points from the first minute to the last minute (inclusive).
+     */
+    public int size() {
+        return values.length();
+    }
+
+    public Minute getMinute(int position) {
+        if (position < 0 || position >= values.length()) {
+            throw new IndexOutOfBoundsException("Position " + position + " is outside 0 to " + (values.length() - 1));
+        }
+        return Minute.fromEpochMinute((values.getFirstIndex() + position) * minutesPerPoint);
+    }
+
+    public double getValue(int position) {
+        return values.valueAt(position);
+    }
+
+    /**
+     * Returns the value for the point that includes minute or NaN if it doesn't
+     * have one.
+     */
+    public double get(Minute minute) {
+        return values.get(index(minute));
+    }
+
+    public boolean has(Minute minute) {
+        return !Double.isNaN(get(minute));
+    }
+
+    public MinuteSeries set(Minute minute, double value) {
+        values.set(index(minute), value);
+        return this;
+    }
+
+    /**
+     * Adds value to the value for the point that includes minute (which is taken
+     * to be zero if the point doesn't have a value yet).
+     */
+    public MinuteSeries add(Minute minute, double value) {
+        values.add(index(minute), value);
+        return this;
+    }
+
+    /**
+     * Returns a copy of the points from the one including fromMinute to the one
+     * including toMinute (inclusive).
+     */
+    public MinuteSeries slice(Minute fromMinute, Minute toMinute) {
+        return new MinuteSeries(minutesPerPoint, values.slice(index(fromMinute), index(toMinute)));
+    }
+
+    /**
+     * Returns a series with minutesPerPoint minutes per point (which must be a
+     * multiple of this series' minutes per point) with each point's value being
+     * the aggregation of the values it covers.
+     */
+    public MinuteSeries resampled(int minutesPerPoint, Aggregation aggregation) {
+        if (minutesPerPoint % this.minutesPerPoint != 0) {
+            throw new IllegalArgumentException(String.format("Cannot resample a %d minute series to %d minutes", this.minutesPerPoint, minutesPerPoint));
+        }
+        return new MinuteSeries(minutesPerPoint, values.aggregated(minutesPerPoint / this.minutesPerPoint, aggregation));
+    }
+
+    public DaySeries toDaySeries(Aggregation aggregation) {
+        return new DaySeries(values.aggregated(MINUTES_PER_DAY / minutesPerPoint, aggregation));
+    }
+
+    /**
+     * The sum of the values (ignoring points without a value).
+     */
+    public double sum() {
+        return values.sum();
+    }
+
+    public double[] toArray() {
+        return values.toArray();
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private MinuteSeries(int minutesPerPoint, SeriesValues values) {
+        if (minutesPerPoint <= 0 || MINUTES_PER_DAY % minutesPerPoint != 0) {
+            throw new IllegalArgumentException("minutesPerPoint must divide evenly into a day (" + minutesPerPoint + " doesn't)");
+        }
+        this.minutesPerPoint = minutesPerPoint;
+        this.values = values;
+    }
+
+    private long index(Minute minute) {
+        return Math.floorDiv(minute.toEpochMinute(), (long) minutesPerPoint);
+    }
+
+}
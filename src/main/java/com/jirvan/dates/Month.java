@@ -34,13 +34,10 @@ package com.jirvan.dates;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import java.sql.Timestamp;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is primarily here to get around the standard java Date class's
@@ -151,11 +148,8 @@ public class Month {
     }
 
     public Month advanced(int months) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, 1, 0, 0, 0);
-        calendar.set(GregorianCalendar.MILLISECOND, 0);
-        calendar.add(GregorianCalendar.MONTH, months);
-        return new Month(calendar);
+        long epochMonth = year * 12L + monthInYear - 1 + months;
+        return new Month((int) Math.floorDiv(epochMonth, 12L), (int) Math.floorMod(epochMonth, 12L) + 1);
     }
 
     @Override
@@ -163,6 +157,11 @@ public class Month {
         return obj != null && obj instanceof Month && ((Month) obj).getYear() == year && ((Month) obj).getMonthInYear() == monthInYear;
     }
 
+    @Override
+    public int hashCode() {
+        return year * 12 + monthInYear;
+    }
+
     public boolean after(Month anotherMonth) {
         if (anotherMonth == null) {
             throw new NullPointerException("anotherMonth cannot be null");
@@ -200,7 +199,7 @@ public class Month {
     }
 
     public String toString() {
-        return String.format("%04d-%02d", year, monthInYear);
+        return Dates.toIsoString(2, year, monthInYear, 0, 0, 0, 0, 0);
     }
 
     public String toFilenameSafeString() {
@@ -208,7 +207,7 @@ public class Month {
     }
 
     public String format(String pattern) {
-        return new SimpleDateFormat(pattern).format(getDate());
+        return DateFormatters.format(pattern, PackedTimestamp.pack(year, monthInYear, 1, 0, 0, 0), 0);
     }
 
     public static String format(Month month, String pattern) {
@@ -216,7 +215,7 @@ public class Month {
     }
 
     public static String format(Month month, String pattern, String valueIfNull) {
-        return month == null ? valueIfNull : new SimpleDateFormat(pattern).format(month.getDate());
+        return month == null ? valueIfNull : DateFormatters.format(pattern, PackedTimestamp.pack(month.year, month.monthInYear, 1, 0, 0, 0), 0);
     }
 
     public static Date toDate(Month month) {
@@ -227,20 +226,34 @@ public class Month {
         if (monthString == null) {
             return null;
         } else {
-            Matcher matcherFull = Pattern.compile("^(\\d\\d\\d\\d)-(\\d\\d)$").matcher(monthString);
-            Matcher matcherAbbreviated = Pattern.compile("^(\\d\\d) */ *(\\d\\d)$").matcher(monthString);
-            if (matcherFull.matches()) {
-                int year = Integer.parseInt(matcherFull.group(1));
-                int month = Integer.parseInt(matcherFull.group(2));
-                return new Month(year, month);
-            } else if (matcherAbbreviated.matches()) {
-                int year = Integer.parseInt(matcherAbbreviated.group(2)) + 2000;
-                int month = Integer.parseInt(matcherAbbreviated.group(1));
-                return new Month(year, month);
-            } else {
-                throw new MonthFormatException(monthString);
-            }
+            return fromString(monthString, 0, monthString.length());
+        }
+    }
+
+    /**
+     * Parses the length characters of chars starting at offset in the same way
+     * as {@link #fromString(String)} does, without copying them to a string first.
+     */
+    public static Month fromString(CharSequence chars, int offset, int length) {
+        int yyyymm = parseYyyymm(chars, offset, length);
+        if (yyyymm < 0) {
+            throw new MonthFormatException(chars.subSequence(offset, offset + length).toString());
         }
+        return new Month(yyyymm / 100, yyyymm % 100);
+    }
+
+    /**
+     * As for {@link #fromString(String)} except that null is returned (rather
+     * than a MonthFormatException being thrown) if monthString is not a valid
+     * month string.
+     */
+    public static Month tryFromString(String monthString) {
+        return monthString == null ? null : tryFromString(monthString, 0, monthString.length());
+    }
+
+    public static Month tryFromString(CharSequence chars, int offset, int length) {
+        int yyyymm = parseYyyymm(chars, offset, length);
+        return yyyymm < 0 ? null : new Month(yyyymm / 100, yyyymm % 100);
     }
 
     @JsonIgnore
@@ -268,4 +281,44 @@ public class Month {
         return new Millisecond(year, monthInYear, 1, 0, 0, 0, 0);
     }
 
+    //======================== Everything below here is private ========================//
+
+    /**
+     * Parses chars as for fromString returning the (not necessarily valid) year
+     * and month as a yyyymm int, or -1 if chars is not a month string
+     */
+    static int parseYyyymm(CharSequence chars, int offset, int length) {
+        Dates.checkBounds(chars, offset, length);
+        int end = offset + length;
+
+        // yyyy-mm
+        if (length == 7
+            && Dates.isDigits(chars, offset, 4)
+            && chars.charAt(offset + 4) == '-'
+            && Dates.isDigits(chars, offset + 5, 2)) {
+            return Dates.parseDigits(chars, offset, 4) * 100 + Dates.parseDigits(chars, offset + 5, 2);
+        }
+
+        // mm/yy, optionally with spaces around the slash
+        if (length >= 5
+            && Dates.isDigits(chars, offset, 2)
+            && Dates.isDigits(chars, end - 2, 2)) {
+            int i = offset + 2;
+            while (i < end - 2 && chars.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < end - 2 && chars.charAt(i) == '/') {
+                i++;
+                while (i < end - 2 && chars.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i == end - 2) {
+                    return (Dates.parseDigits(chars, end - 2, 2) + 2000) * 100 + Dates.parseDigits(chars, offset, 2);
+                }
+            }
+        }
+
+        return -1;
+    }
+
 }
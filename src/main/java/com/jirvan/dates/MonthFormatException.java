@@ -32,6 +32,6 @@ package com.jirvan.dates;
 
 public class MonthFormatException extends RuntimeException {
     public MonthFormatException(String invalidString) {
-        super(String.format("Invalid month string \"%s\" - must be of form \"YYYY-MM\" (e.g. 2012-05) or \"MM/YY\"", invalidString));
+        super(String.format("Invalid month string \"%s\" - must be of form \"YYYY-MM\" (e.g. 2012-05) or \"MM/YY\"", invalidString), null, true, !Dates.STACKLESS_FORMAT_EXCEPTIONS);
     }
 }
@@ -0,0 +1,157 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * An immutable range of months, from the first month to the last month
+ * inclusive (see DayRange).
+ */
+public final class MonthRange implements Iterable<Month>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long firstEpochMonth;
+    private final long lastEpochMonth;
+
+    public MonthRange(Month firstMonth, Month lastMonth) {
+        this(epochMonth(firstMonth), epochMonth(lastMonth));
+    }
+
+    public Month getFirstMonth() {
+        return month(firstEpochMonth);
+    }
+
+    public Month getLastMonth() {
+        return month(lastEpochMonth);
+    }
+
+    public int size() {
+        return Math.toIntExact(lastEpochMonth - firstEpochMonth + 1);
+    }
+
+    public boolean contains(Month month) {
+        long epochMonth = epochMonth(month);
+        return epochMonth >= firstEpochMonth && epochMonth <= lastEpochMonth;
+    }
+
+    public boolean contains(Day day) {
+        return toDayRange().contains(day);
+    }
+
+    public boolean contains(MonthRange anotherRange) {
+        return anotherRange.firstEpochMonth >= firstEpochMonth && anotherRange.lastEpochMonth <= lastEpochMonth;
+    }
+
+    public boolean overlaps(MonthRange anotherRange) {
+        return anotherRange.firstEpochMonth <= lastEpochMonth && anotherRange.lastEpochMonth >= firstEpochMonth;
+    }
+
+    /**
+     * Returns the months in both this range and anotherRange, or null if there are none.
+     */
+    public MonthRange intersection(MonthRange anotherRange) {
+        return overlaps(anotherRange)
+               ? new MonthRange(Math.max(firstEpochMonth, anotherRange.firstEpochMonth), Math.min(lastEpochMonth, anotherRange.lastEpochMonth))
+               : null;
+    }
+
+    /**
+     * Returns the months in either this range or anotherRange, which must overlap
+     * or be adjacent to this range (as otherwise the union is not a range).
+     */
+    public MonthRange union(MonthRange anotherRange) {
+        if (anotherRange.firstEpochMonth > lastEpochMonth + 1 || anotherRange.lastEpochMonth < firstEpochMonth - 1) {
+            throw new IllegalArgumentException(String.format("%s and %s neither overlap nor are adjacent", this, anotherRange));
+        }
+        return new MonthRange(Math.min(firstEpochMonth, anotherRange.firstEpochMonth), Math.max(lastEpochMonth, anotherRange.lastEpochMonth));
+    }
+
+    public DayRange toDayRange() {
+        return new DayRange(getFirstMonth().getFirstDay(), getLastMonth().lastDay());
+    }
+
+    public Iterator<Month> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
+
+    @Override
+    public Spliterator<Month> spliterator() {
+        return new RangeSpliterator<>(MonthRange::month, firstEpochMonth, lastEpochMonth);
+    }
+
+    public Stream<Month> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    public Stream<Month> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof MonthRange && ((MonthRange) obj).firstEpochMonth == firstEpochMonth && ((MonthRange) obj).lastEpochMonth == lastEpochMonth;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(firstEpochMonth) * 31 + Long.hashCode(lastEpochMonth);
+    }
+
+    public String toString() {
+        return getFirstMonth() + " to " + getLastMonth();
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private MonthRange(long firstEpochMonth, long lastEpochMonth) {
+        if (lastEpochMonth < firstEpochMonth) {
+            throw new IllegalArgumentException(String.format("Last month %s is before first month %s", month(lastEpochMonth), month(firstEpochMonth)));
+        }
+        this.firstEpochMonth = firstEpochMonth;
+        this.lastEpochMonth = lastEpochMonth;
+    }
+
+    private static long epochMonth(Month month) {
+        return month.getYear() * 12L + month.getMonthInYear() - 1;
+    }
+
+    private static Month month(long epochMonth) {
+        return new Month((int) Math.floorDiv(epochMonth, 12L), (int) Math.floorMod(epochMonth, 12L) + 1);
+    }
+
+}
@@ -0,0 +1,266 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.util.TimeZone;
+
+/**
+ * Static methods for the long that Hour, Minute, Second and Millisecond keep
+ * their fields in.  From the most significant end it holds the year (32 bits,
+ * signed), month (4 bits), day (5), hour (5), minute (6) and second (6), with
+ * the bottom 6 bits unused, so getting a field is a shift and a mask and
+ * comparing the longs compares the fields in order.  Millisecond keeps its
+ * millisecond in second separately as there is no room for it alongside a full
+ * int year.
+ * <p>
+ * Packed fields are always normalized as a lenient GregorianCalendar would
+ * normalize them (e.g. 2019-02-31 is packed as 2019-03-03 and hour 24 as hour 0
+ * of the next day), so two packed values are equal exactly when they are the
+ * same local time.  Dates before 1582 are proleptic Gregorian.  The classes
+ * also keep fields that weren't normalized as given (see
+ * {@link #fieldsIfNotNormalized}) so that, as always, their getters return what
+ * was set and setting the day in month to 31 and then the month works.
+ */
+final class PackedTimestamp {
+
+    private static final int SECOND_SHIFT = 6;
+    private static final int MINUTE_SHIFT = 12;
+    private static final int HOUR_SHIFT = 18;
+    private static final int DAY_SHIFT = 23;
+    private static final int MONTH_SHIFT = 28;
+    private static final int YEAR_SHIFT = 32;
+
+    static final long HOUR_MASK = -1L << HOUR_SHIFT;
+    static final long MINUTE_MASK = -1L << MINUTE_SHIFT;
+
+    static final long SECONDS_PER_MINUTE = 60;
+    static final long SECONDS_PER_HOUR = 60 * SECONDS_PER_MINUTE;
+    static final long SECONDS_PER_DAY = 24 * SECONDS_PER_HOUR;
+
+    static final long MILLISECONDS_PER_SECOND = 1000;
+    static final long MILLISECONDS_PER_MINUTE = 60 * MILLISECONDS_PER_SECOND;
+    static final long MILLISECONDS_PER_HOUR = 60 * MILLISECONDS_PER_MINUTE;
+    static final long MILLISECONDS_PER_DAY = 24 * MILLISECONDS_PER_HOUR;
+
+    static long pack(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute) {
+        if (isNormalized(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute)) {
+            return (long) year << YEAR_SHIFT
+                   | (long) monthInYear << MONTH_SHIFT
+                   | (long) dayInMonth << DAY_SHIFT
+                   | (long) hourInDay << HOUR_SHIFT
+                   | (long) minuteInHour << MINUTE_SHIFT
+                   | (long) secondInMinute << SECOND_SHIFT;
+        } else {
+            return fromLocalEpochSecond(Day.toEpochDay(year, monthInYear, dayInMonth) * SECONDS_PER_DAY
+                                        + hourInDay * SECONDS_PER_HOUR
+                                        + minuteInHour * SECONDS_PER_MINUTE
+                                        + secondInMinute);
+        }
+    }
+
+    /**
+     * As for {@link #pack(int, int, int, int, int, int)} with millisecondInSecond
+     * carried into the seconds, so the packed value only holds its whole seconds
+     * (see {@link #millisecondInSecond(int)} for the rest).
+     */
+    static long pack(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute, int millisecondInSecond) {
+        if (millisecondInSecond >= 0 && millisecondInSecond < MILLISECONDS_PER_SECOND) {
+            return pack(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute);
+        } else {
+            return fromLocalEpochSecond(toLocalEpochSecond(pack(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute))
+                                        + Math.floorDiv(millisecondInSecond, (int) MILLISECONDS_PER_SECOND));
+        }
+    }
+
+    static int millisecondInSecond(int millisecondInSecond) {
+        return Math.floorMod(millisecondInSecond, (int) MILLISECONDS_PER_SECOND);
+    }
+
+    /**
+     * Returns the fields, for keeping alongside the packed value, if they aren't
+     * already normalized and otherwise null (so that normalized fields, the
+     * usual case, only take the packed value)
+     */
+    static int[] fieldsIfNotNormalized(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute, int millisecondInSecond) {
+        if (isNormalized(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute)
+            && millisecondInSecond >= 0 && millisecondInSecond < MILLISECONDS_PER_SECOND) {
+            return null;
+        } else {
+            return new int[]{year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, millisecondInSecond};
+        }
+    }
+
+    static int year(long packed, int[] fieldsAsGiven) {
+        return fieldsAsGiven == null ? year(packed) : fieldsAsGiven[0];
+    }
+
+    static int monthInYear(long packed, int[] fieldsAsGiven) {
+        return fieldsAsGiven == null ? monthInYear(packed) : fieldsAsGiven[1];
+    }
+
+    static int dayInMonth(long packed, int[] fieldsAsGiven) {
+        return fieldsAsGiven == null ? dayInMonth(packed) : fieldsAsGiven[2];
+    }
+
+    static int hourInDay(long packed, int[] fieldsAsGiven) {
+        return fieldsAsGiven == null ? hourInDay(packed) : fieldsAsGiven[3];
+    }
+
+    static int minuteInHour(long packed, int[] fieldsAsGiven) {
+        return fieldsAsGiven == null ? minuteInHour(packed) : fieldsAsGiven[4];
+    }
+
+    static int secondInMinute(long packed, int[] fieldsAsGiven) {
+        return fieldsAsGiven == null ? secondInMinute(packed) : fieldsAsGiven[5];
+    }
+
+    static int year(long packed) {
+        return (int) (packed >> YEAR_SHIFT);
+    }
+
+    static int monthInYear(long packed) {
+        return (int) (packed >>> MONTH_SHIFT) & 0xf;
+    }
+
+    static int dayInMonth(long packed) {
+        return (int) (packed >>> DAY_SHIFT) & 0x1f;
+    }
+
+    static int hourInDay(long packed) {
+        return (int) (packed >>> HOUR_SHIFT) & 0x1f;
+    }
+
+    static int minuteInHour(long packed) {
+        return (int) (packed >>> MINUTE_SHIFT) & 0x3f;
+    }
+
+    static int secondInMinute(long packed) {
+        return (int) (packed >>> SECOND_SHIFT) & 0x3f;
+    }
+
+    /**
+     * Seconds since 1970-01-01 00:00 ignoring time zones, i.e. as if the timestamp
+     * was in UTC (seconds rather than milliseconds so that every int year fits)
+     */
+    static long toLocalEpochSecond(long packed) {
+        return Day.toEpochDay(year(packed), monthInYear(packed), dayInMonth(packed)) * SECONDS_PER_DAY
+               + hourInDay(packed) * SECONDS_PER_HOUR
+               + minuteInHour(packed) * SECONDS_PER_MINUTE
+               + secondInMinute(packed);
+    }
+
+    static long fromLocalEpochSecond(long localEpochSecond) {
+        long secondInDay = Math.floorMod(localEpochSecond, SECONDS_PER_DAY);
+        return packDate(Math.floorDiv(localEpochSecond, SECONDS_PER_DAY))
+               | secondInDay / SECONDS_PER_HOUR << HOUR_SHIFT
+               | secondInDay % SECONDS_PER_HOUR / SECONDS_PER_MINUTE << MINUTE_SHIFT
+               | secondInDay % SECONDS_PER_MINUTE << SECOND_SHIFT;
+    }
+
+    /**
+     * Returns just the year, month and day fields for the day epochDay days after
+     * 1970-01-01
+     */
+    static long packDate(long epochDay) {
+
+        // Civil from days (see http://howardhinnant.github.io/date_algorithms.html)
+        long shiftedDays = epochDay + Day.DAYS_FROM_0000_03_01_TO_EPOCH;
+        long era = Math.floorDiv(shiftedDays, Day.DAYS_PER_400_YEARS);
+        int dayOfEra = (int) (shiftedDays - era * Day.DAYS_PER_400_YEARS);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int shiftedMonth = (5 * dayOfYear + 2) / 153;
+        long dayInMonth = dayOfYear - (153 * shiftedMonth + 2) / 5 + 1;
+        long monthInYear = shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9;
+        long year = yearOfEra + era * 400 + (monthInYear <= 2 ? 1 : 0);
+        if (year < Integer.MIN_VALUE || year > Integer.MAX_VALUE) {
+            throw new ArithmeticException(String.format("Year %d is out of range", year));
+        }
+        return year << YEAR_SHIFT | monthInYear << MONTH_SHIFT | dayInMonth << DAY_SHIFT;
+
+    }
+
+    /**
+     * As for GregorianCalendar local times in a daylight saving gap are moved
+     * forward by the length of the gap and ambiguous local times are taken to be
+     * in the later (standard time) offset.
+     */
+    static long toEpochMillisecond(long packed, TimeZone timeZone) {
+        long localEpochMillisecond = toLocalEpochSecond(packed) * MILLISECONDS_PER_SECOND;
+        int offsetBefore = timeZone.getOffset(localEpochMillisecond - MILLISECONDS_PER_DAY);
+        int offsetAfter = timeZone.getOffset(localEpochMillisecond + MILLISECONDS_PER_DAY);
+        if (offsetBefore == offsetAfter || timeZone.getOffset(localEpochMillisecond - offsetAfter) == offsetAfter) {
+            return localEpochMillisecond - offsetAfter;
+        } else {
+            return localEpochMillisecond - offsetBefore;
+        }
+    }
+
+    /**
+     * Returns packed moved forward by the length of the gap if it is in a daylight
+     * saving gap in the time zone (as {@link #toEpochMillisecond} and then
+     * {@link #fromEpochMillisecond} would), otherwise packed itself.  Only
+     * timestamps within the range of epoch milliseconds are checked.
+     */
+    static long resolveGap(long packed, TimeZone timeZone) {
+        long localEpochSecond = toLocalEpochSecond(packed);
+        if (Math.abs(localEpochSecond) >= Long.MAX_VALUE / MILLISECONDS_PER_SECOND - SECONDS_PER_DAY) {
+            return packed;
+        }
+        return fromEpochMillisecond(toEpochMillisecond(packed, timeZone), timeZone);
+    }
+
+    /**
+     * Returns the local time to the second (see
+     * {@link #millisecondInSecond(long, TimeZone)} for the rest)
+     */
+    static long fromEpochMillisecond(long epochMillisecond, TimeZone timeZone) {
+        return fromLocalEpochSecond(Math.floorDiv(epochMillisecond + timeZone.getOffset(epochMillisecond), MILLISECONDS_PER_SECOND));
+    }
+
+    static int millisecondInSecond(long epochMillisecond, TimeZone timeZone) {
+        return (int) Math.floorMod(epochMillisecond + timeZone.getOffset(epochMillisecond), MILLISECONDS_PER_SECOND);
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private static boolean isNormalized(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute) {
+        return monthInYear >= 1 && monthInYear <= 12
+               && dayInMonth >= 1 && dayInMonth <= Day.lengthOfMonth(year, monthInYear)
+               && hourInDay >= 0 && hourInDay < 24
+               && minuteInHour >= 0 && minuteInHour < 60
+               && secondInMinute >= 0 && secondInMinute < 60;
+    }
+
+    private PackedTimestamp() {
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Splits a range of indexes (epoch days, epoch months etc) in half, with no
+ * shared state, so that ranges of days and months can be streamed in parallel.
+ */
+final class RangeSpliterator<T> implements Spliterator<T> {
+
+    private final LongFunction<T> valueForIndex;
+    private final long end;
+    private long index;
+
+    RangeSpliterator(LongFunction<T> valueForIndex, long first, long last) {
+        this.valueForIndex = valueForIndex;
+        this.index = first;
+        this.end = last + 1;
+    }
+
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (index < end) {
+            action.accept(valueForIndex.apply(index++));
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    public void forEachRemaining(Consumer<? super T> action) {
+        long i = index;
+        index = end;
+        for (; i < end; i++) {
+            action.accept(valueForIndex.apply(i));
+        }
+    }
+
+    public Spliterator<T> trySplit() {
+        long mid = index + (end - index) / 2;
+        if (mid <= index) {
+            return null;
+        }
+        RangeSpliterator<T> prefix = new RangeSpliterator<>(valueForIndex, index, mid - 1);
+        index = mid;
+        return prefix;
+    }
+
+    public long estimateSize() {
+        return end - index;
+    }
+
+    public int characteristics() {
+        return ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    }
+
+}
@@ -32,14 +32,11 @@ package com.jirvan.dates;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
-import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * This class is primarily here to get around the standard java Date class's
@@ -51,66 +48,47 @@ import java.util.regex.Pattern;
  * what timezone they were born in or where they are now.  At the moment a
  * Gregorian calendar is assumed.
  */
-public class Second {
+public class Second implements Comparable<Second> {
 
-    private int year;
-    private int monthInYear;
-    private int dayInMonth;
-    private int hourInDay;
-    private int minuteInHour;
-    private int secondInMinute;
+    private long packed;
+    private int[] fieldsAsGiven;  // Only if they weren't normalized (see PackedTimestamp)
 
     public Second() {
         this(new Date());
     }
 
     public Second(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute) {
-        this.year = year;
-        this.monthInYear = monthInYear;
-        this.dayInMonth = dayInMonth;
-        this.hourInDay = hourInDay;
-        this.minuteInHour = minuteInHour;
-        this.secondInMinute = secondInMinute;
+        set(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute);
     }
 
     private Second(LocalDateTime localDateTime) {
-        this.year = localDateTime.getYear();
-        this.monthInYear = localDateTime.getMonthValue();
-        this.dayInMonth = localDateTime.getDayOfMonth();
-        this.hourInDay = localDateTime.getHour();
-        this.minuteInHour = localDateTime.getMinute();
-        this.secondInMinute = localDateTime.getSecond();
+        this.packed = PackedTimestamp.pack(localDateTime.getYear(),
+                                           localDateTime.getMonthValue(),
+                                           localDateTime.getDayOfMonth(),
+                                           localDateTime.getHour(),
+                                           localDateTime.getMinute(),
+                                           localDateTime.getSecond());
     }
 
     private Second(GregorianCalendar calendar) {
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
-        this.secondInMinute = calendar.get(GregorianCalendar.SECOND);
+        this.packed = PackedTimestamp.pack(calendar.get(GregorianCalendar.YEAR),
+                                           calendar.get(GregorianCalendar.MONTH) + 1,
+                                           calendar.get(GregorianCalendar.DAY_OF_MONTH),
+                                           calendar.get(GregorianCalendar.HOUR_OF_DAY),
+                                           calendar.get(GregorianCalendar.MINUTE),
+                                           calendar.get(GregorianCalendar.SECOND));
     }
 
     private Second(Date date) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
-        this.secondInMinute = calendar.get(GregorianCalendar.SECOND);
+        this.packed = PackedTimestamp.fromEpochMillisecond(date.getTime(), TimeZone.getDefault());
     }
 
     public Second(Date date, TimeZone timeZone) {
-        GregorianCalendar calendar = new GregorianCalendar(timeZone);
-        calendar.setTime(date);
-        this.year = calendar.get(GregorianCalendar.YEAR);
-        this.monthInYear = calendar.get(GregorianCalendar.MONTH) + 1;
-        this.dayInMonth = calendar.get(GregorianCalendar.DAY_OF_MONTH);
-        this.hourInDay = calendar.get(GregorianCalendar.HOUR_OF_DAY);
-        this.minuteInHour = calendar.get(GregorianCalendar.MINUTE);
-        this.secondInMinute = calendar.get(GregorianCalendar.SECOND);
+        this.packed = PackedTimestamp.fromEpochMillisecond(date.getTime(), timeZone);
+    }
+
+    private Second(long packed) {
+        this.packed = packed;
     }
 
     public static Second now() {
@@ -118,84 +96,84 @@ public class Second {
     }
 
     public int getYear() {
-        return year;
+        return PackedTimestamp.year(packed, fieldsAsGiven);
     }
 
     public Second setYear(int year) {
-        this.year = year;
+        set(year, getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
         return this;
     }
 
     public int getMonthInYear() {
-        return monthInYear;
+        return PackedTimestamp.monthInYear(packed, fieldsAsGiven);
     }
 
     public Second setMonthInYear(int monthInYear) {
-        this.monthInYear = monthInYear;
+        set(getYear(), monthInYear, getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
         return this;
     }
 
     public int getDayInMonth() {
-        return dayInMonth;
+        return PackedTimestamp.dayInMonth(packed, fieldsAsGiven);
     }
 
     public Second setDayInMonth(int dayInMonth) {
-        this.dayInMonth = dayInMonth;
+        set(getYear(), getMonthInYear(), dayInMonth, getHourInDay(), getMinuteInHour(), getSecondInMinute());
         return this;
     }
 
     public int getHourInDay() {
-        return hourInDay;
+        return PackedTimestamp.hourInDay(packed, fieldsAsGiven);
     }
 
     public Second setHourInDay(int hourInDay) {
-        this.hourInDay = hourInDay;
+        set(getYear(), getMonthInYear(), getDayInMonth(), hourInDay, getMinuteInHour(), getSecondInMinute());
         return this;
     }
 
     public int getMinuteInHour() {
-        return minuteInHour;
+        return PackedTimestamp.minuteInHour(packed, fieldsAsGiven);
     }
 
     public Second setMinuteInHour(int minuteInHour) {
-        this.minuteInHour = minuteInHour;
+        set(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), minuteInHour, getSecondInMinute());
         return this;
     }
 
     public int getSecondInMinute() {
-        return secondInMinute;
+        return PackedTimestamp.secondInMinute(packed, fieldsAsGiven);
     }
 
     public Second setSecondInMinute(int secondInMinute) {
-        this.secondInMinute = secondInMinute;
+        set(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), secondInMinute);
         return this;
     }
 
     public Date getDate() {
-        return getCalendar().getTime();
+        return new Date(PackedTimestamp.toEpochMillisecond(packed, TimeZone.getDefault()));
     }
 
     public Calendar getCalendar() {
         GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, minuteInHour, secondInMinute);
+        calendar.set(getYear(), getMonthInYear() - 1, getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
         calendar.set(GregorianCalendar.MILLISECOND, 0);
         return calendar;
     }
 
     public Month getMonth() {
-        return new Month(year, monthInYear);
+        return new Month(getYear(), getMonthInYear());
     }
 
     public Day getDay() {
-        return new Day(year, monthInYear, dayInMonth);
+        return new Day(getYear(), getMonthInYear(), getDayInMonth());
     }
 
     public Hour getHour() {
-        return new Hour(year, monthInYear, dayInMonth, hourInDay);
+        return new Hour(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay());
     }
 
     public Minute getMinute() {
-        return new Minute(year, monthInYear, dayInMonth, hourInDay, minuteInHour);
+        return new Minute(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour());
     }
 
     public Second next() {
@@ -207,39 +185,37 @@ public class Second {
     }
 
     public Second advanced(int seconds) {
-        GregorianCalendar calendar = new GregorianCalendar();
-        calendar.set(year, monthInYear - 1, dayInMonth, hourInDay, minuteInHour, secondInMinute);
-        calendar.set(GregorianCalendar.MILLISECOND, 0);
-        calendar.add(GregorianCalendar.SECOND, seconds);
-        return new Second(calendar);
+        return new Second(PackedTimestamp.fromLocalEpochSecond(PackedTimestamp.toLocalEpochSecond(packed) + seconds));
     }
 
     @Override
     public boolean equals(Object obj) {
-        return obj != null
-               && obj instanceof Second
-               && ((Second) obj).getYear() == year
-               && ((Second) obj).getMonthInYear() == monthInYear
-               && ((Second) obj).getDayInMonth() == dayInMonth
-               && ((Second) obj).getHourInDay() == hourInDay
-               && ((Second) obj).getMinuteInHour() == minuteInHour
-               && ((Second) obj).getSecondInMinute() == secondInMinute;
+        return obj instanceof Second && ((Second) obj).packed == packed;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packed);
+    }
+
+    public int compareTo(Second anotherSecond) {
+        return Long.compare(packed, anotherSecond.packed);
     }
 
     public String toString() {
-        return String.format("%04d-%02d-%02d %02d:%02d:%02d", year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute);
+        return Dates.toIsoString(6, getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute(), 0);
     }
 
     public String toFilenameSafeString() {
-        return String.format("%04d%02d%02d-%02d%02d-%02d", year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute);
+        return String.format("%04d%02d%02d-%02d%02d-%02d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
     }
 
     public String toISO8601String() {
-        return String.format("%04d-%02d-%02dT%02d:%02d:%02d", year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute);
+        return String.format("%04d-%02d-%02dT%02d:%02d:%02d", getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
     }
 
     public String format(String pattern) {
-        return new SimpleDateFormat(pattern).format(getDate());
+        return DateFormatters.format(pattern, packed, 0);
     }
 
     public static String format(Second second, String pattern) {
@@ -247,25 +223,50 @@ public class Second {
     }
 
     public static String format(Second second, String pattern, String valueIfNull) {
-        return second == null ? valueIfNull : new SimpleDateFormat(pattern).format(second.getDate());
+        return second == null ? valueIfNull : DateFormatters.format(pattern, second.packed, 0);
     }
 
     public static Second fromString(String string) {
         if (string == null) {
             return null;
         } else {
-            Matcher m = Pattern.compile("^(\\d\\d\\d\\d)-(\\d\\d)-(\\d\\d)[ T](\\d\\d):(\\d\\d):(\\d\\d)$").matcher(string);
-            if (!m.matches()) {
-                throw new SecondTimestampFormatException(string);
-            }
-            int year = Integer.parseInt(m.group(1));
-            int month = Integer.parseInt(m.group(2));
-            int day = Integer.parseInt(m.group(3));
-            int hour = Integer.parseInt(m.group(4));
-            int minute = Integer.parseInt(m.group(5));
-            int second = Integer.parseInt(m.group(6));
-            return new Second(year, month, day, hour, minute, second);
+            return fromString(string, 0, string.length());
+        }
+    }
+
+    /**
+     * Parses the length characters of chars starting at offset in the same way
+     * as {@link #fromString(String)} does, without copying them to a string first.
+     */
+    public static Second fromString(CharSequence chars, int offset, int length) {
+        Second second = tryFromString(chars, offset, length);
+        if (second == null) {
+            throw new SecondTimestampFormatException(chars.subSequence(offset, offset + length).toString());
         }
+        return second;
+    }
+
+    /**
+     * As for {@link #fromString(String)} except that null is returned (rather
+     * than a SecondTimestampFormatException being thrown) if string is not a
+     * valid second string.
+     */
+    public static Second tryFromString(String string) {
+        return string == null ? null : tryFromString(string, 0, string.length());
+    }
+
+    public static Second tryFromString(CharSequence chars, int offset, int length) {
+        Dates.checkBounds(chars, offset, length);
+        if (length != 19 || !Dates.isTimestamp(chars, offset, 2, false)) {
+            return null;
+        }
+        int year = Dates.parseDigits(chars, offset, 4);
+        int month = Dates.parseDigits(chars, offset + 5, 2);
+        int day = Dates.parseDigits(chars, offset + 8, 2);
+        int hour = Dates.parseDigits(chars, offset + 11, 2);
+        int minute = Dates.parseDigits(chars, offset + 14, 2);
+        int second = Dates.parseDigits(chars, offset + 17, 2);
+        return new Second(year, month, day, hour, minute, second);
     }
 
     public static Second from(Date date) {
@@ -309,7 +310,7 @@ public class Second {
     }
 
     public LocalDateTime toLocalDateTime() {
-        return LocalDateTime.of(this.year, this.monthInYear, this.dayInMonth, this.hourInDay, this.minuteInHour, this.secondInMinute);
+        return LocalDateTime.of(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute());
     }
 
     public static LocalDateTime toLocalDateTime(Second second) {
@@ -343,7 +344,12 @@ public class Second {
 
     @JsonIgnore
     public Millisecond getFirstMillisecond() {
-        return new Millisecond(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, 0);
+        return new Millisecond(getYear(), getMonthInYear(), getDayInMonth(), getHourInDay(), getMinuteInHour(), getSecondInMinute(), 0);
+    }
+
+    private void set(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour, int secondInMinute) {
+        this.packed = PackedTimestamp.pack(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute);
+        this.fieldsAsGiven = PackedTimestamp.fieldsIfNotNormalized(year, monthInYear, dayInMonth, hourInDay, minuteInHour, secondInMinute, 0);
     }
 
 }
@@ -32,6 +32,6 @@ package com.jirvan.dates;
 
 public class SecondTimestampFormatException extends RuntimeException {
     public SecondTimestampFormatException(String invalidString) {
-        super(String.format("Invalid hour string \"%s\" - must be of form \"YYYY-MM-DD hh:mm:ss\" (e.g. 2012-05-01 09:30:15) or YYYY-MM-DDThh:mm:ss (e.g. 2012-05-01T09:30:15)", invalidString));
+        super(String.format("Invalid hour string \"%s\" - must be of form \"YYYY-MM-DD hh:mm:ss\" (e.g. 2012-05-01 09:30:15) or YYYY-MM-DDThh:mm:ss (e.g. 2012-05-01T09:30:15)", invalidString), null, true, !Dates.STACKLESS_FORMAT_EXCEPTIONS);
     }
 }
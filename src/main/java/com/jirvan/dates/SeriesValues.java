@@ -0,0 +1,228 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The storage behind DaySeries and MinuteSeries - a double for each index from
+ * the first index on, held in a primitive array that grows (in either direction)
+ * as values are set.  Indexes without a value hold NaN.
+ */
+final class SeriesValues implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+    private static final int MAX_LENGTH = Integer.MAX_VALUE - 8;
+    private static final int MIN_CAPACITY = 16;
+
+    private long firstIndex;
+    private int start;
+    private int length;
+    private double[] values = new double[0];
+
+    SeriesValues() {
+    }
+
+    SeriesValues(long firstIndex, long lastIndex) {
+        if (lastIndex >= firstIndex) {
+            cover(firstIndex);
+            cover(lastIndex);
+        }
+    }
+
+    long getFirstIndex() {
+        return firstIndex;
+    }
+
+    int length() {
+        return length;
+    }
+
+    double valueAt(int position) {
+        if (position < 0 || position >= length) {
+            throw new IndexOutOfBoundsException("Position " + position + " is outside 0 to " + (length - 1));
+        }
+        return values[start + position];
+    }
+
+    double get(long index) {
+        long position = index - firstIndex;
+        return position >= 0 && position < length ? values[start + (int) position] : Double.NaN;
+    }
+
+    void set(long index, double value) {
+        cover(index);
+        values[start + (int) (index - firstIndex)] = value;
+    }
+
+    void add(long index, double value) {
+        cover(index);
+        int slot = start + (int) (index - firstIndex);
+        values[slot] = Double.isNaN(values[slot]) ? value : values[slot] + value;
+    }
+
+    SeriesValues slice(long fromIndex, long toIndex) {
+        SeriesValues slice = new SeriesValues(fromIndex, toIndex);
+        long copyFrom = Math.max(fromIndex, firstIndex);
+        long copyTo = Math.min(toIndex, firstIndex + length - 1);
+        if (copyTo >= copyFrom) {
+            System.arraycopy(values, start + (int) (copyFrom - firstIndex), slice.values, slice.start + (int) (copyFrom - fromIndex), (int) (copyTo - copyFrom + 1));
+        }
+        return slice;
+    }
+
+    double sum() {
+        double sum = 0;
+        for (int i = start; i < start + length; i++) {
+            if (!Double.isNaN(values[i])) {
+                sum += values[i];
+            }
+        }
+        return sum;
+    }
+
+    double[] toArray() {
+        return Arrays.copyOfRange(values, start, start + length);
+    }
+
+    /**
+     * Combines the values for each group of indexesPerBucket consecutive indexes
+     * (starting from multiples of indexesPerBucket) into a single value with index
+     * index / indexesPerBucket.  Buckets without any values are left without a
+     * value.
+     */
+    SeriesValues aggregated(int indexesPerBucket, MinuteSeries.Aggregation aggregation) {
+        SeriesValues aggregated = new SeriesValues();
+        int i = 0;
+        while (i < length) {
+            long bucket = Math.floorDiv(firstIndex + i, (long) indexesPerBucket);
+            int bucketEnd = (int) Math.min(length, (bucket + 1) * indexesPerBucket - firstIndex);
+            int count = 0;
+            double sum = 0, min = Double.NaN, max = Double.NaN, first = Double.NaN, last = Double.NaN;
+            for (; i < bucketEnd; i++) {
+                double value = values[start + i];
+                if (!Double.isNaN(value)) {
+                    if (count++ == 0) {
+                        first = min = max = value;
+                    } else {
+                        min = Math.min(min, value);
+                        max = Math.max(max, value);
+                    }
+                    sum += value;
+                    last = value;
+                }
+            }
+            if (count > 0) {
+                switch (aggregation) {
+                    case sum:
+                        aggregated.set(bucket, sum);
+                        break;
+                    case mean:
+                        aggregated.set(bucket, sum / count);
+                        break;
+                    case min:
+                        aggregated.set(bucket, min);
+                        break;
+                    case max:
+                        aggregated.set(bucket, max);
+                        break;
+                    case first:
+                        aggregated.set(bucket, first);
+                        break;
+                    case last:
+                        aggregated.set(bucket, last);
+                        break;
+                    case count:
+                        aggregated.set(bucket, count);
+                        break;
+                    default:
+                        throw new RuntimeException("Unexpected aggregation " + aggregation);
+                }
+            }
+        }
+        return aggregated;
+    }
+
+    //======================== Everything below here is private ========================//
+
+    /**
+     * Extends the covered indexes to include index if necessary, growing the array
+     * (with room to grow further in the same direction) if it is not big enough.
+     * Unused array elements are always NaN.
+     */
+    private void cover(long index) {
+        if (length == 0) {
+            if (values.length == 0) {
+                values = newValues(MIN_CAPACITY);
+            }
+            firstIndex = index;
+            start = 0;
+            length = 1;
+        } else if (index < firstIndex) {
+            long newLength = firstIndex + length - index;
+            if (firstIndex - index <= start) {
+                start -= (int) (firstIndex - index);
+            } else {
+                double[] newValues = newValues(newCapacity(newLength));
+                int newStart = newValues.length - (int) newLength;
+                System.arraycopy(values, start, newValues, newStart + (int) (firstIndex - index), length);
+                values = newValues;
+                start = newStart;
+            }
+            firstIndex = index;
+            length = (int) newLength;
+        } else if (index >= firstIndex + length) {
+            long newLength = index - firstIndex + 1;
+            if (start + newLength > values.length) {
+                double[] newValues = newValues(newCapacity(newLength));
+                System.arraycopy(values, start, newValues, 0, length);
+                values = newValues;
+                start = 0;
+            }
+            length = (int) newLength;
+        }
+    }
+
+    private static int newCapacity(long newLength) {
+        if (newLength > MAX_LENGTH) {
+            throw new IllegalArgumentException("A series cannot cover more than " + MAX_LENGTH + " points");
+        }
+        return (int) Math.min(MAX_LENGTH, Math.max(MIN_CAPACITY, newLength + (newLength >> 1)));
+    }
+
+    private static double[] newValues(int capacity) {
+        double[] values = new double[capacity];
+        Arrays.fill(values, Double.NaN);
+        return values;
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.text.DateFormat;
+import java.text.FieldPosition;
+import java.text.ParsePosition;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.TimeZone;
+
+/**
+ * A DateFormat that can safely be shared between threads (unlike
+ * SimpleDateFormat) as it formats and parses using a SimpleDateFormat per
+ * thread.  Changes to the time zone or leniency are passed on to the per
+ * thread formats the next time they are used.  A deserialized format gets new
+ * per thread formats (with the same pattern, time zone and leniency).
+ */
+final class ThreadLocalDateFormat extends DateFormat {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String pattern;
+    private final transient ThreadLocal<SimpleDateFormat> simpleDateFormats;
+    private volatile TimeZone timeZone;
+    private volatile boolean lenient;
+
+    ThreadLocalDateFormat(String pattern) {
+        this.pattern = pattern;
+        SimpleDateFormat simpleDateFormat = new SimpleDateFormat(pattern);
+        this.calendar = simpleDateFormat.getCalendar();
+        this.numberFormat = simpleDateFormat.getNumberFormat();
+        this.timeZone = calendar.getTimeZone();
+        this.lenient = calendar.isLenient();
+        this.simpleDateFormats = ThreadLocal.withInitial(() -> new SimpleDateFormat(pattern));
+    }
+
+    public StringBuffer format(Date date, StringBuffer toAppendTo, FieldPosition fieldPosition) {
+        return simpleDateFormat().format(date, toAppendTo, fieldPosition);
+    }
+
+    public Date parse(String source, ParsePosition pos) {
+        return simpleDateFormat().parse(source, pos);
+    }
+
+    public synchronized void setTimeZone(TimeZone zone) {
+        super.setTimeZone(zone);
+        this.timeZone = zone;
+    }
+
+    public synchronized void setLenient(boolean lenient) {
+        super.setLenient(lenient);
+        this.lenient = lenient;
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private Object readResolve() {
+        ThreadLocalDateFormat dateFormat = new ThreadLocalDateFormat(pattern);
+        dateFormat.setTimeZone(timeZone);
+        dateFormat.setLenient(lenient);
+        return dateFormat;
+    }
+
+    private SimpleDateFormat simpleDateFormat() {
+        SimpleDateFormat simpleDateFormat = simpleDateFormats.get();
+        TimeZone timeZone = this.timeZone;
+        if (simpleDateFormat.getTimeZone() != timeZone) {
+            simpleDateFormat.setTimeZone(timeZone);
+        }
+        if (simpleDateFormat.isLenient() != lenient) {
+            simpleDateFormat.setLenient(lenient);
+        }
+        return simpleDateFormat;
+    }
+
+}
@@ -0,0 +1,306 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dates;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+
+/**
+ * Aggregates a stream of (key, time, value) records into the count, sum, min and
+ * max of the values for each key and month, day, hour or minute, without boxing
+ * (see BucketAccumulators).  For example:
+ * <pre>
+ * TimeBucketAggregator&lt;String&gt; usage = new TimeBucketAggregator&lt;&gt;(TimeBucketAggregator.Granularity.day);
+ * for (UsageRow row : rows) {
+ *     usage.add(row.customerId, row.readingTime, row.kwh);
+ * }
+ * DaySeries dailyKwh = usage.getDaySeries("C123", MinuteSeries.Aggregation.sum);
+ * </pre>
+ * Aggregators are not thread safe but can be merged, so parallel streams can be
+ * aggregated with {@link #collector(Granularity, BiConsumer)}.
+ * <p>
+ * For streams that are too long to hold every bucket, an aggregator can be created
+ * with a limited number of open buckets and a handler that completed buckets are
+ * passed to (and then dropped) as the stream moves on.  Records are expected to
+ * arrive in roughly time order; a record for a bucket that has already been
+ * completed is passed to the handler as a bucket of its own.
+ */
+public class TimeBucketAggregator<K> {
+
+    public enum Granularity {
+        month,
+        day,
+        hour,
+        minute;
+
+        long bucket(long epochMinute) {
+            switch (this) {
+                case month:
+                    long packedDate = PackedTimestamp.packDate(Math.floorDiv(epochMinute, MINUTES_PER_DAY));
+                    return PackedTimestamp.year(packedDate) * 12L + PackedTimestamp.monthInYear(packedDate) - 1;
+                case day:
+                    return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+                case hour:
+                    return Math.floorDiv(epochMinute, 60L);
+                default:
+                    return epochMinute;
+            }
+        }
+
+        Minute bucketStart(long bucket) {
+            switch (this) {
+                case month:
+                    return new Minute((int) Math.floorDiv(bucket, 12L), (int) Math.floorMod(bucket, 12L) + 1, 1, 0, 0);
+                case day:
+                    return Minute.fromEpochMinute(bucket * MINUTES_PER_DAY);
+                case hour:
+                    return Minute.fromEpochMinute(bucket * 60);
+                default:
+                    return Minute.fromEpochMinute(bucket);
+            }
+        }
+
+    }
+
+    public interface BucketHandler<K> {
+        void handle(K key, Minute bucketStart, long count, double sum, double min, double max);
+    }
+
+    private static final long MINUTES_PER_DAY = 24 * 60;
+
+    private final Granularity granularity;
+    private final int openBuckets;
+    private final BucketHandler<? super K> completedBucketHandler;
+    private final Map<K, BucketAccumulators> accumulatorsByKey = new HashMap<>();
+    private long latestBucket = Long.MIN_VALUE;
+    private long firstOpenBucket = Long.MIN_VALUE;
+
+    public TimeBucketAggregator(Granularity granularity) {
+        this.granularity = granularity;
+        this.openBuckets = Integer.MAX_VALUE;
+        this.completedBucketHandler = null;
+    }
+
+    /**
+     * Creates an aggregator that keeps only the latest openBuckets buckets (the
+     * latest being the one for the latest record added so far), passing older ones
+     * to completedBucketHandler as they are completed.  Call {@link #flush()} at
+     * the end of the stream to pass on the remaining buckets.
+     */
+    public TimeBucketAggregator(Granularity granularity, int openBuckets, BucketHandler<? super K> completedBucketHandler) {
+        if (openBuckets <= 0) {
+            throw new IllegalArgumentException("openBuckets must be greater than zero");
+        }
+        if (completedBucketHandler == null) {
+            throw new NullPointerException("completedBucketHandler cannot be null");
+        }
+        this.granularity = granularity;
+        this.openBuckets = openBuckets;
+        this.completedBucketHandler = completedBucketHandler;
+    }
+
+    /**
+     * Returns a collector that aggregates a (possibly parallel) stream using adder
+     * to add each record, e.g.
+     * <pre>
+     * rows.parallelStream().collect(TimeBucketAggregator.collector(Granularity.hour, (aggregator, row) -&gt; aggregator.add(row.meterId, row.readingTime, row.kwh)))
+     * </pre>
+     */
+    public static <T, K> Collector<T, ?, TimeBucketAggregator<K>> collector(Granularity granularity, BiConsumer<TimeBucketAggregator<K>, ? super T> adder) {
+        return Collector.of(() -> new TimeBucketAggregator<K>(granularity),
+                            adder::accept,
+                            TimeBucketAggregator::merge,
+                            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    public Granularity getGranularity() {
+        return granularity;
+    }
+
+    public TimeBucketAggregator<K> add(K key, Day day, double value) {
+        return add(key, day.toEpochDay() * MINUTES_PER_DAY, value);
+    }
+
+    public TimeBucketAggregator<K> add(K key, Hour hour, double value) {
+        return add(key, epochMinute(hour.getYear(), hour.getMonthInYear(), hour.getDayInMonth(), hour.getHourInDay(), 0), value);
+    }
+
+    public TimeBucketAggregator<K> add(K key, Minute minute, double value) {
+        return add(key, minute.toEpochMinute(), value);
+    }
+
+    public TimeBucketAggregator<K> add(K key, Second second, double value) {
+        return add(key, epochMinute(second.getYear(), second.getMonthInYear(), second.getDayInMonth(), second.getHourInDay(), second.getMinuteInHour()), value);
+    }
+
+    public TimeBucketAggregator<K> add(K key, Millisecond millisecond, double value) {
+        return add(key, epochMinute(millisecond.getYear(), millisecond.getMonthInYear(), millisecond.getDayInMonth(), millisecond.getHourInDay(), millisecond.getMinuteInHour()), value);
+    }
+
+    /**
+     * Adds value for key at timestamp (in the default time zone).
+     */
+    public TimeBucketAggregator<K> add(K key, Date timestamp, double value) {
+        long epochMillisecond = timestamp.getTime();
+        return add(key, Math.floorDiv(epochMillisecond + TimeZone.getDefault().getOffset(epochMillisecond), PackedTimestamp.MILLISECONDS_PER_MINUTE), value);
+    }
+
+    /**
+     * Adds the buckets of other (which must have the same granularity) to this
+     * aggregator.  Aggregators with limited open buckets cannot be merged.
+     */
+    public TimeBucketAggregator<K> merge(TimeBucketAggregator<K> other) {
+        if (other.granularity != granularity) {
+            throw new IllegalArgumentException(String.format("Cannot merge %s buckets into %s buckets", other.granularity, granularity));
+        }
+        if (completedBucketHandler != null || other.completedBucketHandler != null) {
+            throw new IllegalStateException("Aggregators with limited open buckets cannot be merged");
+        }
+        for (Map.Entry<K, BucketAccumulators> entry : other.accumulatorsByKey.entrySet()) {
+            accumulatorsByKey.computeIfAbsent(entry.getKey(), key -> new BucketAccumulators()).merge(entry.getValue());
+        }
+        return this;
+    }
+
+    /**
+     * Passes all buckets to the completed bucket handler and removes them.
+     */
+    public void flush() {
+        if (completedBucketHandler == null) {
+            throw new IllegalStateException("This aggregator has no completed bucket handler");
+        }
+        for (Map.Entry<K, BucketAccumulators> entry : accumulatorsByKey.entrySet()) {
+            entry.getValue().removeBefore(Long.MAX_VALUE, entry.getKey(), granularity, completedBucketHandler);
+        }
+        accumulatorsByKey.clear();
+    }
+
+    public Set<K> getKeys() {
+        return accumulatorsByKey.keySet();
+    }
+
+    /**
+     * Passes each (open) bucket with values to handler, in bucket order for each key.
+     */
+    public void forEach(BucketHandler<? super K> handler) {
+        for (Map.Entry<K, BucketAccumulators> entry : accumulatorsByKey.entrySet()) {
+            entry.getValue().forEach(entry.getKey(), granularity, handler);
+        }
+    }
+
+    /**
+     * Returns the aggregation of each day's values for key (first and last are
+     * not available).  Only for day granularity.
+     */
+    public DaySeries getDaySeries(K key, MinuteSeries.Aggregation aggregation) {
+        if (granularity != Granularity.day) {
+            throw new IllegalStateException("Day series can only be got from day buckets (these are " + granularity + " buckets)");
+        }
+        DaySeries daySeries = new DaySeries();
+        BucketAccumulators accumulators = accumulatorsByKey.get(key);
+        if (accumulators != null && !accumulators.isEmpty()) {
+            for (long bucket = accumulators.getFirstBucket(); bucket <= accumulators.getLastBucket(); bucket++) {
+                double value = accumulators.get(bucket, aggregation);
+                if (!Double.isNaN(value)) {
+                    daySeries.set(Day.fromEpochDay(bucket), value);
+                }
+            }
+        }
+        return daySeries;
+    }
+
+    /**
+     * As for {@link #getDaySeries(Object, MinuteSeries.Aggregation)} but for hour
+     * (giving a 60 minute series) or minute granularity.
+     */
+    public MinuteSeries getMinuteSeries(K key, MinuteSeries.Aggregation aggregation) {
+        if (granularity != Granularity.hour && granularity != Granularity.minute) {
+            throw new IllegalStateException("Minute series can only be got from hour or minute buckets (these are " + granularity + " buckets)");
+        }
+        MinuteSeries minuteSeries = new MinuteSeries(granularity == Granularity.hour ? 60 : 1);
+        BucketAccumulators accumulators = accumulatorsByKey.get(key);
+        if (accumulators != null && !accumulators.isEmpty()) {
+            for (long bucket = accumulators.getFirstBucket(); bucket <= accumulators.getLastBucket(); bucket++) {
+                double value = accumulators.get(bucket, aggregation);
+                if (!Double.isNaN(value)) {
+                    minuteSeries.set(granularity.bucketStart(bucket), value);
+                }
+            }
+        }
+        return minuteSeries;
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private static long epochMinute(int year, int monthInYear, int dayInMonth, int hourInDay, int minuteInHour) {
+        return Day.toEpochDay(year, monthInYear, dayInMonth) * MINUTES_PER_DAY + hourInDay * 60L + minuteInHour;
+    }
+
+    private TimeBucketAggregator<K> add(K key, long epochMinute, double value) {
+        long bucket = granularity.bucket(epochMinute);
+        if (completedBucketHandler != null) {
+            if (bucket < firstOpenBucket) {
+                completedBucketHandler.handle(key, granularity.bucketStart(bucket), 1, value, value, value);
+                return this;
+            } else if (bucket > latestBucket) {
+                latestBucket = bucket;
+                completeBucketsBefore(bucket - openBuckets + 1);
+            }
+        }
+        BucketAccumulators accumulators = accumulatorsByKey.get(key);
+        if (accumulators == null) {
+            accumulators = new BucketAccumulators();
+            accumulatorsByKey.put(key, accumulators);
+        }
+        accumulators.add(bucket, value);
+        return this;
+    }
+
+    private void completeBucketsBefore(long bucket) {
+        if (bucket > firstOpenBucket) {
+            firstOpenBucket = bucket;
+            for (Iterator<Map.Entry<K, BucketAccumulators>> iterator = accumulatorsByKey.entrySet().iterator(); iterator.hasNext(); ) {
+                Map.Entry<K, BucketAccumulators> entry = iterator.next();
+                entry.getValue().removeBefore(bucket, entry.getKey(), granularity, completedBucketHandler);
+                if (entry.getValue().isEmpty()) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+}
@@ -31,6 +31,7 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.jirvan.dates.jackson;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
@@ -45,7 +46,11 @@ public class LocalDateJsonDeserializer extends StdDeserializer<LocalDate> {
 
     @Override
     public LocalDate deserialize(JsonParser parser, DeserializationContext context) throws IOException {
-        return LocalDate.parse(parser.readValueAs(String.class));
+        if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+            return LocalDate.parse(parser.getText());
+        } else {
+            return LocalDate.parse(parser.readValueAs(String.class));
+        }
     }
 
 }
\ No newline at end of file
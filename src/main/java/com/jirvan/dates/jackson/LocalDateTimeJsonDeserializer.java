@@ -31,6 +31,7 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.jirvan.dates.jackson;
 
 import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
 
@@ -45,7 +46,11 @@ public class LocalDateTimeJsonDeserializer extends StdDeserializer<LocalDateTime
 
     @Override
     public LocalDateTime deserialize(JsonParser parser, DeserializationContext context) throws IOException {
-        return LocalDateTime.parse(parser.readValueAs(String.class));
+        if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+            return LocalDateTime.parse(parser.getText());
+        } else {
+            return LocalDateTime.parse(parser.readValueAs(String.class));
+        }
     }
 
 }
\ No newline at end of file
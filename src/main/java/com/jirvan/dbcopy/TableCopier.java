@@ -0,0 +1,618 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+package com.jirvan.dbcopy;
+
+import com.jirvan.dbreflect.Column;
+import com.jirvan.dbreflect.DbReflect;
+import com.jirvan.dbreflect.LazySchema;
+import com.jirvan.lang.SQLRuntimeException;
+import com.jirvan.util.DatabaseType;
+import com.jirvan.util.Jdbc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.jirvan.util.Assertions.*;
+
+/**
+ * Copies the rows of a table in one database into a table in another without going
+ * via a csv file.  A reader thread streams the source rows (using a cursor where the
+ * database needs one) into a bounded queue of batches, and the calling thread
+ * batch-inserts them into the target as they arrive, so at most queuedBatches + 2
+ * batches of rows are ever held in memory.
+ * <p>
+ * Columns are matched by name (ignoring case) using {@link DbReflect}; source
+ * columns with no corresponding target column are not copied.  All rows are
+ * inserted in the one target transaction, which is rolled back if anything fails.
+ * <p>
+ * Values are read with the getter for the source column's JDBC type (so temporal
+ * values as java.sql types, numbers as BigDecimals or doubles, binary values and
+ * BLOBs as byte arrays and CLOBs as strings, rather than as driver specific objects
+ * like Oracle's TIMESTAMPTZ or LOBs tied to the source connection) and bound with
+ * the setter for the target column's type.  Table and column names are quoted.
+ * When the target is SQL Server, IDENTITY_INSERT is turned on for the copy if
+ * any identity columns are copied.  When the target is PostgreSQL, the sequences
+ * of copied serial or identity columns are set to the columns' maximum values
+ * afterwards.  Oracle identity columns must be "generated by default" (and their
+ * sequences are not reset, as that needs DDL which would commit the copy), and
+ * SQLite needs nothing special.
+ */
+public class TableCopier {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_QUEUED_BATCHES = 4;
+
+    private static final Logger log = LoggerFactory.getLogger(TableCopier.class);
+    private static final List<Object[]> END_OF_ROWS = new ArrayList<>();  // Compared by identity
+    private static final int ORACLE_TIMESTAMPTZ = -101;   // oracle.jdbc.OracleTypes.TIMESTAMPTZ
+    private static final int ORACLE_TIMESTAMPLTZ = -102;  // oracle.jdbc.OracleTypes.TIMESTAMPLTZ
+
+    public static long copyTable(DataSource sourceDataSource, DataSource targetDataSource, String tableName) {
+        return copyTable(sourceDataSource, null, tableName, targetDataSource, null, tableName, null, DEFAULT_BATCH_SIZE, DEFAULT_QUEUED_BATCHES);
+    }
+
+    public static long copyTable(DataSource sourceDataSource, String sourceTableName, DataSource targetDataSource, String targetTableName, String whereClauseCondition) {
+        return copyTable(sourceDataSource, null, sourceTableName, targetDataSource, null, targetTableName, whereClauseCondition, DEFAULT_BATCH_SIZE, DEFAULT_QUEUED_BATCHES);
+    }
+
+    /**
+     * @param sourceSchemaName     may be null for the source table to be looked for in all schemas
+     * @param targetSchemaName     may be null for the target table to be looked for in all schemas
+     * @param whereClauseCondition may be null for all rows to be copied
+     * @param batchSize            the number of rows fetched from the source at a time and inserted into the target per batch
+     * @param queuedBatches        the number of fetched batches that may be waiting to be inserted before the reader blocks
+     * @return the number of rows copied
+     */
+    public static long copyTable(DataSource sourceDataSource, String sourceSchemaName, String sourceTableName,
+                                 DataSource targetDataSource, String targetSchemaName, String targetTableName,
+                                 String whereClauseCondition, int batchSize, int queuedBatches) {
+        assertTrue(batchSize > 0, "batchSize must be greater than zero");
+        assertTrue(queuedBatches > 0, "queuedBatches must be greater than zero");
+
+        // Work out which columns to copy
+        DatabaseType sourceDatabaseType = DatabaseType.get(sourceDataSource);
+        DatabaseType targetDatabaseType = DatabaseType.get(targetDataSource);
+        LazySchema sourceSchema = DbReflect.getLazySchema(sourceDataSource, null, sourceSchemaName);
+        LazySchema targetSchema = DbReflect.getLazySchema(targetDataSource, null, targetSchemaName);
+        String reflectedSourceTableName = getReflectedTableName(sourceSchema, sourceTableName);
+        String reflectedTargetTableName = getReflectedTableName(targetSchema, targetTableName);
+        List<Column> targetColumns = targetSchema.getColumns(reflectedTargetTableName);
+        List<String> sourceColumnNames = new ArrayList<>();
+        List<String> targetColumnNames = new ArrayList<>();
+        List<Integer> targetSqlTypes = new ArrayList<>();
+        for (Column sourceColumn : sourceSchema.getColumns(reflectedSourceTableName)) {
+            Column targetColumn = getColumnIgnoringCase(targetColumns, sourceColumn.columnName);
+            if (targetColumn == null) {
+                log.info("Not copying column {} (there is no such column in target table {})", sourceColumn.columnName, reflectedTargetTableName);
+            } else {
+                sourceColumnNames.add(sourceColumn.columnName);
+                targetColumnNames.add(targetColumn.columnName);
+                targetSqlTypes.add(targetColumn.sqlType);
+            }
+        }
+        if (sourceColumnNames.isEmpty()) {
+            throw new RuntimeException(String.format("Tables %s and %s have no columns in common", reflectedSourceTableName, reflectedTargetTableName));
+        }
+
+        // Build the sql
+        String sourceTable = sourceDatabaseType.quoteTableName(sourceSchemaName, reflectedSourceTableName);
+        String targetTable = targetDatabaseType.quoteTableName(targetSchemaName, reflectedTargetTableName);
+        String selectSql = "select " + quotedColumnList(sourceDatabaseType, sourceColumnNames)
+                           + "\nfrom " + sourceTable
+                           + (whereClauseCondition == null || whereClauseCondition.trim().length() == 0 ? "" : "\nwhere " + whereClauseCondition);
+        String insertSql = "insert into " + targetTable
+                           + " (" + quotedColumnList(targetDatabaseType, targetColumnNames) + ")"
+                           + "\nvalues (" + Jdbc.parameterPlaceHolderString(targetColumnNames) + ")";
+
+        // Copy the rows
+        Pipeline pipeline = new Pipeline(sourceDataSource, sourceDatabaseType, selectSql, sourceColumnNames.size(), batchSize, queuedBatches);
+        int[] sqlTypes = new int[targetSqlTypes.size()];
+        for (int i = 0; i < sqlTypes.length; i++) sqlTypes[i] = targetSqlTypes.get(i);
+        try {
+            Connection targetConnection = targetDataSource.getConnection();
+            try {
+                boolean autoCommit = targetConnection.getAutoCommit();
+                targetConnection.setAutoCommit(false);
+                boolean identityInsert = false;
+                Throwable failure = null;
+                try {
+                    pipeline.start(reflectedSourceTableName);
+                    if (targetDatabaseType == DatabaseType.sqlserver && hasSqlServerIdentityColumn(targetConnection, targetTable, targetColumnNames)) {
+                        execute(targetConnection, "set identity_insert " + targetTable + " on");
+                        identityInsert = true;
+                    }
+                    long rowsCopied = Jdbc.batchUpdate(targetConnection, insertSql, pipeline, (stmt, row) -> {
+                        for (int i = 0; i < row.length; i++) {
+                            bindValue(stmt, i + 1, row[i], sqlTypes[i]);
+                        }
+                    }, batchSize);
+                    if (targetDatabaseType == DatabaseType.postgres) {
+                        resetPostgresSequences(targetConnection, targetTable, targetColumnNames);
+                    }
+                    targetConnection.commit();
+                    return rowsCopied;
+                } catch (Throwable t) {
+                    failure = t;
+                    targetConnection.rollback();
+                    throw t;
+                } finally {
+                    pipeline.stop();
+                    if (identityInsert) {
+
+                        // IDENTITY_INSERT is a session setting, so turn it off even if the copy failed
+                        try {
+                            execute(targetConnection, "set identity_insert " + targetTable + " off");
+                        } catch (RuntimeException e) {
+                            if (failure == null) throw e;
+                            failure.addSuppressed(e);
+                        }
+
+                    }
+                    targetConnection.setAutoCommit(autoCommit);
+                }
+            } finally {
+                targetConnection.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, insertSql);
+        }
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private static String getReflectedTableName(LazySchema schema, String tableName) {
+        if (schema.hasTable(tableName)) {
+            return tableName;
+        }
+        for (String reflectedTableName : schema.getTableNames()) {
+            if (reflectedTableName.equalsIgnoreCase(tableName)) {
+                return reflectedTableName;
+            }
+        }
+        throw new RuntimeException(String.format("Table \"%s\" does not exist", tableName));
+    }
+
+    private static Column getColumnIgnoringCase(List<Column> columns, String columnName) {
+        for (Column column : columns) {
+            if (column.columnName.equalsIgnoreCase(columnName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static String quotedColumnList(DatabaseType databaseType, List<String> columnNames) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (String columnName : columnNames) {
+            if (stringBuilder.length() > 0) stringBuilder.append(',');
+            stringBuilder.append(databaseType.quoteIdentifier(columnName));
+        }
+        return stringBuilder.toString();
+    }
+
+    private static void execute(Connection connection, String sql) {
+        try {
+            Statement stmt = connection.createStatement();
+            try {
+                stmt.execute(sql);
+            } finally {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql);
+        }
+    }
+
+    private static boolean hasSqlServerIdentityColumn(Connection connection, String quotedTableName, List<String> columnNames) {
+        List<String> identityColumnNames = Jdbc.queryForList(connection,
+                                                             "select name from sys.identity_columns where object_id = object_id(?)",
+                                                             new Object[]{quotedTableName},
+                                                             rset -> rset.getString(1));
+        for (String identityColumnName : identityColumnNames) {
+            if (columnNames.contains(identityColumnName)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sets the sequences of the copied serial and identity columns to the columns'
+     * maximum values, so that the next generated values don't clash with the
+     * copied ones.
+     */
+    private static void resetPostgresSequences(Connection connection, String quotedTableName, List<String> columnNames) {
+        List<String[]> columnSequences = Jdbc.queryForList(connection,
+                                                           "select a.attname, pg_get_serial_sequence(?, a.attname)\n" +
+                                                           "from pg_catalog.pg_attribute a\n" +
+                                                           "where a.attrelid = cast(? as regclass)\n" +
+                                                           "  and a.attnum > 0\n" +
+                                                           "  and not a.attisdropped",
+                                                           new Object[]{quotedTableName, quotedTableName},
+                                                           rset -> new String[]{rset.getString(1), rset.getString(2)});
+        for (String[] columnSequence : columnSequences) {
+            if (columnSequence[1] != null && columnNames.contains(columnSequence[0])) {
+                Jdbc.queryForList(connection,
+                                  "select setval(cast(? as regclass), max(" + DatabaseType.postgres.quoteIdentifier(columnSequence[0]) + "))\n" +
+                                  "from " + quotedTableName + "\n" +
+                                  "having max(" + DatabaseType.postgres.quoteIdentifier(columnSequence[0]) + ") is not null",
+                                  new Object[]{columnSequence[1]},
+                                  rset -> null);
+            }
+        }
+    }
+
+    /**
+     * Reads the value with the getter for the column's JDBC type (see the class
+     * comment).  SQLite's temporal values are read as stored (text or numbers) as
+     * its driver can only parse them in its configured format.
+     */
+    private static Object readValue(ResultSet rset, int column, int sqlType, DatabaseType databaseType) throws SQLException {
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                boolean booleanValue = rset.getBoolean(column);
+                return rset.wasNull() ? null : booleanValue;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return rset.getBigDecimal(column);
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                double doubleValue = rset.getDouble(column);
+                return rset.wasNull() ? null : doubleValue;
+            case Types.DATE:
+                return databaseType == DatabaseType.sqlite ? rset.getObject(column) : rset.getDate(column);
+            case Types.TIME:
+            case Types.TIME_WITH_TIMEZONE:
+                return databaseType == DatabaseType.sqlite ? rset.getObject(column) : rset.getTime(column);
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case ORACLE_TIMESTAMPTZ:
+            case ORACLE_TIMESTAMPLTZ:
+                return databaseType == DatabaseType.sqlite ? rset.getObject(column) : rset.getTimestamp(column);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return rset.getBytes(column);
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return rset.getString(column);
+            default:
+                return rset.getObject(column);
+        }
+    }
+
+    /**
+     * Binds the value with the setter for the target column's JDBC type, leaving
+     * values that don't convert directly (strings for numeric columns for example)
+     * for the driver to convert via setObject.
+     */
+    private static void bindValue(PreparedStatement stmt, int parameterIndex, Object value, int sqlType) throws SQLException {
+        if (value == null) {
+            stmt.setNull(parameterIndex, sqlType);
+            return;
+        }
+        switch (sqlType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                if (value instanceof Boolean) {
+                    stmt.setBoolean(parameterIndex, (Boolean) value);
+                } else if (value instanceof Number) {
+                    stmt.setBoolean(parameterIndex, ((Number) value).intValue() != 0);
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                if (value instanceof Number) {
+                    stmt.setInt(parameterIndex, ((Number) value).intValue());
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.BIGINT:
+                if (value instanceof Number) {
+                    stmt.setLong(parameterIndex, ((Number) value).longValue());
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                if (value instanceof Number) {
+                    stmt.setDouble(parameterIndex, ((Number) value).doubleValue());
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                if (value instanceof BigDecimal) {
+                    stmt.setBigDecimal(parameterIndex, (BigDecimal) value);
+                } else if (value instanceof Number) {
+                    stmt.setBigDecimal(parameterIndex, new BigDecimal(value.toString()));
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.DATE:
+                if (value instanceof java.sql.Date) {
+                    stmt.setDate(parameterIndex, (java.sql.Date) value);
+                } else if (value instanceof java.util.Date) {
+                    stmt.setDate(parameterIndex, new java.sql.Date(((java.util.Date) value).getTime()));
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.TIME:
+            case Types.TIME_WITH_TIMEZONE:
+                if (value instanceof Time) {
+                    stmt.setTime(parameterIndex, (Time) value);
+                } else if (value instanceof java.util.Date) {
+                    stmt.setTime(parameterIndex, new Time(((java.util.Date) value).getTime()));
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case ORACLE_TIMESTAMPTZ:
+            case ORACLE_TIMESTAMPLTZ:
+                if (value instanceof Timestamp) {
+                    stmt.setTimestamp(parameterIndex, (Timestamp) value);
+                } else if (value instanceof java.util.Date) {
+                    stmt.setTimestamp(parameterIndex, new Timestamp(((java.util.Date) value).getTime()));
+                } else if (value instanceof Long) {
+                    stmt.setTimestamp(parameterIndex, new Timestamp((Long) value));
+                } else {
+                    stmt.setObject(parameterIndex, value, Types.TIMESTAMP);
+                }
+                return;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+                if (value instanceof byte[]) {
+                    stmt.setBytes(parameterIndex, (byte[]) value);
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.BLOB:
+                if (value instanceof byte[]) {
+                    byte[] bytes = (byte[]) value;
+                    stmt.setBinaryStream(parameterIndex, new ByteArrayInputStream(bytes), bytes.length);
+                } else {
+                    stmt.setObject(parameterIndex, value, sqlType);
+                }
+                return;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+                stmt.setString(parameterIndex, value instanceof byte[] ? new String((byte[]) value) : value.toString());
+                return;
+            case Types.CLOB:
+            case Types.NCLOB:
+                String string = value.toString();
+                stmt.setCharacterStream(parameterIndex, new StringReader(string), string.length());
+                return;
+            default:
+                stmt.setObject(parameterIndex, value);
+        }
+    }
+
+    /**
+     * The reader thread and the queue it fills, presented to the writer as an
+     * Iterable of rows that blocks until the next batch arrives.  Reader failures
+     * are rethrown to the writer when it reaches them and the reader gives up as
+     * soon as the writer stops.
+     */
+    private static class Pipeline implements Iterable<Object[]> {
+
+        private final DataSource sourceDataSource;
+        private final DatabaseType sourceDatabaseType;
+        private final String selectSql;
+        private final int columnCount;
+        private final int batchSize;
+        private final BlockingQueue<List<Object[]>> queue;
+        private volatile boolean stopped;
+        private volatile Throwable readerFailure;
+        private Thread readerThread;
+
+        private Pipeline(DataSource sourceDataSource, DatabaseType sourceDatabaseType, String selectSql, int columnCount, int batchSize, int queuedBatches) {
+            this.sourceDataSource = sourceDataSource;
+            this.sourceDatabaseType = sourceDatabaseType;
+            this.selectSql = selectSql;
+            this.columnCount = columnCount;
+            this.batchSize = batchSize;
+            this.queue = new ArrayBlockingQueue<>(queuedBatches);
+        }
+
+        private void start(String tableName) {
+            readerThread = new Thread(this::read, "TableCopier reader (" + tableName + ")");
+            readerThread.setDaemon(true);
+            readerThread.start();
+        }
+
+        private void stop() {
+            stopped = true;
+            try {
+                readerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override public Iterator<Object[]> iterator() {
+            return new Iterator<Object[]>() {
+
+                private List<Object[]> batch = Collections.emptyList();
+                private int nextIndex;
+
+                @Override public boolean hasNext() {
+                    while (nextIndex >= batch.size()) {
+                        if (batch == END_OF_ROWS) {
+                            return false;
+                        }
+                        try {
+                            batch = queue.take();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new RuntimeException(e);
+                        }
+                        nextIndex = 0;
+                        if (batch == END_OF_ROWS && readerFailure != null) {
+                            if (readerFailure instanceof RuntimeException) throw (RuntimeException) readerFailure;
+                            if (readerFailure instanceof Error) throw (Error) readerFailure;
+                            throw new RuntimeException(readerFailure);
+                        }
+                    }
+                    return true;
+                }
+
+                @Override public Object[] next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return batch.get(nextIndex++);
+                }
+
+            };
+        }
+
+        private void read() {
+            try {
+                Connection connection = sourceDataSource.getConnection();
+                try {
+                    // PostgreSQL only fetches using a cursor (rather than all rows at once) outside of auto-commit
+                    boolean autoCommit = connection.getAutoCommit();
+                    if (autoCommit && sourceDatabaseType == DatabaseType.postgres) {
+                        connection.setAutoCommit(false);
+                    }
+                    try {
+                        PreparedStatement stmt = connection.prepareStatement(selectSql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                        try {
+                            stmt.setFetchSize(batchSize);
+                            ResultSet rset = stmt.executeQuery();
+                            try {
+                                ResultSetMetaData metaData = rset.getMetaData();
+                                int[] sqlTypes = new int[columnCount];
+                                for (int i = 0; i < columnCount; i++) sqlTypes[i] = metaData.getColumnType(i + 1);
+                                List<Object[]> batch = new ArrayList<>(batchSize);
+                                while (!stopped && rset.next()) {
+                                    Object[] row = new Object[columnCount];
+                                    for (int i = 0; i < columnCount; i++) {
+                                        row[i] = readValue(rset, i + 1, sqlTypes[i], sourceDatabaseType);
+                                    }
+                                    batch.add(row);
+                                    if (batch.size() == batchSize) {
+                                        enqueue(batch);
+                                        batch = new ArrayList<>(batchSize);
+                                    }
+                                }
+                                if (!batch.isEmpty()) {
+                                    enqueue(batch);
+                                }
+                            } finally {
+                                rset.close();
+                            }
+                        } finally {
+                            stmt.close();
+                        }
+                    } finally {
+                        if (autoCommit != connection.getAutoCommit()) {
+                            connection.rollback();
+                            connection.setAutoCommit(autoCommit);
+                        }
+                    }
+                } finally {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                readerFailure = new SQLRuntimeException(e, selectSql);
+            } catch (Throwable t) {
+                readerFailure = t;
+            } finally {
+                enqueue(END_OF_ROWS);
+            }
+        }
+
+        private void enqueue(List<Object[]> batch) {
+            try {
+                while (!stopped) {
+                    if (queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopped = true;
+            }
+        }
+
+    }
+
+}
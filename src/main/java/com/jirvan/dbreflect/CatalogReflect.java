@@ -0,0 +1,710 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dbreflect;
+
+import com.google.common.hash.Hashing;
+import com.jirvan.util.DatabaseType;
+import com.jirvan.util.Jdbc;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reflects a whole schema using a handful of set based catalog queries (rather
+ * than three JDBC metadata calls per table) for the database types that support
+ * it.  The sql types, sizes and nullability are derived from the native catalog
+ * in the same way the usual JDBC drivers do it, though the sizes of some of the
+ * more exotic types may differ slightly from those reported by a particular
+ * driver version.
+ */
+class CatalogReflect {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogReflect.class);
+
+    static boolean supports(DatabaseType databaseType) {
+        return databaseType.isOneOf(DatabaseType.postgres, DatabaseType.oracle, DatabaseType.sqlserver);
+    }
+
+    /**
+     * Returns the tables (with their columns and referencing foreign keys but not
+     * yet their foreign keys), filled in exactly as they are from the JDBC
+     * metadata, or null if the catalog queries can't be used for the given catalog
+     * and schema.  They can't be used if schemaName is null, as that means all
+     * schemas to {@link java.sql.DatabaseMetaData#getTables}.
+     */
+    static List<Table> getTables(Connection connection, DatabaseType databaseType, String catalogName, String schemaName) throws SQLException {
+        Dialect dialect = dialect(databaseType);
+        if (schemaName == null || (catalogName != null && !catalogName.equals(dialect.getCatalogName(connection)))) {
+            return null;
+        }
+        String tableCatalogName = dialect.getTableCatalogName(connection);
+        Object[] parameters = new Object[]{schemaName};
+
+        // Tables
+        Map<String, Table> tables = new LinkedHashMap<>();
+        for (Table table : Jdbc.queryForList(connection, dialect.tablesSql(), parameters, rset -> {
+            Table table = new Table();
+            table.catalogName = tableCatalogName;
+            table.schemaName = schemaName;
+            table.tableName = rset.getString("TABLE_NAME");
+            table.remarks = rset.getString("REMARKS");
+            table.columns = new ArrayList<>();
+            table.referencingForeignKeys = new ArrayList<>();
+            return table;
+        })) {
+            tables.put(table.tableName, table);
+        }
+
+        // Columns (the catalog views include view columns etc, so only keep those for tables)
+        Jdbc.queryForList(connection, dialect.columnsSql(), parameters, rset -> {
+            Table table = tables.get(rset.getString("TABLE_NAME"));
+            if (table != null) {
+                Column column = new Column();
+                column.columnName = rset.getString("COLUMN_NAME");
+                column.mandatory = rset.getInt("NOT_NULL") == 1;
+                dialect.setType(column, rset);
+                column.sqlTypeName = DbReflect.getSqlTypeName(column.sqlType);
+                table.columns.add(column);
+            }
+            return null;
+        });
+
+        // Primary keys
+        Jdbc.queryForList(connection, dialect.primaryKeysSql(), parameters, rset -> {
+            Table table = tables.get(rset.getString("TABLE_NAME"));
+            if (table != null) {
+                String columnName = rset.getString("COLUMN_NAME");
+                for (Column column : table.columns) {
+                    if (column.columnName.equals(columnName)) column.isInPrimaryKey = true;
+                }
+            }
+            return null;
+        });
+
+        // Referencing foreign keys (rows are ordered by referencing table, key name and key position)
+        List<KeyColumn> keyColumns = Jdbc.queryForList(connection, dialect.foreignKeysSql(), parameters, rset -> {
+            KeyColumn keyColumn = new KeyColumn();
+            keyColumn.fkName = rset.getString("FK_NAME");
+            keyColumn.fkSchemaName = rset.getString("FK_SCHEMA");
+            keyColumn.fkTableName = rset.getString("FK_TABLE");
+            keyColumn.fkColumnName = rset.getString("FK_COLUMN");
+            keyColumn.pkTableName = rset.getString("PK_TABLE");
+            keyColumn.pkColumnName = rset.getString("PK_COLUMN");
+            return keyColumn;
+        });
+        Table.ReferencingForeignKey foreignKey = null;
+        KeyColumn lastKeyColumn = null;
+        for (KeyColumn keyColumn : keyColumns) {
+            Table table = tables.get(keyColumn.pkTableName);
+            if (table == null) continue;
+            if (!schemaName.equals(keyColumn.fkSchemaName)) {
+                log.warn("Ignoring exported key for table {} (foreign key table is {}.{})", keyColumn.pkTableName, keyColumn.fkSchemaName, keyColumn.fkTableName);
+                continue;
+            }
+            if (lastKeyColumn == null || !keyColumn.isInSameKeyAs(lastKeyColumn)) {
+                foreignKey = new Table.ReferencingForeignKey();
+                foreignKey.referencingTableName = keyColumn.fkTableName;
+                foreignKey.referencingColumnNames = new ArrayList<>();
+                foreignKey.columnNames = new ArrayList<>();
+                table.referencingForeignKeys.add(foreignKey);
+            }
+            foreignKey.referencingColumnNames.add(keyColumn.fkColumnName);
+            foreignKey.columnNames.add(keyColumn.pkColumnName);
+            lastKeyColumn = keyColumn;
+        }
+        for (Table table : tables.values()) {
+            Collections.sort(table.referencingForeignKeys, new Comparator<Table.ReferencingForeignKey>() {
+                @Override public int compare(Table.ReferencingForeignKey o1, Table.ReferencingForeignKey o2) {
+                    return o1.referencingTableName.compareTo(o2.referencingTableName);
+                }
+            });
+        }
+
+        return new ArrayList<>(tables.values());
+    }
+
+    /**
+     * Returns a value that changes whenever the tables, columns or keys of the
+     * schema change (and is cheap to get compared to reflecting the schema) or null
+     * if there is no such value for the given database type, catalog or schema
+     * (apart from SQLite there isn't one for a null schemaName, i.e. all schemas).
+     */
+    static String getFingerprint(Connection connection, DatabaseType databaseType, String catalogName, String schemaName) throws SQLException {
+        if (databaseType == DatabaseType.sqlite) {
+            StringBuilder stringBuilder = new StringBuilder();
+            for (String sql : Jdbc.queryForList(connection, "select sql from sqlite_master where type in ('table', 'index') order by name", null, rset -> rset.getString(1))) {
+                stringBuilder.append(sql).append('\n');
+            }
+            return Hashing.sha1().hashString(stringBuilder, StandardCharsets.UTF_8).toString();
+        }
+        if (!supports(databaseType)) {
+            return null;
+        }
+        Dialect dialect = dialect(databaseType);
+        if (schemaName == null || (catalogName != null && !catalogName.equals(dialect.getCatalogName(connection)))) {
+            return null;
+        }
+        return (String) Jdbc.queryForObject(connection, dialect.fingerprintSql(), new Object[]{schemaName});
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private static Dialect dialect(DatabaseType databaseType) {
+        return databaseType == DatabaseType.postgres ? new Postgres()
+                                                     : databaseType == DatabaseType.oracle ? new Oracle()
+                                                                                           : new SqlServer();
+    }
+
+    private static class KeyColumn {
+
+        private String fkName;
+        private String fkSchemaName;
+        private String fkTableName;
+        private String fkColumnName;
+        private String pkTableName;
+        private String pkColumnName;
+
+        private boolean isInSameKeyAs(KeyColumn other) {
+            return fkName.equals(other.fkName)
+                   && fkTableName.equals(other.fkTableName)
+                   && fkSchemaName.equals(other.fkSchemaName)
+                   && pkTableName.equals(other.pkTableName);
+        }
+
+    }
+
+    private static int charLength(int length) {
+        return length == -1 ? Integer.MAX_VALUE : length;
+    }
+
+    /**
+     * Each dialect's queries take the schema name as their only parameter and
+     * return the column aliases used in {@link #getTables}.
+     */
+    private static abstract class Dialect {
+
+        String getCatalogName(Connection connection) throws SQLException {
+            return connection.getCatalog();
+        }
+
+        /**
+         * The TABLE_CAT that the JDBC driver's getTables returns
+         */
+        String getTableCatalogName(Connection connection) throws SQLException {
+            return getCatalogName(connection);
+        }
+
+        abstract String tablesSql();
+
+        abstract String columnsSql();
+
+        abstract String primaryKeysSql();
+
+        abstract String foreignKeysSql();
+
+        abstract void setType(Column column, ResultSet rset) throws SQLException;
+
+        abstract String fingerprintSql();
+
+    }
+
+    private static class Postgres extends Dialect {
+
+        String getTableCatalogName(Connection connection) {
+            return null;
+        }
+
+        String tablesSql() {
+            return "select c.relname as table_name,\n" +
+                   "       obj_description(c.oid, 'pg_class') as remarks\n" +
+                   "from pg_catalog.pg_class c\n" +
+                   "  join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+                   "where n.nspname = ?\n" +
+                   "  and c.relkind = 'r'";
+        }
+
+        String columnsSql() {
+            return "select c.relname as table_name,\n" +
+                   "       a.attname as column_name,\n" +
+                   "       coalesce(bt.typname, t.typname) as type_name,\n" +
+                   "       case when t.typtype = 'd' then t.typtypmod else a.atttypmod end as type_modifier,\n" +
+                   "       case when a.attnotnull or (t.typtype = 'd' and t.typnotnull) then 1 else 0 end as not_null\n" +
+                   "from pg_catalog.pg_attribute a\n" +
+                   "  join pg_catalog.pg_class c on c.oid = a.attrelid\n" +
+                   "  join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+                   "  join pg_catalog.pg_type t on t.oid = a.atttypid\n" +
+                   "  left join pg_catalog.pg_type bt on t.typtype = 'd' and bt.oid = t.typbasetype\n" +
+                   "where n.nspname = ?\n" +
+                   "  and c.relkind = 'r'\n" +
+                   "  and a.attnum > 0\n" +
+                   "  and not a.attisdropped\n" +
+                   "order by c.relname, a.attnum";
+        }
+
+        String primaryKeysSql() {
+            return "select c.relname as table_name,\n" +
+                   "       a.attname as column_name\n" +
+                   "from pg_catalog.pg_constraint con\n" +
+                   "  join pg_catalog.pg_class c on c.oid = con.conrelid\n" +
+                   "  join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+                   "  join pg_catalog.pg_attribute a on a.attrelid = con.conrelid and a.attnum = any (con.conkey)\n" +
+                   "where con.contype = 'p'\n" +
+                   "  and n.nspname = ?";
+        }
+
+        String foreignKeysSql() {
+            return "select con.conname as fk_name,\n" +
+                   "       fn.nspname as fk_schema,\n" +
+                   "       fc.relname as fk_table,\n" +
+                   "       fa.attname as fk_column,\n" +
+                   "       pc.relname as pk_table,\n" +
+                   "       pa.attname as pk_column\n" +
+                   "from pg_catalog.pg_constraint con\n" +
+                   "  join pg_catalog.pg_class fc on fc.oid = con.conrelid\n" +
+                   "  join pg_catalog.pg_namespace fn on fn.oid = fc.relnamespace\n" +
+                   "  join pg_catalog.pg_class pc on pc.oid = con.confrelid\n" +
+                   "  join pg_catalog.pg_namespace pn on pn.oid = pc.relnamespace\n" +
+                   "  cross join generate_subscripts(con.conkey, 1) as k(i)\n" +
+                   "  join pg_catalog.pg_attribute fa on fa.attrelid = con.conrelid and fa.attnum = con.conkey[k.i]\n" +
+                   "  join pg_catalog.pg_attribute pa on pa.attrelid = con.confrelid and pa.attnum = con.confkey[k.i]\n" +
+                   "where con.contype = 'f'\n" +
+                   "  and pn.nspname = ?\n" +
+                   "order by fc.relname, con.conname, k.i";
+        }
+
+        void setType(Column column, ResultSet rset) throws SQLException {
+            String typeName = rset.getString("TYPE_NAME");
+            int typeModifier = rset.getInt("TYPE_MODIFIER");
+            switch (typeName) {
+                case "int2":
+                    set(column, Types.SMALLINT, 5, 0);
+                    break;
+                case "int4":
+                    set(column, Types.INTEGER, 10, 0);
+                    break;
+                case "oid":
+                    set(column, Types.BIGINT, 10, 0);
+                    break;
+                case "int8":
+                    set(column, Types.BIGINT, 19, 0);
+                    break;
+                case "float4":
+                    set(column, Types.REAL, 8, 8);
+                    break;
+                case "float8":
+                    set(column, Types.DOUBLE, 17, 17);
+                    break;
+                case "money":
+                    set(column, Types.DOUBLE, 12, 2);
+                    break;
+                case "numeric":
+                    if (typeModifier == -1) {
+                        set(column, Types.NUMERIC, 1000, 0);
+                    } else {
+                        set(column, Types.NUMERIC, ((typeModifier - 4) >> 16) & 0xffff, (typeModifier - 4) & 0xffff);
+                    }
+                    break;
+                case "bpchar":
+                case "char":
+                    set(column, Types.CHAR, typeModifier == -1 ? 1 : typeModifier - 4, 0);
+                    break;
+                case "varchar":
+                    set(column, Types.VARCHAR, typeModifier == -1 ? Integer.MAX_VALUE : typeModifier - 4, 0);
+                    break;
+                case "text":
+                    set(column, Types.VARCHAR, Integer.MAX_VALUE, 0);
+                    break;
+                case "name":
+                    set(column, Types.VARCHAR, 63, 0);
+                    break;
+                case "bool":
+                    set(column, Types.BIT, 1, 0);
+                    break;
+                case "bit":
+                    set(column, Types.BIT, typeModifier == -1 ? 1 : typeModifier, 0);
+                    break;
+                case "bytea":
+                    set(column, Types.BINARY, Integer.MAX_VALUE, 0);
+                    break;
+                case "date":
+                    set(column, Types.DATE, 13, 0);
+                    break;
+                case "time":
+                case "timetz":
+                    set(column, Types.TIME, typeName.equals("time") ? 15 : 21, typeModifier == -1 ? 6 : typeModifier);
+                    break;
+                case "timestamp":
+                case "timestamptz":
+                    set(column, Types.TIMESTAMP, typeName.equals("timestamp") ? 29 : 35, typeModifier == -1 ? 6 : typeModifier);
+                    break;
+                case "xml":
+                    set(column, Types.SQLXML, Integer.MAX_VALUE, 0);
+                    break;
+                default:
+                    set(column, typeName.startsWith("_") ? Types.ARRAY : Types.OTHER, Integer.MAX_VALUE, 0);
+            }
+        }
+
+        String fingerprintSql() {
+            return "with s as (select cast(? as text) as schema_name)\n" +
+                   "select md5(coalesce(string_agg(x, ',' order by x), ''))\n" +
+                   "from (select c.relname || '.' || a.attname || ':' || a.attnum || ':' || a.atttypid || ':' || a.atttypmod || ':' || a.attnotnull as x\n" +
+                   "      from pg_catalog.pg_attribute a\n" +
+                   "        join pg_catalog.pg_class c on c.oid = a.attrelid\n" +
+                   "        join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+                   "      where n.nspname = (select schema_name from s)\n" +
+                   "        and c.relkind = 'r'\n" +
+                   "        and a.attnum > 0\n" +
+                   "        and not a.attisdropped\n" +
+                   "      union all\n" +
+                   "      select c.relname || '#' || con.conname || ':' || con.contype || ':' || cast(con.conkey as text) || ':' || con.confrelid || ':' || coalesce(cast(con.confkey as text), '')\n" +
+                   "      from pg_catalog.pg_constraint con\n" +
+                   "        join pg_catalog.pg_class c on c.oid = con.conrelid\n" +
+                   "        join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+                   "      where n.nspname = (select schema_name from s)\n" +
+                   "        and con.contype in ('p', 'f')\n" +
+                   "      union all\n" +
+                   "      select c.relname || '@' || coalesce(obj_description(c.oid, 'pg_class'), '')\n" +
+                   "      from pg_catalog.pg_class c\n" +
+                   "        join pg_catalog.pg_namespace n on n.oid = c.relnamespace\n" +
+                   "      where n.nspname = (select schema_name from s)\n" +
+                   "        and c.relkind = 'r') t";
+        }
+
+    }
+
+    private static class Oracle extends Dialect {
+
+        String getCatalogName(Connection connection) {
+            return null;
+        }
+
+        String tablesSql() {
+            return "select t.table_name,\n" +
+                   "       c.comments as remarks\n" +
+                   "from all_tables t\n" +
+                   "  left join all_tab_comments c on c.owner = t.owner and c.table_name = t.table_name\n" +
+                   "where t.owner = ?\n" +
+                   "  and t.table_name not like 'BIN$%'";
+        }
+
+        String columnsSql() {
+            return "select table_name,\n" +
+                   "       column_name,\n" +
+                   "       data_type as type_name,\n" +
+                   "       data_length,\n" +
+                   "       data_precision,\n" +
+                   "       data_scale,\n" +
+                   "       char_length,\n" +
+                   "       case when nullable = 'N' then 1 else 0 end as not_null\n" +
+                   "from all_tab_columns\n" +
+                   "where owner = ?\n" +
+                   "order by table_name, column_id";
+        }
+
+        String primaryKeysSql() {
+            return "select c.table_name,\n" +
+                   "       cc.column_name\n" +
+                   "from all_constraints c\n" +
+                   "  join all_cons_columns cc on cc.owner = c.owner and cc.constraint_name = c.constraint_name\n" +
+                   "where c.constraint_type = 'P'\n" +
+                   "  and c.owner = ?";
+        }
+
+        String foreignKeysSql() {
+            return "select fk.constraint_name as fk_name,\n" +
+                   "       fk.owner as fk_schema,\n" +
+                   "       fk.table_name as fk_table,\n" +
+                   "       fkc.column_name as fk_column,\n" +
+                   "       pk.table_name as pk_table,\n" +
+                   "       pkc.column_name as pk_column\n" +
+                   "from all_constraints fk\n" +
+                   "  join all_constraints pk on pk.owner = fk.r_owner and pk.constraint_name = fk.r_constraint_name\n" +
+                   "  join all_cons_columns fkc on fkc.owner = fk.owner and fkc.constraint_name = fk.constraint_name\n" +
+                   "  join all_cons_columns pkc on pkc.owner = pk.owner and pkc.constraint_name = pk.constraint_name and pkc.position = fkc.position\n" +
+                   "where fk.constraint_type = 'R'\n" +
+                   "  and pk.owner = ?\n" +
+                   "order by fk.table_name, fk.constraint_name, fkc.position";
+        }
+
+        void setType(Column column, ResultSet rset) throws SQLException {
+            String typeName = rset.getString("TYPE_NAME");
+            int dataLength = rset.getInt("DATA_LENGTH");
+            int charLength = rset.getInt("CHAR_LENGTH");
+            int precision = rset.getInt("DATA_PRECISION");
+            boolean precisionIsNull = rset.wasNull();
+            int scale = rset.getInt("DATA_SCALE");
+            if (typeName.startsWith("TIMESTAMP")) {
+                set(column, Types.TIMESTAMP, dataLength, scale);
+                return;
+            }
+            switch (typeName) {
+                case "CHAR":
+                    set(column, Types.CHAR, charLength, 0);
+                    break;
+                case "VARCHAR2":
+                    set(column, Types.VARCHAR, charLength, 0);
+                    break;
+                case "NCHAR":
+                    set(column, Types.NCHAR, charLength, 0);
+                    break;
+                case "NVARCHAR2":
+                    set(column, Types.NVARCHAR, charLength, 0);
+                    break;
+                case "NUMBER":
+                    if (precisionIsNull) {
+                        set(column, Types.DECIMAL, 0, -127);
+                    } else {
+                        set(column, Types.DECIMAL, precision, scale);
+                    }
+                    break;
+                case "FLOAT":
+                    set(column, Types.FLOAT, precisionIsNull ? dataLength : precision, scale);
+                    break;
+                case "BINARY_FLOAT":
+                    set(column, Types.REAL, dataLength, 0);
+                    break;
+                case "BINARY_DOUBLE":
+                    set(column, Types.DOUBLE, dataLength, 0);
+                    break;
+                case "DATE":
+                    set(column, Types.TIMESTAMP, dataLength, 0);
+                    break;
+                case "LONG":
+                    set(column, Types.LONGVARCHAR, dataLength, 0);
+                    break;
+                case "RAW":
+                    set(column, Types.VARBINARY, dataLength, 0);
+                    break;
+                case "LONG RAW":
+                    set(column, Types.LONGVARBINARY, dataLength, 0);
+                    break;
+                case "BLOB":
+                    set(column, Types.BLOB, dataLength, 0);
+                    break;
+                case "CLOB":
+                    set(column, Types.CLOB, dataLength, 0);
+                    break;
+                case "NCLOB":
+                    set(column, Types.NCLOB, dataLength, 0);
+                    break;
+                case "ROWID":
+                    set(column, Types.ROWID, dataLength, 0);
+                    break;
+                case "XMLTYPE":
+                    set(column, Types.SQLXML, dataLength, 0);
+                    break;
+                default:
+                    set(column, Types.OTHER, dataLength, 0);
+            }
+        }
+
+        /**
+         * Any DDL on a table (including adding constraints and comments) updates its
+         * last_ddl_time, and dropped tables change the count.
+         */
+        String fingerprintSql() {
+            return "select to_char(max(last_ddl_time), 'YYYYMMDDHH24MISS') || ':' || count(*)\n" +
+                   "from all_objects\n" +
+                   "where owner = ?\n" +
+                   "  and object_type = 'TABLE'";
+        }
+
+    }
+
+    private static class SqlServer extends Dialect {
+
+        String tablesSql() {
+            return "select t.name as table_name,\n" +
+                   "       null as remarks\n" +
+                   "from sys.tables t\n" +
+                   "  join sys.schemas s on s.schema_id = t.schema_id\n" +
+                   "where s.name = ?\n" +
+                   "  and t.is_ms_shipped = 0";
+        }
+
+        String columnsSql() {
+            return "select t.name as table_name,\n" +
+                   "       c.name as column_name,\n" +
+                   "       type_name(c.system_type_id) as type_name,\n" +
+                   "       c.max_length,\n" +
+                   "       c.precision,\n" +
+                   "       c.scale,\n" +
+                   "       case when c.is_nullable = 0 then 1 else 0 end as not_null\n" +
+                   "from sys.columns c\n" +
+                   "  join sys.tables t on t.object_id = c.object_id\n" +
+                   "  join sys.schemas s on s.schema_id = t.schema_id\n" +
+                   "where s.name = ?\n" +
+                   "order by t.name, c.column_id";
+        }
+
+        String primaryKeysSql() {
+            return "select t.name as table_name,\n" +
+                   "       c.name as column_name\n" +
+                   "from sys.indexes i\n" +
+                   "  join sys.index_columns ic on ic.object_id = i.object_id and ic.index_id = i.index_id\n" +
+                   "  join sys.columns c on c.object_id = ic.object_id and c.column_id = ic.column_id\n" +
+                   "  join sys.tables t on t.object_id = i.object_id\n" +
+                   "  join sys.schemas s on s.schema_id = t.schema_id\n" +
+                   "where i.is_primary_key = 1\n" +
+                   "  and s.name = ?";
+        }
+
+        String foreignKeysSql() {
+            return "select fk.name as fk_name,\n" +
+                   "       fs.name as fk_schema,\n" +
+                   "       ft.name as fk_table,\n" +
+                   "       fc.name as fk_column,\n" +
+                   "       pt.name as pk_table,\n" +
+                   "       pc.name as pk_column\n" +
+                   "from sys.foreign_keys fk\n" +
+                   "  join sys.foreign_key_columns fkc on fkc.constraint_object_id = fk.object_id\n" +
+                   "  join sys.tables ft on ft.object_id = fk.parent_object_id\n" +
+                   "  join sys.schemas fs on fs.schema_id = ft.schema_id\n" +
+                   "  join sys.columns fc on fc.object_id = fkc.parent_object_id and fc.column_id = fkc.parent_column_id\n" +
+                   "  join sys.tables pt on pt.object_id = fk.referenced_object_id\n" +
+                   "  join sys.schemas ps on ps.schema_id = pt.schema_id\n" +
+                   "  join sys.columns pc on pc.object_id = fkc.referenced_object_id and pc.column_id = fkc.referenced_column_id\n" +
+                   "where ps.name = ?\n" +
+                   "order by ft.name, fk.name, fkc.constraint_column_id";
+        }
+
+        void setType(Column column, ResultSet rset) throws SQLException {
+            String typeName = rset.getString("TYPE_NAME");
+            int maxLength = rset.getInt("MAX_LENGTH");
+            int precision = rset.getInt("PRECISION");
+            int scale = rset.getInt("SCALE");
+            switch (typeName) {
+                case "bit":
+                    set(column, Types.BIT, 1, 0);
+                    break;
+                case "tinyint":
+                    set(column, Types.TINYINT, precision, 0);
+                    break;
+                case "smallint":
+                    set(column, Types.SMALLINT, precision, 0);
+                    break;
+                case "int":
+                    set(column, Types.INTEGER, precision, 0);
+                    break;
+                case "bigint":
+                    set(column, Types.BIGINT, precision, 0);
+                    break;
+                case "decimal":
+                case "money":
+                case "smallmoney":
+                    set(column, Types.DECIMAL, precision, scale);
+                    break;
+                case "numeric":
+                    set(column, Types.NUMERIC, precision, scale);
+                    break;
+                case "float":
+                    set(column, Types.DOUBLE, 15, 0);
+                    break;
+                case "real":
+                    set(column, Types.REAL, 7, 0);
+                    break;
+                case "char":
+                    set(column, Types.CHAR, maxLength, 0);
+                    break;
+                case "nchar":
+                    set(column, Types.CHAR, maxLength / 2, 0);
+                    break;
+                case "varchar":
+                    set(column, maxLength == -1 ? Types.LONGVARCHAR : Types.VARCHAR, charLength(maxLength), 0);
+                    break;
+                case "nvarchar":
+                    set(column, maxLength == -1 ? Types.LONGVARCHAR : Types.VARCHAR, maxLength == -1 ? Integer.MAX_VALUE : maxLength / 2, 0);
+                    break;
+                case "text":
+                case "ntext":
+                case "xml":
+                    set(column, Types.LONGVARCHAR, Integer.MAX_VALUE, 0);
+                    break;
+                case "binary":
+                    set(column, Types.BINARY, maxLength, 0);
+                    break;
+                case "varbinary":
+                    set(column, maxLength == -1 ? Types.LONGVARBINARY : Types.VARBINARY, charLength(maxLength), 0);
+                    break;
+                case "image":
+                    set(column, Types.LONGVARBINARY, Integer.MAX_VALUE, 0);
+                    break;
+                case "date":
+                    set(column, Types.DATE, precision, 0);
+                    break;
+                case "time":
+                    set(column, Types.TIME, precision, scale);
+                    break;
+                case "datetime":
+                case "datetime2":
+                case "smalldatetime":
+                    set(column, Types.TIMESTAMP, precision, scale);
+                    break;
+                case "uniqueidentifier":
+                    set(column, Types.CHAR, 36, 0);
+                    break;
+                default:
+                    set(column, Types.OTHER, maxLength, 0);
+            }
+        }
+
+        /**
+         * Altering a table updates its modify_date and constraints are objects in
+         * their own right, so any change shows up in the latest date or the count.
+         */
+        String fingerprintSql() {
+            return "select convert(varchar(30), max(o.modify_date), 126) + ':' + cast(count(*) as varchar(10))\n" +
+                   "from sys.objects o\n" +
+                   "where o.schema_id = schema_id(?)\n" +
+                   "  and o.type in ('U', 'PK', 'F')";
+        }
+
+    }
+
+    private static void set(Column column, int sqlType, int columnSize, int decimalDigits) {
+        column.sqlType = sqlType;
+        column.columnSize = columnSize;
+        column.decimalDigits = decimalDigits;
+    }
+
+}
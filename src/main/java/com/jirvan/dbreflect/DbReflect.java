@@ -31,9 +31,12 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.jirvan.dbreflect;
 
 import com.jirvan.lang.SQLRuntimeException;
+import com.jirvan.util.DatabaseMetadata;
+import com.jirvan.util.DatabaseType;
 import com.jirvan.util.Jdbc;
 import com.jirvan.util.Json;
 import com.jirvan.util.Strings;
+import com.jirvan.util.UnsupportedDatabaseTypeException;
 import com.jirvan.util.Utl;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.core.config.Configurator;
@@ -42,20 +45,36 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.jirvan.util.Assertions.*;
 import static java.sql.DatabaseMetaData.*;
 
 public class DbReflect {
 
+    /**
+     * The default maximum number of connections used to reflect tables using JDBC
+     * metadata.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
     private static final Logger log = LoggerFactory.getLogger(DbReflect.class);
 
     public static void main(String[] args) {
@@ -100,51 +119,124 @@ public class DbReflect {
         return getTables(dataSource, null, schemaName);
     }
 
+    /**
+     * Uses set based catalog queries (a few queries for the whole schema) when a
+     * schemaName is given and the database type supports them, and JDBC metadata
+     * (three calls per table, spread across up to {@link #DEFAULT_MAX_CONNECTIONS}
+     * connections) otherwise.  Either way the tables are as returned by
+     * {@link #getTablesUsingJdbcMetadata}, and a null schemaName means all
+     * schemas as for {@link java.sql.DatabaseMetaData#getTables}.
+     */
     public static List<Table> getTables(DataSource dataSource, String catalogName, String schemaName) {
-        try {
-            Connection connection = dataSource.getConnection();
-            try {
-                ResultSet resultSet = connection.getMetaData().getTables(catalogName, schemaName, null, new String[]{"TABLE"});
-                try {
+        return getTables(dataSource, catalogName, schemaName, true, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * As for {@link #getTables(DataSource, String, String)} except that the result
+     * is saved to snapshotFile along with a fingerprint of the schema (see
+     * {@link #getSchemaFingerprint}) and subsequent calls just read the snapshot
+     * file if the schema's fingerprint has not changed.  For database types that
+     * don't support fingerprints the schema is always reflected.
+     */
+    public static List<Table> getTables(DataSource dataSource, String catalogName, String schemaName, File snapshotFile) {
+        assertNotNull(snapshotFile, "snapshotFile is null");
+        String fingerprint = getSchemaFingerprint(dataSource, catalogName, schemaName);
+        if (fingerprint != null && snapshotFile.exists()) {
+            SchemaSnapshot snapshot = readSnapshot(snapshotFile);
+            if (snapshot != null
+                && snapshot.version == SchemaSnapshot.CURRENT_VERSION
+                && fingerprint.equals(snapshot.fingerprint)
+                && Utl.areEqual(catalogName, snapshot.catalogName)
+                && Utl.areEqual(schemaName, snapshot.schemaName)) {
+                log.debug("Schema unchanged, using snapshot file {}", snapshotFile);
+                return snapshot.tables;
+            }
+        }
+
+        // The fingerprint was taken before reflecting, so any concurrent change will
+        // make the snapshot stale rather than leave a stale snapshot looking current
+        List<Table> tables = getTables(dataSource, catalogName, schemaName);
+        if (fingerprint != null) {
+            SchemaSnapshot snapshot = new SchemaSnapshot();
+            snapshot.version = SchemaSnapshot.CURRENT_VERSION;
+            snapshot.fingerprint = fingerprint;
+            snapshot.catalogName = catalogName;
+            snapshot.schemaName = schemaName;
+            snapshot.tables = tables;
+            writeSnapshot(snapshot, snapshotFile);
+        }
+        return tables;
+    }
+
+    /**
+     * Returns a value that changes whenever the schema's tables, columns or keys
+     * change and is much cheaper to get than reflecting the schema (a single
+     * catalog query), or null if the database type doesn't support it (or, apart
+     * from SQLite which has no schemas, schemaName is null).  Based on
+     * catalog object modification times for Oracle and SQL Server and a hash of the
+     * catalog entries for PostgreSQL and SQLite.
+     */
+    public static String getSchemaFingerprint(DataSource dataSource, String catalogName, String schemaName) {
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseType databaseType = getDatabaseTypeIfKnown(DatabaseMetadata.get(connection));
+            return databaseType == null ? null : CatalogReflect.getFingerprint(connection, databaseType, catalogName, schemaName);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
 
-                    List<Table> list = new ArrayList<>();
-                    String lastCatalogName = "noneYet", lastSchemaName = "noneYet";
-                    while (resultSet.next()) {
+    /**
+     * Returns a handle on the schema that only reflects tables as they are asked
+     * for (see {@link LazySchema}).
+     */
+    public static LazySchema getLazySchema(DataSource dataSource, String catalogName, String schemaName) {
+        return new LazySchema(dataSource, catalogName, schemaName);
+    }
 
-                        Table table = new Table();
-                        table.catalogName = resultSet.getString("TABLE_CAT");
-                        table.schemaName = resultSet.getString("TABLE_SCHEM");
-                        table.tableName = resultSet.getString("TABLE_NAME");
-                        table.remarks = resultSet.getString("REMARKS");
+    public static List<Table> getTablesUsingJdbcMetadata(DataSource dataSource, String catalogName, String schemaName) {
+        return getTablesUsingJdbcMetadata(dataSource, catalogName, schemaName, DEFAULT_MAX_CONNECTIONS);
+    }
 
-                        if (!Strings.isIn(lastCatalogName, "noneYet", table.catalogName)) {
-                            throw new RuntimeException(String.format("Catalog must be specified if database has more than one (found %s and %s, there could be others)",
-                                                                     lastCatalogName, table.catalogName));
-                        }
+    /**
+     * The per table metadata calls are spread across up to maxConnections
+     * connections from the data source.
+     */
+    public static List<Table> getTablesUsingJdbcMetadata(DataSource dataSource, String catalogName, String schemaName, int maxConnections) {
+        return getTables(dataSource, catalogName, schemaName, false, maxConnections);
+    }
 
-                        if (!Strings.isIn(lastSchemaName, "noneYet", table.schemaName)) {
-                            throw new RuntimeException(String.format("Schema must be specified if database has more than one (found %s and %s, there could be others)",
-                                                                     lastSchemaName, table.schemaName));
-                        }
 
-                        table.columns = getColumns(connection, table.catalogName, table.schemaName, table.tableName);
+    //======================== Everything below here is private ========================//
 
-                        table.referencingForeignKeys = getReferencingForeignKeys(connection, table.catalogName, table.schemaName, table.tableName);
+    private static List<Table> getTables(DataSource dataSource, String catalogName, String schemaName, boolean useCatalogQueries, int maxConnections) {
+        assertTrue(maxConnections > 0, "maxConnections must be greater than zero");
 
-                        list.add(table);
+        // The tables are reflected afresh, so anything cached for the data source may be stale
+        DatabaseMetadata.refresh(dataSource);
+        try {
+            Connection connection = dataSource.getConnection();
+            try {
+                DatabaseMetadata databaseMetadata = DatabaseMetadata.get(connection);
 
+                List<Table> list = null;
+                if (useCatalogQueries) {
+                    DatabaseType databaseType = getDatabaseTypeIfKnown(databaseMetadata);
+                    if (databaseType != null && CatalogReflect.supports(databaseType)) {
+                        list = CatalogReflect.getTables(connection, databaseType, catalogName, schemaName);
                     }
-                    addForeignKeysForAllTables(list);
-                    Collections.sort(list, new Comparator<Table>() {
-                        @Override public int compare(Table o1, Table o2) {
-                            return o1.tableName.compareTo(o2.tableName);
-                        }
-                    });
-                    return list;
-
-                } finally {
-                    resultSet.close();
                 }
+                if (list == null) {
+                    list = getTablesUsingJdbcMetadata(dataSource, databaseMetadata, catalogName, schemaName, maxConnections);
+                }
+
+                addForeignKeysForAllTables(list);
+                Collections.sort(list, new Comparator<Table>() {
+                    @Override public int compare(Table o1, Table o2) {
+                        return o1.tableName.compareTo(o2.tableName);
+                    }
+                });
+                return list;
+
             } finally {
                 connection.close();
             }
@@ -154,10 +246,113 @@ public class DbReflect {
         }
     }
 
+    private static SchemaSnapshot readSnapshot(File snapshotFile) {
+        try {
+            return Json.fromJsonFile(snapshotFile, SchemaSnapshot.class, true);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring unreadable snapshot file {} ({})", snapshotFile, e.getMessage());
+            return null;
+        }
+    }
 
-    //======================== Everything below here is private ========================//
+    private static void writeSnapshot(SchemaSnapshot snapshot, File snapshotFile) {
+
+        // Write to a temporary file and then move it into place, so that readers
+        // never see a partially written snapshot
+        File file = snapshotFile.getAbsoluteFile();
+        File tempFile = new File(file.getParentFile(), file.getName() + ".tmp");
+        Json.toJsonFile(snapshot, tempFile, true);
+        try {
+            Files.move(tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static DatabaseType getDatabaseTypeIfKnown(DatabaseMetadata databaseMetadata) {
+        try {
+            return databaseMetadata.getDatabaseType();
+        } catch (UnsupportedDatabaseTypeException e) {
+            return null;
+        }
+    }
+
+    private static List<Table> getTablesUsingJdbcMetadata(DataSource dataSource, DatabaseMetadata databaseMetadata, String catalogName, String schemaName, int maxConnections) throws SQLException {
+        List<Table> list = new ArrayList<>();
+        String lastCatalogName = "noneYet", lastSchemaName = "noneYet";
+        for (DatabaseMetadata.TableInfo tableInfo : databaseMetadata.getTables(catalogName, schemaName)) {
+
+            Table table = new Table();
+            table.catalogName = tableInfo.catalogName;
+            table.schemaName = tableInfo.schemaName;
+            table.tableName = tableInfo.tableName;
+            table.remarks = tableInfo.remarks;
+
+            if (!Strings.isIn(lastCatalogName, "noneYet", table.catalogName)) {
+                throw new RuntimeException(String.format("Catalog must be specified if database has more than one (found %s and %s, there could be others)",
+                                                         lastCatalogName, table.catalogName));
+            }
+
+            if (!Strings.isIn(lastSchemaName, "noneYet", table.schemaName)) {
+                throw new RuntimeException(String.format("Schema must be specified if database has more than one (found %s and %s, there could be others)",
+                                                         lastSchemaName, table.schemaName));
+            }
+
+            list.add(table);
+
+        }
+
+        // Reflect the tables' columns and keys, using this thread and connection plus
+        // up to maxConnections - 1 more.  Each table is only ever filled in by one
+        // thread and the list order is fixed, so the result is deterministic.
+        AtomicInteger nextTableIndex = new AtomicInteger();
+        int additionalConnections = Math.min(maxConnections, list.size()) - 1;
+        if (additionalConnections <= 0) {
+            reflectTables(databaseMetadata, list, nextTableIndex);
+            return list;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(additionalConnections);
+        try {
+            List<Future<Object>> futures = new ArrayList<>();
+            for (int i = 0; i < additionalConnections; i++) {
+                futures.add(executorService.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        reflectTables(DatabaseMetadata.get(connection), list, nextTableIndex);
+                    }
+                    return null;
+                }));
+            }
+            reflectTables(databaseMetadata, list, nextTableIndex);
+            for (Future<Object> future : futures) {
+                future.get();
+            }
+            return list;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static void reflectTables(DatabaseMetadata databaseMetadata, List<Table> tables, AtomicInteger nextTableIndex) {
+        int tableIndex;
+        while ((tableIndex = nextTableIndex.getAndIncrement()) < tables.size()) {
+            Table table = tables.get(tableIndex);
+            table.columns = getColumns(databaseMetadata, table.catalogName, table.schemaName, table.tableName);
+            table.referencingForeignKeys = getReferencingForeignKeys(databaseMetadata, table.catalogName, table.schemaName, table.tableName);
+        }
+    }
 
-    private static String getSqlTypeName(int type) {
+    static String getSqlTypeName(int type) {
         switch (type) {
             case Types.BIT:
                 return "BIT";
@@ -235,46 +430,19 @@ public class DbReflect {
         throw new RuntimeException("Unrecognized jdbc data type \"" + type + "\"");
     }
 
-    private static List<String> getPkColumnNames(Connection connection, String catalogName, String schemaName, String tableName) {
-        List<String> list = new ArrayList<String>();
-        try {
-            ResultSet resultSet = connection.getMetaData().getPrimaryKeys(catalogName, schemaName, tableName);
-            try {
-
-                while (resultSet.next()) {
-                    list.add(resultSet.getString("COLUMN_NAME"));
-                }
-
-            } finally {
-                resultSet.close();
-            }
-        } catch (SQLException e) {
-            throw new SQLRuntimeException(e);
-        }
-        return list;
-    }
-
-    private static List<Column> getColumns(Connection connection, String catalogName, String schemaName, String tableName) {
-        List<String> pkColumnNames = getPkColumnNames(connection, catalogName, schemaName, tableName);
+    static List<Column> getColumns(DatabaseMetadata databaseMetadata, String catalogName, String schemaName, String tableName) {
+        List<String> pkColumnNames = databaseMetadata.getPrimaryKeyColumnNames(catalogName, schemaName, tableName);
         List<Column> list = new ArrayList<>();
-        try {
-            try (ResultSet resultSet = connection.getMetaData().getColumns(catalogName, schemaName, tableName, null)) {
-
-                while (resultSet.next()) {
-                    Column column = new Column();
-                    column.columnName = resultSet.getString("COLUMN_NAME");
-                    column.sqlType = resultSet.getInt("DATA_TYPE");
-                    column.sqlTypeName = getSqlTypeName(column.sqlType);
-                    column.columnSize = resultSet.getInt("COLUMN_SIZE");
-                    column.decimalDigits = resultSet.getInt("DECIMAL_DIGITS");
-                    column.isInPrimaryKey = Strings.isIn(column.columnName, pkColumnNames);
-                    column.mandatory = resultSet.getShort("NULLABLE") == typeNoNulls;
-                    list.add(column);
-                }
-
-            }
-        } catch (SQLException e) {
-            throw new SQLRuntimeException(e);
+        for (DatabaseMetadata.ColumnInfo columnInfo : databaseMetadata.getColumns(catalogName, schemaName, tableName)) {
+            Column column = new Column();
+            column.columnName = columnInfo.columnName;
+            column.sqlType = columnInfo.dataType;
+            column.sqlTypeName = getSqlTypeName(column.sqlType);
+            column.columnSize = columnInfo.columnSize;
+            column.decimalDigits = columnInfo.decimalDigits;
+            column.isInPrimaryKey = Strings.isIn(column.columnName, pkColumnNames);
+            column.mandatory = columnInfo.nullable == typeNoNulls;
+            list.add(column);
         }
 //        Collections.sort(list, new Comparator<Column>() {
 //            @Override public int compare(Column o1, Column o2) {
@@ -284,74 +452,67 @@ public class DbReflect {
         return list;
     }
 
-    private static List<Table.ReferencingForeignKey> getReferencingForeignKeys(Connection connection, String catalogName, String schemaName, String tableName) throws SQLException {
+    static List<Table.ReferencingForeignKey> getReferencingForeignKeys(DatabaseMetadata databaseMetadata, String catalogName, String schemaName, String tableName) {
+        List<Table.ReferencingForeignKey> list = new ArrayList<>();
+        Table.ReferencingForeignKey foreignKey = null;
+        ExportedKeyRow lastExportedKeyRow = null;
+        for (DatabaseMetadata.ForeignKeyColumn exportedKey : databaseMetadata.getExportedKeys(catalogName, schemaName, tableName)) {
 
-        try (ResultSet resultSet = connection.getMetaData().getExportedKeys(catalogName, schemaName, tableName)) {
-            List<Table.ReferencingForeignKey> list = new ArrayList<>();
-            Table.ReferencingForeignKey foreignKey = null;
-            ExportedKeyRow lastExportedKeyRow = null;
-            while (resultSet.next()) {
+            ExportedKeyRow exportedKeyRow = new ExportedKeyRow(exportedKey);
 
-                ExportedKeyRow exportedKeyRow = new ExportedKeyRow(resultSet);
-
-                if (lastExportedKeyRow == null) {
-                    foreignKey = startKey(exportedKeyRow);
-                } else {
-                    if (exportedKeyRow.hasSameFkTableAs(lastExportedKeyRow)) {
-                        if (exportedKeyRow.keySeq == 1) {
-                            if (foreignKey != null) endKey(list, catalogName, schemaName, lastExportedKeyRow, foreignKey);
-                            foreignKey = startKey(exportedKeyRow);
-                        } else {
-                            addToKey(foreignKey, lastExportedKeyRow, exportedKeyRow);
-                        }
-                    } else {
+            if (lastExportedKeyRow == null) {
+                foreignKey = startKey(exportedKeyRow);
+            } else {
+                if (exportedKeyRow.hasSameFkTableAs(lastExportedKeyRow)) {
+                    if (exportedKeyRow.keySeq == 1) {
                         if (foreignKey != null) endKey(list, catalogName, schemaName, lastExportedKeyRow, foreignKey);
                         foreignKey = startKey(exportedKeyRow);
+                    } else {
+                        addToKey(foreignKey, lastExportedKeyRow, exportedKeyRow);
                     }
+                } else {
+                    if (foreignKey != null) endKey(list, catalogName, schemaName, lastExportedKeyRow, foreignKey);
+                    foreignKey = startKey(exportedKeyRow);
                 }
+            }
 
-                lastExportedKeyRow = exportedKeyRow;
+            lastExportedKeyRow = exportedKeyRow;
 
+        }
+        // End current key if any and return list
+        if (foreignKey != null) endKey(list, catalogName, schemaName, lastExportedKeyRow, foreignKey);
+        Collections.sort(list, new Comparator<Table.ReferencingForeignKey>() {
+            @Override public int compare(Table.ReferencingForeignKey o1, Table.ReferencingForeignKey o2) {
+                return o1.referencingTableName.compareTo(o2.referencingTableName);
             }
-            // End current key if any and return list
-            if (foreignKey != null) endKey(list, catalogName, schemaName, lastExportedKeyRow, foreignKey);
-            Collections.sort(list, new Comparator<Table.ReferencingForeignKey>() {
-                @Override public int compare(Table.ReferencingForeignKey o1, Table.ReferencingForeignKey o2) {
-                    return o1.referencingTableName.compareTo(o2.referencingTableName);
-                }
-            });
-            return list;
+        });
+        return list;
+    }
 
+    private static void addForeignKeysForAllTables(List<Table> tables) {
+
+        // Index the foreign keys by referencing table (in the same order as the nested
+        // loops this replaced would have found them, so the final ordering is unchanged)
+        Map<String, List<Table.ForeignKey>> foreignKeysByTableName = new HashMap<>();
+        for (Table otherTable : tables) {
+            for (Table.ReferencingForeignKey referencingForeignKey : otherTable.referencingForeignKeys) {
+                Table.ForeignKey foreignKey = new Table.ForeignKey();
+                foreignKey.columnNames = new ArrayList<>(referencingForeignKey.referencingColumnNames);
+                foreignKey.referencedTableName = otherTable.tableName;
+                foreignKey.referencedColumnNames = new ArrayList<>(referencingForeignKey.columnNames);
+                foreignKeysByTableName.computeIfAbsent(referencingForeignKey.referencingTableName, tableName -> new ArrayList<>())
+                                      .add(foreignKey);
+            }
         }
 
-    }
-
-    private static void addForeignKeysForAllTables(List<Table> tables) throws SQLException {
         for (Table table : tables) {
-            table.foreignKeys = new ArrayList<>();
-            for (Table otherTable : tables) {
-                for (Table.ReferencingForeignKey referencingForeignKey : otherTable.referencingForeignKeys) {
-                    if (referencingForeignKey.referencingTableName.equals(table.tableName)) {
-                        Table.ForeignKey foreignKey = new Table.ForeignKey();
-                        foreignKey.columnNames = new ArrayList<>();
-                        foreignKey.referencedColumnNames = new ArrayList<>();
-                        for (String referencingColumnName : referencingForeignKey.referencingColumnNames) {
-                            foreignKey.columnNames.add(referencingColumnName);
-                        }
-                        foreignKey.referencedTableName = otherTable.tableName;
-                        for (String columName : referencingForeignKey.columnNames) {
-                            foreignKey.referencedColumnNames.add(columName);
-                        }
-                        table.foreignKeys.add(foreignKey);
-                    }
-                }
-            }
+            List<Table.ForeignKey> foreignKeys = foreignKeysByTableName.get(table.tableName);
+            table.foreignKeys = foreignKeys != null ? foreignKeys : new ArrayList<>();
             Collections.sort(table.foreignKeys, new Comparator<Table.ForeignKey>() {
                 @Override public int compare(Table.ForeignKey o1, Table.ForeignKey o2) {
                     return o1.referencedTableName.compareTo(o2.referencedTableName);
                 }
             });
-
         }
     }
 
@@ -400,17 +561,17 @@ public class DbReflect {
         public String pkTableName;
         public String pkColumnName;
 
-        public ExportedKeyRow(ResultSet resultSet) throws SQLException {
-            this.fkName = resultSet.getString("FK_NAME");
-            this.keySeq = resultSet.getInt("KEY_SEQ");
-            this.fkCatalogName = resultSet.getString("FKTABLE_CAT");
-            this.fkSchemaName = resultSet.getString("FKTABLE_SCHEM");
-            this.fkTableName = resultSet.getString("FKTABLE_NAME");
-            this.fkColumnName = resultSet.getString("FKCOLUMN_NAME");
-            this.pkCatalogName = resultSet.getString("PKTABLE_CAT");
-            this.pkSchemaName = resultSet.getString("PKTABLE_SCHEM");
-            this.pkTableName = resultSet.getString("PKTABLE_NAME");
-            this.pkColumnName = resultSet.getString("PKCOLUMN_NAME");
+        public ExportedKeyRow(DatabaseMetadata.ForeignKeyColumn exportedKey) {
+            this.fkName = exportedKey.fkName;
+            this.keySeq = exportedKey.keySeq;
+            this.fkCatalogName = exportedKey.fkCatalogName;
+            this.fkSchemaName = exportedKey.fkSchemaName;
+            this.fkTableName = exportedKey.fkTableName;
+            this.fkColumnName = exportedKey.fkColumnName;
+            this.pkCatalogName = exportedKey.pkCatalogName;
+            this.pkSchemaName = exportedKey.pkSchemaName;
+            this.pkTableName = exportedKey.pkTableName;
+            this.pkColumnName = exportedKey.pkColumnName;
         }
 
         public boolean hasSameFkTableAs(ExportedKeyRow anotherKeyRow) {
@@ -0,0 +1,210 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.dbreflect;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ListMultimap;
+import com.google.common.collect.Multimaps;
+import com.jirvan.util.DatabaseMetadata;
+import com.jirvan.util.Utl;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A handle on a schema that only reflects a table's columns, foreign keys and
+ * referencing foreign keys when they are first asked for, for when only a few of a
+ * schema's tables are of interest.  Each is reflected at most once (until
+ * {@link #refresh()}) no matter how many threads ask for it concurrently.
+ * <p>
+ * Uses a connection from the data source whenever something needs to be
+ * reflected (see {@link DatabaseMetadata#get(DataSource)}).  Table names must be
+ * given exactly as the database reports them.  If the schema name is null and a
+ * table name is in more than one schema, asking for that table fails (the schema
+ * must be specified).
+ */
+public class LazySchema {
+
+    private final DataSource dataSource;
+    private final String catalogName;
+    private final String schemaName;
+    private volatile Supplier<ListMultimap<String, DatabaseMetadata.TableInfo>> tableInfos;  // By table name
+    private final ConcurrentHashMap<List<String>, LazyTable> tables = new ConcurrentHashMap<>();  // By schema and table name
+
+    LazySchema(DataSource dataSource, String catalogName, String schemaName) {
+        this.dataSource = dataSource;
+        this.catalogName = catalogName;
+        this.schemaName = schemaName;
+        this.tableInfos = memoizedTableInfos();
+    }
+
+    public List<String> getTableNames() {
+        List<String> tableNames = new ArrayList<>(tableInfos.get().keySet());
+        Collections.sort(tableNames);
+        return tableNames;
+    }
+
+    /**
+     * Returns true if there is such a table (in any schema if the schema name is
+     * null).
+     */
+    public boolean hasTable(String tableName) {
+        return tableInfos.get().containsKey(tableName);
+    }
+
+    /**
+     * Returns the table with all of its columns and keys reflected (as for
+     * {@link DbReflect#getTables}) or null if there is no such table.
+     */
+    public Table getTable(String tableName) {
+        LazyTable lazyTable = getLazyTable(tableName);
+        return lazyTable == null ? null : lazyTable.table.get();
+    }
+
+    public List<Column> getColumns(String tableName) {
+        return getExistingLazyTable(tableName).columns.get();
+    }
+
+    public List<Table.ForeignKey> getForeignKeys(String tableName) {
+        return getExistingLazyTable(tableName).foreignKeys.get();
+    }
+
+    public List<Table.ReferencingForeignKey> getReferencingForeignKeys(String tableName) {
+        return getExistingLazyTable(tableName).referencingForeignKeys.get();
+    }
+
+    /**
+     * Discards everything reflected so far (including the underlying
+     * {@link DatabaseMetadata} cache).
+     */
+    public void refresh() {
+        DatabaseMetadata.get(dataSource).refresh();
+        tableInfos = memoizedTableInfos();
+        tables.clear();
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private Supplier<ListMultimap<String, DatabaseMetadata.TableInfo>> memoizedTableInfos() {
+        return Suppliers.memoize(() -> Multimaps.index(DatabaseMetadata.get(dataSource).getTables(catalogName, schemaName),
+                                                       tableInfo -> tableInfo.tableName));
+    }
+
+    private LazyTable getLazyTable(String tableName) {
+        List<DatabaseMetadata.TableInfo> tableInfosWithName = tableInfos.get().get(tableName);
+        if (tableInfosWithName.isEmpty()) {
+            return null;
+        } else if (tableInfosWithName.size() > 1) {
+            throw new RuntimeException(String.format("Schema must be specified as table \"%s\" is in more than one (found %s and %s, there could be others)",
+                                                     tableName, tableInfosWithName.get(0).schemaName, tableInfosWithName.get(1).schemaName));
+        }
+        DatabaseMetadata.TableInfo tableInfo = tableInfosWithName.get(0);
+        return tables.computeIfAbsent(Arrays.asList(tableInfo.schemaName, tableInfo.tableName), key -> new LazyTable(tableInfo));
+    }
+
+    private LazyTable getExistingLazyTable(String tableName) {
+        LazyTable lazyTable = getLazyTable(tableName);
+        if (lazyTable == null) {
+            throw new RuntimeException(String.format("Table \"%s\" does not exist", tableName));
+        }
+        return lazyTable;
+    }
+
+    private class LazyTable {
+
+        private final Supplier<List<Column>> columns;
+        private final Supplier<List<Table.ForeignKey>> foreignKeys;
+        private final Supplier<List<Table.ReferencingForeignKey>> referencingForeignKeys;
+        private final Supplier<Table> table;
+
+        private LazyTable(DatabaseMetadata.TableInfo tableInfo) {
+            this.columns = Suppliers.memoize(() -> DbReflect.getColumns(DatabaseMetadata.get(dataSource),
+                                                                        tableInfo.catalogName, tableInfo.schemaName, tableInfo.tableName));
+            this.foreignKeys = Suppliers.memoize(() -> reflectForeignKeys(tableInfo));
+            this.referencingForeignKeys = Suppliers.memoize(() -> DbReflect.getReferencingForeignKeys(DatabaseMetadata.get(dataSource),
+                                                                                                      tableInfo.catalogName, tableInfo.schemaName, tableInfo.tableName));
+            this.table = Suppliers.memoize(() -> {
+                Table table = new Table();
+                table.catalogName = tableInfo.catalogName;
+                table.schemaName = tableInfo.schemaName;
+                table.tableName = tableInfo.tableName;
+                table.remarks = tableInfo.remarks;
+                table.columns = columns.get();
+                table.foreignKeys = foreignKeys.get();
+                table.referencingForeignKeys = referencingForeignKeys.get();
+                return table;
+            });
+        }
+
+    }
+
+    /**
+     * Builds the table's foreign keys from its imported keys (rather than from all
+     * of the other tables' exported keys as DbReflect.getTables does), ignoring
+     * those that reference tables in other catalogs or schemas as getTables does.
+     */
+    private List<Table.ForeignKey> reflectForeignKeys(DatabaseMetadata.TableInfo tableInfo) {
+        List<Table.ForeignKey> list = new ArrayList<>();
+        Table.ForeignKey foreignKey = null;
+        DatabaseMetadata.ForeignKeyColumn lastKeyColumn = null;
+        for (DatabaseMetadata.ForeignKeyColumn keyColumn : DatabaseMetadata.get(dataSource).getImportedKeys(tableInfo.catalogName, tableInfo.schemaName, tableInfo.tableName)) {
+            if (!Utl.areEqual(keyColumn.pkCatalogName, tableInfo.catalogName) || !Utl.areEqual(keyColumn.pkSchemaName, tableInfo.schemaName)) {
+                continue;
+            }
+            if (lastKeyColumn == null
+                || keyColumn.keySeq == 1
+                || !Utl.areEqual(keyColumn.fkName, lastKeyColumn.fkName)
+                || !keyColumn.pkTableName.equals(lastKeyColumn.pkTableName)) {
+                foreignKey = new Table.ForeignKey();
+                foreignKey.columnNames = new ArrayList<>();
+                foreignKey.referencedTableName = keyColumn.pkTableName;
+                foreignKey.referencedColumnNames = new ArrayList<>();
+                list.add(foreignKey);
+            }
+            foreignKey.columnNames.add(keyColumn.fkColumnName);
+            foreignKey.referencedColumnNames.add(keyColumn.pkColumnName);
+            lastKeyColumn = keyColumn;
+        }
+        Collections.sort(list, new Comparator<Table.ForeignKey>() {
+            @Override public int compare(Table.ForeignKey o1, Table.ForeignKey o2) {
+                return o1.referencedTableName.compareTo(o2.referencedTableName);
+            }
+        });
+        return list;
+    }
+
+}
@@ -0,0 +1,334 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.gen.dto;
+
+import com.jirvan.dbreflect.Column;
+import com.jirvan.dbreflect.DbReflect;
+import com.jirvan.dbreflect.Table;
+import com.jirvan.util.DatabaseType;
+import com.jirvan.util.Io;
+import com.jirvan.util.Jdbc;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.config.DefaultConfiguration;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.jirvan.util.Assertions.*;
+
+/**
+ * Generates a java class for each table containing a public field DTO, a row
+ * mapper that reads the columns of the class's SELECT_SQL by index using the type
+ * specific ResultSet getters and a binder that sets the parameters of its
+ * INSERT_SQL using the type specific PreparedStatement setters (for use with
+ * {@link Jdbc#batchUpdate(java.sql.Connection, String, Iterable, Jdbc.ParameterBinder, int)}).
+ * <p>
+ * Mandatory numeric and boolean columns are mapped to primitive fields, DATE
+ * columns to {@link com.jirvan.dates.Day} and TIMESTAMP columns to
+ * {@link com.jirvan.dates.Millisecond}.  Table and column names in the sql are
+ * quoted for the database type (see {@link DatabaseType#quoteIdentifier(String)}).
+ */
+public class DtoGenerator {
+
+    public static void main(String[] args) {
+        boolean replaceExistingFiles;
+        String connectString;
+        File outputDirectory;
+        String packageName;
+        if (args.length == 3) {
+            replaceExistingFiles = false;
+            connectString = args[0];
+            outputDirectory = new File(args[1]);
+            packageName = args[2];
+        } else if (args.length == 4 && "-r".equals(args[0])) {
+            replaceExistingFiles = true;
+            connectString = args[1];
+            outputDirectory = new File(args[2]);
+            packageName = args[3];
+        } else {
+            throw new RuntimeException("Usage: DtoGenerator [-r] connectString outputDirectory packageName");
+        }
+        Configurator.initialize(new DefaultConfiguration());
+        Configurator.setRootLevel(Level.INFO);
+        generateDtoFiles(Jdbc.getDataSource(connectString),
+                         outputDirectory,
+                         packageName,
+                         replaceExistingFiles);
+    }
+
+    /**
+     * Writes one java file per table to the package's directory under
+     * outputDirectory (a source root).
+     */
+    public static void generateDtoFiles(DataSource dataSource,
+                                        File outputDirectory,
+                                        String packageName,
+                                        boolean replaceExistingFiles) {
+        generateDtoFiles(DbReflect.getTables(dataSource), DatabaseType.get(dataSource), outputDirectory, packageName, replaceExistingFiles);
+    }
+
+    public static void generateDtoFiles(List<Table> tables,
+                                        DatabaseType databaseType,
+                                        File outputDirectory,
+                                        String packageName,
+                                        boolean replaceExistingFiles) {
+        File packageDirectory = Io.ensureDirectoryExists(new File(outputDirectory, packageName.replace('.', File.separatorChar)));
+        for (Table table : tables) {
+            File outputFile = new File(packageDirectory, getClassName(table) + ".java");
+            if (!replaceExistingFiles) {
+                assertFileDoesNotExist(outputFile);
+            }
+            try (PrintStream printStream = new PrintStream(outputFile)) {
+                generateDto(printStream, table, databaseType, packageName);
+            } catch (FileNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    public static void generateDto(PrintStream printStream, Table table, DatabaseType databaseType, String packageName) {
+        String className = getClassName(table);
+        FieldType[] fieldTypes = new FieldType[table.columns.size()];
+        String[] fieldNames = new String[table.columns.size()];
+        StringBuilder columnList = new StringBuilder();
+        for (int i = 0; i < table.columns.size(); i++) {
+            Column column = table.columns.get(i);
+            fieldTypes[i] = getFieldType(column);
+            fieldNames[i] = getFieldName(column);
+            if (i > 0) columnList.append(", ");
+            columnList.append(databaseType.quoteIdentifier(column.columnName));
+        }
+        String quotedColumnList = javaStringContent(columnList.toString());
+        String quotedTableName = javaStringContent(databaseType.quoteIdentifier(table.tableName));
+
+        // Package and imports
+        printStream.printf("package %s;\n\n", packageName);
+        if (contains(fieldTypes, FieldType.day)) printStream.printf("import com.jirvan.dates.Day;\n");
+        if (contains(fieldTypes, FieldType.millisecond)) printStream.printf("import com.jirvan.dates.Millisecond;\n");
+        printStream.printf("import com.jirvan.util.Jdbc;\n\n");
+        if (contains(fieldTypes, FieldType.bigDecimal)) printStream.printf("import java.math.BigDecimal;\n");
+        printStream.printf("import java.sql.Connection;\n");
+        printStream.printf("import java.sql.Types;\n");
+        printStream.printf("import java.util.List;\n\n");
+
+        // Class, sql and fields
+        printStream.printf("/**\n * Generated from table %s by %s.\n */\n", table.tableName, DtoGenerator.class.getName());
+        printStream.printf("public class %s {\n\n", className);
+        printStream.printf("    public static final String SELECT_SQL = \"select %s from %s\";\n", quotedColumnList, quotedTableName);
+        printStream.printf("    public static final String INSERT_SQL = \"insert into %s (%s) values (%s)\";\n\n",
+                           quotedTableName, quotedColumnList, Jdbc.parameterPlaceHolderString(table.columns));
+        for (int i = 0; i < fieldTypes.length; i++) {
+            Column column = table.columns.get(i);
+            printStream.printf("    public %s %s;\n", fieldTypes[i].javaType(column.mandatory), fieldNames[i]);
+        }
+
+        // Row mapper
+        printStream.printf("\n    public static final Jdbc.RowMapper<%s> ROW_MAPPER = rset -> {\n", className);
+        printStream.printf("        %s row = new %s();\n", className, className);
+        for (int i = 0; i < fieldTypes.length; i++) {
+            Column column = table.columns.get(i);
+            FieldType fieldType = fieldTypes[i];
+            int index = i + 1;
+            if (fieldType.conversion != null) {
+                printStream.printf("        row.%s = %s.from(rset.%s(%d));\n", fieldNames[i], fieldType.boxedType, fieldType.getter, index);
+            } else {
+                printStream.printf("        row.%s = rset.%s(%d);\n", fieldNames[i], fieldType.getter, index);
+                if (fieldType.primitiveType != null && !column.mandatory) {
+                    printStream.printf("        if (rset.wasNull()) row.%s = null;\n", fieldNames[i]);
+                }
+            }
+        }
+        printStream.printf("        return row;\n");
+        printStream.printf("    };\n");
+
+        // Insert binder
+        printStream.printf("\n    public static final Jdbc.ParameterBinder<%s> INSERT_BINDER = (stmt, row) -> {\n", className);
+        for (int i = 0; i < fieldTypes.length; i++) {
+            Column column = table.columns.get(i);
+            FieldType fieldType = fieldTypes[i];
+            int index = i + 1;
+            String value = fieldType.conversion != null
+                           ? String.format(fieldType.conversion, "row." + fieldNames[i])
+                           : "row." + fieldNames[i];
+            if (fieldType.primitiveType != null && column.mandatory) {
+                printStream.printf("        stmt.%s(%d, %s);\n", fieldType.setter, index, value);
+            } else {
+                printStream.printf("        if (row.%s == null) stmt.setNull(%d, Types.%s);\n", fieldNames[i], index, fieldType.sqlType);
+                printStream.printf("        else stmt.%s(%d, %s);\n", fieldType.setter, index, value);
+            }
+        }
+        printStream.printf("    };\n");
+
+        // Convenience methods
+        printStream.printf("\n    /**\n");
+        printStream.printf("     * sqlSuffix (for example \"where ... order by ...\") is appended to SELECT_SQL\n");
+        printStream.printf("     */\n");
+        printStream.printf("    public static List<%s> query(Connection connection, String sqlSuffix, Object... parameterValues) {\n", className);
+        printStream.printf("        return Jdbc.queryForList(connection, SELECT_SQL + \" \" + sqlSuffix, parameterValues, ROW_MAPPER);\n");
+        printStream.printf("    }\n\n");
+        printStream.printf("    public static List<%s> queryAll(Connection connection) {\n", className);
+        printStream.printf("        return Jdbc.queryForList(connection, SELECT_SQL, null, ROW_MAPPER);\n");
+        printStream.printf("    }\n\n");
+        printStream.printf("    public static long insert(Connection connection, Iterable<%s> rows, int batchSize) {\n", className);
+        printStream.printf("        return Jdbc.batchUpdate(connection, INSERT_SQL, rows, INSERT_BINDER, batchSize);\n");
+        printStream.printf("    }\n\n");
+        printStream.printf("}\n");
+    }
+
+
+    //======================== Everything below here is private ========================//
+
+    private static final Set<String> JAVA_KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const",
+            "continue", "default", "do", "double", "else", "enum", "extends", "false", "final", "finally",
+            "float", "for", "goto", "if", "implements", "import", "instanceof", "int", "interface", "long",
+            "native", "new", "null", "package", "private", "protected", "public", "return", "short", "static",
+            "strictfp", "super", "switch", "synchronized", "this", "throw", "throws", "transient", "true", "try",
+            "void", "volatile", "while"));
+
+    private enum FieldType {
+
+        longType("long", "Long", "getLong", "setLong", "BIGINT", null),
+        intType("int", "Integer", "getInt", "setInt", "INTEGER", null),
+        floatType("float", "Float", "getFloat", "setFloat", "REAL", null),
+        doubleType("double", "Double", "getDouble", "setDouble", "DOUBLE", null),
+        booleanType("boolean", "Boolean", "getBoolean", "setBoolean", "BOOLEAN", null),
+        bigDecimal(null, "BigDecimal", "getBigDecimal", "setBigDecimal", "DECIMAL", null),
+        string(null, "String", "getString", "setString", "VARCHAR", null),
+        day(null, "Day", "getDate", "setDate", "DATE", "new java.sql.Date(%s.getDate().getTime())"),
+        millisecond(null, "Millisecond", "getTimestamp", "setTimestamp", "TIMESTAMP", "new java.sql.Timestamp(%s.getDate().getTime())"),
+        time(null, "java.sql.Time", "getTime", "setTime", "TIME", null),
+        bytes(null, "byte[]", "getBytes", "setBytes", "VARBINARY", null),
+        object(null, "Object", "getObject", "setObject", "OTHER", null);
+
+        private final String primitiveType;
+        private final String boxedType;
+        private final String getter;
+        private final String setter;
+        private final String sqlType;
+
+        /**
+         * Format for converting a (non null) field value to the setter's type, the
+         * getter's value is converted with the field type's static from method
+         */
+        private final String conversion;
+
+        FieldType(String primitiveType, String boxedType, String getter, String setter, String sqlType, String conversion) {
+            this.primitiveType = primitiveType;
+            this.boxedType = boxedType;
+            this.getter = getter;
+            this.setter = setter;
+            this.sqlType = sqlType;
+            this.conversion = conversion;
+        }
+
+        private String javaType(boolean mandatory) {
+            return mandatory && primitiveType != null ? primitiveType : boxedType;
+        }
+
+    }
+
+    private static FieldType getFieldType(Column column) {
+        switch (column.sqlType) {
+            case Types.BIGINT:
+                return FieldType.longType;
+            case Types.INTEGER:
+            case Types.SMALLINT:
+            case Types.TINYINT:
+                return FieldType.intType;
+            case Types.REAL:
+                return FieldType.floatType;
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return FieldType.doubleType;
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return FieldType.booleanType;
+            case Types.NUMERIC:
+            case Types.DECIMAL:
+                return FieldType.bigDecimal;
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.LONGNVARCHAR:
+            case Types.CLOB:
+            case Types.NCLOB:
+                return FieldType.string;
+            case Types.DATE:
+                return FieldType.day;
+            case Types.TIMESTAMP:
+                return FieldType.millisecond;
+            case Types.TIME:
+                return FieldType.time;
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return FieldType.bytes;
+            default:
+                return FieldType.object;
+        }
+    }
+
+    private static String getClassName(Table table) {
+        return DbReflect.underscoreSeperatedToCamelHumpName(table.tableName, true);
+    }
+
+    private static String getFieldName(Column column) {
+        String fieldName = DbReflect.underscoreSeperatedToCamelHumpName(column.columnName, false);
+        return JAVA_KEYWORDS.contains(fieldName) ? fieldName + "_" : fieldName;
+    }
+
+    /**
+     * Escapes the string for use between the double quotes of a java string literal
+     */
+    private static String javaStringContent(String string) {
+        return string.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static boolean contains(FieldType[] fieldTypes, FieldType fieldType) {
+        for (FieldType type : fieldTypes) {
+            if (type == fieldType) return true;
+        }
+        return false;
+    }
+
+}
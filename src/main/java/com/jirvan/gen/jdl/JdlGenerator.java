@@ -33,6 +33,7 @@ package com.jirvan.gen.jdl;
 import com.jirvan.dbreflect.Column;
 import com.jirvan.dbreflect.DbReflect;
 import com.jirvan.dbreflect.Table;
+import com.jirvan.util.DatabaseType;
 import com.jirvan.util.Io;
 import com.jirvan.util.Jdbc;
 import org.apache.logging.log4j.Level;
@@ -44,6 +45,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.sql.Types;
+import java.util.List;
 
 import static com.jirvan.util.Assertions.*;
 
@@ -78,6 +80,25 @@ public class JdlGenerator {
     public static void generateJdlFile(DataSource dataSource,
                                        File outputFile,
                                        boolean replaceExistingFile) {
+        generateJdlFile(dataSource, null, outputFile, replaceExistingFile, null);
+    }
+
+    /**
+     * If schemaSnapshotFile is not null the schema is only reflected if it has
+     * changed since the snapshot was taken (see
+     * {@link DbReflect#getTables(DataSource, String, String, File)}).  Schema
+     * fingerprints are per schema, so schemaName must be given for a snapshot
+     * file to be used (apart from for SQLite, which has no schemas).
+     *
+     * @param schemaName may be null for tables in all schemas
+     */
+    public static void generateJdlFile(DataSource dataSource,
+                                       String schemaName,
+                                       File outputFile,
+                                       boolean replaceExistingFile,
+                                       File schemaSnapshotFile) {
+        assertTrue(schemaSnapshotFile == null || schemaName != null || DatabaseType.get(dataSource) == DatabaseType.sqlite,
+                   "schemaName must be given for a schema snapshot file to be used");
         if (outputFile == null) {
             outputFile = new File("jhipster-jdl.jh");
         } else {
@@ -86,9 +107,12 @@ public class JdlGenerator {
         if (!replaceExistingFile) {
             assertFileDoesNotExist(outputFile);
         }
+        List<Table> tables = schemaSnapshotFile == null
+                             ? DbReflect.getTables(dataSource, schemaName)
+                             : DbReflect.getTables(dataSource, null, schemaName, schemaSnapshotFile);
         try (PrintStream printStream = new PrintStream(outputFile)) {
             boolean firstTable = true;
-            for (Table table : DbReflect.getTables(dataSource)) {
+            for (Table table : tables) {
                 if (!(table.tableName.toLowerCase().startsWith("jhi_") || table.tableName.toLowerCase().startsWith("databasechangelog"))) {
                     if (firstTable) {
                         firstTable = false;
@@ -0,0 +1,313 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.jirvan.lang.SQLRuntimeException;
+
+import javax.sql.DataSource;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static com.jirvan.util.Assertions.*;
+
+/**
+ * Runs JDBC statements asynchronously against a DataSource, each on its own
+ * connection, so that independent queries can be run in parallel.  At most
+ * maxConcurrency statements run at once (by default the DataSource's maximum pool
+ * size if that can be determined, otherwise {@link #DEFAULT_MAX_CONCURRENCY}) and
+ * submitting blocks once maxQueued statements are waiting, so callers can't swamp
+ * the pool.  Virtual threads are used on runtimes that have them.
+ * <p>
+ * Cancelling a returned future cancels the running statement (via
+ * {@link java.sql.Statement#cancel()}), or stops it from starting if it hasn't yet.
+ * <p>
+ * Idle threads time out after {@link #IDLE_THREAD_TIMEOUT_SECONDS}, so an executor
+ * that isn't being used holds no threads.  The shared executors (see
+ * {@link #forDataSource}) only hold their DataSources weakly and are shut down
+ * once their DataSource has been garbage collected (or {@link #shutdown(DataSource)}
+ * is called), so that per-tenant or redeployed DataSources aren't leaked.
+ */
+public class AsyncJdbcExecutor {
+
+    public static final int DEFAULT_MAX_CONCURRENCY = 10;
+    public static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+    private static final Cache<DataSource, AsyncJdbcExecutor> executors = CacheBuilder.newBuilder()
+                                                                                      .weakKeys() // compared by identity and don't stop DataSources being collected
+                                                                                      .removalListener((RemovalListener<DataSource, AsyncJdbcExecutor>) notification -> notification.getValue().shutdown())
+                                                                                      .build();
+    private static final AtomicInteger threadCounter = new AtomicInteger();
+
+    private final Supplier<DataSource> dataSource;
+    private final ExecutorService executorService;
+    private final Semaphore running;
+    private final Semaphore queued;
+
+    public AsyncJdbcExecutor(DataSource dataSource, int maxConcurrency, int maxQueued) {
+        this(() -> dataSource, maxConcurrency, maxQueued);
+        assertNotNull(dataSource, "dataSource is null");
+    }
+
+    /**
+     * Returns the shared executor for the data source, creating it if necessary.
+     */
+    public static AsyncJdbcExecutor forDataSource(DataSource dataSource) {
+        synchronized (executors) {
+            AsyncJdbcExecutor executor = executors.getIfPresent(dataSource);
+            if (executor == null) {
+                int maxConcurrency = determineMaxPoolSize(dataSource);
+                executor = newSharedExecutor(dataSource, maxConcurrency, maxConcurrency * 64);
+                executors.put(dataSource, executor);
+            }
+            return executor;
+        }
+    }
+
+    /**
+     * Replaces the shared executor for the data source with one of the given size
+     * (the previous one is shut down).
+     */
+    public static AsyncJdbcExecutor configure(DataSource dataSource, int maxConcurrency, int maxQueued) {
+        synchronized (executors) {
+            AsyncJdbcExecutor executor = newSharedExecutor(dataSource, maxConcurrency, maxQueued);
+            executors.put(dataSource, executor);
+            return executor;
+        }
+    }
+
+    /**
+     * Shuts down the shared executor for the data source if there is one (statements
+     * already submitted are still run).  A new one is created if
+     * {@link #forDataSource} is called again.
+     */
+    public static void shutdown(DataSource dataSource) {
+        synchronized (executors) {
+            executors.invalidate(dataSource);
+        }
+    }
+
+    public <T> CompletableFuture<List<T>> query(String sql, Object[] parameterValues, Jdbc.RowMapper<T> rowMapper) {
+        return submit(sql, parameterValues, stmt -> {
+            ResultSet rset = stmt.executeQuery();
+            try {
+                List<T> list = new ArrayList<>();
+                while (rset.next()) {
+                    list.add(rowMapper.mapRow(rset));
+                }
+                return list;
+            } finally {
+                rset.close();
+            }
+        });
+    }
+
+    public CompletableFuture<Integer> update(String sql, Object[] parameterValues) {
+        return submit(sql, parameterValues, PreparedStatement::executeUpdate);
+    }
+
+    public void shutdown() {
+        executorService.shutdown();
+    }
+
+
+    //======================== Everything below here is private ========================//
+
+    private interface StatementWork<T> {
+        T perform(PreparedStatement stmt) throws SQLException;
+    }
+
+    private AsyncJdbcExecutor(Supplier<DataSource> dataSource, int maxConcurrency, int maxQueued) {
+        assertTrue(maxConcurrency > 0, "maxConcurrency must be greater than zero");
+        assertTrue(maxQueued > 0, "maxQueued must be greater than zero");
+        this.dataSource = dataSource;
+        this.running = new Semaphore(maxConcurrency);
+        this.queued = new Semaphore(maxConcurrency + maxQueued);
+        ExecutorService virtualThreadExecutorService = newVirtualThreadExecutorServiceIfAvailable();
+        if (virtualThreadExecutorService != null) {
+            this.executorService = virtualThreadExecutorService;
+        } else {
+            ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                                                                           IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS,
+                                                                           new LinkedBlockingQueue<>(),
+                                                                           new DaemonThreadFactory());
+            threadPoolExecutor.allowCoreThreadTimeOut(true);
+            this.executorService = threadPoolExecutor;
+        }
+    }
+
+    /**
+     * The shared executors only hold their DataSource weakly, as it is their key in
+     * the weak keyed executors cache and a strong reference from the value would
+     * stop it from ever being collected.
+     */
+    private static AsyncJdbcExecutor newSharedExecutor(DataSource dataSource, int maxConcurrency, int maxQueued) {
+        WeakReference<DataSource> dataSourceReference = new WeakReference<>(dataSource);
+        return new AsyncJdbcExecutor(dataSourceReference::get, maxConcurrency, maxQueued);
+    }
+
+    private <T> CompletableFuture<T> submit(String sql, Object[] parameterValues, StatementWork<T> work) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        AtomicReference<PreparedStatement> runningStatement = new AtomicReference<>();
+        future.whenComplete((result, throwable) -> {
+            if (future.isCancelled()) {
+                PreparedStatement stmt = runningStatement.get();
+                if (stmt != null) {
+                    try {
+                        stmt.cancel();
+                    } catch (SQLException ignored) {
+                    }
+                }
+            }
+        });
+
+        try {
+            queued.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(e);
+            return future;
+        }
+        try {
+            executorService.execute(() -> {
+                try {
+                    running.acquire();
+                    try {
+                        if (!future.isDone()) {
+                            future.complete(execute(sql, parameterValues, work, runningStatement, future));
+                        }
+                    } finally {
+                        running.release();
+                    }
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    queued.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.release();
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private <T> T execute(String sql,
+                          Object[] parameterValues,
+                          StatementWork<T> work,
+                          AtomicReference<PreparedStatement> runningStatement,
+                          CompletableFuture<T> future) {
+        try {
+            DataSource dataSource = this.dataSource.get();
+            if (dataSource == null) {
+                throw new IllegalStateException("The executor's DataSource has been garbage collected");
+            }
+            Connection connection = dataSource.getConnection();
+            try {
+                PreparedStatement stmt = connection.prepareStatement(sql);
+                try {
+                    if (parameterValues != null) {
+                        for (int i = 0; i < parameterValues.length; i++) {
+                            stmt.setObject(i + 1, parameterValues[i]);
+                        }
+                    }
+                    runningStatement.set(stmt);
+                    if (future.isCancelled()) {
+                        return null;
+                    }
+                    return work.perform(stmt);
+                } finally {
+                    runningStatement.set(null);
+                    stmt.close();
+                }
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql, parameterValues);
+        }
+    }
+
+    private static ExecutorService newVirtualThreadExecutorServiceIfAvailable() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Looks for the maximum pool size getter of the common pooling data sources
+     * (PGPoolingDataSource, commons-dbcp, commons-dbcp2 and Hikari).
+     */
+    private static int determineMaxPoolSize(DataSource dataSource) {
+        for (String getterName : new String[]{"getMaxConnections", "getMaxActive", "getMaxTotal", "getMaximumPoolSize"}) {
+            try {
+                Object value = dataSource.getClass().getMethod(getterName).invoke(dataSource);
+                if (value instanceof Integer && (Integer) value > 0) {
+                    return (Integer) value;
+                }
+            } catch (ReflectiveOperationException | RuntimeException ignored) {
+            }
+        }
+        return DEFAULT_MAX_CONCURRENCY;
+    }
+
+    private static class DaemonThreadFactory implements ThreadFactory {
+        @Override public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "async-jdbc-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
@@ -0,0 +1,432 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+package com.jirvan.util;
+
+import com.jirvan.lang.SQLRuntimeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jirvan.util.Assertions.*;
+
+/**
+ * Runs a load into a table with the table's triggers, foreign keys and non-unique
+ * indexes out of the way, putting them back (and so checking the foreign keys and
+ * building the indexes once, rather than row by row) afterwards.  What is put out
+ * of the way and how depends on the database:
+ * <ul>
+ * <li>PostgreSQL: user triggers are disabled and foreign keys and non-unique indexes are dropped and re-created from their definitions</li>
+ * <li>Oracle: triggers and foreign keys are disabled and non-unique indexes are marked unusable and rebuilt</li>
+ * <li>SQL Server: triggers and foreign keys are disabled and non-unique nonclustered indexes are disabled and rebuilt</li>
+ * <li>SQLite: non-unique indexes are dropped and re-created (triggers can not be disabled and foreign keys are not enforced by default)</li>
+ * </ul>
+ * Only things that are enabled to begin with are touched and they are always
+ * restored, even if the load fails.  If something can not be restored the error
+ * is logged along with the statement that would restore it.
+ * <p>
+ * The load is run in its own transaction, which is committed if the load
+ * succeeds and rolled back if it fails (the transaction the connection was in
+ * beforehand is committed first).  When a data source is given the PostgreSQL and
+ * Oracle index rebuilds are spread across several connections.
+ * <p>
+ * The table is looked up in the database's metadata, matching its name exactly or,
+ * failing that, ignoring case (so names can be given as they would be in sql,
+ * optionally qualified as "schema.table" if no schema name is given), and the
+ * names in the generated DDL are quoted.
+ */
+public class BulkLoad {
+
+    public static final int DEFAULT_MAX_CONNECTIONS = 4;
+
+    private static final Logger log = LoggerFactory.getLogger(BulkLoad.class);
+
+    public interface Loader<T> {
+        T load(Connection connection) throws SQLException;
+    }
+
+    public static <T> T load(DataSource dataSource, String tableName, Loader<T> loader) {
+        return load(dataSource, null, tableName, DEFAULT_MAX_CONNECTIONS, loader);
+    }
+
+    public static <T> T load(DataSource dataSource, String tableName, int maxConnections, Loader<T> loader) {
+        return load(dataSource, null, tableName, maxConnections, loader);
+    }
+
+    /**
+     * @param schemaName     may be null for the table to be looked for in all schemas
+     * @param maxConnections the maximum number of connections (including the one
+     *                       the load is run on) to rebuild indexes with
+     */
+    public static <T> T load(DataSource dataSource, String schemaName, String tableName, int maxConnections, Loader<T> loader) {
+        assertTrue(maxConnections > 0, "maxConnections must be greater than zero");
+        try {
+            Connection connection = dataSource.getConnection();
+            try {
+                return load(connection, dataSource, schemaName, tableName, maxConnections, loader);
+            } finally {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    public static <T> T load(Connection connection, String tableName, Loader<T> loader) {
+        return load(connection, null, tableName, loader);
+    }
+
+    /**
+     * @param schemaName may be null for the table to be looked for in all schemas
+     */
+    public static <T> T load(Connection connection, String schemaName, String tableName, Loader<T> loader) {
+        try {
+            return load(connection, null, schemaName, tableName, 1, loader);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    //======================== Everything below here is private ========================//
+
+    private static class Step {
+
+        private final String deferSql;
+        private final String restoreSql;
+        private final boolean rebuildsIndex;
+
+        private Step(String deferSql, String restoreSql, boolean rebuildsIndex) {
+            this.deferSql = deferSql;
+            this.restoreSql = restoreSql;
+            this.rebuildsIndex = rebuildsIndex;
+        }
+
+    }
+
+    private static <T> T load(Connection connection, DataSource dataSource, String schemaName, String tableName, int maxConnections, Loader<T> loader) throws SQLException {
+        DatabaseType databaseType = DatabaseType.get(connection);
+        DatabaseMetadata.TableInfo table = getTable(connection, schemaName, tableName);
+        boolean autoCommit = connection.getAutoCommit();
+        if (!autoCommit) {
+            connection.commit();
+        }
+        connection.setAutoCommit(false);
+        try {
+
+            // Get the triggers etc out of the way (committing each step as some
+            // databases have transactional DDL and a rollback would otherwise undo
+            // steps that are then "restored")
+            List<Step> deferredSteps = new ArrayList<>();
+            try {
+                for (Step step : getSteps(connection, databaseType, table)) {
+                    execute(connection, step.deferSql);
+                    connection.commit();
+                    deferredSteps.add(step);
+                }
+            } catch (Throwable t) {
+                rollbackAndRestore(connection, dataSource, databaseType, maxConnections, deferredSteps, t);
+                throw t;
+            }
+
+            // Load the table and put the triggers etc back
+            T result;
+            try {
+                result = loader.load(connection);
+                connection.commit();
+            } catch (Throwable t) {
+                rollbackAndRestore(connection, dataSource, databaseType, maxConnections, deferredSteps, t);
+                throw t;
+            }
+            restore(connection, dataSource, databaseType, maxConnections, deferredSteps);
+            return result;
+
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Returns the table as the database reports it (see the class comment)
+     */
+    private static DatabaseMetadata.TableInfo getTable(Connection connection, String schemaName, String tableName) {
+        List<DatabaseMetadata.TableInfo> tables = findTables(connection, schemaName, tableName);
+        int dotIndex = tableName.lastIndexOf('.');
+        if (tables.isEmpty() && schemaName == null && dotIndex > 0) {
+            tables = findTables(connection, tableName.substring(0, dotIndex), tableName.substring(dotIndex + 1));
+        }
+        if (tables.isEmpty()) {
+            throw new RuntimeException(String.format("Table \"%s\" does not exist", tableName));
+        } else if (tables.size() > 1) {
+            throw new RuntimeException(String.format("Schema must be specified as table \"%s\" is in more than one (found %s and %s, there could be others)",
+                                                     tableName, tables.get(0).schemaName, tables.get(1).schemaName));
+        }
+        return tables.get(0);
+    }
+
+    private static List<DatabaseMetadata.TableInfo> findTables(Connection connection, String schemaName, String tableName) {
+        // Metadata got from a connection isn't shared so tables created since
+        // anything else read the metadata are found
+        List<DatabaseMetadata.TableInfo> tables = DatabaseMetadata.get(connection).getTables(null, schemaName);
+        List<DatabaseMetadata.TableInfo> matches = new ArrayList<>();
+        for (DatabaseMetadata.TableInfo table : tables) {
+            if (table.tableName.equals(tableName)) matches.add(table);
+        }
+        if (matches.isEmpty()) {
+            for (DatabaseMetadata.TableInfo table : tables) {
+                if (table.tableName.equalsIgnoreCase(tableName)) matches.add(table);
+            }
+        }
+        return matches;
+    }
+
+    private static List<Step> getSteps(Connection connection, DatabaseType databaseType, DatabaseMetadata.TableInfo table) throws SQLException {
+        String quotedTableName = databaseType.quoteTableName(table.schemaName, table.tableName);
+        List<Step> steps = new ArrayList<>();
+        switch (databaseType) {
+
+            case postgres:
+                for (String[] row : query(connection, "select tgname from pg_catalog.pg_trigger where tgrelid = cast(? as regclass) and not tgisinternal and tgenabled <> 'D'", quotedTableName)) {
+                    steps.add(new Step("alter table " + quotedTableName + " disable trigger " + databaseType.quoteIdentifier(row[0]),
+                                       "alter table " + quotedTableName + " enable trigger " + databaseType.quoteIdentifier(row[0]), false));
+                }
+                for (String[] row : query(connection, "select conname, pg_catalog.pg_get_constraintdef(oid) from pg_catalog.pg_constraint where conrelid = cast(? as regclass) and contype = 'f'", quotedTableName)) {
+                    steps.add(new Step("alter table " + quotedTableName + " drop constraint " + databaseType.quoteIdentifier(row[0]),
+                                       "alter table " + quotedTableName + " add constraint " + databaseType.quoteIdentifier(row[0]) + " " + row[1], false));
+                }
+
+                // The regclass text is already quoted (and schema qualified) where necessary
+                for (String[] row : query(connection, "select cast(cast(i.indexrelid as regclass) as text), pg_catalog.pg_get_indexdef(i.indexrelid)\n" +
+                                                      "from pg_catalog.pg_index i\n" +
+                                                      "where i.indrelid = cast(? as regclass)\n" +
+                                                      "  and not i.indisunique\n" +
+                                                      "  and not i.indisprimary\n" +
+                                                      "  and not exists (select 1 from pg_catalog.pg_constraint c where c.conindid = i.indexrelid)", quotedTableName)) {
+                    steps.add(new Step("drop index " + row[0], row[1], true));
+                }
+                break;
+
+            case oracle:
+                for (String[] row : query(connection, "select owner, trigger_name from all_triggers where table_owner = ? and table_name = ? and status = 'ENABLED'", table.schemaName, table.tableName)) {
+                    steps.add(new Step("alter trigger " + databaseType.quoteTableName(row[0], row[1]) + " disable",
+                                       "alter trigger " + databaseType.quoteTableName(row[0], row[1]) + " enable", false));
+                }
+                for (String[] row : query(connection, "select constraint_name from all_constraints where owner = ? and table_name = ? and constraint_type = 'R' and status = 'ENABLED'", table.schemaName, table.tableName)) {
+                    steps.add(new Step("alter table " + quotedTableName + " disable constraint " + databaseType.quoteIdentifier(row[0]),
+                                       "alter table " + quotedTableName + " enable constraint " + databaseType.quoteIdentifier(row[0]), false));
+                }
+                for (String[] row : query(connection, "select owner, index_name from all_indexes where table_owner = ? and table_name = ? and uniqueness = 'NONUNIQUE' and index_type = 'NORMAL' and partitioned = 'NO' and status = 'VALID'", table.schemaName, table.tableName)) {
+                    steps.add(new Step("alter index " + databaseType.quoteTableName(row[0], row[1]) + " unusable",
+                                       "alter index " + databaseType.quoteTableName(row[0], row[1]) + " rebuild", true));
+                }
+                break;
+
+            case sqlserver:
+                for (String[] row : query(connection, "select name from sys.triggers where parent_id = object_id(?) and is_disabled = 0", quotedTableName)) {
+                    steps.add(new Step("disable trigger " + databaseType.quoteIdentifier(row[0]) + " on " + quotedTableName,
+                                       "enable trigger " + databaseType.quoteIdentifier(row[0]) + " on " + quotedTableName, false));
+                }
+                for (String[] row : query(connection, "select name, is_not_trusted from sys.foreign_keys where parent_object_id = object_id(?) and is_disabled = 0", quotedTableName)) {
+                    // Only re-check existing rows if the key was trusted to begin with
+                    steps.add(new Step("alter table " + quotedTableName + " nocheck constraint " + databaseType.quoteIdentifier(row[0]),
+                                       "alter table " + quotedTableName + ("0".equals(row[1]) || "false".equals(row[1]) ? " with check" : "") + " check constraint " + databaseType.quoteIdentifier(row[0]), false));
+                }
+                for (String[] row : query(connection, "select name from sys.indexes where object_id = object_id(?) and type = 2 and is_unique = 0 and is_primary_key = 0 and is_unique_constraint = 0 and is_disabled = 0", quotedTableName)) {
+                    steps.add(new Step("alter index " + databaseType.quoteIdentifier(row[0]) + " on " + quotedTableName + " disable",
+                                       "alter index " + databaseType.quoteIdentifier(row[0]) + " on " + quotedTableName + " rebuild", true));
+                }
+                break;
+
+            case sqlite:
+                for (String[] row : query(connection, "select name, sql from sqlite_master where type = 'index' and tbl_name = ? and sql is not null and sql not like 'create unique%'", table.tableName)) {
+                    steps.add(new Step("drop index " + databaseType.quoteIdentifier(row[0]), row[1], true));
+                }
+                break;
+
+            default:
+                throw new RuntimeException(String.format("Bulk loading is not supported for %s databases", databaseType.getDatabaseProductName()));
+
+        }
+        return steps;
+    }
+
+    private static void rollbackAndRestore(Connection connection, DataSource dataSource, DatabaseType databaseType, int maxConnections, List<Step> deferredSteps, Throwable loadFailure) {
+        try {
+            connection.rollback();
+            restore(connection, dataSource, databaseType, maxConnections, deferredSteps);
+        } catch (Throwable t) {
+            loadFailure.addSuppressed(t);
+        }
+    }
+
+    /**
+     * Rebuilds the indexes and then restores everything else in the reverse of the
+     * order it was deferred in, carrying on past any failures so as much as possible
+     * is restored.
+     */
+    private static void restore(Connection connection, DataSource dataSource, DatabaseType databaseType, int maxConnections, List<Step> deferredSteps) {
+        List<Throwable> failures = new ArrayList<>();
+        List<String> indexRestoreSqls = new ArrayList<>();
+        for (Step step : deferredSteps) {
+            if (step.rebuildsIndex) indexRestoreSqls.add(step.restoreSql);
+        }
+        boolean parallelRebuildSupported = databaseType == DatabaseType.postgres || databaseType == DatabaseType.oracle;
+        int additionalConnections = dataSource == null || !parallelRebuildSupported ? 0 : Math.min(maxConnections, indexRestoreSqls.size()) - 1;
+        AtomicInteger nextIndex = new AtomicInteger();
+        if (additionalConnections <= 0) {
+            restore(connection, indexRestoreSqls, nextIndex, failures);
+        } else {
+            ExecutorService executorService = Executors.newFixedThreadPool(additionalConnections);
+            try {
+                List<Future<Object>> futures = new ArrayList<>();
+                for (int i = 0; i < additionalConnections; i++) {
+                    futures.add(executorService.submit(() -> {
+                        try (Connection additionalConnection = dataSource.getConnection()) {
+                            additionalConnection.setAutoCommit(true);
+                            restore(additionalConnection, indexRestoreSqls, nextIndex, failures);
+                        }
+                        return null;
+                    }));
+                }
+                restore(connection, indexRestoreSqls, nextIndex, failures);
+                for (Future<Object> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        synchronized (failures) {
+                            failures.add(e.getCause());
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } finally {
+                executorService.shutdownNow();
+            }
+        }
+        for (int i = deferredSteps.size() - 1; i >= 0; i--) {
+            Step step = deferredSteps.get(i);
+            if (!step.rebuildsIndex) {
+                restore(connection, step.restoreSql, failures);
+            }
+        }
+        if (!failures.isEmpty()) {
+            RuntimeException exception = failures.get(0) instanceof RuntimeException
+                                         ? (RuntimeException) failures.get(0)
+                                         : new RuntimeException(failures.get(0));
+            for (int i = 1; i < failures.size(); i++) {
+                exception.addSuppressed(failures.get(i));
+            }
+            throw exception;
+        }
+    }
+
+    private static void restore(Connection connection, List<String> restoreSqls, AtomicInteger nextIndex, List<Throwable> failures) {
+        int index;
+        while ((index = nextIndex.getAndIncrement()) < restoreSqls.size()) {
+            restore(connection, restoreSqls.get(index), failures);
+        }
+    }
+
+    private static void restore(Connection connection, String restoreSql, List<Throwable> failures) {
+        try {
+            execute(connection, restoreSql);
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+        } catch (Throwable t) {
+            log.error("Could not restore after bulk load (\"{}\" will need to be run manually)", restoreSql, t);
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                t.addSuppressed(e);
+            }
+            synchronized (failures) {
+                failures.add(t instanceof SQLException ? new SQLRuntimeException((SQLException) t, restoreSql) : t);
+            }
+        }
+    }
+
+    private static void execute(Connection connection, String sql) {
+        try {
+            Statement stmt = connection.createStatement();
+            try {
+                stmt.execute(sql);
+            } finally {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql);
+        }
+    }
+
+    private static List<String[]> query(Connection connection, String sql, String... parameterValues) throws SQLException {
+        List<String[]> rows = new ArrayList<>();
+        PreparedStatement stmt = connection.prepareStatement(sql);
+        try {
+            for (int i = 0; i < parameterValues.length; i++) {
+                stmt.setString(i + 1, parameterValues[i]);
+            }
+            ResultSet rset = stmt.executeQuery();
+            try {
+                int columnCount = rset.getMetaData().getColumnCount();
+                while (rset.next()) {
+                    String[] row = new String[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        row[i] = rset.getString(i + 1);
+                    }
+                    rows.add(row);
+                }
+            } finally {
+                rset.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql);
+        } finally {
+            stmt.close();
+        }
+        return rows;
+    }
+
+}
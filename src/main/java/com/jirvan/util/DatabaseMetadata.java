@@ -0,0 +1,415 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.jirvan.lang.SQLRuntimeException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches JDBC metadata (database product, tables, column types, primary keys and
+ * foreign keys) so that repeated lookups don't each need a round trip (or, for a
+ * DataSource, a connection).
+ * <p>
+ * Metadata obtained with {@link #get(DataSource)} is cached for that DataSource
+ * instance (and is discarded along with it).  Its table level metadata expires
+ * after {@link #getTimeToLiveMillis()} and can be discarded explicitly with
+ * {@link #refresh()} (after DDL for example), which
+ * {@link com.jirvan.dbreflect.DbReflect#getTables} does before reflecting.
+ * Metadata obtained with {@link #get(Connection)} is only cached by the returned
+ * instance, so each get(connection) sees the database as it is at the time.
+ * <p>
+ * Empty results (e.g. for a table that doesn't exist yet) are never cached, and
+ * {@link #getColumn} re-reads a table's columns before reporting a column as
+ * missing, so tables and columns created after their table was cached are still
+ * found.  The returned lists are shared and must not be modified.
+ */
+public class DatabaseMetadata {
+
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 10 * 60 * 1000;
+
+    private static volatile long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+    private static final Cache<DataSource, Database> dataSourceDatabases = CacheBuilder.newBuilder()
+                                                                                        .weakKeys() // compared by identity and don't stop DataSources being collected
+                                                                                        .build();
+
+    private final Database database;
+    private final DataSource dataSource;
+    private final Connection connection;
+
+    private DatabaseMetadata(Database database, DataSource dataSource, Connection connection) {
+        this.database = database;
+        this.dataSource = dataSource;
+        this.connection = connection;
+    }
+
+    /**
+     * Only the first call for a given DataSource needs a connection, after that
+     * connections are only obtained to load metadata that is not already cached.
+     */
+    public static DatabaseMetadata get(DataSource dataSource) {
+        Database database = dataSourceDatabases.getIfPresent(dataSource);
+        if (database == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                database = newDatabase(connection);
+            } catch (SQLException e) {
+                throw new SQLRuntimeException(e);
+            }
+            Database existingDatabase = dataSourceDatabases.asMap().putIfAbsent(dataSource, database);
+            if (existingDatabase != null) database = existingDatabase;
+        }
+        return new DatabaseMetadata(database, dataSource, null);
+    }
+
+    /**
+     * Metadata is loaded using the given connection (and only cached by the
+     * returned instance), so the returned instance should not be used after the
+     * connection is closed.
+     */
+    public static DatabaseMetadata get(Connection connection) {
+        try {
+            return new DatabaseMetadata(newDatabase(connection), null, connection);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e);
+        }
+    }
+
+    public static long getTimeToLiveMillis() {
+        return timeToLiveMillis;
+    }
+
+    public static void setTimeToLiveMillis(long timeToLiveMillis) {
+        DatabaseMetadata.timeToLiveMillis = timeToLiveMillis;
+    }
+
+    /**
+     * Discards the cached table level metadata for all DataSources.
+     */
+    public static void refreshAll() {
+        for (Database database : dataSourceDatabases.asMap().values()) {
+            database.clear();
+        }
+    }
+
+    /**
+     * Discards the cached table level metadata for the DataSource (if there is
+     * any, without getting a connection if there isn't).
+     */
+    public static void refresh(DataSource dataSource) {
+        Database database = dataSourceDatabases.getIfPresent(dataSource);
+        if (database != null) {
+            database.clear();
+        }
+    }
+
+    /**
+     * Discards the cached table level metadata for this database.
+     */
+    public void refresh() {
+        database.clear();
+    }
+
+    public String getDatabaseProductName() {
+        return database.databaseProductName;
+    }
+
+    public String getUserName() {
+        return database.userName;
+    }
+
+    public DatabaseType getDatabaseType() {
+        return DatabaseType.get(database.databaseProductName);
+    }
+
+    public DatabaseType getDatabaseTypeIfSupported(DatabaseType... supportedDatabaseTypes) {
+        return DatabaseType.getIfSupported(database.databaseProductName, supportedDatabaseTypes);
+    }
+
+    /**
+     * Returns the tables (of type "TABLE") in the given catalog and schema (either
+     * of which may be null as for {@link DatabaseMetaData#getTables}).
+     */
+    public List<TableInfo> getTables(String catalogName, String schemaName) {
+        return get(database.tables, Arrays.asList(catalogName, schemaName), false, connection -> {
+            List<TableInfo> list = new ArrayList<>();
+            try (ResultSet resultSet = connection.getMetaData().getTables(catalogName, schemaName, null, new String[]{"TABLE"})) {
+                while (resultSet.next()) {
+                    TableInfo table = new TableInfo();
+                    table.catalogName = resultSet.getString("TABLE_CAT");
+                    table.schemaName = resultSet.getString("TABLE_SCHEM");
+                    table.tableName = resultSet.getString("TABLE_NAME");
+                    table.remarks = resultSet.getString("REMARKS");
+                    list.add(table);
+                }
+            }
+            return list;
+        });
+    }
+
+    /**
+     * Returns the columns of the given table in the order returned by
+     * {@link DatabaseMetaData#getColumns} (an empty list if the table does not
+     * exist).
+     */
+    public List<ColumnInfo> getColumns(String catalogName, String schemaName, String tableName) {
+        return getColumns(catalogName, schemaName, tableName, false);
+    }
+
+    /**
+     * Returns the first column with the given name (or, failing that, with the
+     * given name ignoring case) or null if there is no such column.  If the column
+     * isn't in the cached columns they are re-read in case it has been added since.
+     */
+    public ColumnInfo getColumn(String catalogName, String schemaName, String tableName, String columnName) {
+        ColumnInfo column = findColumn(getColumns(catalogName, schemaName, tableName, false), columnName);
+        return column != null ? column : findColumn(getColumns(catalogName, schemaName, tableName, true), columnName);
+    }
+
+    public List<String> getPrimaryKeyColumnNames(String catalogName, String schemaName, String tableName) {
+        return get(database.primaryKeyColumnNames, Arrays.asList(catalogName, schemaName, tableName), false, connection -> {
+            List<String> list = new ArrayList<>();
+            try (ResultSet resultSet = connection.getMetaData().getPrimaryKeys(catalogName, schemaName, tableName)) {
+                while (resultSet.next()) {
+                    list.add(resultSet.getString("COLUMN_NAME"));
+                }
+            }
+            return list;
+        });
+    }
+
+    /**
+     * Returns the foreign key columns that reference the given table in the order
+     * returned by {@link DatabaseMetaData#getExportedKeys}.
+     */
+    public List<ForeignKeyColumn> getExportedKeys(String catalogName, String schemaName, String tableName) {
+        return get(database.exportedKeys, Arrays.asList(catalogName, schemaName, tableName), false, connection -> {
+            try (ResultSet resultSet = connection.getMetaData().getExportedKeys(catalogName, schemaName, tableName)) {
+                return getForeignKeyColumns(resultSet);
+            }
+        });
+    }
+
+    /**
+     * Returns the given table's foreign key columns in the order returned by
+     * {@link DatabaseMetaData#getImportedKeys}.
+     */
+    public List<ForeignKeyColumn> getImportedKeys(String catalogName, String schemaName, String tableName) {
+        return get(database.importedKeys, Arrays.asList(catalogName, schemaName, tableName), false, connection -> {
+            try (ResultSet resultSet = connection.getMetaData().getImportedKeys(catalogName, schemaName, tableName)) {
+                return getForeignKeyColumns(resultSet);
+            }
+        });
+    }
+
+    public static class TableInfo {
+
+        public String catalogName;
+        public String schemaName;
+        public String tableName;
+        public String remarks;
+
+    }
+
+    public static class ColumnInfo {
+
+        public String tableName;
+        public String columnName;
+
+        /**
+         * The java.sql.Types type
+         */
+        public int dataType;
+        public String typeName;
+        public int columnSize;
+        public int decimalDigits;
+
+        /**
+         * One of DatabaseMetaData.columnNoNulls, columnNullable or columnNullableUnknown
+         */
+        public short nullable;
+
+    }
+
+    public static class ForeignKeyColumn {
+
+        public String fkName;
+        public int keySeq;
+        public String fkCatalogName;
+        public String fkSchemaName;
+        public String fkTableName;
+        public String fkColumnName;
+        public String pkCatalogName;
+        public String pkSchemaName;
+        public String pkTableName;
+        public String pkColumnName;
+
+    }
+
+//======================== Everything below here is private ========================//
+
+    private interface Loader<T> {
+
+        T load(Connection connection) throws SQLException;
+
+    }
+
+    /**
+     * Empty lists are returned but not cached
+     */
+    private <T> List<T> get(Map<List<String>, Cached> cache, List<String> key, boolean forceReload, Loader<List<T>> loader) {
+        Cached cached = forceReload ? null : cache.get(key);
+        if (cached == null || System.currentTimeMillis() - cached.loadedAt > timeToLiveMillis) {
+            try {
+                List<T> value;
+                if (connection != null) {
+                    value = loader.load(connection);
+                } else {
+                    try (Connection dataSourceConnection = dataSource.getConnection()) {
+                        value = loader.load(dataSourceConnection);
+                    }
+                }
+                cached = new Cached(Collections.unmodifiableList(value));
+                if (value.isEmpty()) {
+                    cache.remove(key);
+                } else {
+                    cache.put(key, cached);
+                }
+            } catch (SQLException e) {
+                throw new SQLRuntimeException(e);
+            }
+        }
+        @SuppressWarnings("unchecked") List<T> value = (List<T>) cached.value;
+        return value;
+    }
+
+    private List<ColumnInfo> getColumns(String catalogName, String schemaName, String tableName, boolean forceReload) {
+        return get(database.columns, Arrays.asList(catalogName, schemaName, tableName), forceReload, connection -> {
+            List<ColumnInfo> list = new ArrayList<>();
+            try (ResultSet resultSet = connection.getMetaData().getColumns(catalogName, schemaName, tableName, null)) {
+                while (resultSet.next()) {
+                    ColumnInfo column = new ColumnInfo();
+                    column.tableName = resultSet.getString("TABLE_NAME");
+                    column.columnName = resultSet.getString("COLUMN_NAME");
+                    column.dataType = resultSet.getInt("DATA_TYPE");
+                    column.typeName = resultSet.getString("TYPE_NAME");
+                    column.columnSize = resultSet.getInt("COLUMN_SIZE");
+                    column.decimalDigits = resultSet.getInt("DECIMAL_DIGITS");
+                    column.nullable = resultSet.getShort("NULLABLE");
+                    list.add(column);
+                }
+            }
+            return list;
+        });
+    }
+
+    private static ColumnInfo findColumn(List<ColumnInfo> columns, String columnName) {
+        for (ColumnInfo column : columns) {
+            if (column.columnName.equals(columnName)) return column;
+        }
+        for (ColumnInfo column : columns) {
+            if (column.columnName.equalsIgnoreCase(columnName)) return column;
+        }
+        return null;
+    }
+
+    private static List<ForeignKeyColumn> getForeignKeyColumns(ResultSet resultSet) throws SQLException {
+        List<ForeignKeyColumn> list = new ArrayList<>();
+        while (resultSet.next()) {
+            ForeignKeyColumn foreignKeyColumn = new ForeignKeyColumn();
+            foreignKeyColumn.fkName = resultSet.getString("FK_NAME");
+            foreignKeyColumn.keySeq = resultSet.getInt("KEY_SEQ");
+            foreignKeyColumn.fkCatalogName = resultSet.getString("FKTABLE_CAT");
+            foreignKeyColumn.fkSchemaName = resultSet.getString("FKTABLE_SCHEM");
+            foreignKeyColumn.fkTableName = resultSet.getString("FKTABLE_NAME");
+            foreignKeyColumn.fkColumnName = resultSet.getString("FKCOLUMN_NAME");
+            foreignKeyColumn.pkCatalogName = resultSet.getString("PKTABLE_CAT");
+            foreignKeyColumn.pkSchemaName = resultSet.getString("PKTABLE_SCHEM");
+            foreignKeyColumn.pkTableName = resultSet.getString("PKTABLE_NAME");
+            foreignKeyColumn.pkColumnName = resultSet.getString("PKCOLUMN_NAME");
+            list.add(foreignKeyColumn);
+        }
+        return list;
+    }
+
+    private static Database newDatabase(Connection connection) throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        return new Database(metaData.getDatabaseProductName(), metaData.getUserName());
+    }
+
+    private static class Database {
+
+        private final String databaseProductName;
+        private final String userName;
+        private final Map<List<String>, Cached> tables = new ConcurrentHashMap<>();
+        private final Map<List<String>, Cached> columns = new ConcurrentHashMap<>();
+        private final Map<List<String>, Cached> primaryKeyColumnNames = new ConcurrentHashMap<>();
+        private final Map<List<String>, Cached> exportedKeys = new ConcurrentHashMap<>();
+        private final Map<List<String>, Cached> importedKeys = new ConcurrentHashMap<>();
+
+        private Database(String databaseProductName, String userName) {
+            this.databaseProductName = databaseProductName;
+            this.userName = userName;
+        }
+
+        private void clear() {
+            tables.clear();
+            columns.clear();
+            primaryKeyColumnNames.clear();
+            exportedKeys.clear();
+            importedKeys.clear();
+        }
+
+    }
+
+    private static class Cached {
+
+        private final long loadedAt = System.currentTimeMillis();
+        private final Object value;
+
+        private Cached(Object value) {
+            this.value = value;
+        }
+
+    }
+
+}
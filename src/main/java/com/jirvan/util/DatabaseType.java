@@ -39,26 +39,51 @@ import java.sql.SQLException;
 
 public enum DatabaseType {
 
-    sqlserver("Microsoft SQL Server"),
-    sqlite("SQLite"),
-    postgres("PostgreSQL");
+    sqlserver("Microsoft SQL Server", 2099, 1000),
+    sqlite("SQLite", 999, 500),
+    postgres("PostgreSQL", 32767, Integer.MAX_VALUE),
+    oracle("Oracle", 65535, 1000);
 
     private String databaseProductName;
+    private int maxBindParameters;
+    private int maxRowsPerInsert;
 
-    private DatabaseType(String databaseProductName) {
+    private DatabaseType(String databaseProductName, int maxBindParameters, int maxRowsPerInsert) {
         this.databaseProductName = databaseProductName;
+        this.maxBindParameters = maxBindParameters;
+        this.maxRowsPerInsert = maxRowsPerInsert;
     }
 
     public String getDatabaseProductName() {
         return databaseProductName;
     }
 
+    /**
+     * The maximum number of bind parameters ("?" placeholders) a single statement
+     * may have.  SQL Server's documented limit is 2100, but some drivers use one
+     * of these for themselves.  999 is SQLite's default SQLITE_MAX_VARIABLE_NUMBER
+     * for versions before 3.32.
+     */
+    public int getMaxBindParameters() {
+        return maxBindParameters;
+    }
+
+    /**
+     * The maximum number of rows a single multi-row insert statement may have
+     * (regardless of the bind parameter limit).  SQL Server limits a VALUES list
+     * to 1000 rows, SQLite to SQLITE_MAX_COMPOUND_SELECT (500 by default) and
+     * Oracle's "insert all" gets unreasonably slow to parse beyond 1000 or so.
+     */
+    public int getMaxRowsPerInsert() {
+        return maxRowsPerInsert;
+    }
+
+    /**
+     * Uses the {@link DatabaseMetadata} cache, so only the first call for a given
+     * DataSource needs a connection.
+     */
     public static DatabaseType get(DataSource dataSource) {
-        try (Connection connection = dataSource.getConnection()) {
-            return get(connection);
-        } catch (SQLException e) {
-            throw new SQLRuntimeException(e);
-        }
+        return DatabaseMetadata.get(dataSource).getDatabaseType();
     }
 
     public static DatabaseType get(Connection connection) {
@@ -91,11 +116,7 @@ public enum DatabaseType {
     }
 
     public static DatabaseType getIfSupported(DataSource dataSource, DatabaseType... supportedDatabaseTypes) {
-        try (Connection connection = dataSource.getConnection()) {
-            return DatabaseType.getIfSupported(connection.getMetaData().getDatabaseProductName(), supportedDatabaseTypes);
-        } catch (SQLException e) {
-            throw new SQLRuntimeException(e);
-        }
+        return DatabaseMetadata.get(dataSource).getDatabaseTypeIfSupported(supportedDatabaseTypes);
     }
 
     public static DatabaseType getIfSupported(String name, DatabaseType... supportedDatabaseTypes) {
@@ -120,6 +141,24 @@ public enum DatabaseType {
         return !isOneOf(values);
     }
 
+    /**
+     * Returns the identifier quoted (so exactly as given, whatever its case or
+     * characters) for use in sql.  SQL Server's square brackets are used as they
+     * work regardless of the QUOTED_IDENTIFIER setting.
+     */
+    public String quoteIdentifier(String identifier) {
+        return this == sqlserver ? "[" + identifier.replace("]", "]]") + "]"
+                                 : "\"" + identifier.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Returns the table name quoted as for {@link #quoteIdentifier}, qualified by
+     * the quoted schema name if that is not null.
+     */
+    public String quoteTableName(String schemaName, String tableName) {
+        return schemaName == null ? quoteIdentifier(tableName) : quoteIdentifier(schemaName) + "." + quoteIdentifier(tableName);
+    }
+
     public String getSql(Class anchorClass, String scriptRelativePath) {
         try {
             return Io.getResourceFileString(anchorClass, "sql/" + this.name() + "/" + scriptRelativePath);
@@ -0,0 +1,459 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.util;
+
+import com.jirvan.dates.Millisecond;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+/**
+ * A DataSource decorator (usually wrapped around something returned by
+ * {@link Jdbc#getDataSource(String)}) that records, for each sql "fingerprint"
+ * (the sql with literals replaced by "?" and whitespace collapsed), call counts,
+ * latency percentiles and rows returned or affected.  It also records the time
+ * spent waiting for connections, and keeps a log of the most recent statements
+ * that took longer than slowQueryThresholdMillis along with their bound parameters.
+ * <p>
+ * {@link #getSnapshot()} returns the statistics gathered so far and
+ * {@link #getSnapshotJson()} returns them as json (via {@link Json}).
+ */
+public class InstrumentedDataSource implements DataSource {
+
+    private static final int MAX_SLOW_QUERIES_LOGGED = 100;
+    private static final int MAX_CACHED_FINGERPRINTS = 10000;
+    private static final Pattern SPACES_PATTERN = Pattern.compile(" +");
+    private static final Pattern SPACES_AROUND_PUNCTUATION_PATTERN = Pattern.compile("(?<=[(,]) | (?=[,)])");
+    private static final Pattern IN_LIST_PATTERN = Pattern.compile("\\(\\?(,\\?)+\\)");
+
+    private final DataSource dataSource;
+    private final long slowQueryThresholdNanos;
+    private final LatencyHistogram connectionWaits = new LatencyHistogram();
+    private final Map<String, StatementStatistics> statementStatistics = new ConcurrentHashMap<>();
+    private final Map<String, String> fingerprintCache = new ConcurrentHashMap<>();
+    private final ArrayDeque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    public InstrumentedDataSource(DataSource dataSource, long slowQueryThresholdMillis) {
+        this.dataSource = dataSource;
+        this.slowQueryThresholdNanos = slowQueryThresholdMillis * 1000000L;
+    }
+
+    public DataSource getDataSource() {
+        return dataSource;
+    }
+
+    public Snapshot getSnapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.connectionWaits = connectionWaits.summarize();
+        snapshot.statements = new ArrayList<>();
+        for (Map.Entry<String, StatementStatistics> entry : statementStatistics.entrySet()) {
+            snapshot.statements.add(entry.getValue().summarize(entry.getKey()));
+        }
+        Collections.sort(snapshot.statements, new Comparator<StatementSummary>() {
+            @Override public int compare(StatementSummary o1, StatementSummary o2) {
+                return Double.compare(o2.totalMillis, o1.totalMillis);
+            }
+        });
+        synchronized (slowQueries) {
+            snapshot.slowQueries = new ArrayList<>(slowQueries);
+        }
+        return snapshot;
+    }
+
+    public String getSnapshotJson() {
+        return Json.toJsonString(getSnapshot());
+    }
+
+    public void reset() {
+        connectionWaits.reset();
+        statementStatistics.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    public static String fingerprint(String sql) {
+        StringBuilder stringBuilder = new StringBuilder(sql.length());
+        int length = sql.length();
+        for (int i = 0; i < length; i++) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                stringBuilder.append('?');
+            } else if (Character.isDigit(c) && (i == 0 || !Character.isLetterOrDigit(sql.charAt(i - 1)) && sql.charAt(i - 1) != '_')) {
+                while (i + 1 < length && (Character.isDigit(sql.charAt(i + 1)) || sql.charAt(i + 1) == '.')) i++;
+                stringBuilder.append('?');
+            } else {
+                stringBuilder.append(Character.isWhitespace(c) ? ' ' : c);
+            }
+        }
+        String collapsed = SPACES_PATTERN.matcher(stringBuilder).replaceAll(" ").trim();
+        collapsed = SPACES_AROUND_PUNCTUATION_PATTERN.matcher(collapsed).replaceAll("");
+        return IN_LIST_PATTERN.matcher(collapsed).replaceAll("(?...)");
+    }
+
+    public static class Snapshot {
+        public LatencySummary connectionWaits;
+        public List<StatementSummary> statements;
+        public List<SlowQuery> slowQueries;
+    }
+
+    public static class LatencySummary {
+        public long count;
+        public double totalMillis;
+        public double meanMillis;
+        public double p50Millis;
+        public double p95Millis;
+        public double p99Millis;
+        public double maxMillis;
+    }
+
+    public static class StatementSummary extends LatencySummary {
+        public String fingerprint;
+        public long errors;
+        public long rows;
+    }
+
+    public static class SlowQuery {
+
+        private Millisecond executedAt;
+        private double elapsedMillis;
+        private String sql;
+        private Object[] parameters;
+
+        private SlowQuery(long elapsedNanos, String sql, Object[] parameters) {
+            this.executedAt = Millisecond.now();
+            this.elapsedMillis = elapsedNanos / 1000000d;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        public Millisecond getExecutedAt() {
+            return executedAt;
+        }
+
+        public double getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public Object[] getParameters() {
+            return parameters;
+        }
+
+    }
+
+    @Override public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        connectionWaits.record(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection(username, password);
+        connectionWaits.record(System.nanoTime() - start);
+        return wrap(connection);
+    }
+
+    @Override public PrintWriter getLogWriter() throws SQLException {
+        return dataSource.getLogWriter();
+    }
+
+    @Override public void setLogWriter(PrintWriter out) throws SQLException {
+        dataSource.setLogWriter(out);
+    }
+
+    @Override public void setLoginTimeout(int seconds) throws SQLException {
+        dataSource.setLoginTimeout(seconds);
+    }
+
+    @Override public int getLoginTimeout() throws SQLException {
+        return dataSource.getLoginTimeout();
+    }
+
+    @Override public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        return dataSource.getParentLogger();
+    }
+
+    @Override public <T> T unwrap(Class<T> iface) throws SQLException {
+        return iface.isInstance(this) ? iface.cast(this) : dataSource.unwrap(iface);
+    }
+
+    @Override public boolean isWrapperFor(Class<?> iface) throws SQLException {
+        return iface.isInstance(this) || dataSource.isWrapperFor(iface);
+    }
+
+
+    //======================== Everything below here is private ========================//
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                                                   new Class<?>[]{Connection.class},
+                                                   new ConnectionHandler(connection));
+    }
+
+    private String cachedFingerprint(String sql) {
+        String fingerprint = fingerprintCache.get(sql);
+        if (fingerprint == null) {
+            if (fingerprintCache.size() >= MAX_CACHED_FINGERPRINTS) {
+                fingerprintCache.clear();
+            }
+            fingerprint = fingerprint(sql);
+            fingerprintCache.put(sql, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    private StatementStatistics statisticsFor(String sql) {
+        return statementStatistics.computeIfAbsent(cachedFingerprint(sql), k -> new StatementStatistics());
+    }
+
+    /**
+     * The parameters are only copied (as strings, so that the log doesn't hold on
+     * to the values) if the statement is slow enough to be logged
+     */
+    private void logIfSlow(long elapsedNanos, String sql, Object[] parameters) {
+        if (elapsedNanos >= slowQueryThresholdNanos) {
+            Object[] parameterStrings = new Object[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                parameterStrings[i] = parameters[i] == null ? null : parameters[i].toString();
+            }
+            SlowQuery slowQuery = new SlowQuery(elapsedNanos, sql, parameterStrings);
+            synchronized (slowQueries) {
+                if (slowQueries.size() >= MAX_SLOW_QUERIES_LOGGED) slowQueries.removeFirst();
+                slowQueries.addLast(slowQuery);
+            }
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class ConnectionHandler implements InvocationHandler {
+
+        private final Connection connection;
+
+        private ConnectionHandler(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = InstrumentedDataSource.invoke(connection, method, args);
+            if (result instanceof Statement) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : null;
+                Class<?> statementInterface = result instanceof CallableStatement ? CallableStatement.class
+                                                                               : result instanceof PreparedStatement ? PreparedStatement.class
+                                                                                                                     : Statement.class;
+                return Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                                              new Class<?>[]{statementInterface},
+                                              new StatementHandler((Statement) result, (Connection) proxy, sql));
+            } else {
+                return result;
+            }
+        }
+
+    }
+
+    private class StatementHandler implements InvocationHandler {
+
+        private final Statement statement;
+        private final Connection wrappingConnection;
+        private final String preparedSql;
+        private Object[] parameters = new Object[0];
+        private StatementStatistics lastStatistics;
+
+        private StatementHandler(Statement statement, Connection wrappingConnection, String preparedSql) {
+            this.statement = statement;
+            this.wrappingConnection = wrappingConnection;
+            this.preparedSql = preparedSql;
+        }
+
+        @Override public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                recordParameter((Integer) args[0], name.equals("setNull") ? null : args[1]);
+                return InstrumentedDataSource.invoke(statement, method, args);
+            } else if (name.equals("clearParameters")) {
+                parameters = new Object[0];
+                return InstrumentedDataSource.invoke(statement, method, args);
+            } else if (name.startsWith("execute")) {
+                String sql = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0] : preparedSql;
+                StatementStatistics statistics = statisticsFor(sql == null ? "<unknown>" : sql);
+                long start = System.nanoTime();
+                Object result;
+                try {
+                    result = InstrumentedDataSource.invoke(statement, method, args);
+                } catch (Throwable t) {
+                    statistics.errors.increment();
+                    throw t;
+                }
+                long elapsedNanos = System.nanoTime() - start;
+                statistics.latencies.record(elapsedNanos);
+                logIfSlow(elapsedNanos, sql, parameters);
+                if (result instanceof ResultSet) {
+                    return wrap((ResultSet) result, statistics);
+                } else if (result instanceof Integer || result instanceof Long) {
+                    statistics.rows.add(((Number) result).longValue());
+                } else if (result instanceof int[]) {
+                    for (int count : (int[]) result) if (count > 0) statistics.rows.add(count);
+                } else if (result instanceof long[]) {
+                    for (long count : (long[]) result) if (count > 0) statistics.rows.add(count);
+                }
+                lastStatistics = statistics;
+                return result;
+            } else if (name.equals("getResultSet")) {
+                Object result = InstrumentedDataSource.invoke(statement, method, args);
+                return result == null || lastStatistics == null ? result : wrap((ResultSet) result, lastStatistics);
+            } else if (name.equals("getConnection")) {
+
+                // So that statements created through it are instrumented too
+                return wrappingConnection;
+            } else {
+                return InstrumentedDataSource.invoke(statement, method, args);
+            }
+        }
+
+        private void recordParameter(int parameterIndex, Object value) {
+            if (parameterIndex > parameters.length) {
+                parameters = Arrays.copyOf(parameters, Math.max(parameterIndex, parameters.length * 2));
+            }
+            if (parameterIndex >= 1) {
+                parameters[parameterIndex - 1] = value;
+            }
+        }
+
+        private ResultSet wrap(ResultSet resultSet, StatementStatistics statistics) {
+            return (ResultSet) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                                                      new Class<?>[]{ResultSet.class},
+                                                      new ResultSetHandler(resultSet, statistics));
+        }
+
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+
+        private final ResultSet resultSet;
+        private final StatementStatistics statistics;
+        private long rows;
+        private boolean rowsRecorded;
+
+        private ResultSetHandler(ResultSet resultSet, StatementStatistics statistics) {
+            this.resultSet = resultSet;
+            this.statistics = statistics;
+        }
+
+        @Override public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                Object result = InstrumentedDataSource.invoke(resultSet, method, args);
+                if (Boolean.TRUE.equals(result)) {
+                    rows++;
+                } else {
+                    recordRows();
+                }
+                return result;
+            } else if (name.equals("close")) {
+                recordRows();
+                return InstrumentedDataSource.invoke(resultSet, method, args);
+            } else {
+                return InstrumentedDataSource.invoke(resultSet, method, args);
+            }
+        }
+
+        private void recordRows() {
+            if (!rowsRecorded) {
+                statistics.rows.add(rows);
+                rowsRecorded = true;
+            }
+        }
+
+    }
+
+    private static class StatementStatistics {
+
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rows = new LongAdder();
+
+        private StatementSummary summarize(String fingerprint) {
+            StatementSummary summary = new StatementSummary();
+            latencies.summarizeInto(summary);
+            summary.fingerprint = fingerprint;
+            summary.errors = errors.sum();
+            summary.rows = rows.sum();
+            return summary;
+        }
+
+    }
+
+}
@@ -30,6 +30,10 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.jirvan.util;
 
+import com.jirvan.dates.Day;
+import com.jirvan.dates.DaySeries;
+import com.jirvan.dates.Minute;
+import com.jirvan.dates.MinuteSeries;
 import com.jirvan.lang.MessageException;
 import com.jirvan.lang.SQLRuntimeException;
 import net.sourceforge.jtds.jdbcx.JtdsDataSource;
@@ -44,11 +48,21 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.jirvan.util.Assertions.*;
 
 //import com.teradata.jdbc.*;
 
@@ -99,6 +113,183 @@ public class Jdbc {
         return stringBuilder.toString();
     }
 
+    /**
+     * Executes sql once for each of the parameter rows using JDBC batching, sending
+     * the statements to the database batchSize at a time (rather than one round
+     * trip per row).
+     *
+     * @return the number of parameter rows executed
+     */
+    public static long batchUpdate(Connection connection, String sql, Iterable<Object[]> parameterRows, int batchSize) {
+        return batchUpdate(connection, sql, parameterRows, (stmt, parameterValues) -> {
+            for (int i = 0; i < parameterValues.length; i++) {
+                stmt.setObject(i + 1, parameterValues[i]);
+            }
+        }, batchSize);
+    }
+
+    public interface ParameterBinder<T> {
+        void bind(PreparedStatement stmt, T row) throws SQLException;
+    }
+
+    /**
+     * As for {@link #batchUpdate(Connection, String, Iterable, int)} except that
+     * each row's parameters are set by the binder (which can use the typed setters
+     * rather than setObject).
+     */
+    public static <T> long batchUpdate(Connection connection, String sql, Iterable<T> rows, ParameterBinder<? super T> binder, int batchSize) {
+        assertTrue(batchSize > 0, "batchSize must be greater than zero");
+        try {
+            PreparedStatement stmt = connection.prepareStatement(sql);
+            try {
+                long rowsExecuted = 0;
+                int rowsInBatch = 0;
+                for (T row : rows) {
+                    binder.bind(stmt, row);
+                    stmt.addBatch();
+                    rowsExecuted++;
+                    if (++rowsInBatch >= batchSize) {
+                        stmt.executeBatch();
+                        rowsInBatch = 0;
+                    }
+                }
+                if (rowsInBatch > 0) {
+                    stmt.executeBatch();
+                }
+                return rowsExecuted;
+            } finally {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql);
+        }
+    }
+
+    /**
+     * Inserts the rows into the table using multi-row insert statements.  The rows are
+     * chunked so that each statement stays within the bind parameter and row limits of
+     * the connection's database type (see {@link DatabaseType#getMaxBindParameters()}).
+     * All full chunks share the one prepared statement.
+     *
+     * @return the number of rows inserted
+     */
+    public static long insertRows(Connection connection, String tableName, String[] columnNames, Iterable<Object[]> rows) {
+        return insertRows(connection, DatabaseType.get(connection), tableName, columnNames, rows);
+    }
+
+    public static long insertRows(Connection connection, DatabaseType databaseType, String tableName, String[] columnNames, Iterable<Object[]> rows) {
+        assertTrue(columnNames.length > 0, "At least one column name must be provided");
+        assertTrue(columnNames.length <= databaseType.getMaxBindParameters(),
+                   String.format("%d columns exceeds the %d bind parameter limit for %s", columnNames.length, databaseType.getMaxBindParameters(), databaseType.getDatabaseProductName()));
+        int rowsPerStatement = Math.min(databaseType.getMaxBindParameters() / columnNames.length, databaseType.getMaxRowsPerInsert());
+        String fullChunkSql = null;
+        PreparedStatement fullChunkStmt = null;
+        Throwable failure = null;
+        try {
+            long rowsInserted = 0;
+            Object[][] chunk = new Object[rowsPerStatement][];
+            int rowsInChunk = 0;
+            for (Object[] row : rows) {
+                if (row.length != columnNames.length) {
+                    throw new RuntimeException(String.format("Row has %d values (expected %d)", row.length, columnNames.length));
+                }
+                chunk[rowsInChunk++] = row;
+                if (rowsInChunk == rowsPerStatement) {
+                    if (fullChunkStmt == null) {
+                        fullChunkSql = multiRowInsertSql(databaseType, tableName, columnNames, rowsPerStatement);
+                        fullChunkStmt = prepareStatement(connection, fullChunkSql);
+                    }
+                    executeInsertChunk(fullChunkStmt, fullChunkSql, chunk, rowsInChunk);
+                    rowsInserted += rowsInChunk;
+                    rowsInChunk = 0;
+                }
+            }
+            if (rowsInChunk > 0) {
+                String remainderSql = multiRowInsertSql(databaseType, tableName, columnNames, rowsInChunk);
+                PreparedStatement remainderStmt = prepareStatement(connection, remainderSql);
+                try {
+                    executeInsertChunk(remainderStmt, remainderSql, chunk, rowsInChunk);
+                } catch (Throwable t) {
+                    failure = t;
+                    throw t;
+                } finally {
+                    closeStatement(remainderStmt, remainderSql, failure);
+                }
+                rowsInserted += rowsInChunk;
+            }
+            return rowsInserted;
+        } catch (Throwable t) {
+            failure = t;
+            throw t;
+        } finally {
+            if (fullChunkStmt != null) closeStatement(fullChunkStmt, fullChunkSql, failure);
+        }
+    }
+
+    /**
+     * Builds an insert statement for rowCount rows of the given columns.  Oracle
+     * (pre 23c) does not support multi-row VALUES lists so "insert all" is used
+     * for it instead.
+     */
+    public static String multiRowInsertSql(DatabaseType databaseType, String tableName, String[] columnNames, int rowCount) {
+        assertTrue(rowCount > 0, "rowCount must be greater than zero");
+        String columnList = Strings.join(columnNames, ',');
+        String rowPlaceHolders = "(" + parameterPlaceHolderString((Object[]) columnNames) + ")";
+        StringBuilder stringBuilder = new StringBuilder();
+        if (databaseType == DatabaseType.oracle) {
+            stringBuilder.append("insert all");
+            for (int i = 0; i < rowCount; i++) {
+                stringBuilder.append("\n   into ").append(tableName).append(" (").append(columnList).append(") values ").append(rowPlaceHolders);
+            }
+            stringBuilder.append("\nselect 1 from dual");
+        } else {
+            stringBuilder.append("insert into ").append(tableName).append(" (").append(columnList).append(")\nvalues ");
+            for (int i = 0; i < rowCount; i++) {
+                if (i > 0) stringBuilder.append(",\n       ");
+                stringBuilder.append(rowPlaceHolders);
+            }
+        }
+        return stringBuilder.toString();
+    }
+
+    private static PreparedStatement prepareStatement(Connection connection, String sql) {
+        try {
+            return connection.prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql);
+        }
+    }
+
+    /**
+     * A failure to close is suppressed by (rather than hiding) any failure that
+     * is already on its way out.
+     */
+    private static void closeStatement(PreparedStatement stmt, String sql, Throwable failure) {
+        try {
+            stmt.close();
+        } catch (SQLException e) {
+            if (failure == null) {
+                throw new SQLRuntimeException(e, sql);
+            } else {
+                failure.addSuppressed(new SQLRuntimeException(e, sql));
+            }
+        }
+    }
+
+    private static void executeInsertChunk(PreparedStatement stmt, String sql, Object[][] chunk, int rowsInChunk) {
+        int parameterNumber = 0;
+        try {
+            for (int r = 0; r < rowsInChunk; r++) {
+                for (Object value : chunk[r]) {
+                    stmt.setObject(++parameterNumber, value);
+                }
+            }
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql);
+        }
+    }
+
     public static int queryForInt(Connection conn, String sql) {
         try {
             PreparedStatement stmt = conn.prepareStatement(sql);
@@ -152,6 +343,192 @@ public class Jdbc {
         }
     }
 
+    public interface RowMapper<T> {
+        T mapRow(ResultSet rset) throws SQLException;
+    }
+
+    public static <T> List<T> queryForList(Connection conn, String sql, Object[] parameterValues, RowMapper<T> rowMapper) {
+        try {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            try {
+                if (parameterValues != null) {
+                    for (int i = 0; i < parameterValues.length; i++) {
+                        stmt.setObject(i + 1, parameterValues[i]);
+                    }
+                }
+                ResultSet rset = stmt.executeQuery();
+                try {
+                    List<T> list = new ArrayList<>();
+                    while (rset.next()) {
+                        list.add(rowMapper.mapRow(rset));
+                    }
+                    return list;
+                } finally {
+                    rset.close();
+                }
+            } finally {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql, parameterValues);
+        }
+    }
+
+    /**
+     * Maps each row to a new instance of rowClass (see {@link PojoRowMapper}).
+     */
+    public static <T> List<T> queryForList(Connection conn, String sql, Class<T> rowClass, Object... parameterValues) {
+        try {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            try {
+                for (int i = 0; i < parameterValues.length; i++) {
+                    stmt.setObject(i + 1, parameterValues[i]);
+                }
+                ResultSet rset = stmt.executeQuery();
+                try {
+                    PojoRowMapper<T> rowMapper = PojoRowMapper.get(rowClass, sql, rset.getMetaData());
+                    List<T> list = new ArrayList<>();
+                    while (rset.next()) {
+                        list.add(rowMapper.mapRow(rset));
+                    }
+                    return list;
+                } finally {
+                    rset.close();
+                }
+            } finally {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql, parameterValues);
+        }
+    }
+
+    /**
+     * As for {@link #queryForList(Connection, String, Class, Object...)} except that
+     * the rows are mapped as the stream is consumed rather than all being held in
+     * memory.  The stream must be closed (with try-with-resources for example) to
+     * close the underlying statement.
+     */
+    public static <T> Stream<T> queryForStream(Connection conn, String sql, Class<T> rowClass, Object... parameterValues) {
+        try {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            try {
+                for (int i = 0; i < parameterValues.length; i++) {
+                    stmt.setObject(i + 1, parameterValues[i]);
+                }
+                ResultSet rset = stmt.executeQuery();
+                PojoRowMapper<T> rowMapper = PojoRowMapper.get(rowClass, sql, rset.getMetaData());
+                Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                    public boolean tryAdvance(Consumer<? super T> action) {
+                        try {
+                            if (!rset.next()) return false;
+                            action.accept(rowMapper.mapRow(rset));
+                            return true;
+                        } catch (SQLException e) {
+                            throw new SQLRuntimeException(e, sql, parameterValues);
+                        }
+                    }
+                };
+                return StreamSupport.stream(spliterator, false).onClose(() -> {
+                    try {
+                        stmt.close();
+                    } catch (SQLException e) {
+                        throw new SQLRuntimeException(e);
+                    }
+                });
+            } catch (SQLException | RuntimeException e) {
+                stmt.close();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql, parameterValues);
+        }
+    }
+
+    /**
+     * Loads the first (date) and second (numeric) columns of the query's rows into
+     * a {@link DaySeries}, adding together the values for days that appear more
+     * than once.  Rows with a null date or value are skipped.
+     */
+    public static DaySeries queryForDaySeries(Connection conn, String sql, Object... parameterValues) {
+        try {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            try {
+                for (int i = 0; i < parameterValues.length; i++) {
+                    stmt.setObject(i + 1, parameterValues[i]);
+                }
+                ResultSet rset = stmt.executeQuery();
+                try {
+                    DaySeries daySeries = new DaySeries();
+                    while (rset.next()) {
+                        Day day = Day.from(rset.getDate(1));
+                        double value = rset.getDouble(2);
+                        if (day != null && !rset.wasNull()) {
+                            daySeries.add(day, value);
+                        }
+                    }
+                    return daySeries;
+                } finally {
+                    rset.close();
+                }
+            } finally {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql, parameterValues);
+        }
+    }
+
+    /**
+     * As for {@link #queryForDaySeries(Connection, String, Object...)} except that
+     * the first column is a timestamp and the values are loaded into a
+     * {@link MinuteSeries} with minutesPerPoint minutes per point.
+     */
+    public static MinuteSeries queryForMinuteSeries(Connection conn, String sql, int minutesPerPoint, Object... parameterValues) {
+        try {
+            PreparedStatement stmt = conn.prepareStatement(sql);
+            try {
+                for (int i = 0; i < parameterValues.length; i++) {
+                    stmt.setObject(i + 1, parameterValues[i]);
+                }
+                ResultSet rset = stmt.executeQuery();
+                try {
+                    MinuteSeries minuteSeries = new MinuteSeries(minutesPerPoint);
+                    while (rset.next()) {
+                        Minute minute = Minute.from(rset.getTimestamp(1));
+                        double value = rset.getDouble(2);
+                        if (minute != null && !rset.wasNull()) {
+                            minuteSeries.add(minute, value);
+                        }
+                    }
+                    return minuteSeries;
+                } finally {
+                    rset.close();
+                }
+            } finally {
+                stmt.close();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql, parameterValues);
+        }
+    }
+
+    /**
+     * Runs the query on its own connection from the data source using the data
+     * source's shared {@link AsyncJdbcExecutor}.
+     */
+    public static <T> CompletableFuture<List<T>> queryAsync(DataSource dataSource, String sql, Object[] parameterValues, RowMapper<T> rowMapper) {
+        return AsyncJdbcExecutor.forDataSource(dataSource).query(sql, parameterValues, rowMapper);
+    }
+
+    /**
+     * Runs the update on its own connection from the data source using the data
+     * source's shared {@link AsyncJdbcExecutor}.
+     */
+    public static CompletableFuture<Integer> updateAsync(DataSource dataSource, String sql, Object[] parameterValues) {
+        return AsyncJdbcExecutor.forDataSource(dataSource).update(sql, parameterValues);
+    }
+
     public static void closeIgnoringExceptions(Statement statement) {
         try {
             statement.close();
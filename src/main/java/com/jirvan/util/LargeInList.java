@@ -0,0 +1,445 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.util;
+
+import com.jirvan.lang.SQLRuntimeException;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.jirvan.util.Assertions.*;
+
+/**
+ * Runs queries that restrict on a list of values that may be very large (50k+),
+ * e.g. "select * from orders where customer_id in ({inList})".  The {inList}
+ * marker is replaced according to a {@link Strategy} chosen from the database type
+ * and the size of the list, but the calling code is the same whichever strategy
+ * is used.  Any other "?" parameters in the sql are bound, in order, from
+ * otherParameterValues.
+ * <p>
+ * The in list is assumed to be a restricting predicate ("in" rather than "not in")
+ * as the results of chunked queries are simply concatenated.  For the same reason
+ * an "order by" is only honoured within each chunk.  An empty list of values
+ * returns an empty list without querying the database.
+ */
+public class LargeInList {
+
+    public static final String IN_LIST_MARKER = "{inList}";
+
+    public enum Strategy {
+        inList,     // a single "?,?,..." list, padded to a power of two size so the statements can be cached
+        array,      // a single array parameter (PostgreSQL only, for lists of MIN_ARRAY_LIST_SIZE or more values of a type with an array element type)
+        chunked,    // several "?,?,..." queries with their results merged
+        tempTable   // the values are loaded into a temporary table which is then selected from
+    }
+
+    public static final int MIN_ARRAY_LIST_SIZE = 64;
+
+    private static final int MAX_IN_LIST_SIZE = 1000;
+    private static final int MIN_PADDED_IN_LIST_SIZE = 8;
+    private static final AtomicInteger tempTableCounter = new AtomicInteger();
+
+    /**
+     * Chooses the strategy for a list of listSize values, assuming (for PostgreSQL)
+     * that they are of a type that can be bound as an array (see
+     * {@link #chooseStrategy(DatabaseType, Collection, int)}).
+     */
+    public static Strategy chooseStrategy(DatabaseType databaseType, int listSize, int otherParameterCount) {
+        if (databaseType == DatabaseType.postgres && listSize >= MIN_ARRAY_LIST_SIZE) {
+            return Strategy.array;
+        } else {
+            return chooseNonArrayStrategy(databaseType, listSize, otherParameterCount);
+        }
+    }
+
+    /**
+     * As for {@link #chooseStrategy(DatabaseType, int, int)} except that the array
+     * strategy is only chosen if the values all have the same PostgreSQL array
+     * element type (so for example lists of dates use in lists or chunks).
+     */
+    public static Strategy chooseStrategy(DatabaseType databaseType, Collection<?> values, int otherParameterCount) {
+        Strategy strategy = chooseStrategy(databaseType, values.size(), otherParameterCount);
+        return strategy == Strategy.array && postgresArrayElementType(values) == null
+               ? chooseNonArrayStrategy(databaseType, values.size(), otherParameterCount)
+               : strategy;
+    }
+
+    public static <T> List<T> query(Connection connection, String sql, Collection<?> values, Object[] otherParameterValues, Jdbc.RowMapper<T> rowMapper) {
+        DatabaseType databaseType = DatabaseType.get(connection);
+        Strategy strategy = chooseStrategy(databaseType, values, otherParameterValues == null ? 0 : otherParameterValues.length);
+        return query(connection, databaseType, strategy, sql, values, otherParameterValues, rowMapper);
+    }
+
+    public static <T> List<T> query(Connection connection,
+                                    DatabaseType databaseType,
+                                    Strategy strategy,
+                                    String sql,
+                                    Collection<?> values,
+                                    Object[] otherParameterValues,
+                                    Jdbc.RowMapper<T> rowMapper) {
+        ParsedSql parsedSql = new ParsedSql(sql, otherParameterValues);
+        List<Object> distinctValues = new ArrayList<>(new LinkedHashSet<Object>(values));
+        if (distinctValues.isEmpty()) {
+            return new ArrayList<>();
+        }
+        switch (strategy) {
+            case inList:
+                assertTrue(distinctValues.size() <= maxInListSize(databaseType, parsedSql.otherParameterValues.length),
+                           String.format("%d values is too many for a single in list", distinctValues.size()));
+                return queryInList(connection, parsedSql, distinctValues, maxInListSize(databaseType, parsedSql.otherParameterValues.length), rowMapper);
+            case array:
+                if (databaseType != DatabaseType.postgres) {
+                    throw new UnsupportedDatabaseTypeException(databaseType, DatabaseType.postgres);
+                }
+                String elementType = postgresArrayElementType(distinctValues);
+                if (elementType != null) {
+                    return queryArray(connection, elementType, parsedSql, distinctValues, rowMapper);
+                } else {
+
+                    // Use chunks instead (a single in list if there are few enough values)
+                    return queryChunked(connection, databaseType, parsedSql, distinctValues, rowMapper);
+
+                }
+            case chunked:
+                return queryChunked(connection, databaseType, parsedSql, distinctValues, rowMapper);
+            case tempTable:
+                return queryTempTable(connection, databaseType, parsedSql, distinctValues, rowMapper);
+            default:
+                throw new RuntimeException(String.format("Unexpected strategy \"%s\"", strategy.name()));
+        }
+    }
+
+    /**
+     * As for {@link #query(Connection, String, Collection, Object[], Jdbc.RowMapper)},
+     * except that when the chunked strategy is chosen the chunks are queried in
+     * parallel using up to maxConnections connections from the data source (on the
+     * data source's shared {@link AsyncJdbcExecutor}).  The results are merged in
+     * chunk order.
+     */
+    public static <T> List<T> query(DataSource dataSource, int maxConnections, String sql, Collection<?> values, Object[] otherParameterValues, Jdbc.RowMapper<T> rowMapper) {
+        assertTrue(maxConnections > 0, "maxConnections must be greater than zero");
+        DatabaseType databaseType = DatabaseType.get(dataSource);
+        int otherParameterCount = otherParameterValues == null ? 0 : otherParameterValues.length;
+        Strategy strategy = chooseStrategy(databaseType, values, otherParameterCount);
+        if (strategy != Strategy.chunked || maxConnections == 1) {
+            try (Connection connection = dataSource.getConnection()) {
+                return query(connection, databaseType, strategy, sql, values, otherParameterValues, rowMapper);
+            } catch (SQLException e) {
+                throw new SQLRuntimeException(e);
+            }
+        }
+
+        final ParsedSql parsedSql = new ParsedSql(sql, otherParameterValues);
+        final int maxInListSize = maxInListSize(databaseType, otherParameterCount);
+        List<List<Object>> chunks = chunk(new ArrayList<>(new LinkedHashSet<Object>(values)), maxInListSize);
+        AsyncJdbcExecutor executor = AsyncJdbcExecutor.forDataSource(dataSource);
+        List<CompletableFuture<List<T>>> futures = new ArrayList<>();
+        try {
+            for (List<Object> chunk : chunks) {
+                if (futures.size() >= maxConnections) {
+                    futures.get(futures.size() - maxConnections).get();
+                }
+                Object[] inListValues = paddedInListValues(chunk, maxInListSize);
+                futures.add(executor.query(parsedSql.sqlWith(Jdbc.parameterPlaceHolderString(inListValues)),
+                                           parsedSql.parameterValuesWith(inListValues),
+                                           rowMapper));
+            }
+            List<T> list = new ArrayList<>();
+            for (Future<List<T>> future : futures) {
+                list.addAll(future.get());
+            }
+            return list;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof SQLException) {
+                throw new SQLRuntimeException((SQLException) e.getCause(), sql);
+            } else {
+                throw new RuntimeException(e.getCause());
+            }
+        } finally {
+            for (Future<List<T>> future : futures) {
+                future.cancel(true);
+            }
+        }
+    }
+
+
+    //======================== Everything below here is private ========================//
+
+    private static Strategy chooseNonArrayStrategy(DatabaseType databaseType, int listSize, int otherParameterCount) {
+        if (listSize <= maxInListSize(databaseType, otherParameterCount)) {
+            return Strategy.inList;
+        } else if (databaseType.isOneOf(DatabaseType.sqlserver, DatabaseType.sqlite)) {
+            return Strategy.tempTable;
+        } else {
+            return Strategy.chunked;
+        }
+    }
+
+    private static int maxInListSize(DatabaseType databaseType, int otherParameterCount) {
+        return Math.min(MAX_IN_LIST_SIZE, databaseType.getMaxBindParameters() - otherParameterCount);
+    }
+
+    private static <T> List<T> queryChunked(Connection connection, DatabaseType databaseType, ParsedSql parsedSql, List<Object> values, Jdbc.RowMapper<T> rowMapper) {
+        List<T> list = new ArrayList<>();
+        int maxInListSize = maxInListSize(databaseType, parsedSql.otherParameterValues.length);
+        for (List<Object> chunk : chunk(values, maxInListSize)) {
+            list.addAll(queryInList(connection, parsedSql, chunk, maxInListSize, rowMapper));
+        }
+        return list;
+    }
+
+    private static <T> List<T> queryInList(Connection connection, ParsedSql parsedSql, List<Object> values, int maxInListSize, Jdbc.RowMapper<T> rowMapper) {
+        Object[] inListValues = paddedInListValues(values, maxInListSize);
+        return Jdbc.queryForList(connection,
+                                 parsedSql.sqlWith(Jdbc.parameterPlaceHolderString(inListValues)),
+                                 parsedSql.parameterValuesWith(inListValues),
+                                 rowMapper);
+    }
+
+    /**
+     * Pads the list (by repeating the last value) to a power of two size so that
+     * lists of similar sizes share the same sql and hence statement cache entries
+     */
+    static Object[] paddedInListValues(List<Object> values, int maxInListSize) {
+        int paddedSize = MIN_PADDED_IN_LIST_SIZE;
+        while (paddedSize < values.size()) paddedSize *= 2;
+        paddedSize = Math.max(values.size(), Math.min(paddedSize, maxInListSize));
+        Object[] inListValues = Arrays.copyOf(values.toArray(), paddedSize);
+        Arrays.fill(inListValues, values.size(), paddedSize, values.get(values.size() - 1));
+        return inListValues;
+    }
+
+    private static <T> List<T> queryArray(Connection connection, String elementType, ParsedSql parsedSql, List<Object> values, Jdbc.RowMapper<T> rowMapper) {
+        try {
+            Array array = connection.createArrayOf(elementType, values.toArray());
+            try {
+                return Jdbc.queryForList(connection,
+                                         parsedSql.sqlWith("select unnest(?)"),
+                                         parsedSql.parameterValuesWith(new Object[]{array}),
+                                         rowMapper);
+            } finally {
+                array.free();
+            }
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, parsedSql.sql);
+        }
+    }
+
+    private static <T> List<T> queryTempTable(Connection connection, DatabaseType databaseType, ParsedSql parsedSql, List<Object> values, Jdbc.RowMapper<T> rowMapper) {
+        String tableName;
+        String createSql;
+        if (databaseType == DatabaseType.sqlserver) {
+            tableName = "#jdbc_in_list_" + tempTableCounter.incrementAndGet();
+            createSql = String.format("create table %s (value %s primary key)", tableName, sqlServerColumnType(values.get(0)));
+        } else if (databaseType == DatabaseType.sqlite) {
+            tableName = "jdbc_in_list_" + tempTableCounter.incrementAndGet();
+            createSql = String.format("create temp table %s (value primary key)", tableName);
+        } else {
+            throw new UnsupportedDatabaseTypeException(databaseType, DatabaseType.sqlserver, DatabaseType.sqlite);
+        }
+        try {
+            execute(connection, createSql);
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, createSql);
+        }
+        String dropSql = "drop table " + tableName;
+        RuntimeException failure = null;
+        try {
+            Jdbc.insertRows(connection, databaseType, tableName, new String[]{"value"}, asRows(values));
+            return Jdbc.queryForList(connection,
+                                     parsedSql.sqlWith("select value from " + tableName),
+                                     parsedSql.otherParameterValues,
+                                     rowMapper);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+
+            // Don't let a failed drop (e.g. in an aborted transaction) hide the original failure
+            try {
+                execute(connection, dropSql);
+            } catch (SQLException e) {
+                if (failure != null) {
+                    failure.addSuppressed(e);
+                } else {
+                    throw new SQLRuntimeException(e, dropSql);
+                }
+            }
+
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute(sql);
+        } finally {
+            statement.close();
+        }
+    }
+
+    private static Iterable<Object[]> asRows(final List<Object> values) {
+        return () -> new Iterator<Object[]>() {
+            private int index = 0;
+
+            public boolean hasNext() {
+                return index < values.size();
+            }
+
+            public Object[] next() {
+                return new Object[]{values.get(index++)};
+            }
+        };
+    }
+
+    private static List<List<Object>> chunk(List<Object> values, int chunkSize) {
+        List<List<Object>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += chunkSize) {
+            chunks.add(values.subList(i, Math.min(i + chunkSize, values.size())));
+        }
+        return chunks;
+    }
+
+    /**
+     * Returns the array element type for the values, or null if they don't all
+     * have the same one
+     */
+    private static String postgresArrayElementType(Collection<?> values) {
+        Iterator<?> iterator = values.iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Object first = iterator.next();
+        String elementType = postgresArrayElementType(first);
+        while (elementType != null && iterator.hasNext()) {
+            Object value = iterator.next();
+            if (value == null || value.getClass() != first.getClass()) {
+                return null;
+            }
+        }
+        return elementType;
+    }
+
+    private static String postgresArrayElementType(Object value) {
+        if (value instanceof Integer || value instanceof Short) {
+            return "int4";
+        } else if (value instanceof Long) {
+            return "int8";
+        } else if (value instanceof String) {
+            return "varchar";
+        } else if (value instanceof BigDecimal) {
+            return "numeric";
+        } else if (value instanceof UUID) {
+            return "uuid";
+        } else {
+            return null;
+        }
+    }
+
+    private static String sqlServerColumnType(Object value) {
+        if (value instanceof Integer || value instanceof Short) {
+            return "int";
+        } else if (value instanceof Long) {
+            return "bigint";
+        } else if (value instanceof String) {
+            return "nvarchar(450)";
+        } else if (value instanceof BigDecimal) {
+            return "decimal(38,10)";
+        } else if (value instanceof UUID) {
+            return "uniqueidentifier";
+        } else {
+            throw new RuntimeException(String.format("Cannot load in list values of type %s into a temporary table", value == null ? "null" : value.getClass().getName()));
+        }
+    }
+
+    static class ParsedSql {
+
+        private String sql;
+        private Object[] otherParameterValues;
+        private int markerIndex;
+        private int parametersBeforeMarker;
+
+        ParsedSql(String sql, Object[] otherParameterValues) {
+            this.sql = sql;
+            this.otherParameterValues = otherParameterValues == null ? new Object[0] : otherParameterValues;
+            this.markerIndex = sql.indexOf(IN_LIST_MARKER);
+            if (markerIndex == -1) {
+                throw new RuntimeException(String.format("sql does not contain the %s marker", IN_LIST_MARKER));
+            }
+            boolean inQuotes = false;
+            for (int i = 0; i < markerIndex; i++) {
+                char c = sql.charAt(i);
+                if (c == '\'') {
+                    inQuotes = !inQuotes;
+                } else if (c == '?' && !inQuotes) {
+                    parametersBeforeMarker++;
+                }
+            }
+            if (parametersBeforeMarker > this.otherParameterValues.length) {
+                throw new RuntimeException(String.format("sql has at least %d parameters but only %d other parameter values were provided", parametersBeforeMarker, this.otherParameterValues.length));
+            }
+        }
+
+        String sqlWith(String inListSql) {
+            return sql.substring(0, markerIndex) + inListSql + sql.substring(markerIndex + IN_LIST_MARKER.length());
+        }
+
+        Object[] parameterValuesWith(Object[] inListValues) {
+            Object[] parameterValues = new Object[otherParameterValues.length + inListValues.length];
+            System.arraycopy(otherParameterValues, 0, parameterValues, 0, parametersBeforeMarker);
+            System.arraycopy(inListValues, 0, parameterValues, parametersBeforeMarker, inListValues.length);
+            System.arraycopy(otherParameterValues, parametersBeforeMarker, parameterValues, parametersBeforeMarker + inListValues.length, otherParameterValues.length - parametersBeforeMarker);
+            return parameterValues;
+        }
+
+    }
+
+}
@@ -0,0 +1,378 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jirvan.dates.Day;
+import com.jirvan.dates.Hour;
+import com.jirvan.dates.ImmutableDay;
+import com.jirvan.dates.ImmutableMonth;
+import com.jirvan.dates.Millisecond;
+import com.jirvan.dates.Minute;
+import com.jirvan.dates.Month;
+import com.jirvan.dates.Second;
+import com.jirvan.lang.SQLRuntimeException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Maps result set rows to instances of a class by setting the fields (or, failing
+ * that, setter methods) whose names match the column labels, ignoring case and
+ * underscores (so birth_date maps to birthDate).  Every column must have a
+ * matching field or setter.
+ * <p>
+ * The mapping for a class and sql statement is worked out once (from the result
+ * set metadata) and compiled into a single method handle that reads each column
+ * with the getter for the field's type (getInt for int fields etc) and sets the
+ * field directly, so mapping a row involves no reflection and no allocation apart
+ * from the row object itself (and any non primitive field values).  The date types
+ * in com.jirvan.dates are supported along with the usual primitive, boxed,
+ * String, BigDecimal, byte[], java.sql/java.util date, java.time and enum types.
+ */
+public class PojoRowMapper<T> implements Jdbc.RowMapper<T> {
+
+    private static final int MAX_CACHED_MAPPERS = 1000;
+    private static final Cache<Key, PojoRowMapper<?>> MAPPERS = CacheBuilder.newBuilder()
+                                                                            .maximumSize(MAX_CACHED_MAPPERS)
+                                                                            .build();
+
+    private final MethodHandle constructor;
+    private final MethodHandle columnSetter;
+    private final String[] columnLabels;
+
+    private PojoRowMapper(Class<T> rowClass, ResultSetMetaData metaData) throws SQLException {
+        this.columnLabels = columnLabels(metaData);
+        try {
+            Constructor<T> declaredConstructor = rowClass.getDeclaredConstructor();
+            declaredConstructor.setAccessible(true);
+            this.constructor = LOOKUP.unreflectConstructor(declaredConstructor)
+                                     .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new RuntimeException(String.format("%s must have a no argument constructor", rowClass.getName()), e);
+        }
+
+        // Fold the column setters into a single (Object row, ResultSet rset) handle
+        MethodHandle handle = NO_OP;
+        for (int column = columnLabels.length; column >= 1; column--) {
+            handle = MethodHandles.foldArguments(handle, columnSetter(rowClass, columnLabels[column - 1], column));
+        }
+        this.columnSetter = handle;
+    }
+
+    /**
+     * Returns the (cached) mapper for the given class and sql, where metaData is
+     * the metadata of the sql's result set.  A cached mapper is only reused if the
+     * result set still has the same column labels (as it may not for "select *"
+     * after the table has been altered), otherwise it is replaced.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> PojoRowMapper<T> get(Class<T> rowClass, String sql, ResultSetMetaData metaData) {
+        Key key = new Key(rowClass, sql);
+        try {
+            PojoRowMapper<T> mapper = (PojoRowMapper<T>) MAPPERS.get(key, () -> new PojoRowMapper<>(rowClass, metaData));
+            if (!Arrays.equals(mapper.columnLabels, columnLabels(metaData))) {
+                mapper = new PojoRowMapper<>(rowClass, metaData);
+                MAPPERS.put(key, mapper);
+            }
+            return mapper;
+        } catch (SQLException e) {
+            throw new SQLRuntimeException(e, sql);
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof SQLException) throw new SQLRuntimeException((SQLException) e.getCause(), sql);
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T mapRow(ResultSet rset) throws SQLException {
+        try {
+            Object row = (Object) constructor.invokeExact();
+            columnSetter.invokeExact(row, rset);
+            return (T) row;
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    public int getColumnCount() {
+        return columnLabels.length;
+    }
+
+//======================== Everything below here is private ========================//
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle NO_OP;
+
+    static {
+        try {
+            NO_OP = LOOKUP.findStatic(PojoRowMapper.class, "noOp", MethodType.methodType(void.class, Object.class, ResultSet.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void noOp(Object row, ResultSet rset) {
+    }
+
+    private static String[] columnLabels(ResultSetMetaData metaData) throws SQLException {
+        String[] columnLabels = new String[metaData.getColumnCount()];
+        for (int column = 1; column <= columnLabels.length; column++) {
+            columnLabels[column - 1] = metaData.getColumnLabel(column);
+        }
+        return columnLabels;
+    }
+
+    /**
+     * Returns a (Object row, ResultSet rset)void handle that reads the column and
+     * sets the matching field or setter.
+     */
+    private static MethodHandle columnSetter(Class<?> rowClass, String columnLabel, int column) {
+        String name = normalize(columnLabel);
+        try {
+            MethodHandle setter = null;
+            Class<?> type = null;
+            for (Class<?> c = rowClass; c != null && c != Object.class && setter == null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (!Modifier.isStatic(field.getModifiers())
+                        && !Modifier.isFinal(field.getModifiers())
+                        && normalize(field.getName()).equals(name)) {
+                        field.setAccessible(true);
+                        setter = LOOKUP.unreflectSetter(field);
+                        type = field.getType();
+                        break;
+                    }
+                }
+            }
+            if (setter == null) {
+                for (Method method : rowClass.getMethods()) {
+                    if (method.getName().startsWith("set")
+                        && method.getParameterCount() == 1
+                        && !Modifier.isStatic(method.getModifiers())
+                        && normalize(method.getName().substring(3)).equals(name)) {
+                        setter = LOOKUP.unreflect(method);
+                        type = method.getParameterTypes()[0];
+                        break;
+                    }
+                }
+            }
+            if (setter == null) {
+                throw new RuntimeException(String.format("%s has no field or setter for column \"%s\"", rowClass.getName(), columnLabel));
+            }
+            setter = setter.asType(MethodType.methodType(void.class, Object.class, type));
+            return MethodHandles.filterArguments(setter, 1, columnGetter(type, column));
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns a (ResultSet rset) handle returning the column's value as the given
+     * type.
+     */
+    private static MethodHandle columnGetter(Class<?> type, int column) throws NoSuchMethodException, IllegalAccessException {
+        MethodHandle getter;
+        if (type == int.class) {
+            getter = resultSetGetter("getInt", int.class);
+        } else if (type == long.class) {
+            getter = resultSetGetter("getLong", long.class);
+        } else if (type == double.class) {
+            getter = resultSetGetter("getDouble", double.class);
+        } else if (type == float.class) {
+            getter = resultSetGetter("getFloat", float.class);
+        } else if (type == short.class) {
+            getter = resultSetGetter("getShort", short.class);
+        } else if (type == byte.class) {
+            getter = resultSetGetter("getByte", byte.class);
+        } else if (type == boolean.class) {
+            getter = resultSetGetter("getBoolean", boolean.class);
+        } else if (type == String.class) {
+            getter = resultSetGetter("getString", String.class);
+        } else if (type == BigDecimal.class) {
+            getter = resultSetGetter("getBigDecimal", BigDecimal.class);
+        } else if (type == byte[].class) {
+            getter = resultSetGetter("getBytes", byte[].class);
+        } else if (type == java.sql.Date.class) {
+            getter = resultSetGetter("getDate", java.sql.Date.class);
+        } else if (type == java.sql.Time.class) {
+            getter = resultSetGetter("getTime", java.sql.Time.class);
+        } else if (type == Timestamp.class || type == java.util.Date.class) {
+            getter = resultSetGetter("getTimestamp", Timestamp.class);
+        } else if (type.isEnum()) {
+            getter = MethodHandles.insertArguments(LOOKUP.findStatic(PojoRowMapper.class, "getEnum", MethodType.methodType(Enum.class, ResultSet.class, int.class, Class.class)),
+                                                   2, type);
+        } else if (Arrays.asList(Integer.class, Long.class, Double.class, Float.class, Short.class, Byte.class, Boolean.class,
+                                 Day.class, Month.class, ImmutableDay.class, ImmutableMonth.class, Hour.class, Minute.class, Second.class, Millisecond.class,
+                                 LocalDate.class, LocalDateTime.class).contains(type)) {
+            getter = LOOKUP.findStatic(PojoRowMapper.class, "get" + type.getSimpleName(), MethodType.methodType(type, ResultSet.class, int.class));
+        } else {
+            getter = resultSetGetter("getObject", Object.class);
+        }
+        return MethodHandles.insertArguments(getter, 1, column)
+                            .asType(MethodType.methodType(type, ResultSet.class));
+    }
+
+    private static MethodHandle resultSetGetter(String name, Class<?> returnType) throws NoSuchMethodException, IllegalAccessException {
+        return LOOKUP.findVirtual(ResultSet.class, name, MethodType.methodType(returnType, int.class));
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static Integer getInteger(ResultSet rset, int column) throws SQLException {
+        int value = rset.getInt(column);
+        return rset.wasNull() ? null : value;
+    }
+
+    private static Long getLong(ResultSet rset, int column) throws SQLException {
+        long value = rset.getLong(column);
+        return rset.wasNull() ? null : value;
+    }
+
+    private static Double getDouble(ResultSet rset, int column) throws SQLException {
+        double value = rset.getDouble(column);
+        return rset.wasNull() ? null : value;
+    }
+
+    private static Float getFloat(ResultSet rset, int column) throws SQLException {
+        float value = rset.getFloat(column);
+        return rset.wasNull() ? null : value;
+    }
+
+    private static Short getShort(ResultSet rset, int column) throws SQLException {
+        short value = rset.getShort(column);
+        return rset.wasNull() ? null : value;
+    }
+
+    private static Byte getByte(ResultSet rset, int column) throws SQLException {
+        byte value = rset.getByte(column);
+        return rset.wasNull() ? null : value;
+    }
+
+    private static Boolean getBoolean(ResultSet rset, int column) throws SQLException {
+        boolean value = rset.getBoolean(column);
+        return rset.wasNull() ? null : value;
+    }
+
+    private static Day getDay(ResultSet rset, int column) throws SQLException {
+        return Day.from(rset.getDate(column));
+    }
+
+    private static Month getMonth(ResultSet rset, int column) throws SQLException {
+        return Month.from((java.util.Date) rset.getDate(column));
+    }
+
+    private static ImmutableDay getImmutableDay(ResultSet rset, int column) throws SQLException {
+        return ImmutableDay.from(rset.getDate(column));
+    }
+
+    private static ImmutableMonth getImmutableMonth(ResultSet rset, int column) throws SQLException {
+        return ImmutableMonth.from(rset.getDate(column));
+    }
+
+    private static Hour getHour(ResultSet rset, int column) throws SQLException {
+        return Hour.from(rset.getTimestamp(column));
+    }
+
+    private static Minute getMinute(ResultSet rset, int column) throws SQLException {
+        return Minute.from(rset.getTimestamp(column));
+    }
+
+    private static Second getSecond(ResultSet rset, int column) throws SQLException {
+        return Second.from(rset.getTimestamp(column));
+    }
+
+    private static Millisecond getMillisecond(ResultSet rset, int column) throws SQLException {
+        return Millisecond.from(rset.getTimestamp(column));
+    }
+
+    private static LocalDate getLocalDate(ResultSet rset, int column) throws SQLException {
+        java.sql.Date date = rset.getDate(column);
+        return date == null ? null : date.toLocalDate();
+    }
+
+    private static LocalDateTime getLocalDateTime(ResultSet rset, int column) throws SQLException {
+        Timestamp timestamp = rset.getTimestamp(column);
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Enum getEnum(ResultSet rset, int column, Class enumClass) throws SQLException {
+        String value = rset.getString(column);
+        return value == null ? null : Enum.valueOf(enumClass, value);
+    }
+
+    private static class Key {
+
+        private final Class<?> rowClass;
+        private final String sql;
+
+        private Key(Class<?> rowClass, String sql) {
+            this.rowClass = rowClass;
+            this.sql = sql;
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return rowClass == other.rowClass && sql.equals(other.sql);
+        }
+
+        public int hashCode() {
+            return 31 * rowClass.hashCode() + sql.hashCode();
+        }
+
+    }
+
+}
@@ -0,0 +1,230 @@
+/*
+
+Copyright (c) 2019, Jirvan Pty Ltd
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+    * Redistributions of source code must retain the above copyright notice,
+      this list of conditions and the following disclaimer.
+    * Redistributions in binary form must reproduce the above copyright notice,
+      this list of conditions and the following disclaimer in the documentation
+      and/or other materials provided with the distribution.
+    * Neither the name of Jirvan Pty Ltd nor the names of its contributors
+      may be used to endorse or promote products derived from this software
+      without specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package com.jirvan.util;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+
+import java.sql.Connection;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.jirvan.util.Assertions.*;
+
+/**
+ * A read-through cache for the results of repeated (typically reference data)
+ * queries.  Results are keyed by sql and parameter values, the cache is bounded to
+ * maxEntries (least recently used entries are evicted first) and each entry
+ * expires after the time to live given when it was loaded.
+ * <p>
+ * Each entry can be tagged with the names of the tables it was read from, and
+ * {@link #invalidateTables(String...)} should be called after writing to those
+ * tables.  Concurrent misses for the same key result in only one query being run,
+ * the other callers wait for and share its result.
+ * <p>
+ * Note that parameter values must have sensible equals and hashCode methods (as
+ * String, Long, BigDecimal, Day etc do) for cache hits to occur.
+ */
+public class QueryResultCache {
+
+    private final Cache<Key, Entry> cache;
+    private final ConcurrentHashMap<String, AtomicLong> tableGenerations = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleEntries = new LongAdder();
+
+    public QueryResultCache(long maxEntries) {
+        assertTrue(maxEntries > 0, "maxEntries must be greater than zero");
+        this.cache = CacheBuilder.newBuilder()
+                                 .maximumSize(maxEntries)
+                                 .recordStats()
+                                 .build();
+    }
+
+    public Object queryForObject(Connection conn, String sql, Object[] parameterValues, long timeToLiveMillis, String... tableNames) {
+        return get(new Key(sql, parameterValues, Object.class), timeToLiveMillis, tableNames,
+                   () -> Jdbc.queryForObject(conn, sql, parameterValues));
+    }
+
+    /**
+     * Note that the row mapper's class forms part of the cache key, so a row
+     * mapper class should always map a given query in the same way.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> queryForList(Connection conn, String sql, Object[] parameterValues, Jdbc.RowMapper<T> rowMapper, long timeToLiveMillis, String... tableNames) {
+        return (List<T>) get(new Key(sql, parameterValues, rowMapper.getClass()), timeToLiveMillis, tableNames,
+                             () -> Jdbc.queryForList(conn, sql, parameterValues, rowMapper));
+    }
+
+    /**
+     * Invalidates all entries that were tagged with any of the given table names.
+     */
+    public void invalidateTables(String... tableNames) {
+        for (String tableName : tableNames) {
+            generation(tableName).incrementAndGet();
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Statistics getStatistics() {
+        Statistics statistics = new Statistics();
+        statistics.entries = cache.size();
+        statistics.hits = hits.sum();
+        statistics.misses = misses.sum();
+        statistics.staleEntries = staleEntries.sum();
+        statistics.evictions = cache.stats().evictionCount();
+        long requests = statistics.hits + statistics.misses;
+        statistics.hitRatio = requests == 0 ? 1.0 : (double) statistics.hits / requests;
+        return statistics;
+    }
+
+    public static class Statistics {
+
+        public long entries;
+        public long hits;
+
+        /**
+         * Includes requests for which an expired or invalidated entry was found.
+         */
+        public long misses;
+        public long staleEntries;
+        public long evictions;
+        public double hitRatio;
+
+    }
+
+//======================== Everything below here is private ========================//
+
+    private interface Loader {
+
+        Object load();
+
+    }
+
+    private Object get(Key key, long timeToLiveMillis, String[] tableNames, Loader loader) {
+        Entry entry = cache.getIfPresent(key);
+        if (entry != null) {
+            if (entry.isCurrent()) {
+                hits.increment();
+                return entry.value;
+            }
+            staleEntries.increment();
+            cache.asMap().remove(key, entry);
+        }
+        misses.increment();
+        try {
+            // Only one caller loads a missing key, any others block until it is done
+            return cache.get(key, () -> {
+                long[] generations = new long[tableNames.length];
+                AtomicLong[] counters = new AtomicLong[tableNames.length];
+                for (int i = 0; i < tableNames.length; i++) {
+                    counters[i] = generation(tableNames[i]);
+                    generations[i] = counters[i].get();
+                }
+                Object value = loader.load();
+                return new Entry(value, System.currentTimeMillis() + timeToLiveMillis, counters, generations);
+            }).value;
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private AtomicLong generation(String tableName) {
+        return tableGenerations.computeIfAbsent(tableName.toLowerCase(Locale.ROOT), name -> new AtomicLong());
+    }
+
+    private static class Entry {
+
+        private final Object value;
+        private final long expiresAt;
+        private final AtomicLong[] tableGenerations;
+        private final long[] loadedGenerations;
+
+        private Entry(Object value, long expiresAt, AtomicLong[] tableGenerations, long[] loadedGenerations) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+            this.tableGenerations = tableGenerations;
+            this.loadedGenerations = loadedGenerations;
+        }
+
+        private boolean isCurrent() {
+            if (System.currentTimeMillis() >= expiresAt) return false;
+            for (int i = 0; i < tableGenerations.length; i++) {
+                if (tableGenerations[i].get() != loadedGenerations[i]) return false;
+            }
+            return true;
+        }
+
+    }
+
+    private static class Key {
+
+        private final String sql;
+        private final List<Object> parameterValues;
+        private final Object resultType;
+        private final int hashCode;
+
+        private Key(String sql, Object[] parameterValues, Object resultType) {
+            this.sql = sql;
+            this.parameterValues = parameterValues == null ? null : Arrays.asList(parameterValues.clone());
+            this.resultType = resultType;
+            this.hashCode = 31 * (31 * sql.hashCode() + (this.parameterValues == null ? 0 : this.parameterValues.hashCode())) + resultType.hashCode();
+        }
+
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Key)) return false;
+            Key other = (Key) obj;
+            return hashCode == other.hashCode
+                   && sql.equals(other.sql)
+                   && resultType.equals(other.resultType)
+                   && (parameterValues == null ? other.parameterValues == null : parameterValues.equals(other.parameterValues));
+        }
+
+        public int hashCode() {
+            return hashCode;
+        }
+
+    }
+
+}
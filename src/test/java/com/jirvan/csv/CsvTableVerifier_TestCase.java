@@ -0,0 +1,199 @@
+package com.jirvan.csv;
+
+import com.jirvan.util.Jdbc;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class CsvTableVerifier_TestCase {
+
+    private static final String DDL = "create table thing (id integer primary key, name text, amount numeric)";
+
+    @Test
+    public void test_matchingTable() throws Exception {
+        DataSource dataSource = newThingDataSource();
+        File csvFile = csvFile(csvLines(1, 100));
+        CsvTableVerifier.Result result = CsvTableVerifier.verify(dataSource, "thing", csvFile);
+        assertTrue("Expected a match", result.matches());
+        assertEquals("Unexpected csv row count", 100, result.csvRowCount);
+        assertEquals("Unexpected table row count", 100, result.tableRowCount);
+    }
+
+    @Test
+    public void test_mismatches() throws Exception {
+        DataSource dataSource = newThingDataSource();
+
+        // With one connection ids 1 to 100 are split into the four ranges starting
+        // at 1, 26, 51 and 76 (with the first and last open ended)
+        List<String> lines = csvLines(2, 100);  // so id 1 is only in the table, and id n is on line n
+        lines.set(30 - 2, "30,changed,45");
+        lines.add("80,name80,120");      // line 101 duplicates line 80
+        lines.add("200,name200,300");    // beyond the last range's lower bound
+        lines.add("-5,name-5,-7.5");     // before the first range's lower bound
+        File csvFile = csvFile(lines);
+
+        CsvTableVerifier.Result result = CsvTableVerifier.verify(dataSource, "thing", null, null, null, csvFile, 1, 100);
+        assertFalse("Expected a mismatch", result.matches());
+        assertEquals("Unexpected csv row count", 102, result.csvRowCount);
+        assertEquals("Unexpected table row count", 100, result.tableRowCount);
+        assertEquals("Unexpected ranges", "id < 26|id >= 26 and id < 51|id >= 76", ranges(result));
+
+        CsvTableVerifier.MismatchedRange firstRange = result.mismatchedRanges.get(0);
+        assertEquals("Unexpected rows", "-5(csv line 103 only)|1(table only)", rows(firstRange));
+        assertEquals("Unexpected table values", "1, name1, 1.5", rowWithKey(firstRange, "1").tableValues);
+        assertEquals("Unexpected csv values", "-5, name-5, -7.5", rowWithKey(firstRange, "-5").csvValues);
+
+        CsvTableVerifier.MismatchedRange secondRange = result.mismatchedRanges.get(1);
+        assertEquals("Unexpected rows", "30(csv line 30 differs)", rows(secondRange));
+        assertEquals("Unexpected csv values", "30, changed, 45.0", secondRange.rows.get(0).csvValues);
+        assertEquals("Unexpected table values", "30, name30, 45.0", secondRange.rows.get(0).tableValues);
+        assertEquals("Unexpected csv row count", 1, secondRange.csvRowCount);
+        assertEquals("Unexpected table row count", 1, secondRange.tableRowCount);
+
+        CsvTableVerifier.MismatchedRange lastRange = result.mismatchedRanges.get(2);
+        assertEquals("Unexpected rows", "80(csv line 101 duplicates line 80)|200(csv line 102 only)", rows(lastRange));
+    }
+
+    @Test
+    public void test_boundedSecondPass() throws Exception {
+        DataSource dataSource = newThingDataSource();
+        List<String> lines = csvLines(1, 100);
+        for (int id = 10; id <= 100; id += 10) {
+            lines.set(id - 1, id + ",changed" + id + "," + id * 1.5);
+        }
+        lines.add("50,name50,75");
+        File csvFile = csvFile(lines);
+
+        // Keeping the rows of only one bucket per round finds the same rows (though
+        // not necessarily in the same order within a range)
+        CsvTableVerifier.Result result = CsvTableVerifier.verify(dataSource, "thing", null, null, null, csvFile, 1, 100, 200000);
+        CsvTableVerifier.Result boundedResult = CsvTableVerifier.verify(dataSource, "thing", null, null, null, csvFile, 1, 100, 1);
+        assertEquals("Unexpected number of rows", 11, rowCount(result));
+        assertEquals("Unexpected ranges", ranges(result), ranges(boundedResult));
+        for (int i = 0; i < result.mismatchedRanges.size(); i++) {
+            assertEquals("Unexpected rows", sortedRows(result.mismatchedRanges.get(i)), sortedRows(boundedResult.mismatchedRanges.get(i)));
+        }
+
+        // And the number of rows reported is limited across all ranges
+        CsvTableVerifier.Result limitedResult = CsvTableVerifier.verify(dataSource, "thing", null, null, null, csvFile, 1, 3, 1);
+        assertEquals("Unexpected number of rows", 3, rowCount(limitedResult));
+        assertEquals("Expected all of the ranges", ranges(result), ranges(limitedResult));
+    }
+
+    @Test
+    public void test_tableChecksum() throws Exception {
+        DataSource dataSource = newThingDataSource();
+        DataSource reversedDataSource = newDataSource(DDL);
+        List<Object[]> rows = thingRows();
+        Collections.reverse(rows);
+        try (Connection connection = reversedDataSource.getConnection()) {
+            Jdbc.insertRows(connection, "thing", new String[]{"id", "name", "amount"}, rows);
+        }
+        CsvTableVerifier.Checksum checksum = CsvTableVerifier.getTableChecksum(dataSource, "thing");
+        assertEquals("Unexpected row count", 100, checksum.rowCount);
+        assertEquals("Expected the same checksum", checksum, CsvTableVerifier.getTableChecksum(reversedDataSource, "thing", 1));
+
+        execute(reversedDataSource, "update thing set name = 'changed' where id = 50");
+        assertFalse("Expected a different checksum", checksum.equals(CsvTableVerifier.getTableChecksum(reversedDataSource, "thing")));
+    }
+
+    private static DataSource newThingDataSource() throws Exception {
+        DataSource dataSource = newDataSource(DDL);
+        try (Connection connection = dataSource.getConnection()) {
+            Jdbc.insertRows(connection, "thing", new String[]{"id", "name", "amount"}, thingRows());
+        }
+        return dataSource;
+    }
+
+    private static List<Object[]> thingRows() {
+        List<Object[]> rows = new ArrayList<>();
+        for (int id = 1; id <= 100; id++) {
+            rows.add(new Object[]{id, "name" + id, id * 1.5});
+        }
+        return rows;
+    }
+
+    private static List<String> csvLines(int firstId, int lastId) {
+        List<String> lines = new ArrayList<>();
+        for (int id = firstId; id <= lastId; id++) {
+            lines.add(id + ",name" + id + "," + id * 1.5);
+        }
+        return lines;
+    }
+
+    private static File csvFile(List<String> lines) throws IOException {
+        File csvFile = File.createTempFile("jirvan", ".csv");
+        csvFile.deleteOnExit();
+        try (PrintStream printStream = new PrintStream(csvFile)) {
+            printStream.println("id,name,amount");
+            for (String line : lines) {
+                printStream.println(line);
+            }
+        }
+        return csvFile;
+    }
+
+    private static String ranges(CsvTableVerifier.Result result) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (CsvTableVerifier.MismatchedRange range : result.mismatchedRanges) {
+            if (stringBuilder.length() > 0) stringBuilder.append('|');
+            stringBuilder.append(range.range);
+        }
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Describes the rows, e.g. "30(csv line 30 differs)|1(table only)"
+     */
+    private static String rows(CsvTableVerifier.MismatchedRange range) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (CsvTableVerifier.MismatchedRow row : range.rows) {
+            if (stringBuilder.length() > 0) stringBuilder.append('|');
+            stringBuilder.append(row.primaryKey);
+            if (row.duplicateOfCsvLineNumber != null) {
+                stringBuilder.append(String.format("(csv line %d duplicates line %d)", row.csvLineNumber, row.duplicateOfCsvLineNumber));
+            } else if (row.csvLineNumber == null) {
+                stringBuilder.append("(table only)");
+            } else if (row.tableValues == null) {
+                stringBuilder.append(String.format("(csv line %d only)", row.csvLineNumber));
+            } else {
+                stringBuilder.append(String.format("(csv line %d differs)", row.csvLineNumber));
+            }
+        }
+        return stringBuilder.toString();
+    }
+
+    private static List<String> sortedRows(CsvTableVerifier.MismatchedRange range) {
+        List<String> rows = new ArrayList<>(Arrays.asList(rows(range).split("\\|")));
+        Collections.sort(rows);
+        return rows;
+    }
+
+    private static CsvTableVerifier.MismatchedRow rowWithKey(CsvTableVerifier.MismatchedRange range, String primaryKey) {
+        for (CsvTableVerifier.MismatchedRow row : range.rows) {
+            if (row.primaryKey.equals(primaryKey)) return row;
+        }
+        fail("No row with primary key " + primaryKey);
+        return null;
+    }
+
+    private static int rowCount(CsvTableVerifier.Result result) {
+        int count = 0;
+        for (CsvTableVerifier.MismatchedRange range : result.mismatchedRanges) {
+            count += range.rows.size();
+        }
+        return count;
+    }
+
+}
@@ -0,0 +1,136 @@
+package com.jirvan.dbcopy;
+
+import com.jirvan.util.DatabaseType;
+import com.jirvan.util.Jdbc;
+import org.testng.SkipException;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+/**
+ * Each test copies a table within a database of the given type, given by the
+ * jirvan.test.&lt;database type&gt;.connectString system property (as for
+ * {@link Jdbc#getDataSource(String)}), and is skipped if that is not set (apart
+ * from the SQLite test, which uses a throwaway database instead).  The
+ * table and column names are mixed case (so they must be quoted) and the tables
+ * have identity or serial keys, numeric, timestamp, large text and binary columns.
+ */
+public class TableCopier_TestCase {
+
+    private static final String SOURCE_TABLE = "CopyTest Source";
+    private static final String TARGET_TABLE = "CopyTest Target";
+
+    @Test
+    public void test_postgres() throws Exception {
+        copyAndVerify(DatabaseType.postgres, "serial primary key", "numeric(10,2)", "timestamp", "text", "bytea", true);
+    }
+
+    @Test
+    public void test_oracle() throws Exception {
+
+        // Oracle identity columns aren't reset after the copy (see TableCopier)
+        copyAndVerify(DatabaseType.oracle, "number(10) generated by default as identity primary key", "number(10,2)", "timestamp with time zone", "clob", "blob", false);
+    }
+
+    @Test
+    public void test_sqlserver() throws Exception {
+        copyAndVerify(DatabaseType.sqlserver, "int identity primary key", "numeric(10,2)", "datetime2", "nvarchar(max)", "varbinary(max)", true);
+    }
+
+    @Test
+    public void test_sqlite() throws Exception {
+        copyAndVerify(DatabaseType.sqlite, "integer primary key autoincrement", "numeric", "timestamp", "text", "blob", true);
+    }
+
+    private static void copyAndVerify(DatabaseType databaseType, String idType, String amountType, String createdType, String notesType, String dataType,
+                                      boolean checkKeysContinue) throws Exception {
+        DataSource dataSource;
+        String connectString = System.getProperty("jirvan.test." + databaseType.name() + ".connectString");
+        if (connectString != null) {
+            dataSource = Jdbc.getDataSource(connectString);
+        } else if (databaseType == DatabaseType.sqlite) {
+            dataSource = newDataSource();
+        } else {
+            throw new SkipException("jirvan.test." + databaseType.name() + ".connectString is not set");
+        }
+        assertEquals("Unexpected database type", databaseType, DatabaseType.get(dataSource));
+
+        for (String tableName : new String[]{SOURCE_TABLE, TARGET_TABLE}) {
+            update(dataSource, String.format("create table %s (%s %s, %s %s, %s %s, %s %s, %s %s)",
+                                             databaseType.quoteIdentifier(tableName),
+                                             databaseType.quoteIdentifier("Id"), idType,
+                                             databaseType.quoteIdentifier("Amount"), amountType,
+                                             databaseType.quoteIdentifier("Created"), createdType,
+                                             databaseType.quoteIdentifier("Notes"), notesType,
+                                             databaseType.quoteIdentifier("Data"), dataType));
+        }
+        try {
+            String insertSql = String.format("insert into %s (%s, %s, %s, %s) values (?, ?, ?, ?)",
+                                             databaseType.quoteIdentifier(SOURCE_TABLE),
+                                             databaseType.quoteIdentifier("Amount"),
+                                             databaseType.quoteIdentifier("Created"),
+                                             databaseType.quoteIdentifier("Notes"),
+                                             databaseType.quoteIdentifier("Data"));
+            char[] longNotes = new char[10000];
+            Arrays.fill(longNotes, 'x');
+            update(dataSource, insertSql, new BigDecimal("12.34"), Timestamp.valueOf("2019-03-04 05:06:07"), "Some notes", new byte[]{1, 2, 3});
+            update(dataSource, insertSql, new BigDecimal("-0.01"), Timestamp.valueOf("2000-01-01 00:00:00"), new String(longNotes), new byte[]{0});
+            update(dataSource, insertSql.replace("?", "null"));
+
+            long rowsCopied = TableCopier.copyTable(dataSource, null, SOURCE_TABLE, dataSource, null, TARGET_TABLE, null, 2, 1);
+            assertEquals("Unexpected rows copied", 3, rowsCopied);
+
+            List<Object[]> sourceRows = selectRows(dataSource, databaseType, SOURCE_TABLE);
+            List<Object[]> targetRows = selectRows(dataSource, databaseType, TARGET_TABLE);
+            assertEquals("Unexpected number of rows", sourceRows.size(), targetRows.size());
+            for (int i = 0; i < sourceRows.size(); i++) {
+                Object[] sourceRow = sourceRows.get(i);
+                Object[] targetRow = targetRows.get(i);
+                assertEquals("Unexpected Id", sourceRow[0], targetRow[0]);
+                assertTrue("Unexpected Amount", sourceRow[1] == null ? targetRow[1] == null : ((BigDecimal) sourceRow[1]).compareTo((BigDecimal) targetRow[1]) == 0);
+                assertEquals("Unexpected Created", sourceRow[2], targetRow[2]);
+                assertEquals("Unexpected Notes", sourceRow[3], targetRow[3]);
+                assertTrue("Unexpected Data", Arrays.equals((byte[]) sourceRow[4], (byte[]) targetRow[4]));
+            }
+
+            // The target's identity or sequence should carry on from the copied keys
+            if (checkKeysContinue) {
+                update(dataSource, String.format("insert into %s (%s) values (?)", databaseType.quoteIdentifier(TARGET_TABLE), databaseType.quoteIdentifier("Notes")), "Not copied");
+                assertEquals("Unexpected number of rows", 4, selectRows(dataSource, databaseType, TARGET_TABLE).size());
+            }
+
+        } finally {
+            for (String tableName : new String[]{SOURCE_TABLE, TARGET_TABLE}) {
+                update(dataSource, "drop table " + databaseType.quoteIdentifier(tableName));
+            }
+        }
+    }
+
+    private static void update(DataSource dataSource, String sql, Object... parameterValues) {
+        Jdbc.updateAsync(dataSource, sql, parameterValues).join();
+    }
+
+    private static List<Object[]> selectRows(DataSource dataSource, DatabaseType databaseType, String tableName) {
+        String sql = String.format("select %s, %s, %s, %s, %s from %s order by %s",
+                                   databaseType.quoteIdentifier("Id"),
+                                   databaseType.quoteIdentifier("Amount"),
+                                   databaseType.quoteIdentifier("Created"),
+                                   databaseType.quoteIdentifier("Notes"),
+                                   databaseType.quoteIdentifier("Data"),
+                                   databaseType.quoteIdentifier(tableName),
+                                   databaseType.quoteIdentifier("Id"));
+        return Jdbc.queryAsync(dataSource, sql, null, rset -> new Object[]{rset.getLong(1),
+                                                                            rset.getBigDecimal(2),
+                                                                            rset.getString(3),
+                                                                            rset.getString(4),
+                                                                            rset.getBytes(5)}).join();
+    }
+
+}
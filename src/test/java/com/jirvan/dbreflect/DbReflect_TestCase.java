@@ -0,0 +1,187 @@
+package com.jirvan.dbreflect;
+
+import com.jirvan.gen.jdl.JdlGenerator;
+import com.jirvan.util.Jdbc;
+import com.jirvan.util.Json;
+import org.testng.SkipException;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+/**
+ * test_catalogQueriesMatchJdbcMetadata needs a database, given by the
+ * jirvan.test.connectString (as for {@link Jdbc#getDataSource(String)}) and
+ * jirvan.test.schema system properties, and is skipped if they are not set.  The
+ * other tests use throwaway SQLite databases.
+ */
+public class DbReflect_TestCase {
+
+    static final String[] SCHEMA_DDL = {
+            "create table customer (id integer primary key, name varchar(100) not null)",
+            "create table product (category varchar(10) not null, code varchar(20) not null, price numeric(10,2), primary key (category, code))",
+            "create table order_line (id integer primary key,\n" +
+            "                         customer_id integer not null references customer (id),\n" +
+            "                         product_category varchar(10),\n" +
+            "                         product_code varchar(20),\n" +
+            "                         quantity integer,\n" +
+            "                         foreign key (product_category, product_code) references product (category, code))",
+            "create table employee (id integer primary key, manager_id integer references employee (id), customer_id integer references customer (id))"};
+
+    @Test
+    public void test_catalogQueriesMatchJdbcMetadata() {
+        String connectString = System.getProperty("jirvan.test.connectString");
+        String schemaName = System.getProperty("jirvan.test.schema");
+        if (connectString == null || schemaName == null) {
+            throw new SkipException("jirvan.test.connectString and jirvan.test.schema are not set");
+        }
+        DataSource dataSource = Jdbc.getDataSource(connectString);
+
+        assertTablesEqual(DbReflect.getTablesUsingJdbcMetadata(dataSource, null, schemaName),
+                          DbReflect.getTables(dataSource, null, schemaName));
+    }
+
+    @Test
+    public void test_nullSchemaMatchesJdbcMetadata() throws Exception {
+
+        // SQLite has no schemas (and no catalog queries), so this checks that a null
+        // schema still means all of the tables, and the foreign key linking
+        DataSource dataSource = newDataSource(SCHEMA_DDL);
+        List<Table> tables = DbReflect.getTables(dataSource, null, null);
+        assertEquals("Unexpected number of tables", 4, tables.size());
+        assertTablesEqual(DbReflect.getTablesUsingJdbcMetadata(dataSource, null, null, 1), tables);
+        assertNotNull("Expected a fingerprint", DbReflect.getSchemaFingerprint(dataSource, null, null));
+
+        Table product = tables.get(3);
+        assertEquals("Unexpected table", "product", product.tableName);
+        assertEquals("Unexpected mandatory", true, product.columns.get(1).mandatory);
+        assertEquals("Unexpected isInPrimaryKey", true, product.columns.get(1).isInPrimaryKey);
+        assertEquals("Unexpected isInPrimaryKey", false, product.columns.get(2).isInPrimaryKey);
+        assertEquals("Unexpected number of referencing foreign keys", 1, product.referencingForeignKeys.size());
+        assertEquals("Unexpected referencing table", "order_line", product.referencingForeignKeys.get(0).referencingTableName);
+        assertEquals("Unexpected referencing columns", Arrays.asList("product_category", "product_code"), product.referencingForeignKeys.get(0).referencingColumnNames);
+        assertEquals("Unexpected referenced columns", Arrays.asList("category", "code"), product.referencingForeignKeys.get(0).columnNames);
+    }
+
+    @Test
+    public void test_parallelReflection() throws Exception {
+        DataSource dataSource = newDataSource(SCHEMA_DDL);
+
+        // Spreading the tables across connections gives the same result as one connection
+        List<Table> tables = DbReflect.getTablesUsingJdbcMetadata(dataSource, null, null, 1);
+        assertTablesEqual(tables, DbReflect.getTablesUsingJdbcMetadata(dataSource, null, null, 3));
+        assertTablesEqual(tables, DbReflect.getTablesUsingJdbcMetadata(dataSource, null, null, 10));
+
+        // And each table's foreign keys are linked from the referenced tables' keys
+        Table customer = tables.get(0);
+        assertEquals("Unexpected table", "customer", customer.tableName);
+        assertEquals("Unexpected number of foreign keys", 0, customer.foreignKeys.size());
+        assertEquals("Unexpected number of referencing foreign keys", 2, customer.referencingForeignKeys.size());
+
+        Table employee = tables.get(1);
+        assertEquals("Unexpected table", "employee", employee.tableName);
+        assertEquals("Unexpected number of foreign keys", 2, employee.foreignKeys.size());
+        assertEquals("Unexpected referenced table", "customer", employee.foreignKeys.get(0).referencedTableName);
+        assertEquals("Unexpected columns", Arrays.asList("customer_id"), employee.foreignKeys.get(0).columnNames);
+        assertEquals("Unexpected referenced table", "employee", employee.foreignKeys.get(1).referencedTableName);
+        assertEquals("Unexpected columns", Arrays.asList("manager_id"), employee.foreignKeys.get(1).columnNames);
+        assertEquals("Unexpected referenced columns", Arrays.asList("id"), employee.foreignKeys.get(1).referencedColumnNames);
+
+        Table orderLine = tables.get(2);
+        assertEquals("Unexpected table", "order_line", orderLine.tableName);
+        assertEquals("Unexpected number of foreign keys", 2, orderLine.foreignKeys.size());
+        assertEquals("Unexpected referenced table", "customer", orderLine.foreignKeys.get(0).referencedTableName);
+        assertEquals("Unexpected referenced table", "product", orderLine.foreignKeys.get(1).referencedTableName);
+        assertEquals("Unexpected columns", Arrays.asList("product_category", "product_code"), orderLine.foreignKeys.get(1).columnNames);
+        assertEquals("Unexpected referenced columns", Arrays.asList("category", "code"), orderLine.foreignKeys.get(1).referencedColumnNames);
+    }
+
+    @Test
+    public void test_snapshotWrittenAndReused() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, name text)");
+        File snapshotFile = File.createTempFile("jirvan", ".json");
+        snapshotFile.delete();
+        snapshotFile.deleteOnExit();
+
+        List<Table> tables = DbReflect.getTables(dataSource, null, null, snapshotFile);
+        assertEquals("Unexpected number of tables", 1, tables.size());
+        assertTrue("Expected the snapshot file to be written", snapshotFile.exists());
+
+        // Mark the snapshot so that it can be told apart from reflecting again
+        SchemaSnapshot snapshot = Json.fromJsonFile(snapshotFile, SchemaSnapshot.class);
+        assertEquals("Unexpected fingerprint", DbReflect.getSchemaFingerprint(dataSource, null, null), snapshot.fingerprint);
+        snapshot.tables.get(0).remarks = "From the snapshot";
+        Json.toJsonFile(snapshot, snapshotFile, true);
+        tables = DbReflect.getTables(dataSource, null, null, snapshotFile);
+        assertEquals("Expected the snapshot to be used", "From the snapshot", tables.get(0).remarks);
+
+        // Changing the schema changes the fingerprint, so it is reflected again
+        execute(dataSource, "create table other_thing (id integer primary key)");
+        tables = DbReflect.getTables(dataSource, null, null, snapshotFile);
+        assertEquals("Unexpected number of tables", 2, tables.size());
+        assertNull("Expected the schema to be reflected", tables.get(0).remarks);
+        assertEquals("Expected the snapshot to be rewritten", 2, Json.fromJsonFile(snapshotFile, SchemaSnapshot.class).tables.size());
+
+        // As JdlGenerator does
+        File outputFile = File.createTempFile("jirvan", ".jh");
+        outputFile.deleteOnExit();
+        File jdlSnapshotFile = new File(outputFile.getPath() + ".snapshot");
+        jdlSnapshotFile.deleteOnExit();
+        JdlGenerator.generateJdlFile(dataSource, null, outputFile, true, jdlSnapshotFile);
+        assertTrue("Expected the snapshot file to be written", jdlSnapshotFile.exists());
+        assertTrue("Expected the jdl to be generated", outputFile.length() > 0);
+    }
+
+    static void assertTablesEqual(List<Table> expected, List<Table> actual) {
+        assertEquals("Unexpected number of tables", expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTableEquals(expected.get(i), actual.get(i));
+        }
+    }
+
+    static void assertTableEquals(Table expected, Table actual) {
+        String table = expected.tableName;
+        assertEquals("Unexpected table name", expected.tableName, actual.tableName);
+        assertEquals("Unexpected schema name for " + table, expected.schemaName, actual.schemaName);
+        assertEquals("Unexpected catalog name for " + table, expected.catalogName, actual.catalogName);
+        assertEquals("Unexpected remarks for " + table, expected.remarks, actual.remarks);
+
+        assertEquals("Unexpected number of columns for " + table, expected.columns.size(), actual.columns.size());
+        for (int i = 0; i < expected.columns.size(); i++) {
+            Column expectedColumn = expected.columns.get(i);
+            Column actualColumn = actual.columns.get(i);
+            String column = table + "." + expectedColumn.columnName;
+            assertEquals("Unexpected column name", column, table + "." + actualColumn.columnName);
+            assertEquals("Unexpected sqlType for " + column, expectedColumn.sqlType, actualColumn.sqlType);
+            assertEquals("Unexpected sqlTypeName for " + column, expectedColumn.sqlTypeName, actualColumn.sqlTypeName);
+            assertEquals("Unexpected columnSize for " + column, expectedColumn.columnSize, actualColumn.columnSize);
+            assertEquals("Unexpected decimalDigits for " + column, expectedColumn.decimalDigits, actualColumn.decimalDigits);
+            assertEquals("Unexpected mandatory for " + column, expectedColumn.mandatory, actualColumn.mandatory);
+            assertEquals("Unexpected isInPrimaryKey for " + column, expectedColumn.isInPrimaryKey, actualColumn.isInPrimaryKey);
+        }
+
+        assertEquals("Unexpected number of foreign keys for " + table, expected.foreignKeys.size(), actual.foreignKeys.size());
+        for (int i = 0; i < expected.foreignKeys.size(); i++) {
+            Table.ForeignKey expectedKey = expected.foreignKeys.get(i);
+            Table.ForeignKey actualKey = actual.foreignKeys.get(i);
+            assertEquals("Unexpected foreign key columns for " + table, expectedKey.columnNames, actualKey.columnNames);
+            assertEquals("Unexpected referenced table for " + table, expectedKey.referencedTableName, actualKey.referencedTableName);
+            assertEquals("Unexpected referenced columns for " + table, expectedKey.referencedColumnNames, actualKey.referencedColumnNames);
+        }
+
+        assertEquals("Unexpected number of referencing foreign keys for " + table, expected.referencingForeignKeys.size(), actual.referencingForeignKeys.size());
+        for (int i = 0; i < expected.referencingForeignKeys.size(); i++) {
+            Table.ReferencingForeignKey expectedKey = expected.referencingForeignKeys.get(i);
+            Table.ReferencingForeignKey actualKey = actual.referencingForeignKeys.get(i);
+            assertEquals("Unexpected referencing table for " + table, expectedKey.referencingTableName, actualKey.referencingTableName);
+            assertEquals("Unexpected referencing columns for " + table, expectedKey.referencingColumnNames, actualKey.referencingColumnNames);
+            assertEquals("Unexpected referenced columns for " + table, expectedKey.columnNames, actualKey.columnNames);
+        }
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.jirvan.dbreflect;
+
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.jirvan.dbreflect.DbReflect_TestCase.*;
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class LazySchema_TestCase {
+
+    @Test
+    public void test_matchesGetTables() throws Exception {
+        DataSource dataSource = newDataSource(SCHEMA_DDL);
+        LazySchema lazySchema = DbReflect.getLazySchema(dataSource, null, null);
+        assertEquals("Unexpected table names", Arrays.asList("customer", "employee", "order_line", "product"), lazySchema.getTableNames());
+
+        // The foreign keys come from the table's imported keys rather than the other
+        // tables' exported keys, but should be the same
+        for (Table table : DbReflect.getTables(dataSource, null, null)) {
+            assertTrue("Expected " + table.tableName, lazySchema.hasTable(table.tableName));
+            assertTableEquals(table, lazySchema.getTable(table.tableName));
+        }
+    }
+
+    @Test
+    public void test_missingTable() throws Exception {
+        LazySchema lazySchema = DbReflect.getLazySchema(newDataSource(SCHEMA_DDL), null, null);
+        assertFalse("Expected no such table", lazySchema.hasTable("no_such_table"));
+        assertFalse("Table names are as the database reports them", lazySchema.hasTable("CUSTOMER"));
+        assertNull("Expected no such table", lazySchema.getTable("no_such_table"));
+        try {
+            lazySchema.getColumns("no_such_table");
+            fail("Expected an exception");
+        } catch (RuntimeException e) {
+            assertEquals("Unexpected message", "Table \"no_such_table\" does not exist", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_reflectedOnceUntilRefreshed() throws Exception {
+        DataSource dataSource = newDataSource(SCHEMA_DDL);
+        LazySchema lazySchema = DbReflect.getLazySchema(dataSource, null, null);
+
+        // Concurrent requests for a table all get the one reflection of it
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Table>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executorService.submit(() -> lazySchema.getTable("order_line")));
+            }
+            Table table = futures.get(0).get();
+            for (Future<Table> future : futures) {
+                assertSame("Expected the same table", table, future.get());
+            }
+            assertSame("Expected the same columns", table.columns, lazySchema.getColumns("order_line"));
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        // Changes to the schema are only seen after a refresh
+        assertEquals("Unexpected number of columns", 2, lazySchema.getColumns("customer").size());
+        execute(dataSource, "alter table customer add column email varchar(100)");
+        execute(dataSource, "create table supplier (id integer primary key)");
+        assertEquals("Unexpected number of columns", 2, lazySchema.getColumns("customer").size());
+        assertFalse("Expected the old table names", lazySchema.hasTable("supplier"));
+        lazySchema.refresh();
+        assertEquals("Unexpected number of columns", 3, lazySchema.getColumns("customer").size());
+        assertTrue("Expected the new table", lazySchema.hasTable("supplier"));
+    }
+
+}
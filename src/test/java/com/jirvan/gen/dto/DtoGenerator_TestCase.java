@@ -0,0 +1,100 @@
+package com.jirvan.gen.dto;
+
+import com.jirvan.dbreflect.Column;
+import com.jirvan.dbreflect.Table;
+import com.jirvan.util.DatabaseType;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class DtoGenerator_TestCase {
+
+    @Test
+    public void test_generateDto() {
+        Table table = new Table();
+        table.tableName = "order_line";
+        table.columns = Arrays.asList(column("id", Types.BIGINT, true),
+                                      column("order", Types.INTEGER, false));
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        DtoGenerator.generateDto(new PrintStream(outputStream), table, DatabaseType.sqlserver, "com.example");
+        String source = outputStream.toString();
+        assertTrue("Expected quoted sql", source.contains("public static final String SELECT_SQL = \"select [id], [order] from [order_line]\";"));
+        assertTrue("Expected quoted sql", source.contains("public static final String INSERT_SQL = \"insert into [order_line] ([id], [order]) values (?,?)\";"));
+
+        outputStream = new ByteArrayOutputStream();
+        DtoGenerator.generateDto(new PrintStream(outputStream), table, DatabaseType.postgres, "com.example");
+        source = outputStream.toString();
+        assertTrue("Expected quoted sql", source.contains("public static final String SELECT_SQL = \"select \\\"id\\\", \\\"order\\\" from \\\"order_line\\\"\";"));
+        assertTrue("Expected a primitive field", source.contains("public long id;"));
+        assertTrue("Expected a boxed field", source.contains("public Integer order;"));
+    }
+
+    @Test
+    public void test_generatedSourceCompilesAndRuns() throws Exception {
+        DataSource dataSource = newDataSource("create table order_line (id integer primary key not null, \"order\" integer, description text, amount numeric)");
+        File outputDirectory = Files.createTempDirectory("jirvan").toFile();
+        DtoGenerator.generateDtoFiles(dataSource, outputDirectory, "com.example.dto", false);
+        File sourceFile = new File(outputDirectory, "com/example/dto/OrderLine.java");
+        assertTrue("Expected the source file to be generated", sourceFile.exists());
+
+        // Compile it against the test class path
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        ByteArrayOutputStream errors = new ByteArrayOutputStream();
+        int result = compiler.run(null, null, errors,
+                                  "-classpath", System.getProperty("java.class.path"),
+                                  "-d", outputDirectory.getPath(),
+                                  sourceFile.getPath());
+        assertEquals("Expected the generated source to compile: " + errors, 0, result);
+
+        // And insert and query a row with it
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{outputDirectory.toURI().toURL()}, getClass().getClassLoader())) {
+            Class<?> dtoClass = classLoader.loadClass("com.example.dto.OrderLine");
+            Object row = dtoClass.getConstructor().newInstance();
+            dtoClass.getField("id").set(row, 1);
+            dtoClass.getField("order").set(row, 42);
+            dtoClass.getField("description").set(row, "first");
+            try (Connection connection = dataSource.getConnection()) {
+                assertEquals("Unexpected number of rows inserted", 1L,
+                             dtoClass.getMethod("insert", Connection.class, Iterable.class, int.class).invoke(null, connection, Arrays.asList(row), 100));
+                List<?> rows = (List<?>) dtoClass.getMethod("queryAll", Connection.class).invoke(null, connection);
+                assertEquals("Unexpected number of rows", 1, rows.size());
+                assertEquals("Unexpected id", 1, fieldValue(dtoClass, "id", rows.get(0)));
+                assertEquals("Unexpected order", 42, fieldValue(dtoClass, "order", rows.get(0)));
+                assertEquals("Unexpected description", "first", fieldValue(dtoClass, "description", rows.get(0)));
+                assertNull("Expected a null amount", fieldValue(dtoClass, "amount", rows.get(0)));
+            }
+        }
+    }
+
+    private static Column column(String columnName, int sqlType, boolean mandatory) {
+        Column column = new Column();
+        column.columnName = columnName;
+        column.sqlType = sqlType;
+        column.mandatory = mandatory;
+        return column;
+    }
+
+    private static Object fieldValue(Class<?> dtoClass, String fieldName, Object row) throws Exception {
+        Field field = dtoClass.getField(fieldName);
+        Object value = field.get(row);
+        return value instanceof Number && !(value instanceof BigDecimal) ? ((Number) value).intValue() : value;
+    }
+
+}
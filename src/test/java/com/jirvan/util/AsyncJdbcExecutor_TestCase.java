@@ -0,0 +1,166 @@
+package com.jirvan.util;
+
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.*;
+
+public class AsyncJdbcExecutor_TestCase {
+
+    @Test
+    public void test_concurrencyLimit() throws Exception {
+        BlockingDataSource blockingDataSource = new BlockingDataSource();
+        AsyncJdbcExecutor executor = new AsyncJdbcExecutor(blockingDataSource.dataSource, 2, 10);
+        try {
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                futures.add(executor.update("update thing set name = ?", new Object[]{"name" + i}));
+            }
+            blockingDataSource.awaitRunning(2);
+            Thread.sleep(100);
+            assertEquals("Unexpected number of running statements", 2, blockingDataSource.running.get());
+
+            blockingDataSource.release.countDown();
+            for (CompletableFuture<Integer> future : futures) {
+                assertEquals("Unexpected update count", Integer.valueOf(1), future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals("Unexpected maximum number of running statements", 2, blockingDataSource.maxRunning.get());
+            assertEquals("Unexpected number of statements", 6, blockingDataSource.prepared.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_cancellation() throws Exception {
+        BlockingDataSource blockingDataSource = new BlockingDataSource();
+        AsyncJdbcExecutor executor = new AsyncJdbcExecutor(blockingDataSource.dataSource, 1, 10);
+        try {
+            CompletableFuture<Integer> running = executor.update("update thing set name = 'running'", null);
+            CompletableFuture<Integer> waiting = executor.update("update thing set name = 'waiting'", null);
+            blockingDataSource.awaitRunning(1);
+
+            // Cancelling a running statement cancels it in the database
+            running.cancel(true);
+            assertTrue("Expected the statement to be cancelled", blockingDataSource.cancelled.await(10, TimeUnit.SECONDS));
+            try {
+                running.get();
+                fail("Expected a CancellationException");
+            } catch (CancellationException e) {
+            }
+
+            // And one that hasn't started yet is never run
+            waiting.cancel(true);
+            blockingDataSource.release.countDown();
+            try {
+                waiting.get();
+                fail("Expected a CancellationException");
+            } catch (CancellationException e) {
+            }
+            assertEquals("Unexpected update count", 1, executor.update("update thing set name = 'after'", null).get(10, TimeUnit.SECONDS).intValue());
+            assertEquals("Expected only the first and last statements to be prepared", 2, blockingDataSource.prepared.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void test_sharedExecutor() throws Exception {
+        BlockingDataSource blockingDataSource = new BlockingDataSource();
+        blockingDataSource.release.countDown();
+        AsyncJdbcExecutor executor = AsyncJdbcExecutor.forDataSource(blockingDataSource.dataSource);
+        assertSame("Expected the same executor", executor, AsyncJdbcExecutor.forDataSource(blockingDataSource.dataSource));
+        assertEquals("Unexpected update count", 1, executor.update("update thing set name = 'shared'", null).get(10, TimeUnit.SECONDS).intValue());
+
+        AsyncJdbcExecutor.shutdown(blockingDataSource.dataSource);
+        try {
+            executor.update("update thing set name = 'shut down'", null).get(10, TimeUnit.SECONDS);
+            fail("Expected the executor to be shut down");
+        } catch (ExecutionException e) {
+        }
+        AsyncJdbcExecutor newExecutor = AsyncJdbcExecutor.forDataSource(blockingDataSource.dataSource);
+        assertNotSame("Expected a new executor", executor, newExecutor);
+        assertEquals("Unexpected update count", 1, newExecutor.update("update thing set name = 'new'", null).get(10, TimeUnit.SECONDS).intValue());
+        AsyncJdbcExecutor.shutdown(blockingDataSource.dataSource);
+    }
+
+    /**
+     * Statements block in executeUpdate until release is counted down or they
+     * are cancelled.
+     */
+    private static class BlockingDataSource {
+
+        private final AtomicInteger prepared = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger maxRunning = new AtomicInteger();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch cancelled = new CountDownLatch(1);
+        private final DataSource dataSource = proxy(DataSource.class, (proxy, method, args) -> {
+            if (method.getName().equals("getConnection")) {
+                return proxy(Connection.class, (connectionProxy, connectionMethod, connectionArgs) -> {
+                    if (connectionMethod.getName().equals("prepareStatement")) {
+                        prepared.incrementAndGet();
+                        return newStatement();
+                    }
+                    return null;
+                });
+            }
+            throw new UnsupportedOperationException(method.getName());
+        });
+
+        private PreparedStatement newStatement() {
+            CountDownLatch statementCancelled = new CountDownLatch(1);
+            return proxy(PreparedStatement.class, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "executeUpdate":
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            while (!release.await(10, TimeUnit.MILLISECONDS)) {
+                                if (statementCancelled.getCount() == 0) {
+                                    throw new SQLException("Cancelled");
+                                }
+                            }
+                            return 1;
+                        } finally {
+                            running.decrementAndGet();
+                        }
+                    case "cancel":
+                        statementCancelled.countDown();
+                        cancelled.countDown();
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+        }
+
+        private void awaitRunning(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10000;
+            while (running.get() < count) {
+                assertTrue("Timed out waiting for statements to run", System.currentTimeMillis() < deadline);
+                Thread.sleep(5);
+            }
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+}
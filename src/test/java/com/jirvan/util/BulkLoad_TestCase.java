@@ -0,0 +1,79 @@
+package com.jirvan.util;
+
+import com.jirvan.lang.SQLRuntimeException;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class BulkLoad_TestCase {
+
+    @Test
+    public void test_indexRebuilt() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, name text)",
+                                              "create index thing_name on thing (name)",
+                                              "create unique index thing_name_id on thing (name, id)");
+
+        long count = BulkLoad.load(dataSource, "THING", connection -> {
+            assertEquals("Expected the non-unique index to be dropped", "thing_name_id", indexNames(connection));
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeUpdate("insert into thing (id, name) values (1, 'one'), (2, 'two')");
+            }
+        });
+
+        assertEquals("Unexpected count", 2, count);
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals("Expected the index to be rebuilt", "thing_name,thing_name_id", indexNames(connection));
+            assertEquals("Unexpected rows", 2, Jdbc.queryForInt(connection, "select count(*) from thing"));
+        }
+    }
+
+    @Test
+    public void test_indexRebuiltWhenLoaderThrows() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, name text)",
+                                              "create index thing_name on thing (name)");
+
+        try {
+            BulkLoad.load(dataSource, "thing", connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.executeUpdate("insert into thing (id, name) values (1, 'one')");
+                    statement.executeUpdate("insert into no_such_table (id) values (1)");
+                }
+                return null;
+            });
+            fail("Expected the load to fail");
+        } catch (SQLRuntimeException e) {
+            assertTrue("Expected the loader's exception", e.getCause() instanceof SQLException);
+            assertEquals("Expected nothing to be suppressed", 0, e.getCause().getSuppressed().length);
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals("Expected the index to be rebuilt", "thing_name", indexNames(connection));
+            assertEquals("Expected the insert to be rolled back", 0, Jdbc.queryForInt(connection, "select count(*) from thing"));
+        }
+    }
+
+    @Test
+    public void test_tableCreatedAfterMetadataRead() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key)");
+        assertEquals("Unexpected number of tables", 1, DatabaseMetadata.get(dataSource).getTables(null, null).size());
+
+        execute(dataSource, "create table staging_thing (id integer primary key, name text)");
+        execute(dataSource, "create index staging_thing_name on staging_thing (name)");
+        BulkLoad.load(dataSource, "staging_thing", connection -> null);
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals("Expected the index to be rebuilt", "staging_thing_name", Jdbc.queryForObject(connection, "select name from sqlite_master where type = 'index' and tbl_name = 'staging_thing'"));
+        }
+    }
+
+    private static String indexNames(Connection connection) throws SQLException {
+        Object names = Jdbc.queryForObject(connection, "select group_concat(name, ',') from (select name from sqlite_master where type = 'index' and tbl_name = 'thing' and sql is not null order by name)");
+        return (String) names;
+    }
+
+}
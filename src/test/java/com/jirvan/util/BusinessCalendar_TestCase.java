@@ -0,0 +1,57 @@
+package com.jirvan.util;
+
+import com.jirvan.dates.*;
+import org.testng.annotations.*;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import static org.testng.AssertJUnit.*;
+
+public class BusinessCalendar_TestCase {
+
+    @Test
+    public void test_dayRange() {
+        DayRange february = new DayRange(new Month(2020, 2));
+        assertEquals("Unexpected last day", new Day(2020, 2, 29), february.getLastDay());
+        assertEquals("Unexpected size", 29, february.size());
+        assertEquals("Unexpected weekdays", 20, february.parallelStream().filter(Day::isAWeekday).count());
+
+        DayRange range = new DayRange(new Day(2020, 2, 20), new Day(2020, 3, 5));
+        assertEquals("Unexpected intersection", new DayRange(new Day(2020, 2, 20), new Day(2020, 2, 29)), february.intersection(range));
+        assertEquals("Unexpected union", new DayRange(new Day(2020, 2, 1), new Day(2020, 3, 5)), february.union(range));
+        assertNull("Expected no intersection", february.intersection(new DayRange(new Month(2020, 3))));
+        assertEquals("Unexpected union", new DayRange(new Day(2020, 2, 1), new Day(2020, 3, 31)), february.union(new DayRange(new Month(2020, 3))));
+        try {
+            february.union(new DayRange(new Month(2020, 4)));
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+
+        MonthRange months = new MonthRange(new Month(2019, 11), new Month(2020, 2));
+        assertEquals("Unexpected months", "2019-11,2019-12,2020-01,2020-02", months.stream().map(Month::toString).collect(Collectors.joining(",")));
+        assertEquals("Unexpected day range", new DayRange(new Day(2019, 11, 1), new Day(2020, 2, 29)), months.toDayRange());
+    }
+
+    @Test
+    public void test_businessDays() {
+        BusinessCalendar calendar = new BusinessCalendar(2019, 2020, Arrays.asList(new Day(2019, 12, 25), new Day(2019, 12, 26), new Day(2020, 1, 1)));
+        assertFalse("Expected a holiday", calendar.isBusinessDay(new Day(2019, 12, 25)));
+        assertFalse("Expected a weekend day", calendar.isBusinessDay(new Day(2019, 12, 28)));
+        assertTrue("Expected a business day", calendar.isBusinessDay(new Day(2019, 12, 27)));
+
+        assertEquals("Unexpected day", new Day(2020, 1, 2), calendar.advancedBusinessDays(new Day(2019, 12, 24), 4));
+        assertEquals("Unexpected day", new Day(2019, 12, 24), calendar.advancedBusinessDays(new Day(2020, 1, 2), -4));
+        assertEquals("Unexpected day", new Day(2019, 12, 27), calendar.advancedBusinessDays(new Day(2019, 12, 25), 0));
+        assertEquals("Unexpected count", 4, calendar.businessDaysBetween(new Day(2019, 12, 24), new Day(2020, 1, 2)));
+        assertEquals("Unexpected count", -4, calendar.businessDaysBetween(new Day(2020, 1, 2), new Day(2019, 12, 24)));
+        assertEquals("Unexpected count", 2 * 52 * 5 + 3 - 3, calendar.businessDaysIn(calendar.getDayRange()));
+
+        try {
+            calendar.advancedBusinessDays(new Day(2020, 12, 30), 5);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+}
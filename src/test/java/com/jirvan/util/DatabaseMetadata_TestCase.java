@@ -0,0 +1,65 @@
+package com.jirvan.util;
+
+import com.jirvan.dbreflect.DbReflect;
+import com.jirvan.dbreflect.Table;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class DatabaseMetadata_TestCase {
+
+    @Test
+    public void test_dataSourcesDoNotShareMetadata() throws Exception {
+        DataSource dataSource1 = newDataSource("create table thing (id integer primary key, name text)");
+        DataSource dataSource2 = newDataSource("create table other_thing (id integer primary key)");
+
+        assertEquals("Unexpected tables", "thing", tableNames(DatabaseMetadata.get(dataSource1).getTables(null, null)));
+        assertEquals("Unexpected tables", "other_thing", tableNames(DatabaseMetadata.get(dataSource2).getTables(null, null)));
+    }
+
+    @Test
+    public void test_reflectionSeesDdl() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, name text)");
+        assertEquals("Unexpected tables", "thing", tableNames(DatabaseMetadata.get(dataSource).getTables(null, null)));
+        assertEquals("Unexpected columns", 2, DatabaseMetadata.get(dataSource).getColumns(null, null, "thing").size());
+
+        execute(dataSource, "alter table thing add column description text");
+        execute(dataSource, "create table other_thing (id integer primary key)");
+
+        // Connection level metadata is not shared so sees the changes straight away
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals("Unexpected tables", "other_thing,thing", tableNames(DatabaseMetadata.get(connection).getTables(null, null)));
+            assertEquals("Unexpected columns", 3, DatabaseMetadata.get(connection).getColumns(null, null, "thing").size());
+        }
+
+        // As does reflecting the tables, which also refreshes the DataSource's metadata
+        List<Table> tables = DbReflect.getTables(dataSource);
+        assertEquals("Unexpected number of tables", 2, tables.size());
+        assertEquals("Unexpected tables", "other_thing,thing", tableNames(DatabaseMetadata.get(dataSource).getTables(null, null)));
+        assertEquals("Unexpected columns", 3, DatabaseMetadata.get(dataSource).getColumns(null, null, "thing").size());
+    }
+
+    @Test
+    public void test_refresh() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, name text)");
+        assertEquals("Unexpected columns", 2, DatabaseMetadata.get(dataSource).getColumns(null, null, "thing").size());
+        execute(dataSource, "alter table thing add column description text");
+        DatabaseMetadata.refresh(dataSource);
+        assertEquals("Unexpected columns", 3, DatabaseMetadata.get(dataSource).getColumns(null, null, "thing").size());
+    }
+
+    private static String tableNames(List<DatabaseMetadata.TableInfo> tables) {
+        StringBuilder stringBuilder = new StringBuilder();
+        for (DatabaseMetadata.TableInfo table : tables) {
+            if (stringBuilder.length() > 0) stringBuilder.append(',');
+            stringBuilder.append(table.tableName);
+        }
+        return stringBuilder.toString();
+    }
+
+}
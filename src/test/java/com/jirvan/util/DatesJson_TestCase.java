@@ -0,0 +1,44 @@
+package com.jirvan.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jirvan.dates.*;
+import org.testng.annotations.*;
+
+import static org.testng.AssertJUnit.*;
+
+public class DatesJson_TestCase {
+
+    public static class Dated {
+        public Month month;
+        public Day day;
+        public ImmutableDay immutableDay;
+        public Minute minute;
+        public Millisecond millisecond;
+    }
+
+    @Test
+    public void test_roundTrip() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.registerModule(Dates.getSerializerDeserializerModule());
+
+        Dated dated = new Dated();
+        dated.month = new Month(2019, 3);
+        dated.day = new Day(2019, 3, 4);
+        dated.immutableDay = ImmutableDay.of(2019, 3, 4);
+        dated.minute = new Minute(2019, 3, 4, 5, 6);
+        dated.millisecond = new Millisecond(2019, 3, 4, 5, 6, 7, 8);
+        String json = objectMapper.writeValueAsString(dated);
+        assertTrue("Unexpected json", json.contains("\"month\":\"2019-03\""));
+        assertTrue("Unexpected json", json.contains("\"immutableDay\":\"2019-03-04\""));
+        assertTrue("Unexpected json", json.contains("\"millisecond\":\"2019-03-04 05:06:07.008\""));
+
+        Dated parsed = objectMapper.readValue(json, Dated.class);
+        assertEquals("Unexpected month", dated.month, parsed.month);
+        assertEquals("Unexpected day", dated.day, parsed.day);
+        assertSame("Expected an interned day", dated.immutableDay, parsed.immutableDay);
+        assertEquals("Unexpected minute", dated.minute, parsed.minute);
+        assertEquals("Unexpected millisecond", dated.millisecond, parsed.millisecond);
+        assertEquals("Unexpected minute", new Minute(2019, 3, 4, 5, 6), objectMapper.readValue("{\"minute\":\"2019-03-04T05:06\"}", Dated.class).minute);
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.jirvan.util;
+
+import com.jirvan.dates.*;
+import org.testng.annotations.*;
+
+import static org.testng.AssertJUnit.*;
+
+public class DaySeries_TestCase {
+
+    @Test
+    public void test_setAndGet() {
+        DaySeries series = new DaySeries();
+        assertNull("Expected no first day", series.getFirstDay());
+        series.set(new Day(2019, 3, 1), 1.5);
+        series.set(new Day(2019, 2, 27), 2);
+        series.add(new Day(2019, 3, 1), 1);
+        assertEquals("Unexpected first day", new Day(2019, 2, 27), series.getFirstDay());
+        assertEquals("Unexpected last day", new Day(2019, 3, 1), series.getLastDay());
+        assertEquals("Unexpected size", 3, series.size());
+        assertEquals("Unexpected value", 2.5, series.get(new Day(2019, 3, 1)), 0);
+        assertFalse("Expected no value", series.has(new Day(2019, 2, 28)));
+        assertFalse("Expected no value", series.has(new Day(2020, 1, 1)));
+        assertEquals("Unexpected sum", 4.5, series.sum(), 0);
+
+        DaySeries slice = series.slice(new Day(2019, 2, 28), new Day(2019, 3, 2));
+        assertEquals("Unexpected size", 3, slice.size());
+        assertEquals("Unexpected value", 2.5, slice.getValue(1), 0);
+        assertEquals("Unexpected day", new Day(2019, 3, 2), slice.getDay(2));
+    }
+
+    @Test
+    public void test_resampling() {
+        MinuteSeries series = new MinuteSeries();
+        Minute start = new Minute(2019, 4, 6, 23, 50);
+        for (int i = 0; i < 30; i++) {
+            series.set(start.advanced(i), i);
+        }
+
+        MinuteSeries quarterHours = series.resampled(15, MinuteSeries.Aggregation.sum);
+        assertEquals("Unexpected first minute", new Minute(2019, 4, 6, 23, 45), quarterHours.getFirstMinute());
+        assertEquals("Unexpected size", 3, quarterHours.size());
+        assertEquals("Unexpected value", 45.0, quarterHours.get(new Minute(2019, 4, 6, 23, 59)), 0);
+        assertEquals("Unexpected value", 255.0, quarterHours.get(new Minute(2019, 4, 7, 0, 0)), 0);
+
+        DaySeries days = series.toDaySeries(MinuteSeries.Aggregation.max);
+        assertEquals("Unexpected value", 9.0, days.get(new Day(2019, 4, 6)), 0);
+        assertEquals("Unexpected value", 29.0, days.get(new Day(2019, 4, 7)), 0);
+
+        try {
+            series.resampled(7, MinuteSeries.Aggregation.sum);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+}
@@ -3,6 +3,9 @@ package com.jirvan.util;
 import com.jirvan.dates.*;
 import org.testng.annotations.*;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 import static org.testng.AssertJUnit.*;
 
 public class Day_TestCase {
@@ -57,6 +60,52 @@ public class Day_TestCase {
         assertEquals("Unexpected day string", "00560706", day.toFilenameSafeString());
     }
 
+    @Test
+    public void test_advanced() {
+        assertEquals("Unexpected day", "1992-02-01", new Day(1992, 1, 26).advanced(6).toString());
+        assertEquals("Unexpected day", "1992-03-01", new Day(1992, 2, 28).advanced(2).toString());
+        assertEquals("Unexpected day", "1991-12-31", new Day(1992, 1, 1).advanced(-1).toString());
+        assertEquals("Unexpected day", "2019-03-02", new Day(2019, 2, 30).advanced(0).toString());
+        assertEquals("Unexpected day", "2020-01-05", new Day(2019, 13, 5).advanced(0).toString());
+        assertEquals("Unexpected day", "1992-02-29", new Day(1992, 1, 31).advancedMonths(1).toString());
+        assertEquals("Unexpected day", "1900-02-28", new Day(1899, 12, 31).advancedMonths(2).toString());
+        assertEquals("Unexpected day", "1993-02-28", new Day(1992, 2, 29).advancedYears(1).toString());
+        assertEquals("Unexpected day", "2000-02-29", new Day(1996, 2, 29).advancedYears(4).toString());
+    }
+
+    @Test
+    public void test_daysUntil() {
+        assertEquals("Unexpected days", 366, new Day(1992, 1, 1).daysUntil(new Day(1993, 1, 1)));
+        assertEquals("Unexpected days", -365, new Day(1993, 1, 1).daysUntil(new Day(1992, 1, 1).advanced(1)));
+        assertEquals("Unexpected days", 10957, new Day(1970, 1, 1).daysUntil(new Day(2000, 1, 1)));
+    }
+
+    @Test
+    public void test_epochDay() {
+        assertEquals("Unexpected epoch day", 0, new Day(1970, 1, 1).toEpochDay());
+        assertEquals("Unexpected epoch day", -1, new Day(1969, 12, 31).toEpochDay());
+        assertEquals("Unexpected epoch day", new Day(2019, 3, 2).toEpochDay(), new Day(2019, 2, 30).toEpochDay());
+        for (long epochDay = -200000; epochDay < 200000; epochDay += 7) {
+            assertEquals("Unexpected epoch day", epochDay, Day.fromEpochDay(epochDay).toEpochDay());
+        }
+    }
+
+    @Test
+    public void test_equalsAndHashCode() {
+        assertEquals("Expected equal days", new Day(1992, 1, 26), new Day(1992, 1, 26));
+        assertEquals("Expected equal hash codes", new Day(1992, 1, 26).hashCode(), new Day(1992, 1, 26).hashCode());
+        assertFalse("Expected different days", new Day(1992, 1, 26).equals(new Day(1992, 1, 27)));
+        assertTrue("Expected the day to be found in a hash set", new HashSet<>(Arrays.asList(new Day(1992, 1, 26), new Day(2001, 2, 12))).contains(new Day(2001, 2, 12)));
+    }
+
+    @Test
+    public void test_getDayOfWeek() {
+        assertEquals("Unexpected day of week", DayOfWeek.Thursday, new Day(1970, 1, 1).getDayOfWeek());
+        assertEquals("Unexpected day of week", DayOfWeek.Sunday, new Day(1992, 1, 26).getDayOfWeek());
+        assertEquals("Unexpected day of week", DayOfWeek.Tuesday, new Day(2000, 2, 29).getDayOfWeek());
+        assertEquals("Unexpected day of week", DayOfWeek.Sunday, new Day(1969, 12, 28).getDayOfWeek());
+    }
+
     @Test
     public void test_fromString() {
 
@@ -102,4 +151,35 @@ public class Day_TestCase {
 
     }
 
+    @Test
+    public void test_fromString_region() {
+
+        String line = "7,1992-01-26,12-feb-2001,x";
+        assertEquals("Unexpected day", new Day(1992, 1, 26), Day.fromString(line, 2, 10));
+        assertEquals("Unexpected day", new Day(2001, 2, 12), Day.fromString(line, 13, 11));
+
+        try {
+            Day.fromString(line, 0, 10);
+            fail("Expected format error");
+        } catch (DateFormatException e) {
+            assertTrue("Expected the region in the message", e.getMessage().contains("\"7,1992-01-\""));
+        }
+
+    }
+
+    @Test
+    public void test_tryFromString() {
+
+        assertNull("Expected null", Day.tryFromString(null));
+        assertNull("Expected null", Day.tryFromString("26/01/1992"));
+        assertNull("Expected null", Day.tryFromString("7,1992-01-26", 0, 10));
+        assertEquals("Unexpected day", new Day(1992, 1, 26), Day.tryFromString("7,1992-01-26", 2, 10));
+        assertEquals("Unexpected day", new Day(2001, 2, 12), Day.tryFromString("12-feb-2001"));
+        assertNull("Expected null", Month.tryFromString("1992/01"));
+        assertEquals("Unexpected month", new Month(2019, 1), Month.tryFromString("01/19"));
+        assertNull("Expected null", Minute.tryFromString("1992-01-26 10:3"));
+        assertEquals("Unexpected minute", new Minute(1992, 1, 26, 10, 30), Minute.tryFromString("1992-01-26T10:30"));
+
+    }
+
 }
@@ -27,4 +27,39 @@ public class Hour_TestCase extends TestCase {
         Assert.assertEquals("Unexpected hour string", "00560706-09", hour.toFilenameSafeString());
     }
 
+    public void test_normalization() {
+
+        // Out of range fields are kept as given but compare, hash and convert as they
+        // would roll over in a lenient GregorianCalendar
+        assertNormalized("1992-12-31 23", new Hour(1992, 12, 31, 23));
+        assertNormalized("1993-01-01 00", new Hour(1992, 12, 31, 24));
+        assertNormalized("1993-01-01 07", new Hour(1992, 12, 31, 31));
+        assertNormalized("1993-01-01 08", new Hour(1992, 12, 31, 32));
+        assertNormalized("1992-12-31 23", new Hour(1993, 1, 1, -1));
+        assertNormalized("1992-03-01 00", new Hour(1992, 2, 30, 0));
+        assertNormalized("1993-01-01 00", new Hour(1992, 13, 1, 0));
+        assertNormalized("1992-12-31 00", new Hour(1993, 1, 0, 0));
+
+        // Setters keep the fields as given, so setting the day and then the month works as it always has
+        Hour hour = new Hour(2019, 2, 1, 10).setDayInMonth(31);
+        Assert.assertEquals("Unexpected day in month", 31, hour.getDayInMonth());
+        assertNormalized("2019-03-03 10", hour);
+        assertNormalized("2019-03-31 10", hour.setMonthInYear(3));
+        Assert.assertEquals("Unexpected hour string", "2019-03-31 10", hour.toString());
+        Assert.assertEquals("Unexpected hour string", "1992-12-31 24", new Hour(1992, 12, 31, 24).toString());
+
+        // Years are kept whatever their size
+        Assert.assertEquals("Unexpected year", 134217728, new Hour(134217728, 1, 1, 0).getYear());
+        Assert.assertEquals("Unexpected year", Integer.MAX_VALUE, new Hour(Integer.MAX_VALUE, 12, 31, 23).getYear());
+        Assert.assertEquals("Unexpected year", Integer.MIN_VALUE, new Hour(Integer.MIN_VALUE, 1, 1, 0).getYear());
+
+    }
+
+    private static void assertNormalized(String expected, Hour hour) {
+        Assert.assertEquals("Expected equal hours", Hour.fromString(expected), hour);
+        Assert.assertEquals("Expected equal hash codes", Hour.fromString(expected).hashCode(), hour.hashCode());
+        Assert.assertEquals("Expected equal comparison", 0, Hour.fromString(expected).compareTo(hour));
+        Assert.assertEquals("Unexpected date", Hour.fromString(expected).getDate(), hour.getDate());
+    }
+
 }
@@ -0,0 +1,162 @@
+package com.jirvan.util;
+
+import com.jirvan.dates.*;
+import org.testng.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.testng.AssertJUnit.*;
+
+public class ISO8601_TestCase {
+
+    private static final String[] PATTERNS = {"yyyy-MM-dd HH:mm", "dd MMM yyyy h:mm a", "EEEE d MMMM yy", "yyyy-MM-dd'T'HH:mm:ssZ"};
+
+    @Test
+    public void test_fromTimestampString() {
+        assertNull("Expected null", ISO8601.fromTimestampString(null));
+        assertEquals("Unexpected time", 1338428950000L, ISO8601.fromTimestampString("2012-05-31T01:49:10+0000").getTime());
+        assertEquals("Unexpected time", 1338428950000L, ISO8601.fromTimestampString("2012-05-31 11:49:10+1000").getTime());
+        assertEquals("Unexpected time", 1338428950000L, ISO8601.fromTimestampString("2012-05-30T20:19:10-0530").getTime());
+        try {
+            ISO8601.fromTimestampString("2012-05-31");
+            fail("Expected format error");
+        } catch (ISO8601TimestampFormatException e) {
+        }
+    }
+
+    @Test
+    public void test_fromDayString() {
+        assertNull("Expected null", ISO8601.fromDayString(null));
+        assertEquals("Unexpected date", new Day(2012, 5, 31).getDate(), ISO8601.fromDayString("2012-05-31"));
+        assertEquals("Unexpected date", new Day(2012, 2, 29).getDate(), ISO8601.fromDayString("2012-02-29"));
+        try {
+            ISO8601.fromDayString("31/05/2012");
+            fail("Expected format error");
+        } catch (ISO8601DateFormatException e) {
+        }
+    }
+
+    @Test
+    public void test_tryFromString() {
+        assertNull("Expected null", ISO8601.tryFromTimestampString("2012-05-31"));
+        assertNull("Expected null", ISO8601.tryFromDayString("31/05/2012"));
+        assertEquals("Unexpected time", 1338428950000L, ISO8601.tryFromTimestampString("2012-05-31T01:49:10+0000").getTime());
+        assertEquals("Unexpected date", new Day(2012, 5, 31).getDate(), ISO8601.tryFromDayString("2012-05-31"));
+        try {
+            ISO8601.fromTimestampString("2012-05-31");
+            fail("Expected format error");
+        } catch (ISO8601TimestampFormatException e) {
+            assertTrue("Expected a ParseException cause", e.getCause() instanceof java.text.ParseException);
+        }
+    }
+
+    @Test
+    public void test_formatDaylightSavingGap() {
+        TimeZone defaultTimeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("Australia/Sydney"));
+        try {
+
+            // 02:03 doesn't exist on the day daylight saving starts, so is formatted
+            // as moved forward an hour, with or without a time zone field
+            Minute minute = new Minute(2046, 10, 7, 2, 3);
+            assertEquals("Unexpected string", "3:03 AM", minute.format("h:mm a"));
+            assertEquals("Unexpected string", "2046-10-07 03:03", minute.format("yyyy-MM-dd HH:mm"));
+            assertEquals("Unexpected string", "2046-10-07 03:03 +1100", minute.format("yyyy-MM-dd HH:mm Z"));
+            assertEquals("Unexpected string", "2046-10-07 03:03:00.250", new Millisecond(2046, 10, 7, 2, 3, 0, 250).format("yyyy-MM-dd HH:mm:ss.SSS"));
+            for (String pattern : PATTERNS) {
+                assertEquals("Unexpected string", new SimpleDateFormat(pattern).format(minute.getDate()), minute.format(pattern));
+            }
+
+            // Times either side of the gap are formatted as held
+            assertEquals("Unexpected string", "2046-10-07 01:59 +1000", new Minute(2046, 10, 7, 1, 59).format("yyyy-MM-dd HH:mm Z"));
+            assertEquals("Unexpected string", "2046-10-07 03:00 +1100", new Minute(2046, 10, 7, 3, 0).format("yyyy-MM-dd HH:mm Z"));
+        } finally {
+            TimeZone.setDefault(defaultTimeZone);
+        }
+    }
+
+    @Test
+    public void test_formatConcurrently() throws Exception {
+
+        // Work out the expected strings single threaded with a new SimpleDateFormat each time
+        Random random = new Random(26);
+        int count = 2000;
+        Minute[] minutes = new Minute[count];
+        String[][] expectedStrings = new String[count][PATTERNS.length + 1];
+        for (int i = 0; i < count; i++) {
+            minutes[i] = new Minute(1990 + random.nextInt(60), 1 + random.nextInt(12), 1 + random.nextInt(28), random.nextInt(24), random.nextInt(60));
+            for (int j = 0; j < PATTERNS.length; j++) {
+                expectedStrings[i][j] = new SimpleDateFormat(PATTERNS[j]).format(minutes[i].getDate());
+            }
+            expectedStrings[i][PATTERNS.length] = new SimpleDateFormat(ISO8601.TIMESTAMP_PATTERN).format(minutes[i].getDate());
+        }
+
+        // Then hammer the shared formats from a number of threads
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int offset = thread * 251;
+                futures.add(executor.submit(new Callable<String>() {
+                    public String call() throws Exception {
+                        for (int n = 0; n < 20 * count; n++) {
+                            int i = (offset + n) % count;
+                            int j = n % (PATTERNS.length + 1);
+                            String string = j < PATTERNS.length
+                                            ? minutes[i].format(PATTERNS[j])
+                                            : ISO8601.TIMESTAMP_FORMAT.format(minutes[i].getDate());
+                            if (!expectedStrings[i][j].equals(string)) {
+                                return String.format("Expected \"%s\" but got \"%s\"", expectedStrings[i][j], string);
+                            }
+                            if (j == PATTERNS.length) {
+                                Date date = ISO8601.fromTimestampString(string);
+                                if (!minutes[i].getDate().equals(date)) {
+                                    return String.format("Expected %s but got %s parsing \"%s\"", minutes[i].getDate(), date, string);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<String> future : futures) {
+                assertNull(future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+    }
+
+    @Test
+    public void test_serializedFormat() throws Exception {
+        DateFormat dateFormat = (DateFormat) ISO8601.TO_MINUTE_DATEFORMAT.clone();
+        dateFormat.setTimeZone(TimeZone.getTimeZone("UTC"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream outputStream = new ObjectOutputStream(bytes)) {
+            outputStream.writeObject(dateFormat);
+        }
+        DateFormat deserialized;
+        try (ObjectInputStream inputStream = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            deserialized = (DateFormat) inputStream.readObject();
+        }
+        assertEquals("Unexpected time zone", TimeZone.getTimeZone("UTC"), deserialized.getTimeZone());
+        assertEquals("Unexpected string", dateFormat.format(new Date(0)), deserialized.format(new Date(0)));
+        assertEquals("Unexpected date", new Date(60000), deserialized.parse(dateFormat.format(new Date(60000))));
+    }
+
+}
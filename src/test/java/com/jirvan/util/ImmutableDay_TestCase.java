@@ -0,0 +1,41 @@
+package com.jirvan.util;
+
+import com.jirvan.dates.*;
+import org.testng.annotations.*;
+
+import static org.testng.AssertJUnit.*;
+
+public class ImmutableDay_TestCase {
+
+    @Test
+    public void test_interning() {
+        assertSame("Expected the same instance", ImmutableDay.of(1992, 1, 26), ImmutableDay.fromString("1992-01-26"));
+        assertSame("Expected the same instance", ImmutableDay.of(1992, 3, 1), ImmutableDay.fromString("29-feb-1992").advanced(1));
+        assertSame("Expected the same instance", ImmutableMonth.of(2012, 3), ImmutableMonth.fromString("03/12"));
+        assertEquals("Unexpected day", ImmutableDay.of(1492, 10, 12), ImmutableDay.of(1492, 10, 12));
+    }
+
+    @Test
+    public void test_normalization() {
+        assertEquals("Unexpected day", "2019-03-02", ImmutableDay.of(2019, 2, 30).toString());
+        assertEquals("Unexpected month", "2020-01", ImmutableMonth.of(2019, 13).toString());
+    }
+
+    @Test
+    public void test_arithmetic() {
+        ImmutableDay day = ImmutableDay.of(2020, 1, 31);
+        assertEquals("Unexpected day", "2020-02-29", day.advancedMonths(1).toString());
+        assertEquals("Unexpected day", "2021-01-31", day.advancedYears(1).toString());
+        assertEquals("Unexpected days until", 366, day.daysUntil(day.advancedYears(1)));
+        assertEquals("Unexpected day of week", DayOfWeek.Friday, day.getDayOfWeek());
+        assertEquals("Unexpected last day", ImmutableDay.of(2020, 2, 29), day.getMonth().next().lastDay());
+    }
+
+    @Test
+    public void test_conversions() {
+        assertEquals("Unexpected day", new Day(1992, 1, 26), ImmutableDay.of(1992, 1, 26).toDay());
+        assertSame("Expected the same instance", ImmutableDay.of(1992, 1, 26), ImmutableDay.from(new Day(1992, 1, 26)));
+        assertEquals("Unexpected month", new Month(1992, 1), ImmutableMonth.of(1992, 1).toMonth());
+    }
+
+}
@@ -0,0 +1,118 @@
+package com.jirvan.util;
+
+import org.testng.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class InstrumentedDataSource_TestCase {
+
+    @Test
+    public void test_fingerprint() {
+        assertEquals("Unexpected fingerprint", "select * from thing where id = ?", InstrumentedDataSource.fingerprint("select * from thing where id = 42"));
+        assertEquals("Unexpected fingerprint", "select * from thing where name = ? and id in (?...)", InstrumentedDataSource.fingerprint("select * from thing  where name = 'O''Brien'\n  and  id in (1, 2,3)"));
+        assertEquals("Unexpected fingerprint", "select col1,t_2.x from t_2 where amount > ? and code = ?", InstrumentedDataSource.fingerprint("select col1, t_2.x from t_2 where amount > 3.14 and code = 'a'"));
+        assertEquals("Unexpected fingerprint", "select * from thing where id in (?...)", InstrumentedDataSource.fingerprint("select * from thing where id in ( ?, ?, ? )"));
+        assertEquals("Expected the same fingerprint",
+                     InstrumentedDataSource.fingerprint("select * from thing where id in (1, 2)"),
+                     InstrumentedDataSource.fingerprint("select * from thing where id in (3, 4, 5, 6)"));
+    }
+
+    @Test
+    public void test_histogram() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        InstrumentedDataSource.LatencySummary summary = histogram.summarize();
+        assertEquals("Unexpected count", 1000, summary.count);
+        assertEquals("Unexpected total", 500.5, summary.totalMillis, 1e-9);
+        assertEquals("Unexpected mean", 0.5005, summary.meanMillis, 1e-9);
+        assertEquals("Unexpected max", 1.0, summary.maxMillis, 1e-9);
+        assertWithinBucketAccuracy("p50", 0.5, summary.p50Millis);
+        assertWithinBucketAccuracy("p95", 0.95, summary.p95Millis);
+        assertWithinBucketAccuracy("p99", 0.99, summary.p99Millis);
+
+        // Small values have a bucket each and percentiles never exceed the max
+        histogram.reset();
+        histogram.record(3);
+        histogram.record(5);
+        histogram.record(-1);
+        summary = histogram.summarize();
+        assertEquals("Unexpected count", 3, summary.count);
+        assertEquals("Unexpected p50", 3 / 1000000d, summary.p50Millis, 1e-12);
+        assertEquals("Unexpected p99", 5 / 1000000d, summary.p99Millis, 1e-12);
+
+        histogram.reset();
+        summary = histogram.summarize();
+        assertEquals("Unexpected count", 0, summary.count);
+        assertEquals("Unexpected mean", 0.0, summary.meanMillis, 0);
+        assertEquals("Unexpected p99", 0.0, summary.p99Millis, 0);
+    }
+
+    @Test
+    public void test_statistics() throws Exception {
+        InstrumentedDataSource dataSource = new InstrumentedDataSource(newDataSource("create table thing (id integer primary key, name text)"), 0);
+        try (Connection connection = dataSource.getConnection()) {
+            try (PreparedStatement statement = connection.prepareStatement("insert into thing (id, name) values (?, ?)")) {
+                statement.setInt(1, 1);
+                statement.setString(2, "one");
+                statement.executeUpdate();
+                statement.setInt(1, 2);
+                statement.setNull(2, java.sql.Types.VARCHAR);
+                statement.executeUpdate();
+            }
+            try (Statement statement = connection.createStatement()) {
+                try (ResultSet rset = statement.executeQuery("select * from thing where id > 0")) {
+                    while (rset.next()) {
+                    }
+                }
+                try {
+                    statement.executeQuery("select * from no_such_table where id = 1");
+                    fail("Expected an exception");
+                } catch (SQLException e) {
+                }
+            }
+        }
+
+        InstrumentedDataSource.Snapshot snapshot = dataSource.getSnapshot();
+        assertEquals("Unexpected connection count", 1, snapshot.connectionWaits.count);
+        InstrumentedDataSource.StatementSummary insert = find(snapshot, "insert into thing (id,name) values (?...)");
+        assertEquals("Unexpected count", 2, insert.count);
+        assertEquals("Unexpected rows", 2, insert.rows);
+        InstrumentedDataSource.StatementSummary select = find(snapshot, "select * from thing where id > ?");
+        assertEquals("Unexpected count", 1, select.count);
+        assertEquals("Unexpected rows", 2, select.rows);
+        InstrumentedDataSource.StatementSummary error = find(snapshot, "select * from no_such_table where id = ?");
+        assertEquals("Unexpected errors", 1, error.errors);
+
+        // Everything is slow with a zero threshold, and the parameters are logged as strings
+        assertEquals("Unexpected number of slow queries", 3, snapshot.slowQueries.size());
+        assertEquals("Unexpected parameters", Arrays.asList("1", "one"), Arrays.asList(snapshot.slowQueries.get(0).getParameters()));
+        assertEquals("Unexpected parameters", Arrays.asList("2", null), Arrays.asList(snapshot.slowQueries.get(1).getParameters()));
+
+        dataSource.reset();
+        assertEquals("Expected no statements", 0, dataSource.getSnapshot().statements.size());
+    }
+
+    private static void assertWithinBucketAccuracy(String percentile, double expectedMillis, double actualMillis) {
+        assertTrue(String.format("Unexpected %s %f (expected about %f)", percentile, actualMillis, expectedMillis),
+                   actualMillis >= expectedMillis && actualMillis <= expectedMillis * 1.125);
+    }
+
+    private static InstrumentedDataSource.StatementSummary find(InstrumentedDataSource.Snapshot snapshot, String fingerprint) {
+        for (InstrumentedDataSource.StatementSummary summary : snapshot.statements) {
+            if (summary.fingerprint.equals(fingerprint)) return summary;
+        }
+        fail("No statistics for " + fingerprint);
+        return null;
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.jirvan.util;
+
+import com.jirvan.lang.SQLRuntimeException;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class Jdbc_TestCase {
+
+    @Test
+    public void test_multiRowInsertSql() {
+        assertEquals("Unexpected sql",
+                     "insert into thing (id,name)\n" +
+                     "values (?,?),\n" +
+                     "       (?,?)",
+                     Jdbc.multiRowInsertSql(DatabaseType.postgres, "thing", new String[]{"id", "name"}, 2));
+        assertEquals("Unexpected sql",
+                     "insert into thing (id)\n" +
+                     "values (?)",
+                     Jdbc.multiRowInsertSql(DatabaseType.sqlite, "thing", new String[]{"id"}, 1));
+        assertEquals("Unexpected sql",
+                     "insert all\n" +
+                     "   into thing (id,name) values (?,?)\n" +
+                     "   into thing (id,name) values (?,?)\n" +
+                     "select 1 from dual",
+                     Jdbc.multiRowInsertSql(DatabaseType.oracle, "thing", new String[]{"id", "name"}, 2));
+    }
+
+    @Test
+    public void test_insertRowsChunking() {
+
+        // Chunks are limited by the bind parameters (999 / 3 = 333 rows for SQLite)
+        // with a remainder chunk, and full chunks share a prepared statement
+        assertChunks(DatabaseType.sqlite, 3, 700, Arrays.asList(333, 34), Arrays.asList(333, 333, 34));
+        assertChunks(DatabaseType.sqlite, 1, 1000, Arrays.asList(500), Arrays.asList(500, 500));
+        assertChunks(DatabaseType.sqlserver, 3, 1500, Arrays.asList(699, 102), Arrays.asList(699, 699, 102));
+
+        // Or by the maximum rows per insert
+        assertChunks(DatabaseType.oracle, 3, 2500, Arrays.asList(1000, 500), Arrays.asList(1000, 1000, 500));
+        assertChunks(DatabaseType.postgres, 4, 10000, Arrays.asList(8191, 1809), Arrays.asList(8191, 1809));
+        assertChunks(DatabaseType.postgres, 4, 10, Arrays.asList(10), Arrays.asList(10));
+        assertChunks(DatabaseType.postgres, 4, 0, Arrays.<Integer>asList(), Arrays.<Integer>asList());
+    }
+
+    @Test
+    public void test_insertRows() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, name text)");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 1234; i++) {
+            rows.add(new Object[]{i, i % 7 == 0 ? null : "name" + i});
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals("Unexpected number of rows inserted", 1234, Jdbc.insertRows(connection, "thing", new String[]{"id", "name"}, rows));
+            assertEquals("Unexpected number of rows", 1234, Jdbc.queryForInt(connection, "select count(*) from thing"));
+            assertEquals("Unexpected number of null names", 177, Jdbc.queryForInt(connection, "select count(*) from thing where name is null"));
+            assertEquals("Unexpected name", "name1233", Jdbc.queryForObject(connection, "select name from thing where id = 1233"));
+        }
+    }
+
+    @Test
+    public void test_insertRowsCloseFailureSuppressed() {
+        Connection connection = proxy(Connection.class, (proxy, method, args) -> {
+            if (method.getName().equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, (statementProxy, statementMethod, statementArgs) -> {
+                    switch (statementMethod.getName()) {
+                        case "executeUpdate":
+                            throw new SQLException("Insert failed");
+                        case "close":
+                            throw new SQLException("Close failed");
+                        default:
+                            return null;
+                    }
+                });
+            }
+            return null;
+        });
+        try {
+            Jdbc.insertRows(connection, DatabaseType.postgres, "thing", new String[]{"id"}, Arrays.asList(new Object[]{1}, new Object[]{2}));
+            fail("Expected an exception");
+        } catch (SQLRuntimeException e) {
+            assertEquals("Expected the insert failure", "Insert failed", e.getCause().getMessage());
+            assertEquals("Expected the close failure to be suppressed", 1, e.getSuppressed().length);
+            assertEquals("Expected the close failure to be suppressed", "Close failed", e.getSuppressed()[0].getCause().getMessage());
+        }
+    }
+
+    /**
+     * Inserts rowCount rows of columnCount columns through a fake connection and
+     * checks the number of rows in each statement prepared and each execution
+     */
+    private static void assertChunks(DatabaseType databaseType, int columnCount, int rowCount, List<Integer> expectedPreparedRows, List<Integer> expectedExecutedRows) {
+        List<Integer> preparedRows = new ArrayList<>();
+        List<Integer> executedRows = new ArrayList<>();
+        Connection connection = proxy(Connection.class, (proxy, method, args) -> {
+            if (method.getName().equals("prepareStatement")) {
+                String sql = (String) args[0];
+                preparedRows.add((sql.length() - sql.replace("?", "").length()) / columnCount);
+                int[] maxParameterIndex = {0};
+                return proxy(PreparedStatement.class, (statementProxy, statementMethod, statementArgs) -> {
+                    if (statementMethod.getName().equals("setObject")) {
+                        maxParameterIndex[0] = Math.max(maxParameterIndex[0], (Integer) statementArgs[0]);
+                    } else if (statementMethod.getName().equals("executeUpdate")) {
+                        executedRows.add(maxParameterIndex[0] / columnCount);
+                        maxParameterIndex[0] = 0;
+                        return 0;
+                    }
+                    return null;
+                });
+            }
+            return null;
+        });
+        String[] columnNames = new String[columnCount];
+        for (int i = 0; i < columnCount; i++) columnNames[i] = "column" + i;
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < rowCount; i++) rows.add(new Object[columnCount]);
+
+        assertEquals("Unexpected number of rows inserted", rowCount, Jdbc.insertRows(connection, databaseType, "thing", columnNames, rows));
+        assertEquals("Unexpected rows per prepared statement for " + databaseType, expectedPreparedRows, preparedRows);
+        assertEquals("Unexpected rows per execution for " + databaseType, expectedExecutedRows, executedRows);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+}
@@ -0,0 +1,100 @@
+package com.jirvan.util;
+
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class LargeInList_TestCase {
+
+    @Test
+    public void test_parsedSql() {
+        LargeInList.ParsedSql parsedSql = new LargeInList.ParsedSql("select * from thing where name = ? and id in ({inList}) and code = ?", new Object[]{"a", "b"});
+        assertEquals("Unexpected sql", "select * from thing where name = ? and id in (?,?) and code = ?", parsedSql.sqlWith("?,?"));
+        assertEquals("Unexpected parameter values", Arrays.asList("a", 1, 2, "b"), Arrays.asList(parsedSql.parameterValuesWith(new Object[]{1, 2})));
+
+        // Question marks in quotes are not parameters
+        parsedSql = new LargeInList.ParsedSql("select * from thing where name = 'what?' and id in ({inList}) and code = ?", new Object[]{"b"});
+        assertEquals("Unexpected parameter values", Arrays.asList(1, "b"), Arrays.asList(parsedSql.parameterValuesWith(new Object[]{1})));
+        parsedSql = new LargeInList.ParsedSql("select * from thing where name = 'it''s ?' and code = ? and id in ({inList})", new Object[]{"b"});
+        assertEquals("Unexpected parameter values", Arrays.asList("b", 1), Arrays.asList(parsedSql.parameterValuesWith(new Object[]{1})));
+
+        // Null other parameter values are treated as none
+        parsedSql = new LargeInList.ParsedSql("select * from thing where id in ({inList})", null);
+        assertEquals("Unexpected sql", "select * from thing where id in (select value from t)", parsedSql.sqlWith("select value from t"));
+        assertEquals("Unexpected parameter values", Arrays.asList(1), Arrays.asList(parsedSql.parameterValuesWith(new Object[]{1})));
+
+        try {
+            new LargeInList.ParsedSql("select * from thing where id in (?)", new Object[]{1});
+            fail("Expected an exception for a missing marker");
+        } catch (RuntimeException e) {
+            assertEquals("Unexpected message", "sql does not contain the {inList} marker", e.getMessage());
+        }
+        try {
+            new LargeInList.ParsedSql("select * from thing where name = ? and code = ? and id in ({inList})", new Object[]{"a"});
+            fail("Expected an exception for too few parameter values");
+        } catch (RuntimeException e) {
+            assertEquals("Unexpected message", "sql has at least 2 parameters but only 1 other parameter values were provided", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_paddedInListValues() {
+        assertEquals("Unexpected padding", Arrays.asList(1, 1, 1, 1, 1, 1, 1, 1), Arrays.asList(LargeInList.paddedInListValues(values(1), 1000)));
+        assertEquals("Unexpected size", 8, LargeInList.paddedInListValues(values(8), 1000).length);
+        assertEquals("Unexpected size", 16, LargeInList.paddedInListValues(values(9), 1000).length);
+        assertEquals("Unexpected size", 128, LargeInList.paddedInListValues(values(100), 1000).length);
+
+        // The padding repeats the last value
+        Object[] padded = LargeInList.paddedInListValues(values(9), 1000);
+        assertEquals("Unexpected values", values(9), Arrays.asList(padded).subList(0, 9));
+        assertEquals("Unexpected padding", Collections.nCopies(7, 9), Arrays.asList(padded).subList(9, 16));
+
+        // But never past the maximum in list size (unless there are already more values)
+        assertEquals("Unexpected size", 999, LargeInList.paddedInListValues(values(600), 999).length);
+        assertEquals("Unexpected size", 1000, LargeInList.paddedInListValues(values(1000), 1000).length);
+        assertEquals("Unexpected size", 5, LargeInList.paddedInListValues(values(3), 5).length);
+        assertEquals("Unexpected size", 6, LargeInList.paddedInListValues(values(6), 5).length);
+    }
+
+    @Test
+    public void test_query() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, name text)");
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= 2000; i++) {
+            rows.add(new Object[]{i, i % 2 == 0 ? "even" : "odd"});
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            Jdbc.insertRows(connection, "thing", new String[]{"id", "name"}, rows);
+            String sql = "select id from thing where name = ? and id in ({inList}) order by id";
+            Jdbc.RowMapper<Integer> rowMapper = rset -> rset.getInt(1);
+
+            // A padded in list (with duplicate values removed)
+            assertEquals("Unexpected strategy", LargeInList.Strategy.inList, LargeInList.chooseStrategy(DatabaseType.sqlite, 9, 1));
+            assertEquals("Unexpected ids", Arrays.asList(2, 4, 8), LargeInList.query(connection, sql, Arrays.asList(1, 2, 3, 4, 4, 8, 9, 3001, 2), new Object[]{"even"}, rowMapper));
+
+            // A temporary table
+            List<Object> values = new ArrayList<>(values(1500));
+            assertEquals("Unexpected strategy", LargeInList.Strategy.tempTable, LargeInList.chooseStrategy(DatabaseType.sqlite, values, 1));
+            assertEquals("Unexpected number of ids", 750, LargeInList.query(connection, sql, values, new Object[]{"odd"}, rowMapper).size());
+
+            // Chunks
+            assertEquals("Unexpected number of ids", 750, LargeInList.query(connection, DatabaseType.sqlite, LargeInList.Strategy.chunked, sql, values, new Object[]{"odd"}, rowMapper).size());
+            assertEquals("Expected no ids", 0, LargeInList.query(connection, sql, Collections.emptyList(), new Object[]{"odd"}, rowMapper).size());
+        }
+    }
+
+    private static List<Object> values(int count) {
+        List<Object> values = new ArrayList<>();
+        for (int i = 1; i <= count; i++) values.add(i);
+        return values;
+    }
+
+}
@@ -61,4 +61,43 @@ public class Millisecond_TestCase extends TestCase {
 
     }
 
+    public void test_normalization() {
+
+        // Out of range fields are kept as given but compare, hash and convert as they
+        // would roll over in a lenient GregorianCalendar
+        assertNormalized("1992-12-31 23:59:59.999", new Millisecond(1992, 12, 31, 23, 59, 59, 999));
+        assertNormalized("1993-01-01 00:00:00.000", new Millisecond(1992, 12, 31, 23, 59, 59, 1000));
+        assertNormalized("1993-01-01 00:00:00.023", new Millisecond(1992, 12, 31, 23, 59, 59, 1023));
+        assertNormalized("1993-01-01 00:00:00.024", new Millisecond(1992, 12, 31, 23, 59, 59, 1024));
+        assertNormalized("1992-12-31 23:59:59.999", new Millisecond(1993, 1, 1, 0, 0, 0, -1));
+        assertNormalized("1993-01-01 00:00:03.000", new Millisecond(1992, 12, 31, 23, 59, 63, 0));
+        assertNormalized("1993-01-01 00:03:00.000", new Millisecond(1992, 12, 31, 23, 63, 0, 0));
+        assertNormalized("1993-01-01 07:00:00.000", new Millisecond(1992, 12, 31, 31, 0, 0, 0));
+        assertNormalized("1992-03-01 00:00:00.000", new Millisecond(1992, 2, 30, 0, 0, 0, 0));
+        assertNormalized("1993-04-01 00:00:00.000", new Millisecond(1992, 16, 1, 0, 0, 0, 0));
+        assertNormalized("1992-01-01 00:00:01.500", new Millisecond(1992, 1, 1, 0, 0, 0, 0).setMillisecondInSecond(1500));
+
+        // Setters keep the fields as given, so setting the day and then the month works as it always has
+        Millisecond millisecond = new Millisecond(2019, 2, 1, 10, 0, 0, 0).setDayInMonth(31);
+        Assert.assertEquals("Unexpected day in month", 31, millisecond.getDayInMonth());
+        assertNormalized("2019-03-03 10:00:00.000", millisecond);
+        assertNormalized("2019-03-31 10:00:00.000", millisecond.setMonthInYear(3));
+        Assert.assertEquals("Unexpected millisecond string", "2019-03-31 10:00:00.000", millisecond.toString());
+        Assert.assertEquals("Unexpected millisecond in second", 1500, new Millisecond(1992, 1, 1, 0, 0, 0, 0).setMillisecondInSecond(1500).getMillisecondInSecond());
+
+        // Years are kept whatever their size
+        Millisecond bigYear = new Millisecond(134217728, 1, 1, 0, 0, 0, 0);
+        Assert.assertEquals("Unexpected year", 134217728, bigYear.getYear());
+        Assert.assertEquals("Unexpected year", 134217727, bigYear.previous().getYear());
+        Assert.assertEquals("Unexpected year", Integer.MAX_VALUE, new Millisecond(Integer.MAX_VALUE, 12, 31, 23, 59, 59, 999).getYear());
+
+    }
+
+    private static void assertNormalized(String expected, Millisecond millisecond) {
+        Assert.assertEquals("Expected equal milliseconds", Millisecond.fromString(expected), millisecond);
+        Assert.assertEquals("Expected equal hash codes", Millisecond.fromString(expected).hashCode(), millisecond.hashCode());
+        Assert.assertEquals("Expected equal comparison", 0, Millisecond.fromString(expected).compareTo(millisecond));
+        Assert.assertEquals("Unexpected date", Millisecond.fromString(expected).getDate(), millisecond.getDate());
+    }
+
 }
@@ -65,4 +65,53 @@ public class Minute_TestCase extends TestCase {
 
     }
 
+    public void test_ordering() {
+
+        Minute minute = Minute.fromString("1992-02-28 23:59");
+        Assert.assertEquals("Unexpected next minute", "1992-02-29 00:00", minute.next().toString());
+        Assert.assertEquals("Unexpected advanced minute", "1992-03-01 00:01", minute.advanced(1442).toString());
+        Assert.assertTrue("Expected next minute to be after", minute.next().after(minute));
+        Assert.assertTrue("Expected minute to be before next minute", minute.before(minute.next()));
+        Assert.assertTrue("Expected next minute to compare greater", minute.next().compareTo(minute) > 0);
+        Assert.assertEquals("Expected equal minutes", Minute.fromString("1992-02-28 23:59"), minute);
+        Assert.assertEquals("Expected equal hash codes", Minute.fromString("1992-02-28 23:59").hashCode(), minute.hashCode());
+
+    }
+
+    public void test_normalization() {
+
+        // Out of range fields are kept as given but compare, hash and convert as they
+        // would roll over in a lenient GregorianCalendar
+        assertNormalized("2019-02-07 04:39", Minute.fromString("2019-02-03 99:99"));
+        assertNormalized("1992-12-31 23:59", new Minute(1992, 12, 31, 23, 59));
+        assertNormalized("1993-01-01 00:00", new Minute(1992, 12, 31, 23, 60));
+        assertNormalized("1993-01-01 00:03", new Minute(1992, 12, 31, 23, 63));
+        assertNormalized("1993-01-01 00:04", new Minute(1992, 12, 31, 23, 64));
+        assertNormalized("1993-01-01 07:00", new Minute(1992, 12, 31, 31, 0));
+        assertNormalized("1993-01-01 08:00", new Minute(1992, 12, 31, 32, 0));
+        assertNormalized("1992-03-01 00:00", new Minute(1992, 2, 30, 0, 0));
+        assertNormalized("1992-12-31 23:59", new Minute(1993, 1, 1, 0, -1));
+
+        // Setters keep the fields as given, so setting the day and then the month works as it always has
+        Minute minute = new Minute(2019, 2, 1, 10, 0).setDayInMonth(31);
+        Assert.assertEquals("Unexpected day in month", 31, minute.getDayInMonth());
+        assertNormalized("2019-03-03 10:00", minute);
+        assertNormalized("2019-03-31 10:00", minute.setMonthInYear(3));
+        Assert.assertEquals("Unexpected minute string", "2019-03-31 10:00", minute.toString());
+        Assert.assertEquals("Unexpected minute string", "1992-12-31 23:60", new Minute(1992, 12, 31, 23, 60).toString());
+        assertNormalized("1992-05-01 10:30", new Minute(1992, 3, 31, 10, 30).setMonthInYear(4));
+
+        // Years are kept whatever their size
+        Assert.assertEquals("Unexpected year", 134217728, new Minute(134217728, 1, 1, 0, 0).getYear());
+        Assert.assertEquals("Unexpected year", Integer.MAX_VALUE, new Minute(Integer.MAX_VALUE, 12, 31, 23, 59).getYear());
+
+    }
+
+    private static void assertNormalized(String expected, Minute minute) {
+        Assert.assertEquals("Expected equal minutes", Minute.fromString(expected), minute);
+        Assert.assertEquals("Expected equal hash codes", Minute.fromString(expected).hashCode(), minute.hashCode());
+        Assert.assertEquals("Expected equal comparison", 0, Minute.fromString(expected).compareTo(minute));
+        Assert.assertEquals("Unexpected date", Minute.fromString(expected).getDate(), minute.getDate());
+    }
+
 }
@@ -3,6 +3,9 @@ package com.jirvan.util;
 import com.jirvan.dates.*;
 import junit.framework.*;
 
+import java.util.Arrays;
+import java.util.HashSet;
+
 public class Month_TestCase extends TestCase {
 
     public void test_constructor() {
@@ -25,6 +28,21 @@ public class Month_TestCase extends TestCase {
         Assert.assertEquals("Unexpected month string", "005607", month.toFilenameSafeString());
     }
 
+    public void test_advanced() {
+        Assert.assertEquals("Unexpected month", "1993-01", new Month(1992, 12).advanced(1).toString());
+        Assert.assertEquals("Unexpected month", "1991-12", new Month(1992, 1).advanced(-1).toString());
+        Assert.assertEquals("Unexpected month", "1990-11", new Month(1992, 1).advanced(-14).toString());
+        Assert.assertEquals("Unexpected month", "1993-01", new Month(1992, 13).advanced(0).toString());
+        Assert.assertEquals("Unexpected day", "1992-02-29", new Month(1992, 2).lastDay().toString());
+    }
+
+    public void test_equalsAndHashCode() {
+        Assert.assertEquals("Expected equal months", new Month(1992, 1), new Month(1992, 1));
+        Assert.assertEquals("Expected equal hash codes", new Month(1992, 1).hashCode(), new Month(1992, 1).hashCode());
+        Assert.assertFalse("Expected different months", new Month(1992, 1).equals(new Month(1993, 1)));
+        Assert.assertTrue("Expected the month to be found in a hash set", new HashSet<>(Arrays.asList(new Month(1992, 1), new Month(2001, 2))).contains(new Month(2001, 2)));
+    }
+
     public void test_fromString() {
 
         Month month = Month.fromString(null);
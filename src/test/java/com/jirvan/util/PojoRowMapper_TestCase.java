@@ -0,0 +1,116 @@
+package com.jirvan.util;
+
+import com.jirvan.dates.Day;
+import org.testng.annotations.*;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.List;
+
+import static com.jirvan.util.SqliteTestDatabases.*;
+import static org.testng.AssertJUnit.*;
+
+public class PojoRowMapper_TestCase {
+
+    @Test
+    public void test_mapping() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, thing_name text, amount numeric, big_count integer, rating real, active integer, status text, birth_date integer, optional_count integer, description text)");
+        long birthDateMillis = new Day(1992, 1, 26).getDate().getTime();
+        execute(dataSource, "insert into thing values (1, 'one', 1.5, 5000000000, 4.5, 1, 'open', " + birthDateMillis + ", 7, 'first')");
+        execute(dataSource, "insert into thing values (2, 'two', null, 0, 0, 0, null, null, null, null)");
+
+        try (Connection connection = dataSource.getConnection()) {
+            List<Thing> things = Jdbc.queryForList(connection, "select * from thing where id >= ? order by id", Thing.class, 1);
+            assertEquals("Unexpected number of things", 2, things.size());
+
+            Thing thing = things.get(0);
+            assertEquals("Unexpected id", 1, thing.id);
+            assertEquals("Unexpected name", "one", thing.thingName);
+            assertEquals("Unexpected amount", new BigDecimal("1.5"), thing.amount);
+            assertEquals("Unexpected big count", 5000000000L, thing.bigCount);
+            assertEquals("Unexpected rating", 4.5, thing.rating, 0);
+            assertTrue("Expected active", thing.active);
+            assertEquals("Unexpected status", Status.open, thing.status);
+            assertEquals("Unexpected birth date", new Day(1992, 1, 26), thing.birthDate);
+            assertEquals("Unexpected optional count", Integer.valueOf(7), thing.optionalCount);
+            assertEquals("Expected the description to be set with the setter", "first (set)", thing.getDescription());
+
+            // Nulls become zero for primitives and null otherwise
+            thing = things.get(1);
+            assertEquals("Unexpected id", 2, thing.id);
+            assertNull("Expected a null amount", thing.amount);
+            assertFalse("Expected not active", thing.active);
+            assertNull("Expected a null status", thing.status);
+            assertNull("Expected a null birth date", thing.birthDate);
+            assertNull("Expected a null optional count", thing.optionalCount);
+
+            // Column labels are used
+            things = Jdbc.queryForList(connection, "select id, status as thing_name from thing where id = ?", Thing.class, 1);
+            assertEquals("Unexpected name", "open", things.get(0).thingName);
+        }
+    }
+
+    @Test
+    public void test_noMatchingField() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, colour text)");
+        execute(dataSource, "insert into thing values (1, 'red')");
+        try (Connection connection = dataSource.getConnection()) {
+            Jdbc.queryForList(connection, "select * from thing", Thing.class);
+            fail("Expected an exception");
+        } catch (RuntimeException e) {
+            assertEquals("Unexpected message", Thing.class.getName() + " has no field or setter for column \"colour\"", e.getMessage());
+        }
+    }
+
+    @Test
+    public void test_changedResultSet() throws Exception {
+        DataSource dataSource = newDataSource("create table thing (id integer primary key, thing_name text)");
+        execute(dataSource, "insert into thing values (1, 'one')");
+        String sql = "select * from thing";
+        try (Connection connection = dataSource.getConnection()) {
+            List<Thing> things = Jdbc.queryForList(connection, sql, Thing.class);
+            assertEquals("Unexpected name", "one", things.get(0).thingName);
+        }
+
+        // The same sql now returns the columns in a different order, and an extra one
+        execute(dataSource, "drop table thing");
+        execute(dataSource, "create table thing (thing_name text, id integer primary key, amount numeric)");
+        execute(dataSource, "insert into thing values ('two', 2, 2.5)");
+        try (Connection connection = dataSource.getConnection()) {
+            List<Thing> things = Jdbc.queryForList(connection, sql, Thing.class);
+            assertEquals("Unexpected id", 2, things.get(0).id);
+            assertEquals("Unexpected name", "two", things.get(0).thingName);
+            assertEquals("Unexpected amount", new BigDecimal("2.5"), things.get(0).amount);
+        }
+    }
+
+    public enum Status {
+        open,
+        closed
+    }
+
+    public static class Thing {
+
+        private int id;
+        private String thingName;
+        private BigDecimal amount;
+        private long bigCount;
+        private double rating;
+        private boolean active;
+        private Status status;
+        private Day birthDate;
+        private Integer optionalCount;
+        private String descriptionValue;
+
+        public String getDescription() {
+            return descriptionValue;
+        }
+
+        public void setDescription(String description) {
+            this.descriptionValue = description == null ? null : description + " (set)";
+        }
+
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.jirvan.util;
+
+import com.jirvan.dates.Day;
+import com.jirvan.dates.Month;
+import org.testng.annotations.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.AssertJUnit.*;
+
+public class QueryResultCache_TestCase {
+
+    private static final long LONG_TIME = 60000;
+
+    @Test
+    public void test_timeToLive() throws Exception {
+        CountingConnection counting = new CountingConnection();
+        QueryResultCache cache = new QueryResultCache(100);
+        assertEquals("Expected a query", 1, cache.queryForObject(counting.connection, "select 1", null, LONG_TIME));
+        assertEquals("Expected a cache hit", 1, cache.queryForObject(counting.connection, "select 1", null, LONG_TIME));
+
+        // An entry with no time to live is stale straight away
+        assertEquals("Expected a query", 2, cache.queryForObject(counting.connection, "select 2", null, 0));
+        assertEquals("Expected a query", 3, cache.queryForObject(counting.connection, "select 2", null, 0));
+
+        assertEquals("Expected a query", 4, cache.queryForObject(counting.connection, "select 3", null, 50));
+        Thread.sleep(100);
+        assertEquals("Expected a query", 5, cache.queryForObject(counting.connection, "select 3", null, LONG_TIME));
+        assertEquals("Expected a cache hit", 5, cache.queryForObject(counting.connection, "select 3", null, LONG_TIME));
+
+        QueryResultCache.Statistics statistics = cache.getStatistics();
+        assertEquals("Unexpected hits", 2, statistics.hits);
+        assertEquals("Unexpected misses", 5, statistics.misses);
+        assertEquals("Unexpected stale entries", 2, statistics.staleEntries);
+        assertEquals("Unexpected entries", 3, statistics.entries);
+    }
+
+    @Test
+    public void test_invalidateTables() {
+        CountingConnection counting = new CountingConnection();
+        QueryResultCache cache = new QueryResultCache(100);
+        assertEquals("Expected a query", 1, cache.queryForObject(counting.connection, "select 1", null, LONG_TIME, "THING"));
+        assertEquals("Expected a query", 2, cache.queryForObject(counting.connection, "select 2", null, LONG_TIME, "thing", "other_thing"));
+        assertEquals("Expected a query", 3, cache.queryForObject(counting.connection, "select 3", null, LONG_TIME, "other_thing"));
+        assertEquals("Expected a query", 4, cache.queryForObject(counting.connection, "select 4", null, LONG_TIME));
+
+        // Table names are not case sensitive and only tagged entries are invalidated
+        cache.invalidateTables("Thing");
+        assertEquals("Expected a query", 5, cache.queryForObject(counting.connection, "select 1", null, LONG_TIME, "THING"));
+        assertEquals("Expected a query", 6, cache.queryForObject(counting.connection, "select 2", null, LONG_TIME, "thing", "other_thing"));
+        assertEquals("Expected a cache hit", 3, cache.queryForObject(counting.connection, "select 3", null, LONG_TIME, "other_thing"));
+        assertEquals("Expected a cache hit", 4, cache.queryForObject(counting.connection, "select 4", null, LONG_TIME));
+
+        // Reloaded entries are current for the new generation
+        assertEquals("Expected a cache hit", 5, cache.queryForObject(counting.connection, "select 1", null, LONG_TIME, "THING"));
+
+        cache.invalidateTables("other_thing");
+        assertEquals("Expected a cache hit", 5, cache.queryForObject(counting.connection, "select 1", null, LONG_TIME, "THING"));
+        assertEquals("Expected a query", 7, cache.queryForObject(counting.connection, "select 2", null, LONG_TIME, "thing", "other_thing"));
+
+        cache.invalidateAll();
+        assertEquals("Expected a query", 8, cache.queryForObject(counting.connection, "select 4", null, LONG_TIME));
+    }
+
+    @Test
+    public void test_keyEquality() {
+        CountingConnection counting = new CountingConnection();
+        QueryResultCache cache = new QueryResultCache(100);
+        String sql = "select count(*) from thing where day = ? and month = ? and amount = ?";
+        assertEquals("Expected a query", 1, cache.queryForObject(counting.connection, sql, new Object[]{new Day(2019, 3, 2), new Month(2019, 3), new BigDecimal("1.5")}, LONG_TIME));
+        assertEquals("Expected a cache hit", 1, cache.queryForObject(counting.connection, sql, new Object[]{new Day(2019, 3, 2), new Month(2019, 3), new BigDecimal("1.5")}, LONG_TIME));
+        assertEquals("Expected a query", 2, cache.queryForObject(counting.connection, sql, new Object[]{new Day(2019, 3, 3), new Month(2019, 3), new BigDecimal("1.5")}, LONG_TIME));
+        assertEquals("Expected a query", 3, cache.queryForObject(counting.connection, sql, new Object[]{new Day(2019, 3, 2), new Month(2019, 4), new BigDecimal("1.5")}, LONG_TIME));
+        assertEquals("Expected a query", 4, cache.queryForObject(counting.connection, sql, new Object[]{new Day(2019, 3, 2), new Month(2019, 3), new BigDecimal("1.50")}, LONG_TIME));
+        assertEquals("Expected a query", 5, cache.queryForObject(counting.connection, sql, null, LONG_TIME));
+        assertEquals("Expected a query", 6, cache.queryForObject(counting.connection, sql, new Object[0], LONG_TIME));
+        assertEquals("Expected a cache hit", 5, cache.queryForObject(counting.connection, sql, null, LONG_TIME));
+
+        // The parameter values are copied so changing the array afterwards doesn't change the key
+        Object[] parameterValues = {"a"};
+        assertEquals("Expected a query", 7, cache.queryForObject(counting.connection, sql, parameterValues, LONG_TIME));
+        parameterValues[0] = "b";
+        assertEquals("Expected a query", 8, cache.queryForObject(counting.connection, sql, parameterValues, LONG_TIME));
+        assertEquals("Expected a cache hit", 7, cache.queryForObject(counting.connection, sql, new Object[]{"a"}, LONG_TIME));
+
+        // Lists and objects, and lists with different row mappers, are cached separately
+        Jdbc.RowMapper<Object> rowMapper = rset -> rset.getObject(1);
+        Jdbc.RowMapper<Object> otherRowMapper = rset -> rset.getObject(1);
+        assertEquals("Expected a query", Arrays.asList(9), cache.queryForList(counting.connection, sql, null, rowMapper, LONG_TIME));
+        assertEquals("Expected a cache hit", Arrays.asList(9), cache.queryForList(counting.connection, sql, null, rowMapper, LONG_TIME));
+        List<Object> list = cache.queryForList(counting.connection, sql, null, otherRowMapper, LONG_TIME);
+        assertEquals("Expected a query", Arrays.asList(10), list);
+    }
+
+    /**
+     * Every query returns a single row containing the number of queries run so far.
+     */
+    private static class CountingConnection {
+
+        private final AtomicInteger queries = new AtomicInteger();
+        private final Connection connection = proxy(Connection.class, (proxy, method, args) -> {
+            if (method.getName().equals("prepareStatement")) {
+                return proxy(PreparedStatement.class, (statementProxy, statementMethod, statementArgs) -> {
+                    if (statementMethod.getName().equals("executeQuery")) {
+                        int count = queries.incrementAndGet();
+                        boolean[] read = {false};
+                        return proxy(ResultSet.class, (rsetProxy, rsetMethod, rsetArgs) -> {
+                            switch (rsetMethod.getName()) {
+                                case "next":
+                                    boolean hasNext = !read[0];
+                                    read[0] = true;
+                                    return hasNext;
+                                case "getObject":
+                                    return count;
+                                default:
+                                    return null;
+                            }
+                        });
+                    }
+                    return null;
+                });
+            }
+            return null;
+        });
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+}
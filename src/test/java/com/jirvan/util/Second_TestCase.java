@@ -58,4 +58,37 @@ public class Second_TestCase extends TestCase {
 
     }
 
+    public void test_normalization() {
+
+        // Out of range fields are kept as given but compare, hash and convert as they
+        // would roll over in a lenient GregorianCalendar
+        assertNormalized("1992-12-31 23:59:59", new Second(1992, 12, 31, 23, 59, 59));
+        assertNormalized("1993-01-01 00:00:00", new Second(1992, 12, 31, 23, 59, 60));
+        assertNormalized("1993-01-01 00:00:03", new Second(1992, 12, 31, 23, 59, 63));
+        assertNormalized("1993-01-01 00:00:04", new Second(1992, 12, 31, 23, 59, 64));
+        assertNormalized("1993-01-01 00:03:00", new Second(1992, 12, 31, 23, 63, 0));
+        assertNormalized("1993-01-01 07:00:00", new Second(1992, 12, 31, 31, 0, 0));
+        assertNormalized("1992-12-31 23:59:59", new Second(1993, 1, 1, 0, 0, -1));
+
+        // Setters keep the fields as given, so setting the day and then the month works as it always has
+        Second second = new Second(2019, 2, 1, 10, 0, 0).setDayInMonth(31);
+        Assert.assertEquals("Unexpected day in month", 31, second.getDayInMonth());
+        assertNormalized("2019-03-03 10:00:00", second);
+        assertNormalized("2019-03-31 10:00:00", second.setMonthInYear(3));
+        Assert.assertEquals("Unexpected second string", "2019-03-31 10:00:00", second.toString());
+        Assert.assertEquals("Unexpected second string", "1992-12-31 23:59:60", new Second(1992, 12, 31, 23, 59, 60).toString());
+
+        // Years are kept whatever their size
+        Assert.assertEquals("Unexpected year", 134217728, new Second(134217728, 1, 1, 0, 0, 0).getYear());
+        Assert.assertEquals("Unexpected year", Integer.MIN_VALUE, new Second(Integer.MIN_VALUE, 1, 1, 0, 0, 0).getYear());
+
+    }
+
+    private static void assertNormalized(String expected, Second second) {
+        Assert.assertEquals("Expected equal seconds", Second.fromString(expected), second);
+        Assert.assertEquals("Expected equal hash codes", Second.fromString(expected).hashCode(), second.hashCode());
+        Assert.assertEquals("Expected equal comparison", 0, Second.fromString(expected).compareTo(second));
+        Assert.assertEquals("Unexpected date", Second.fromString(expected).getDate(), second.getDate());
+    }
+
 }
@@ -0,0 +1,32 @@
+package com.jirvan.util;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Throwaway SQLite databases for the tests that need a real database but
+ * shouldn't depend on one being set up.
+ */
+public class SqliteTestDatabases {
+
+    public static DataSource newDataSource(String... ddl) throws IOException, SQLException {
+        File dbFile = File.createTempFile("jirvan", ".db");
+        dbFile.deleteOnExit();
+        DataSource dataSource = new SQLiteDataSource(dbFile);
+        for (String sql : ddl) {
+            execute(dataSource, sql);
+        }
+        return dataSource;
+    }
+
+    public static void execute(DataSource dataSource, String sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+}
@@ -0,0 +1,65 @@
+package com.jirvan.util;
+
+import com.jirvan.dates.*;
+import org.testng.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.testng.AssertJUnit.*;
+
+public class TimeBucketAggregator_TestCase {
+
+    @Test
+    public void test_dayBuckets() {
+        TimeBucketAggregator<String> aggregator = new TimeBucketAggregator<>(TimeBucketAggregator.Granularity.day);
+        aggregator.add("a", new Minute(2019, 4, 6, 23, 59), 2)
+                  .add("a", new Second(2019, 4, 6, 0, 0, 0), 5)
+                  .add("a", new Day(2019, 4, 8), -1)
+                  .add("b", new Hour(2019, 4, 7, 12), 3);
+
+        DaySeries sums = aggregator.getDaySeries("a", MinuteSeries.Aggregation.sum);
+        assertEquals("Unexpected sum", 7.0, sums.get(new Day(2019, 4, 6)), 0);
+        assertFalse("Expected no value", sums.has(new Day(2019, 4, 7)));
+        assertEquals("Unexpected sum", -1.0, sums.get(new Day(2019, 4, 8)), 0);
+        assertEquals("Unexpected min", 2.0, aggregator.getDaySeries("a", MinuteSeries.Aggregation.min).get(new Day(2019, 4, 6)), 0);
+        assertEquals("Unexpected count", 2.0, aggregator.getDaySeries("a", MinuteSeries.Aggregation.count).get(new Day(2019, 4, 6)), 0);
+        assertEquals("Unexpected mean", 3.0, aggregator.getDaySeries("b", MinuteSeries.Aggregation.mean).get(new Day(2019, 4, 7)), 0);
+        assertEquals("Unexpected size", 0, aggregator.getDaySeries("c", MinuteSeries.Aggregation.sum).size());
+
+        try {
+            aggregator.getDaySeries("a", MinuteSeries.Aggregation.first);
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+        }
+    }
+
+    @Test
+    public void test_parallelCollect() {
+        TimeBucketAggregator<Integer> aggregator = IntStream.range(0, 100000).parallel().boxed()
+                                                            .collect(TimeBucketAggregator.collector(TimeBucketAggregator.Granularity.hour,
+                                                                                                    (TimeBucketAggregator<Integer> a, Integer i) -> a.add(i % 3, new Minute(2019, 1, 1, 0, 0).advanced(i), i)));
+        MinuteSeries counts = aggregator.getMinuteSeries(1, MinuteSeries.Aggregation.count);
+        assertEquals("Unexpected count", 20.0, counts.get(new Minute(2019, 1, 1, 0, 0)), 0);
+        assertEquals("Unexpected max", 99997.0, aggregator.getMinuteSeries(1, MinuteSeries.Aggregation.max).get(new Minute(2019, 3, 11, 10, 0)), 0);
+    }
+
+    @Test
+    public void test_openBuckets() {
+        List<String> completed = new ArrayList<>();
+        TimeBucketAggregator<String> aggregator = new TimeBucketAggregator<>(TimeBucketAggregator.Granularity.month, 2,
+                                                                             (key, bucketStart, count, sum, min, max) -> completed.add(key + " " + bucketStart + " " + count + " " + sum));
+        aggregator.add("a", new Day(2019, 1, 31), 1)
+                  .add("a", new Day(2019, 2, 1), 2)
+                  .add("b", new Day(2019, 2, 2), 3)
+                  .add("a", new Day(2019, 3, 1), 4);
+        assertEquals("Unexpected completed buckets", "[a 2019-01-01 00:00 1 1.0]", completed.toString());
+        aggregator.add("a", new Day(2018, 12, 25), 5);
+        assertEquals("Unexpected late bucket", "a 2018-12-01 00:00 1 5.0", completed.get(1));
+        aggregator.flush();
+        assertEquals("Unexpected number of completed buckets", 5, completed.size());
+        assertTrue("Expected no keys", aggregator.getKeys().isEmpty());
+    }
+
+}